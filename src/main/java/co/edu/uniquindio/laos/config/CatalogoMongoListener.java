@@ -0,0 +1,66 @@
+package co.edu.uniquindio.laos.config;
+
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Servicio;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import co.edu.uniquindio.laos.services.interfaces.ReconciliacionCitasService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Escucha los eventos de persistencia de MongoDB para mantener coherente
+ * el catálogo en memoria de estilistas y servicios.
+ * Cada vez que se guarda o elimina uno de estos documentos se invalida
+ * la instantánea correspondiente y se pide actualizar en segundo plano
+ * el nombre copiado en las citas.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogoMongoListener extends AbstractMongoEventListener<Object> {
+
+    /**
+     * Servicio que mantiene el catálogo en memoria
+     */
+    private final CatalogoService catalogoService;
+
+    /**
+     * Servicio que actualiza los nombres copiados en las citas
+     */
+    private final ReconciliacionCitasService reconciliacionCitasService;
+
+    /**
+     * Invalida el catálogo cuando se guarda un estilista o un servicio y propaga su nombre a las citas.
+     * @param event Evento con el documento guardado
+     */
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Object fuente = event.getSource();
+        if (fuente instanceof Estilista estilista) {
+            catalogoService.invalidarEstilistas();
+            if (estilista.getNombre() != null) {
+                reconciliacionCitasService.reconciliarEstilista(estilista.getId(), estilista.getNombre());
+            }
+        } else if (fuente instanceof Servicio servicio) {
+            catalogoService.invalidarServicios();
+            if (servicio.getNombre() != null) {
+                reconciliacionCitasService.reconciliarServicio(servicio.getId(), servicio.getNombre());
+            }
+        }
+    }
+
+    /**
+     * Invalida el catálogo cuando se elimina un documento de estilistas o servicios.
+     * @param event Evento con la colección afectada
+     */
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if ("estilistas".equals(event.getCollectionName())) {
+            catalogoService.invalidarEstilistas();
+        } else if ("servicios".equals(event.getCollectionName())) {
+            catalogoService.invalidarServicios();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package co.edu.uniquindio.laos.config;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.repositories.CitaRepoArchivo;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Crea al arrancar los índices declarados en los documentos del modelo
+ * (@Indexed y @CompoundIndex) y elimina los que fueron reemplazados. Un índice único nuevo
+ * fallaría sobre datos que ya lo violan, así que antes se corrigen esos datos.
+ * Se hace de forma explícita en lugar de depender de auto-index-creation,
+ * así los índices quedan creados antes de que la aplicación atienda peticiones.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndicesMongoInicializador {
+
+    /**
+     * Índices que ya no se usan, por colección. Se eliminan para no pagar su
+     * mantenimiento en cada escritura.
+     */
+    private static final Map<String, List<String>> INDICES_OBSOLETOS = Map.of(
+            // modificacion repetía la clave del índice de @Indexed en fechaModificacion
+            "citas", List.of("estilista_fecha", "modificacion"),
+            // codigo pasó a codigo_unico, estadoCupon a estado_vencimiento y campania_usuario a campania_usuario_id
+            "cupones", List.of("codigo", "estadoCupon", "campania_usuario")
+    );
+
+    /**
+     * Colecciones que guardan los mismos documentos que una entidad y necesitan sus mismos índices
+     */
+    private static final Map<Class<?>, String> COLECCIONES_ESPEJO = Map.of(
+            Cita.class, CitaRepoArchivo.COLECCION_ARCHIVO
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final CuponRepo cuponRepo;
+
+    /**
+     * Recorre las entidades anotadas con @Document y asegura cada uno de sus índices,
+     * también en las colecciones espejo como el archivo de citas.
+     * ensureIndex no hace nada si el índice ya existe con la misma definición.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void crearIndices() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (MongoPersistentEntity<?> entidad : mappingContext.getPersistentEntities()) {
+            if (!entidad.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            IndexOperations operaciones = mongoTemplate.indexOps(entidad.getType());
+            eliminarObsoletos(entidad.getCollection(), operaciones);
+            if (entidad.getType() == Cupon.class && !existeIndice(operaciones, "codigo_unico")) {
+                // Bases anteriores al índice único pueden tener códigos repetidos
+                cuponRepo.renombrarCodigosRepetidos();
+            }
+            resolver.resolveIndexFor(entidad.getType()).forEach(operaciones::ensureIndex);
+        }
+
+        COLECCIONES_ESPEJO.forEach((tipo, coleccion) -> {
+            IndexOperations operaciones = mongoTemplate.indexOps(coleccion);
+            eliminarObsoletos(mongoTemplate.getCollectionName(tipo), operaciones);
+            resolver.resolveIndexFor(tipo).forEach(operaciones::ensureIndex);
+        });
+    }
+
+    /**
+     * @return true si la colección ya tiene un índice con ese nombre
+     */
+    private boolean existeIndice(IndexOperations operaciones, String nombre) {
+        return operaciones.getIndexInfo().stream().anyMatch(indice -> nombre.equals(indice.getName()));
+    }
+
+    /**
+     * Elimina los índices obsoletos de una colección, si todavía existen
+     * @param coleccion Nombre de la colección cuya lista de obsoletos se aplica
+     * @param operaciones Operaciones de índices de la colección
+     */
+    private void eliminarObsoletos(String coleccion, IndexOperations operaciones) {
+        List<String> obsoletos = INDICES_OBSOLETOS.getOrDefault(coleccion, List.of());
+        if (obsoletos.isEmpty()) {
+            return;
+        }
+        operaciones.getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .filter(obsoletos::contains)
+                .forEach(operaciones::dropIndex);
+    }
+}
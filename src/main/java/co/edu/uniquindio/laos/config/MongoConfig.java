@@ -0,0 +1,30 @@
+package co.edu.uniquindio.laos.config;
+
+import co.edu.uniquindio.laos.services.interfaces.VerificacionIndicesService;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+
+/**
+ * Configuración de MongoDB.
+ * Habilita la auditoría de Spring Data para que los campos anotados con
+ * @LastModifiedDate se actualicen automáticamente cada vez que se guarda un documento.
+ */
+@Configuration      // Define esta clase como una configuración de Spring
+@EnableMongoAuditing // Habilita el llenado automático de las fechas de auditoría
+public class MongoConfig {
+
+    /**
+     * Verifica al arrancar que ninguna consulta de los repositorios recorra una colección completa.
+     * Se ejecuta después de crear los índices; si alguna consulta planea un COLLSCAN el arranque falla.
+     * @param verificacionIndicesService Servicio que ejecuta explain sobre las consultas
+     * @return Tarea de arranque
+     */
+    @Bean
+    @ConditionalOnProperty(name = "laos.mongo.verificar-planes", havingValue = "true")
+    public ApplicationRunner verificarPlanesDeConsulta(VerificacionIndicesService verificacionIndicesService) {
+        return args -> verificacionIndicesService.verificar();
+    }
+}
@@ -0,0 +1,14 @@
+package co.edu.uniquindio.laos.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuración para habilitar las tareas programadas de la aplicación.
+ * Permite que los métodos anotados con @Scheduled se ejecuten periódicamente,
+ * por ejemplo para el mantenimiento de las estructuras en memoria de la agenda.
+ */
+@Configuration     // Define esta clase como una configuración de Spring
+@EnableScheduling  // Habilita la ejecución de tareas programadas
+public class SchedulingConfig {
+}
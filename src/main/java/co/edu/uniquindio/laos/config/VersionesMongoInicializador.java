@@ -0,0 +1,41 @@
+package co.edu.uniquindio.laos.config;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.CitaRepoArchivo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asigna la versión inicial a los documentos guardados antes de que Cita, Cupon y Usuario
+ * tuvieran un campo @Version.
+ *
+ * Spring Data toma un documento con versión nula como nuevo y lo inserta en lugar de
+ * actualizarlo, lo que fallaría por clave duplicada. Después de la primera ejecución ningún
+ * documento queda sin versión y la actualización no modifica nada.
+ */
+@Component
+@RequiredArgsConstructor
+public class VersionesMongoInicializador {
+
+    private static final Query SIN_VERSION = new Query(Criteria.where("version").exists(false));
+
+    private static final Update VERSION_INICIAL = new Update().set("version", 0L);
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void asignarVersiones() {
+        mongoTemplate.updateMulti(SIN_VERSION, VERSION_INICIAL, Usuario.class);
+        mongoTemplate.updateMulti(SIN_VERSION, VERSION_INICIAL, Cupon.class);
+        mongoTemplate.updateMulti(SIN_VERSION, VERSION_INICIAL, Cita.class);
+        mongoTemplate.updateMulti(SIN_VERSION, VERSION_INICIAL, Cita.class, CitaRepoArchivo.COLECCION_ARCHIVO);
+    }
+}
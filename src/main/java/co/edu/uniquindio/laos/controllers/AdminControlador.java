@@ -1,18 +1,29 @@
 package co.edu.uniquindio.laos.controllers;
 
     import co.edu.uniquindio.laos.dto.MensajeDTO;
+    import co.edu.uniquindio.laos.dto.cita.FiltroCitasDTO;
     import co.edu.uniquindio.laos.dto.cita.InformacionCitaDTO;
+    import co.edu.uniquindio.laos.dto.cita.PaginaCitasDTO;
+    import co.edu.uniquindio.laos.dto.cita.ReasignarCitasDTO;
+    import co.edu.uniquindio.laos.dto.cita.ResultadoReasignacionDTO;
     import co.edu.uniquindio.laos.dto.cuenta.EditarUsuarioDTO;
     import co.edu.uniquindio.laos.dto.cuenta.InformacionUsuarioDTO;
+    import co.edu.uniquindio.laos.dto.cupon.CampaniaCuponesDTO;
+    import co.edu.uniquindio.laos.dto.cupon.CrearCampaniaCuponesDTO;
     import co.edu.uniquindio.laos.dto.cupon.CrearCuponDTO;
     import co.edu.uniquindio.laos.dto.cupon.CuponDTO;
     import co.edu.uniquindio.laos.dto.cupon.EditarCuponDTO;
+    import co.edu.uniquindio.laos.dto.cupon.GenerarCuponesDTO;
+    import co.edu.uniquindio.laos.dto.cupon.ResultadoGeneracionCuponesDTO;
     import co.edu.uniquindio.laos.dto.sugerencias.SugerenciaDTO;
     import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
     import co.edu.uniquindio.laos.services.interfaces.*;
     import co.edu.uniquindio.laos.dto.queja.QuejaDTO;
     import co.edu.uniquindio.laos.model.EstadoQueja;
+    import co.edu.uniquindio.laos.model.EventoCita;
+    import co.edu.uniquindio.laos.model.HistorialCliente;
     import co.edu.uniquindio.laos.model.Queja;
+    import co.edu.uniquindio.laos.model.UtilizacionEstilista;
     import io.swagger.v3.oas.annotations.security.SecurityRequirement;
     import jakarta.validation.Valid;
     import lombok.RequiredArgsConstructor;
@@ -59,6 +70,21 @@ package co.edu.uniquindio.laos.controllers;
 
         private final CuponService cuponService;
 
+        /**
+         * Servicio para el registro de eventos de citas y sus proyecciones
+         */
+        private final EventosCitasService eventosCitasService;
+
+        /**
+         * Servicio para la generación de cupones de campaña en lote
+         */
+        private final GeneracionCuponesService generacionCuponesService;
+
+        /**
+         * Servicio para la asignación de cupones de campaña a segmentos de clientes
+         */
+        private final CampaniaCuponesService campaniaCuponesService;
+
         /**
          * Obtiene todas las sugerencias registradas en el sistema
          * @return Lista de todas las sugerencias
@@ -183,35 +209,65 @@ package co.edu.uniquindio.laos.controllers;
         }
 
         /**
-         * Obtiene todas las citas registradas en el sistema
-         * @return Lista completa de citas
+         * Lista las citas del sistema por páginas, con filtros opcionales
+         * @param estado Estado de la cita, o TODAS
+         * @param estilistaId Identificador del estilista
+         * @param clienteId Identificador del cliente
+         * @param desde Primer día (yyyy-MM-dd)
+         * @param hasta Último día, incluido (yyyy-MM-dd)
+         * @param cursor Cursor devuelto por la página anterior
+         * @param tamanio Número de citas por página
+         * @return Página de citas y cursor de la siguiente
+         * @throws Exception Si el rango de fechas o el cursor no son válidos
          */
         @GetMapping("/citas/todas")
-        public ResponseEntity<MensajeDTO<List<InformacionCitaDTO>>> listarTodasCitas() {
-            List<InformacionCitaDTO> citas = citasService.obtenerCitasPorEstado("TODAS");
-            return ResponseEntity.ok().body(new MensajeDTO<>(false, citas));
+        public ResponseEntity<MensajeDTO<PaginaCitasDTO>> listarTodasCitas(
+                @RequestParam(required = false) String estado,
+                @RequestParam(required = false) String estilistaId,
+                @RequestParam(required = false) String clienteId,
+                @RequestParam(required = false) String desde,
+                @RequestParam(required = false) String hasta,
+                @RequestParam(required = false) String cursor,
+                @RequestParam(required = false) Integer tamanio) throws Exception {
+            PaginaCitasDTO pagina = citasService.listarCitas(
+                    new FiltroCitasDTO(estado, estilistaId, clienteId, desde, hasta, cursor, tamanio));
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, pagina));
         }
 
         /**
-         * Filtra citas según su estado actual
+         * Filtra citas según su estado actual, por páginas
          * @param estado Estado de la cita (PROGRAMADA, CANCELADA, COMPLETADA, etc.)
-         * @return Lista de citas con el estado especificado
+         * @param cursor Cursor devuelto por la página anterior
+         * @param tamanio Número de citas por página
+         * @return Página de citas con el estado especificado
+         * @throws Exception Si el cursor no es válido
          */
         @GetMapping("/citas/por-estado")
-        public ResponseEntity<MensajeDTO<List<InformacionCitaDTO>>> listarCitasPorEstado(@RequestParam String estado) {
-            List<InformacionCitaDTO> citas = citasService.obtenerCitasPorEstado(estado);
-            return ResponseEntity.ok().body(new MensajeDTO<>(false, citas));
+        public ResponseEntity<MensajeDTO<PaginaCitasDTO>> listarCitasPorEstado(
+                @RequestParam String estado,
+                @RequestParam(required = false) String cursor,
+                @RequestParam(required = false) Integer tamanio) throws Exception {
+            PaginaCitasDTO pagina = citasService.listarCitas(
+                    new FiltroCitasDTO(estado, null, null, null, null, cursor, tamanio));
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, pagina));
         }
 
         /**
-         * Obtiene todas las citas asignadas a un estilista específico
+         * Obtiene las citas asignadas a un estilista específico, por páginas
          * @param estilistaId Identificador del estilista
-         * @return Lista de citas del estilista
+         * @param cursor Cursor devuelto por la página anterior
+         * @param tamanio Número de citas por página
+         * @return Página de citas del estilista
+         * @throws Exception Si el cursor no es válido
          */
         @GetMapping("/citas/por-estilista/{estilistaId}")
-        public ResponseEntity<MensajeDTO<List<InformacionCitaDTO>>> listarCitasPorEstilista(@PathVariable String estilistaId) {
-            List<InformacionCitaDTO> citas = citasService.obtenerCitasPorEstilistaId(estilistaId);
-            return ResponseEntity.ok().body(new MensajeDTO<>(false, citas));
+        public ResponseEntity<MensajeDTO<PaginaCitasDTO>> listarCitasPorEstilista(
+                @PathVariable String estilistaId,
+                @RequestParam(required = false) String cursor,
+                @RequestParam(required = false) Integer tamanio) throws Exception {
+            PaginaCitasDTO pagina = citasService.listarCitas(
+                    new FiltroCitasDTO(null, estilistaId, null, null, null, cursor, tamanio));
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, pagina));
         }
 
         /**
@@ -248,6 +304,67 @@ package co.edu.uniquindio.laos.controllers;
             String id = citasService.cancelarCita(citaId);
             return ResponseEntity.ok().body(new MensajeDTO<>(false, "Cita con id " + id + " cancelada correctamente"));
         }
+
+        /**
+         * Reasigna a otros estilistas, o cancela, todas las citas de un estilista que no estará
+         * disponible en un rango de tiempo
+         * @param reasignarCitasDTO Estilista, rango afectado y si solo se quiere cancelar
+         * @return Citas reasignadas y canceladas; los clientes se avisan por correo
+         * @throws Exception Si el rango no es válido o el estilista no existe
+         */
+        @PutMapping("/citas/reasignar-estilista")
+        public ResponseEntity<MensajeDTO<ResultadoReasignacionDTO>> reasignarCitasEstilista(
+                @RequestBody ReasignarCitasDTO reasignarCitasDTO) throws Exception {
+            ResultadoReasignacionDTO resultado = citasService.reasignarCitasEstilista(reasignarCitasDTO);
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, resultado));
+        }
+
+        /**
+         * Obtiene los eventos de una cita (creación, reprogramaciones, cancelación, cierre) en orden
+         * @param citaId Identificador de la cita
+         * @return Eventos registrados de la cita
+         */
+        @GetMapping("/citas/{citaId}/historial")
+        public ResponseEntity<MensajeDTO<List<EventoCita>>> obtenerHistorialCita(@PathVariable String citaId) {
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, eventosCitasService.obtenerHistorialCita(citaId)));
+        }
+
+        /**
+         * Obtiene las citas y minutos reservados de un estilista por día
+         * @param estilistaId Identificador del estilista
+         * @param desde Primer día (yyyy-MM-dd)
+         * @param hasta Último día, incluido (yyyy-MM-dd)
+         * @return Utilización de los días con citas
+         * @throws Exception Si las fechas no son válidas
+         */
+        @GetMapping("/estilistas/{estilistaId}/utilizacion")
+        public ResponseEntity<MensajeDTO<List<UtilizacionEstilista>>> obtenerUtilizacionEstilista(
+                @PathVariable String estilistaId,
+                @RequestParam String desde,
+                @RequestParam String hasta) throws Exception {
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, eventosCitasService.obtenerUtilizacion(estilistaId, desde, hasta)));
+        }
+
+        /**
+         * Obtiene cuántas citas creó, reprogramó, canceló y completó un cliente
+         * @param clienteId Identificador del cliente
+         * @return Historial de citas del cliente
+         */
+        @GetMapping("/clientes/{clienteId}/historial-citas")
+        public ResponseEntity<MensajeDTO<HistorialCliente>> obtenerHistorialCliente(@PathVariable String clienteId) {
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, eventosCitasService.obtenerHistorialCliente(clienteId)));
+        }
+
+        /**
+         * Vacía las proyecciones de citas y las vuelve a calcular desde el registro de eventos
+         * @return Número de eventos repetidos
+         * @throws Exception Si otra instancia está procesando los eventos
+         */
+        @PostMapping("/proyecciones-citas/reconstruir")
+        public ResponseEntity<MensajeDTO<Long>> reconstruirProyeccionesCitas() throws Exception {
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, eventosCitasService.reconstruirProyecciones()));
+        }
+
         @GetMapping("/obtener-usuario/{codigo}")
         public ResponseEntity<MensajeDTO<InformacionUsuarioDTO>> obtenerInformacionUsuarioAdmin(@PathVariable String codigo) throws Exception{
             return ResponseEntity.ok().body( new MensajeDTO<>(false,
@@ -264,6 +381,37 @@ package co.edu.uniquindio.laos.controllers;
             return ResponseEntity.ok().body(new MensajeDTO<>(false, cuponService.crearCupon(crearCuponDTO)));
         }
 
+        /**
+         * Genera de una vez los cupones de una campaña, cada uno con un código único
+         * @param generarCuponesDTO Campaña, cantidad y condiciones de los cupones
+         * @return Cupones generados, códigos regenerados por choque, duración y cupones por segundo
+         */
+        @PostMapping ("/cupon/generar-cupones")
+        public ResponseEntity<MensajeDTO<ResultadoGeneracionCuponesDTO>> generarCupones(@Valid @RequestBody GenerarCuponesDTO generarCuponesDTO) {
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, generacionCuponesService.generarCupones(generarCuponesDTO)));
+        }
+
+        /**
+         * Registra una campaña que asigna un cupón a cada cliente del segmento indicado.
+         * La asignación la hace una tarea programada que se puede seguir con el id devuelto.
+         * @param crearCampaniaCuponesDTO Segmento de clientes y condiciones de los cupones
+         * @return Identificador de la campaña
+         */
+        @PostMapping ("/cupon/campanias")
+        public ResponseEntity<MensajeDTO<String>> crearCampania(@Valid @RequestBody CrearCampaniaCuponesDTO crearCampaniaCuponesDTO) throws Exception {
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, campaniaCuponesService.crearCampania(crearCampaniaCuponesDTO)));
+        }
+
+        /**
+         * Consulta el avance de una campaña de cupones
+         * @param id Identificador de la campaña
+         * @return Estado, clientes evaluados y cupones asignados
+         */
+        @GetMapping ("/cupon/campanias/{id}")
+        public ResponseEntity<MensajeDTO<CampaniaCuponesDTO>> obtenerCampania(@PathVariable String id) throws Exception {
+            return ResponseEntity.ok().body(new MensajeDTO<>(false, campaniaCuponesService.obtenerCampania(id)));
+        }
+
         @PutMapping ("/cupon/editar-cupon")
         public ResponseEntity<MensajeDTO<String>> editarCupon(@Valid @RequestBody EditarCuponDTO editarCuponDTO) throws Exception {
             return ResponseEntity.ok().body(new MensajeDTO<>(false, cuponService.editarCupon(editarCuponDTO)));
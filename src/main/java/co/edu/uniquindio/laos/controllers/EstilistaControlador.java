@@ -1,12 +1,18 @@
 package co.edu.uniquindio.laos.controllers;
 
         import co.edu.uniquindio.laos.dto.MensajeDTO;
+        import co.edu.uniquindio.laos.dto.cita.AgendaDiariaDTO;
+        import co.edu.uniquindio.laos.dto.cita.FiltroCitasDTO;
         import co.edu.uniquindio.laos.dto.cita.InformacionCitaDTO;
+        import co.edu.uniquindio.laos.dto.cita.PaginaCitasDTO;
+        import co.edu.uniquindio.laos.services.interfaces.AgendaDiariaService;
+        import co.edu.uniquindio.laos.services.interfaces.CalendarioIcsService;
         import co.edu.uniquindio.laos.services.interfaces.CitasService;
         import io.swagger.v3.oas.annotations.security.SecurityRequirement;
         import lombok.RequiredArgsConstructor;
         import org.springframework.http.ResponseEntity;
         import org.springframework.web.bind.annotation.*;
+        import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
         import java.util.List;
 
@@ -31,14 +37,82 @@ package co.edu.uniquindio.laos.controllers;
             private final CitasService citasService;
 
             /**
-             * Obtiene todas las citas asignadas a un estilista específico
+             * Servicio que genera el feed .ics de las citas
+             */
+            private final CalendarioIcsService calendarioIcsService;
+
+            /**
+             * Servicio que mantiene en memoria la agenda de hoy y mañana de cada estilista
+             */
+            private final AgendaDiariaService agendaDiariaService;
+
+            /**
+             * Obtiene las citas asignadas a un estilista específico, por páginas
              * @param estilistaId Identificador único del estilista
-             * @return Lista de citas asociadas al estilista
+             * @param estado Estado de la cita, opcional
+             * @param desde Primer día (yyyy-MM-dd), opcional
+             * @param hasta Último día, incluido (yyyy-MM-dd), opcional
+             * @param cursor Cursor devuelto por la página anterior
+             * @param tamanio Número de citas por página
+             * @return Página de citas asociadas al estilista
+             * @throws Exception Si el rango de fechas o el cursor no son válidos
              */
             @GetMapping("/citas/mis-citas/{estilistaId}")
-            public ResponseEntity<MensajeDTO<List<InformacionCitaDTO>>> obtenerMisCitas(@PathVariable String estilistaId) {
-                List<InformacionCitaDTO> citas = citasService.obtenerCitasPorEstilistaId(estilistaId);
-                return ResponseEntity.ok().body(new MensajeDTO<>(false, citas));
+            public ResponseEntity<MensajeDTO<PaginaCitasDTO>> obtenerMisCitas(
+                    @PathVariable String estilistaId,
+                    @RequestParam(required = false) String estado,
+                    @RequestParam(required = false) String desde,
+                    @RequestParam(required = false) String hasta,
+                    @RequestParam(required = false) String cursor,
+                    @RequestParam(required = false) Integer tamanio) throws Exception {
+                PaginaCitasDTO pagina = citasService.listarCitas(
+                        new FiltroCitasDTO(estado, estilistaId, null, desde, hasta, cursor, tamanio));
+                return ResponseEntity.ok().body(new MensajeDTO<>(false, pagina));
+            }
+
+            /**
+             * Obtiene la agenda de hoy y mañana del estilista, precalculada en memoria.
+             * Es la consulta que hace el teléfono del estilista cada mañana; si la agenda guardada
+             * está desactualizada se responde con una consulta en vivo.
+             * @param estilistaId Identificador único del estilista
+             * @return Citas de hoy y de mañana, ordenadas por hora
+             */
+            @GetMapping("/citas/mis-citas/{estilistaId}/hoy")
+            public ResponseEntity<MensajeDTO<AgendaDiariaDTO>> obtenerAgendaHoy(@PathVariable String estilistaId) {
+                return ResponseEntity.ok().body(new MensajeDTO<>(false, agendaDiariaService.obtenerAgendaHoy(estilistaId)));
+            }
+
+            /**
+             * Obtiene la URL de suscripción al feed iCalendar de un estilista. Las aplicaciones de calendario
+             * no envían el JWT, así que la URL es pública y lleva un secreto propio del estilista, que se crea
+             * la primera vez que se pide.
+             * @param estilistaId Identificador único del estilista
+             * @return URL del feed .ics del estilista
+             * @throws Exception Si el estilista no existe
+             */
+            @GetMapping("/citas/mis-citas/{estilistaId}/calendario")
+            public ResponseEntity<MensajeDTO<String>> obtenerUrlCalendario(@PathVariable String estilistaId) throws Exception {
+                String token = calendarioIcsService.obtenerTokenEstilista(estilistaId);
+                return ResponseEntity.ok().body(new MensajeDTO<>(false, construirUrlCalendario(token)));
+            }
+
+            /**
+             * Cambia el secreto de la URL del feed iCalendar de un estilista; la URL anterior deja de funcionar
+             * @param estilistaId Identificador único del estilista
+             * @return URL nueva del feed .ics del estilista
+             * @throws Exception Si el estilista no existe
+             */
+            @PutMapping("/citas/mis-citas/{estilistaId}/calendario")
+            public ResponseEntity<MensajeDTO<String>> renovarUrlCalendario(@PathVariable String estilistaId) throws Exception {
+                String token = calendarioIcsService.renovarTokenEstilista(estilistaId);
+                return ResponseEntity.ok().body(new MensajeDTO<>(false, construirUrlCalendario(token)));
+            }
+
+            private String construirUrlCalendario(String token) {
+                return ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/publico/calendario/estilista/{token}.ics")
+                        .buildAndExpand(token)
+                        .toUriString();
             }
 
             /**
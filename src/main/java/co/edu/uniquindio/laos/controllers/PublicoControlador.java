@@ -1,5 +1,6 @@
 package co.edu.uniquindio.laos.controllers;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import co.edu.uniquindio.laos.dto.MensajeDTO;
 import co.edu.uniquindio.laos.dto.TokenDTO;
@@ -7,12 +8,19 @@ import co.edu.uniquindio.laos.dto.cuenta.ActivarCuentaDTO;
 import co.edu.uniquindio.laos.dto.cuenta.CrearUsuarioDTO;
 import co.edu.uniquindio.laos.dto.cuenta.IniciarSesionDTO;
 import co.edu.uniquindio.laos.dto.cuenta.RecuperarContraseniaDTO;
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+import co.edu.uniquindio.laos.services.interfaces.CalendarioIcsService;
 import co.edu.uniquindio.laos.services.interfaces.QuejaSugerenciaService;
 import co.edu.uniquindio.laos.services.interfaces.UsuarioService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controlador REST para operaciones públicas del sistema.
@@ -22,6 +30,7 @@ import org.springframework.web.bind.annotation.*;
  * - Recuperación de contraseña
  * - Activación de cuentas
  * - Listado de tipos y estados de quejas y sugerencias
+ * - Feeds iCalendar de clientes y estilistas, protegidos por el secreto de su URL
  */
 @RestController
 @RequestMapping("/api/publico")
@@ -38,6 +47,11 @@ public class PublicoControlador {
      */
     private final QuejaSugerenciaService quejaSugerenciaService;
 
+    /**
+     * Servicio para los feeds iCalendar
+     */
+    private final CalendarioIcsService calendarioIcsService;
+
     /**
      * Autentica a un usuario en el sistema y genera un token JWT
      * @param iniciarSesionDTO Datos de inicio de sesión (correo y contraseña)
@@ -127,4 +141,64 @@ public class PublicoControlador {
     public ResponseEntity<MensajeDTO<List<String>>> listarEstados() {
         return ResponseEntity.ok().body(new MensajeDTO<>(false, quejaSugerenciaService.obtenerEstadoPqrs()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Feed iCalendar con las citas de un cliente, para suscribirse desde el calendario del teléfono.
+     * La URL la obtiene el cliente con su sesión y el secreto que lleva identifica al cliente.
+     * El feed se escribe directamente en la respuesta mientras se leen las citas. Lleva un ETag
+     * que cambia con cualquier cambio en las citas del cliente; si llega en If-None-Match y nada
+     * cambió se responde 304 sin consultar las citas.
+     * @param token Secreto del feed del cliente
+     * @param ifNoneMatch ETag de la última respuesta recibida, opcional
+     * @return Feed .ics, 304 si no hubo cambios o 404 si el secreto no existe
+     */
+    @GetMapping("/calendario/cliente/{token}.ics")
+    public ResponseEntity<StreamingResponseBody> obtenerCalendarioCliente(
+            @PathVariable String token,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String clienteId;
+        try {
+            clienteId = calendarioIcsService.buscarClientePorToken(token);
+        } catch (RecursoNoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = calendarioIcsService.obtenerEtagCliente(clienteId);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(new MediaType("text", "calendar", StandardCharsets.UTF_8))
+                .body(salida -> calendarioIcsService.escribirFeedCliente(clienteId, salida));
+    }
+
+    /**
+     * Feed iCalendar con la agenda de un estilista, para suscribirse desde el calendario del teléfono.
+     * La URL la obtiene el estilista con su sesión y el secreto que lleva identifica al estilista.
+     * Escribe el feed y responde 304 igual que el feed del cliente.
+     * @param token Secreto del feed del estilista
+     * @param ifNoneMatch ETag de la última respuesta recibida, opcional
+     * @return Feed .ics, 304 si no hubo cambios o 404 si el secreto no existe
+     */
+    @GetMapping("/calendario/estilista/{token}.ics")
+    public ResponseEntity<StreamingResponseBody> obtenerCalendarioEstilista(
+            @PathVariable String token,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String estilistaId;
+        try {
+            estilistaId = calendarioIcsService.buscarEstilistaPorToken(token);
+        } catch (RecursoNoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = calendarioIcsService.obtenerEtagEstilista(estilistaId);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(new MediaType("text", "calendar", StandardCharsets.UTF_8))
+                .body(salida -> calendarioIcsService.escribirFeedEstilista(estilistaId, salida));
+    }
+}
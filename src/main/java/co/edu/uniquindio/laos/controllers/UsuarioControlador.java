@@ -1,14 +1,21 @@
 package co.edu.uniquindio.laos.controllers;
 
 import co.edu.uniquindio.laos.dto.MensajeDTO;
-import co.edu.uniquindio.laos.dto.cita.CalendarioCitasDTO;
+import co.edu.uniquindio.laos.dto.cita.ApartadoHorarioDTO;
+import co.edu.uniquindio.laos.dto.cita.CalendarioFeedDTO;
 import co.edu.uniquindio.laos.dto.cita.CrearCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.CrearCitasLoteDTO;
+import co.edu.uniquindio.laos.dto.cita.EsperaCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.HorarioDisponibleDTO;
 import co.edu.uniquindio.laos.dto.cita.InformacionCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.RegistrarEsperaDTO;
 import co.edu.uniquindio.laos.dto.cita.ReprogramarCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.ResultadoCitasLoteDTO;
 import co.edu.uniquindio.laos.dto.cuenta.CambiarContraseniaDTO;
 import co.edu.uniquindio.laos.dto.cuenta.EditarUsuarioDTO;
 import co.edu.uniquindio.laos.dto.cuenta.InformacionUsuarioDTO;
 import co.edu.uniquindio.laos.dto.cuenta.RecuperarContraseniaDTO;
+import co.edu.uniquindio.laos.dto.cupon.InformacionCuponDTO;
 import co.edu.uniquindio.laos.dto.queja.CrearQuejaDTO;
 import co.edu.uniquindio.laos.dto.sugerencias.CrearSugerenciaDTO;
 import co.edu.uniquindio.laos.model.Estilista;
@@ -24,10 +31,15 @@ import co.edu.uniquindio.laos.services.interfaces.QuejaService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Controlador REST para operaciones relacionadas con usuarios.
@@ -75,6 +87,21 @@ public class UsuarioControlador {
      */
     private final CitasService citasService;
 
+    /**
+     * Servicio que genera el feed .ics de las citas
+     */
+    private final CalendarioIcsService calendarioIcsService;
+
+    /**
+     * Servicio de la lista de espera de horarios
+     */
+    private final ListaEsperaService listaEsperaService;
+
+    /**
+     * Servicio para la gestión de cupones
+     */
+    private final CuponService cuponService;
+
 
     /**
      * Registra una nueva sugerencia en el sistema
@@ -213,6 +240,73 @@ public class UsuarioControlador {
         return ResponseEntity.ok().body(new MensajeDTO<>(false, "Cita creada con éxito. ID: " + idCita));
     }
 
+    /**
+     * Aparta un horario durante unos minutos mientras el cliente termina la reserva
+     * @param crearCitaDTO Datos de la cita que se va a reservar
+     * @return Apartado con su identificador y su vencimiento
+     * @throws Exception Si el horario ya está reservado o apartado
+     */
+    @PostMapping("/apartar-horario")
+    public ResponseEntity<MensajeDTO<ApartadoHorarioDTO>> apartarHorario(@RequestBody CrearCitaDTO crearCitaDTO) throws Exception {
+        ApartadoHorarioDTO apartado = citasService.apartarHorario(crearCitaDTO);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, apartado));
+    }
+
+    /**
+     * Convierte un horario apartado en una cita
+     * @param apartadoId Identificador del apartado
+     * @return Mensaje de confirmación con el ID de la cita creada
+     * @throws Exception Si el apartado no existe o ya venció
+     */
+    @PostMapping("/confirmar-apartado/{apartadoId}")
+    public ResponseEntity<MensajeDTO<String>> confirmarApartado(@PathVariable String apartadoId) throws Exception {
+        String idCita = citasService.confirmarApartado(apartadoId);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, "Cita creada con éxito. ID: " + idCita));
+    }
+
+    /**
+     * Libera un horario apartado cuando el cliente abandona la reserva
+     * @param apartadoId Identificador del apartado
+     * @return Mensaje de confirmación
+     */
+    @DeleteMapping("/liberar-apartado/{apartadoId}")
+    public ResponseEntity<MensajeDTO<String>> liberarApartado(@PathVariable String apartadoId) {
+        citasService.liberarApartado(apartadoId);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, "Horario liberado"));
+    }
+
+    /**
+     * Registra varias citas del mismo cliente, estilista y servicio en una sola petición,
+     * ya sea una lista de fechas o una serie recurrente (por ejemplo cada 14 días)
+     * @param crearCitasLoteDTO Fechas o recurrencia de las citas a crear
+     * @return Citas creadas y fechas que no se pudieron reservar con su motivo
+     * @throws Exception Si la serie no es válida o supera el máximo de citas por petición
+     */
+    @PostMapping("/crear-citas-lote")
+    public ResponseEntity<MensajeDTO<ResultadoCitasLoteDTO>> crearCitasLote(@RequestBody CrearCitasLoteDTO crearCitasLoteDTO) throws Exception {
+        ResultadoCitasLoteDTO resultado = citasService.crearCitasLote(crearCitasLoteDTO);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, resultado));
+    }
+
+    /**
+     * Consulta los huecos libres de la agenda para evitar intentar reservas a ciegas
+     * @param estilistaId Estilista a consultar; si se omite se consultan todos los que atienden el servicio
+     * @param servicioId Servicio a reservar; define la duración mínima de cada hueco
+     * @param desde Primer día del rango (yyyy-MM-dd)
+     * @param hasta Último día del rango, incluido (yyyy-MM-dd)
+     * @return Lista de huecos libres por estilista
+     * @throws Exception Si el rango de fechas es inválido o el estilista no existe
+     */
+    @GetMapping("/horarios-disponibles")
+    public ResponseEntity<MensajeDTO<List<HorarioDisponibleDTO>>> obtenerHorariosDisponibles(
+            @RequestParam(required = false) String estilistaId,
+            @RequestParam(required = false) String servicioId,
+            @RequestParam String desde,
+            @RequestParam String hasta) throws Exception {
+        List<HorarioDisponibleDTO> horarios = citasService.obtenerHorariosDisponibles(estilistaId, servicioId, desde, hasta);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, horarios));
+    }
+
     /**
      * Cambia la fecha y/u hora de una cita existente
      * @param reprogramarCitaDTO Datos para reprogramar la cita
@@ -237,6 +331,56 @@ public class UsuarioControlador {
         return ResponseEntity.ok().body(new MensajeDTO<>(false, "Cita cancelada correctamente. ID: " + id));
     }
 
+    /**
+     * Redime un cupón para el cliente y registra el uso
+     * @param codigo Código del cupón
+     * @param clienteId Cliente que usa el cupón
+     * @return Código y porcentaje de descuento aplicado
+     * @throws Exception Si el cupón no existe, no está activo, venció, es de otro cliente o agotó sus usos
+     */
+    @PutMapping("/cupones/redimir/{codigo}")
+    public ResponseEntity<MensajeDTO<InformacionCuponDTO>> redimirCupon(@PathVariable String codigo,
+                                                                        @RequestParam String clienteId) throws Exception {
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, cuponService.redimirCupon(codigo, clienteId)));
+    }
+
+    /**
+     * Anota al cliente en la lista de espera de un estilista y un servicio. Si se libera un
+     * horario dentro de su ventana, se le aparta y se le avisa por correo para que lo confirme.
+     * @param registrarEsperaDTO Cliente, estilista, servicio y ventana de fechas aceptable
+     * @return Mensaje de confirmación con el ID de la espera
+     * @throws Exception Si la ventana no es válida o el estilista o el servicio no existen
+     */
+    @PostMapping("/lista-espera")
+    public ResponseEntity<MensajeDTO<String>> registrarEspera(@RequestBody RegistrarEsperaDTO registrarEsperaDTO) throws Exception {
+        String id = listaEsperaService.registrar(registrarEsperaDTO);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, "Registrado en la lista de espera. ID: " + id));
+    }
+
+    /**
+     * Saca al cliente de la lista de espera
+     * @param esperaId Identificador de la espera
+     * @param clienteId Cliente dueño de la espera
+     * @return Mensaje de confirmación
+     * @throws Exception Si la espera no existe o ya no está vigente
+     */
+    @PutMapping("/lista-espera/cancelar/{esperaId}")
+    public ResponseEntity<MensajeDTO<String>> cancelarEspera(@PathVariable String esperaId,
+                                                             @RequestParam String clienteId) throws Exception {
+        listaEsperaService.cancelar(esperaId, clienteId);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, "Espera cancelada correctamente"));
+    }
+
+    /**
+     * Lista las esperas vigentes del cliente, con el horario ofrecido si tiene uno
+     * @param clienteId Identificador del cliente
+     * @return Esperas activas u ofrecidas
+     */
+    @GetMapping("/lista-espera/{clienteId}")
+    public ResponseEntity<MensajeDTO<List<EsperaCitaDTO>>> obtenerEsperas(@PathVariable String clienteId) {
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, listaEsperaService.obtenerEsperas(clienteId)));
+    }
+
     /**
      * Obtiene todas las citas asociadas a un cliente específico
      * @param clienteId Identificador único del cliente
@@ -248,6 +392,39 @@ public class UsuarioControlador {
         return ResponseEntity.ok().body(new MensajeDTO<>(false, citas));
     }
 
+    /**
+     * Obtiene la URL de suscripción al feed iCalendar de un cliente. Las aplicaciones de calendario
+     * no envían el JWT, así que la URL es pública y lleva un secreto propio del cliente, que se crea
+     * la primera vez que se pide.
+     * @param clienteId Identificador único del cliente
+     * @return URL del feed .ics del cliente
+     * @throws Exception Si el cliente no existe
+     */
+    @GetMapping("/obtener-citas/{clienteId}/calendario")
+    public ResponseEntity<MensajeDTO<String>> obtenerUrlCalendario(@PathVariable String clienteId) throws Exception {
+        String token = calendarioIcsService.obtenerTokenCliente(clienteId);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, construirUrlCalendario(token)));
+    }
+
+    /**
+     * Cambia el secreto de la URL del feed iCalendar de un cliente; la URL anterior deja de funcionar
+     * @param clienteId Identificador único del cliente
+     * @return URL nueva del feed .ics del cliente
+     * @throws Exception Si el cliente no existe
+     */
+    @PutMapping("/obtener-citas/{clienteId}/calendario")
+    public ResponseEntity<MensajeDTO<String>> renovarUrlCalendario(@PathVariable String clienteId) throws Exception {
+        String token = calendarioIcsService.renovarTokenCliente(clienteId);
+        return ResponseEntity.ok().body(new MensajeDTO<>(false, construirUrlCalendario(token)));
+    }
+
+    private String construirUrlCalendario(String token) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/publico/calendario/cliente/{token}.ics")
+                .buildAndExpand(token)
+                .toUriString();
+    }
+
     /**
      * Obtiene las citas canceladas y completadas de un cliente específico
      * @param clienteId Identificador único del cliente
@@ -285,9 +462,40 @@ public class UsuarioControlador {
         return ResponseEntity.ok().body(new MensajeDTO<>(false, cita));
     }
 
+    /**
+     * Consulta el calendario de citas acotado a una ventana de fechas.
+     * La respuesta lleva un ETag con la versión del calendario; si el cliente lo envía en
+     * If-None-Match y nada cambió se responde 304 sin cuerpo. Con cambiosDesde solo se
+     * envían las citas modificadas después de esa versión.
+     * @param desde Primer día de la ventana (yyyy-MM-dd), opcional
+     * @param hasta Último día de la ventana, incluido (yyyy-MM-dd), opcional
+     * @param estilistaId Estilista a consultar, opcional
+     * @param cambiosDesde Versión que ya tiene el cliente, opcional
+     * @param ifNoneMatch ETag de la última respuesta recibida, opcional
+     * @return Citas de la ventana y versión del calendario, o 304 si no hubo cambios
+     * @throws Exception Si el rango de fechas es inválido
+     */
     @GetMapping("/obtener-calendario-citas")
-    public ResponseEntity<MensajeDTO<List<CalendarioCitasDTO>>> obtenerCitasConfirmadasYReprogramadas() {
-        List<CalendarioCitasDTO> citas = citasService.obtenerCitasConfirmadasYReprogramadas();
-        return ResponseEntity.ok().body(new MensajeDTO<>(false, citas));
+    public ResponseEntity<MensajeDTO<CalendarioFeedDTO>> obtenerCalendarioCitas(
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String hasta,
+            @RequestParam(required = false) String estilistaId,
+            @RequestParam(required = false) Long cambiosDesde,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws Exception {
+        // La misma ventana con la misma versión tiene el mismo contenido, sin importar cambiosDesde;
+        // el día actual entra en el ETag porque la ventana por defecto se corre cada día
+        String etag = construirEtagCalendario(citasService.obtenerVersionCalendario(), desde, hasta, estilistaId);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        CalendarioFeedDTO calendario = citasService.obtenerCalendario(desde, hasta, estilistaId, cambiosDesde);
+        return ResponseEntity.ok()
+                .eTag(construirEtagCalendario(calendario.version(), desde, hasta, estilistaId))
+                .body(new MensajeDTO<>(false, calendario));
+    }
+
+    private String construirEtagCalendario(long version, String desde, String hasta, String estilistaId) {
+        return "\"" + version + "-" + Integer.toHexString(Objects.hash(LocalDate.now(), desde, hasta, estilistaId)) + "\"";
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AgendaDiariaDTO(
+        String estilistaId,
+        LocalDate dia,
+        List<CitaAgendaDTO> citasHoy,
+        List<CitaAgendaDTO> citasManiana,
+        String actualizadaEn // Instante ISO de la última vez que la agenda se comparó con la base de datos
+) {
+}
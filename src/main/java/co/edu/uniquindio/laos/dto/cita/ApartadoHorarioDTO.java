@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+public record ApartadoHorarioDTO(
+        String apartadoId,
+        String estilistaId,
+        String fechaHoraInicio, // Inicio del horario apartado en formato ISO
+        String fechaHoraFin,    // Fin del horario apartado en formato ISO
+        String expiraEn         // Instante en que vence el apartado, en formato ISO
+) {
+}
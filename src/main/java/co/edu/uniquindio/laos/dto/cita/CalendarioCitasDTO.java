@@ -1,7 +1,13 @@
 package co.edu.uniquindio.laos.dto.cita;
 
+import co.edu.uniquindio.laos.model.EstadoCita;
+
 public record CalendarioCitasDTO(
+        String citaId,
+        String estilistaId,
+        String servicioId,
         String fechaHoraInicio, // Fecha y hora de inicio en formato ISO
-        String fechaHoraFin     // Fecha y hora de fin en formato ISO
+        String fechaHoraFin,    // Fecha y hora de fin en formato ISO, según la duración del servicio
+        EstadoCita estado       // En un feed incremental, CANCELADA indica que la cita debe quitarse
 ) {
 }
@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import java.util.List;
+
+public record CalendarioFeedDTO(
+        List<CalendarioCitasDTO> citas,
+        long version,        // Enviar como cambiosDesde en la siguiente consulta
+        boolean incremental  // true si solo contiene las citas modificadas desde la versión pedida
+) {
+}
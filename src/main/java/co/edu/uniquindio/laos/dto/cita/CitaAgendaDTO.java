@@ -0,0 +1,13 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import co.edu.uniquindio.laos.model.EstadoCita;
+
+public record CitaAgendaDTO(
+        String citaId,
+        String usuarioId,
+        String servicioNombre,
+        String horaInicio, // HH:mm
+        String horaFin,    // HH:mm
+        EstadoCita estado
+) {
+}
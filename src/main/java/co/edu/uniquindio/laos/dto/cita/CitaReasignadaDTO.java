@@ -0,0 +1,11 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import java.time.LocalDateTime;
+
+public record CitaReasignadaDTO(
+        String citaId,
+        LocalDateTime fechaHora,
+        String estilistaId,
+        String estilistaNombre
+) {
+}
@@ -0,0 +1,14 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import java.util.List;
+
+public record CrearCitasLoteDTO(
+        String idEstilista,
+        String idServicio,
+        String idCliente,
+        List<String> fechasHoras,   // Fechas sueltas en formato yyyy-MM-dd HH:mm
+        String fechaHoraInicio,     // Primera cita de una serie recurrente (yyyy-MM-dd HH:mm)
+        Integer cadaDias,           // Días entre dos citas de la serie
+        Integer repeticiones        // Número de citas de la serie
+) {
+}
@@ -0,0 +1,16 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import co.edu.uniquindio.laos.model.EstadoEspera;
+
+public record EsperaCitaDTO(
+        String esperaId,
+        String estilistaId,
+        String servicioId,
+        String desde,           // Inicio de la ventana aceptable en formato ISO
+        String hasta,           // Fin de la ventana aceptable en formato ISO
+        EstadoEspera estado,
+        String apartadoId,      // Apartado del horario ofrecido, solo si la espera está OFRECIDA
+        String ofertaFechaHora, // Inicio del horario ofrecido en formato ISO
+        String ofertaExpiraEn   // Instante en que vence la oferta en formato ISO
+) {
+}
@@ -0,0 +1,12 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+public record FiltroCitasDTO(
+        String estado,       // Estado de la cita, TODAS o null para no filtrar
+        String estilistaId,
+        String clienteId,
+        String desde,        // Primer día en formato yyyy-MM-dd
+        String hasta,        // Último día (incluido) en formato yyyy-MM-dd
+        String cursor,       // Cursor devuelto por la página anterior
+        Integer tamanio      // Número de citas por página
+) {
+}
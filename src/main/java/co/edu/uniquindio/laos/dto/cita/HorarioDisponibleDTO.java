@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+public record HorarioDisponibleDTO(
+        String estilistaId,
+        String estilistaNombre,
+        String fechaHoraInicio, // Inicio del hueco libre en formato ISO
+        String fechaHoraFin     // Fin del hueco libre en formato ISO
+) {
+}
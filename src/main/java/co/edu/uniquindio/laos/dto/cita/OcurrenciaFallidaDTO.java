@@ -0,0 +1,7 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+public record OcurrenciaFallidaDTO(
+        String fechaHora,
+        String motivo
+) {
+}
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import java.util.List;
+
+public record PaginaCitasDTO(
+        List<InformacionCitaDTO> citas,
+        String siguienteCursor  // null cuando no hay más páginas
+) {
+}
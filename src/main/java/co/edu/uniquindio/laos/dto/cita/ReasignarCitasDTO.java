@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+public record ReasignarCitasDTO(
+        String estilistaId,     // Estilista que no estará disponible
+        String desde,           // Inicio del rango afectado (yyyy-MM-dd HH:mm)
+        String hasta,           // Fin del rango afectado, excluido (yyyy-MM-dd HH:mm)
+        boolean soloCancelar    // true para cancelar todas las citas sin buscar reemplazo
+) {
+}
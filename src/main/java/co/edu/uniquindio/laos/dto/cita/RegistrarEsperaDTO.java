@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+public record RegistrarEsperaDTO(
+        String idCliente,
+        String idEstilista,
+        String idServicio,
+        String desde,   // Inicio de la ventana aceptable, yyyy-MM-dd HH:mm
+        String hasta    // Fin de la ventana aceptable, yyyy-MM-dd HH:mm
+) {
+}
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import java.util.List;
+
+public record ResultadoCitasLoteDTO(
+        List<String> citasCreadas,              // Identificadores de las citas guardadas
+        List<OcurrenciaFallidaDTO> fallidas     // Fechas que no se pudieron reservar y por qué
+) {
+}
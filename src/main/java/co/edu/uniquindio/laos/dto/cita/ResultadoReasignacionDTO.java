@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.dto.cita;
+
+import java.util.List;
+
+public record ResultadoReasignacionDTO(
+        List<CitaReasignadaDTO> reasignadas,
+        List<String> canceladas,    // Citas sin estilista libre (o todas, si se pidió solo cancelar)
+        long sinAplicar             // Cambios descartados porque la cita se modificó mientras se procesaba
+) {
+}
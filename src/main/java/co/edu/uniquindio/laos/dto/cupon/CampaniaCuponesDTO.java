@@ -0,0 +1,15 @@
+package co.edu.uniquindio.laos.dto.cupon;
+
+import co.edu.uniquindio.laos.model.EstadoCampania;
+
+public record CampaniaCuponesDTO(
+        String id,
+        String campania,
+        EstadoCampania estado,
+        long evaluados,         // Clientes del recorrido ya revisados contra el segmento
+        long asignados,         // Cupones creados para los clientes del segmento
+        String fechaInicio,     // Instantes en formato ISO
+        String fechaActualizacion,
+        String fechaFin
+) {
+}
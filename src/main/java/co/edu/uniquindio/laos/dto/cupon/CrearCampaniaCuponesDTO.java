@@ -0,0 +1,44 @@
+package co.edu.uniquindio.laos.dto.cupon;
+
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDate;
+
+public record CrearCampaniaCuponesDTO(
+
+        @NotBlank(message = "La campaña no puede estar vacía")
+        @Size(max = 50, message = "La campaña no puede exceder los 50 caracteres")
+        String campania,
+
+        // Segmento: todos los criterios son opcionales y se combinan
+        LocalDate registradoDesde,      // Clientes registrados desde este día, incluido
+        LocalDate registradoHasta,      // Clientes registrados hasta este día, incluido
+
+        @PositiveOrZero(message = "El mínimo de citas no puede ser negativo")
+        Long minCitasCompletadas,
+
+        @PositiveOrZero(message = "El máximo de citas no puede ser negativo")
+        Long maxCitasCompletadas,
+
+        // Clientes sin actividad de citas en al menos este número de días
+        @Positive(message = "Los días de inactividad deben ser mayores que 0")
+        Integer diasInactividad,
+
+        @NotBlank(message = "El nombre no puede estar vacío")
+        @Size(max = 50, message = "El nombre no puede exceder los 50 caracteres")
+        String nombre,
+
+        @NotNull(message = "El porcentaje de descuento es obligatorio")
+        @DecimalMin(value = "0.0", inclusive = false, message = "El porcentaje de descuento debe ser mayor que 0")
+        @DecimalMax(value = "100.0", message = "El porcentaje de descuento no puede ser mayor a 100")
+        Double porcentajeDescuento,
+
+        @NotNull(message = "La fecha de vencimiento es obligatoria")
+        @Future(message = "La fecha de vencimiento debe estar en el futuro")
+        LocalDate fechaVencimiento,
+
+        // Opcional: máximo de redenciones de cada cupón; por defecto 1
+        @Positive(message = "El máximo de usos debe ser mayor que 0")
+        Integer usosMaximos
+) {
+}
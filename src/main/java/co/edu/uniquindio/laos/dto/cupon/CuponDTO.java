@@ -10,6 +10,9 @@ public record CuponDTO(
         String nombre,
         Double porcentajeDescuento,
         EstadoCupon estadoCupon,
-        LocalDate fechaVencimiento
+        LocalDate fechaVencimiento,
+        Integer usosMaximos,
+        Integer maximoUsosPorCliente,
+        Integer usos
 ) {}
 
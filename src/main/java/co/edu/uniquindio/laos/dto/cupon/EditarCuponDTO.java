@@ -28,6 +28,14 @@ public record EditarCuponDTO(
 
         @NotNull(message = "La fecha de vencimiento es obligatoria")
         @Future(message = "La fecha de vencimiento debe estar en el futuro")
-        LocalDate fechaVencimiento
+        LocalDate fechaVencimiento,
+
+        // Opcional: máximo de redenciones del cupón; sin valor no hay límite
+        @Positive(message = "El máximo de usos debe ser mayor que 0")
+        Integer usosMaximos,
+
+        // Opcional: máximo de redenciones por cliente; sin valor no hay límite
+        @Positive(message = "El máximo de usos por cliente debe ser mayor que 0")
+        Integer maximoUsosPorCliente
 ) {
 }
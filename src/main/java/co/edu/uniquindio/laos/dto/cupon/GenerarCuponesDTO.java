@@ -0,0 +1,40 @@
+package co.edu.uniquindio.laos.dto.cupon;
+
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDate;
+
+public record GenerarCuponesDTO(
+
+        @NotBlank(message = "La campaña no puede estar vacía")
+        @Size(max = 50, message = "La campaña no puede exceder los 50 caracteres")
+        String campania,
+
+        @NotBlank(message = "El nombre no puede estar vacío")
+        @Size(max = 50, message = "El nombre no puede exceder los 50 caracteres")
+        String nombre,
+
+        @NotNull(message = "La cantidad es obligatoria")
+        @Min(value = 1, message = "Debe generar al menos un cupón")
+        @Max(value = 100000, message = "No se pueden generar más de 100000 cupones por solicitud")
+        Integer cantidad,
+
+        // Opcional: largo de cada código; por defecto 8
+        @Min(value = 6, message = "El código debe tener al menos 6 caracteres")
+        @Max(value = 20, message = "El código no puede exceder los 20 caracteres")
+        Integer longitudCodigo,
+
+        @NotNull(message = "El porcentaje de descuento es obligatorio")
+        @DecimalMin(value = "0.0", inclusive = false, message = "El porcentaje de descuento debe ser mayor que 0")
+        @DecimalMax(value = "100.0", message = "El porcentaje de descuento no puede ser mayor a 100")
+        Double porcentajeDescuento,
+
+        @NotNull(message = "La fecha de vencimiento es obligatoria")
+        @Future(message = "La fecha de vencimiento debe estar en el futuro")
+        LocalDate fechaVencimiento,
+
+        // Opcional: máximo de redenciones de cada código; por defecto 1
+        @Positive(message = "El máximo de usos debe ser mayor que 0")
+        Integer usosMaximos
+) {
+}
@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.dto.cupon;
+
+public record ResultadoGeneracionCuponesDTO(
+        String campania,
+        int generados,
+        int colisiones,        // Códigos que ya existían en la base de datos y se reemplazaron
+        long duracionMs,
+        double cuponesPorSegundo
+) {
+}
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.exceptions;
+
+public class ApartadoVencidoException extends Exception {
+
+    public ApartadoVencidoException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.exceptions;
+
+public class ConflictoConcurrenciaException extends Exception {
+
+    public ConflictoConcurrenciaException(String message) {
+        super(message);
+    }
+
+}
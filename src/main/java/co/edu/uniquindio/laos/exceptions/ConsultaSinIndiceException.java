@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.exceptions;
+
+public class ConsultaSinIndiceException extends Exception {
+
+    public ConsultaSinIndiceException(String message) {
+        super(message);
+    }
+
+}
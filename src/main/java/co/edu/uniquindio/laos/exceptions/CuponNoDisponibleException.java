@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.exceptions;
+
+public class CuponNoDisponibleException extends Exception {
+
+    public CuponNoDisponibleException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.exceptions;
+
+public class CursorInvalidoException extends Exception {
+
+    public CursorInvalidoException(String message) {
+        super(message);
+    }
+
+}
@@ -2,6 +2,7 @@ package co.edu.uniquindio.laos.exceptions;
 
 import co.edu.uniquindio.laos.dto.MensajeDTO;
 import co.edu.uniquindio.laos.dto.ValidacionDTO;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -19,6 +20,16 @@ public class ExcepcionesGlobales {
         return ResponseEntity.internalServerError().body( new MensajeDTO<>(true, e.getMessage())
         );
     }
+    @ExceptionHandler(ConflictoConcurrenciaException.class)
+    public ResponseEntity<MensajeDTO<String>> conflictoException(ConflictoConcurrenciaException e){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body( new MensajeDTO<>(true, e.getMessage())
+        );
+    }
+    @ExceptionHandler(CuponNoDisponibleException.class)
+    public ResponseEntity<MensajeDTO<String>> cuponNoDisponibleException(CuponNoDisponibleException e){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body( new MensajeDTO<>(true, e.getMessage())
+        );
+    }
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<MensajeDTO<List<ValidacionDTO>>> validationException(
             MethodArgumentNotValidException ex ) {
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.exceptions;
+
+public class RangoFechasInvalidoException extends Exception {
+
+    public RangoFechasInvalidoException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.exceptions;
+
+public class SerieCitasInvalidaException extends Exception {
+
+    public SerieCitasInvalidaException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,40 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Apartado temporal de un horario mientras el cliente termina de confirmar la cita.
+ * Sus bloques se reclaman en reservas_horario con el id del apartado, que pasa a ser el id
+ * de la cita al confirmarla. El índice TTL de expiraEn borra el apartado cuando vence.
+ */
+@Document("apartados_horario")
+@CompoundIndex(name = "estilista_fecha", def = "{'estilistaId': 1, 'fechaHora': 1}")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ApartadoHorario {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private String usuarioId;
+    private String estilistaId;
+    private String servicioId;
+
+    private LocalDateTime fechaHora;
+    private LocalDateTime fechaHoraFin;
+
+    // MongoDB borra el apartado poco después de este instante; hasta entonces se ignora si ya pasó
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiraEn;
+}
@@ -0,0 +1,27 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document("bloqueos_tareas")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class BloqueoTarea {
+
+    // Nombre de la tarea programada
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    // Instancia de la aplicación que tiene el bloqueo
+    private String propietario;
+
+    // El bloqueo vence en este instante aunque el propietario no lo libere
+    private Instant vigenteHasta;
+}
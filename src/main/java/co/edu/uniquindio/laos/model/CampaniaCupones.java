@@ -0,0 +1,56 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Asignación de cupones de una campaña a un segmento de clientes. Guarda el segmento, la
+ * plantilla de los cupones y el punto de control: el último cliente recorrido, en orden de _id.
+ */
+@Document("campanias_cupones")
+@CompoundIndex(name = "estado_inicio", def = "{'estado': 1, 'fechaInicio': 1}")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class CampaniaCupones {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    @Indexed(unique = true)
+    private String campania;
+
+    // Segmento; cada criterio es opcional. El registro va de registradoDesde, incluido, a registradoHasta, excluido
+    private LocalDateTime registradoDesde;
+    private LocalDateTime registradoHasta;
+    private Long minCitasCompletadas;
+    private Long maxCitasCompletadas;
+    private Integer diasInactividad;
+
+    // Plantilla de los cupones
+    private String nombre;
+    private Double porcentajeDescuento;
+    private LocalDate fechaVencimiento;
+    private Integer usosMaximos;
+
+    private EstadoCampania estado;
+
+    // Punto de control: id del último cliente ya procesado; null si aún no empieza
+    private String ultimoUsuarioId;
+    private long evaluados;
+    private long asignados;
+
+    private Instant fechaInicio;
+    private Instant fechaActualizacion;
+    private Instant fechaFin;
+}
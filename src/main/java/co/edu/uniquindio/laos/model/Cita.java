@@ -2,11 +2,28 @@ package co.edu.uniquindio.laos.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document("citas")
+@CompoundIndexes({
+        @CompoundIndex(name = "estilista_fecha_id", def = "{'estilistaId': 1, 'fechaHora': 1, '_id': 1}"),
+        @CompoundIndex(name = "fecha_id", def = "{'fechaHora': 1, '_id': 1}"),
+        @CompoundIndex(name = "estado_fecha_id", def = "{'estado': 1, 'fechaHora': 1, '_id': 1}"),
+        @CompoundIndex(name = "usuario_fecha_id", def = "{'usuarioId': 1, 'fechaHora': 1, '_id': 1}"),
+        @CompoundIndex(name = "estilista_modificacion", def = "{'estilistaId': 1, 'fechaModificacion': -1}"),
+        @CompoundIndex(name = "usuario_modificacion", def = "{'usuarioId': 1, 'fechaModificacion': -1}"),
+        @CompoundIndex(name = "servicio", def = "{'servicioId': 1}"),
+        @CompoundIndex(name = "eventos_pendientes", def = "{'eventosPendientes.eventoId': 1}", sparse = true)
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -21,6 +38,30 @@ public class Cita {
     private String usuarioId;
     private String estilistaId;
     private String servicioId;
+
+    // Copias que se guardan al crear la cita para listarla sin consultar el catálogo.
+    // Los nombres se mantienen al día con ReconciliacionCitasService; duración y precio
+    // son los del momento de la reserva.
+    private String estilistaNombre;
+    private String servicioNombre;
+    private Integer servicioDuracionMinutos;
+    private Double servicioPrecio;
+
     private LocalDateTime fechaHora;
+    private LocalDateTime fechaHoraFin;
     private EstadoCita estado;
+
+    // Se actualiza en cada guardado; es la versión que usa el feed incremental del calendario
+    // y, por estilista o por cliente, el ETag del feed .ics
+    @LastModifiedDate
+    @Indexed
+    private Instant fechaModificacion;
+
+    // Bloqueo optimista: save falla si otra escritura cambió la cita desde que se leyó
+    @Version
+    private Long version;
+
+    // Eventos escritos junto con cada cambio y que aún no se copian a eventos_citas.
+    // Estar en el mismo documento hace que el cambio y su evento se guarden o fallen juntos.
+    private List<EventoPendienteCita> eventosPendientes;
 }
@@ -0,0 +1,21 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document("contadores")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class Contador {
+
+    // Nombre del contador
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private long valor;
+}
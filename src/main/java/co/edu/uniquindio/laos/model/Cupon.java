@@ -2,13 +2,31 @@ package co.edu.uniquindio.laos.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Map;
 
 
 @Document("cupones")
+@CompoundIndexes({
+        @CompoundIndex(name = "usuario_id", def = "{'usuarioId': 1}"),
+        // Enlace anterior con @DBRef; se quita cuando la migración de enlaces a usuarios termine
+        @CompoundIndex(name = "usuario", def = "{'usuario.$id': 1}"),
+        // Barrido de vencimiento: cupones activos con fechaVencimiento anterior a hoy
+        @CompoundIndex(name = "estado_vencimiento", def = "{'estadoCupon': 1, 'fechaVencimiento': 1}"),
+        // Un cupón por cliente y campaña; solo cubre cupones de campaña asignados a un cliente
+        @CompoundIndex(name = "campania_usuario_id", def = "{'campania': 1, 'usuarioId': 1}", unique = true,
+                partialFilter = "{ 'campania': { $exists: true }, 'usuarioId': { $exists: true } }")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -20,12 +38,44 @@ public class Cupon {
     @EqualsAndHashCode.Include
     private String id;
 
+    // Único: la inserción en lote de campañas depende de este índice para detectar códigos repetidos.
+    // Lleva otro nombre que el índice no único "codigo" que reemplaza, que se elimina al arrancar.
+    // Cubre también los cupones eliminados: su código ya no se puede reutilizar. Antes de crearlo, los
+    // códigos repetidos de una base anterior se renombran con CuponRepoMantenimiento.renombrarCodigosRepetidos
+    @Indexed(name = "codigo_unico", unique = true)
     private String codigo;
     private String nombre;
     private Double porcentajeDescuento;
+    // Lo cubre el índice estado_vencimiento como prefijo
     private EstadoCupon estadoCupon;
     private LocalDate fechaVencimiento;
-    @DBRef
+    // Momento en que la tarea de vencimiento lo pasó a VENCIDO
+    private Instant fechaVencido;
+    // Cliente dueño del cupón, guardado como ObjectId; null si cualquier cliente puede usarlo
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String usuarioId;
+    // Enlace de los cupones anteriores; MigracionEnlacesUsuarioServiceImple lo pasa a usuarioId. Es perezoso
+    // para no leer el usuario al cargar el cupón, y se conserva para que un save no lo borre antes de migrarlo
+    @DBRef(lazy = true)
     private Usuario usuario;
+    // Cliente de un cupón de campaña que la migración no pudo pasar a usuarioId porque el cliente ya
+    // tenía el cupón de esa campaña; el cupón queda ELIMINADO
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String usuarioIdConflicto;
+
+    // Límites de uso; null significa sin límite
+    private Integer usosMaximos;
+    private Integer maximoUsosPorCliente;
+
+    // Redenciones registradas, en total y por id de cliente
+    private Integer usos;
+    private Map<String, Integer> usosPorCliente;
+    private Instant fechaUltimoUso;
+
+    // Campaña con la que se generó el cupón en lote; null para cupones creados uno a uno
+    private String campania;
+
+    @Version
+    private Long version;
 }
 
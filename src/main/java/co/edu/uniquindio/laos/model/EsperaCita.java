@@ -0,0 +1,59 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Inscripción de un cliente en la lista de espera de un estilista y un servicio, para cualquier
+ * horario que se libere dentro de su ventana [desde, hasta).
+ *
+ * El índice candidatos sigue el orden igualdad, orden, rango: los candidatos de un horario se
+ * recorren ya en orden de llegada y la ventana se filtra con las claves del índice, así que
+ * encontrar al siguiente no lee la lista completa. Cuando se le ofrece un horario, el apartado
+ * con el que se le guarda queda en apartadoId hasta que lo confirme o venza.
+ */
+@Document("lista_espera")
+@CompoundIndexes({
+        @CompoundIndex(name = "candidatos",
+                def = "{'estilistaId': 1, 'servicioId': 1, 'estado': 1, 'fechaRegistro': 1, 'desde': 1, 'hasta': 1}"),
+        @CompoundIndex(name = "usuario_registro", def = "{'usuarioId': 1, 'fechaRegistro': 1}"),
+        @CompoundIndex(name = "estado_oferta", def = "{'estado': 1, 'ofertaExpiraEn': 1}"),
+        @CompoundIndex(name = "apartado", def = "{'apartadoId': 1}", sparse = true)
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class EsperaCita {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private String usuarioId;
+    private String estilistaId;
+    private String servicioId;
+
+    private LocalDateTime desde;
+
+    // MongoDB borra la inscripción cuando termina su ventana
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime hasta;
+
+    private EstadoEspera estado;
+    private Instant fechaRegistro;
+
+    // Horario ofrecido y apartado que lo guarda, mientras la inscripción está OFRECIDA
+    private String apartadoId;
+    private LocalDateTime ofertaFechaHora;
+    private LocalDateTime ofertaFechaHoraFin;
+    private Instant ofertaExpiraEn;
+}
@@ -0,0 +1,3 @@
+package co.edu.uniquindio.laos.model;
+
+public enum EstadoCampania { EN_CURSO, COMPLETADA }
@@ -1,3 +1,3 @@
 package co.edu.uniquindio.laos.model;
 
-public enum EstadoCupon { ACTIVO, INACTIVO, ELIMINADO }
+public enum EstadoCupon { ACTIVO, INACTIVO, VENCIDO, ELIMINADO }
@@ -0,0 +1,5 @@
+package co.edu.uniquindio.laos.model;
+
+public enum EstadoEspera {
+    ACTIVA, OFRECIDA, ATENDIDA, EXPIRADA, CANCELADA
+}
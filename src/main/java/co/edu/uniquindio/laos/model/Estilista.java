@@ -1,9 +1,13 @@
 package co.edu.uniquindio.laos.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
+
 @Document("estilistas")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,4 +23,12 @@ public class Estilista {
     private String nombre;
     private String descripcion;
     private String correo;
+
+    // Servicios que atiende el estilista; vacío significa que atiende todos
+    private List<String> serviciosIds;
+
+    // Secreto de la URL del feed .ics del estilista; solo existe después de pedir la suscripción y nunca se serializa
+    @JsonIgnore
+    @Indexed(unique = true, sparse = true)
+    private String tokenCalendario;
 }
@@ -0,0 +1,46 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+@Document("eventos_citas")
+@CompoundIndexes({
+        @CompoundIndex(name = "cita_secuencia", def = "{'citaId': 1, 'secuencia': 1}"),
+        @CompoundIndex(name = "particion_secuencia", def = "{'particion': 1, 'secuencia': 1}")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class EventoCita {
+
+    // citaId:id del evento pendiente, así copiar dos veces el mismo evento no lo duplica
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    // Posición en el registro, asignada al copiar el evento; solo crece
+    @Indexed(unique = true)
+    private Long secuencia;
+
+    // Las reconstrucciones reparten las particiones entre hilos; los eventos de una cita quedan juntos
+    private int particion;
+
+    private String citaId;
+    private TipoEventoCita tipo;
+    private Instant fecha;
+
+    private String usuarioId;
+    private String estilistaId;
+    private String servicioId;
+    private LocalDateTime fechaHora;
+    private LocalDateTime fechaHoraFin;
+}
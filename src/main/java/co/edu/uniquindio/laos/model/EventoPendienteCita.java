@@ -0,0 +1,31 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Evento que se escribe dentro de la cita, en la misma operación que la cambia, y que
+ * todavía no se ha copiado a eventos_citas.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class EventoPendienteCita {
+
+    // Único por evento; una misma actualización masiva puede escribir el mismo id en varias citas.
+    // No se llama id para que no se guarde como _id dentro del arreglo.
+    private String eventoId;
+
+    private TipoEventoCita tipo;
+    private Instant fecha;
+
+    // Estado de la cita después del cambio; vacío en cancelaciones y completadas, que solo cambian el estado
+    private String usuarioId;
+    private String estilistaId;
+    private String servicioId;
+    private LocalDateTime fechaHora;
+    private LocalDateTime fechaHoraFin;
+}
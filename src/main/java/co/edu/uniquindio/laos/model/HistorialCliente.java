@@ -0,0 +1,27 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document("historial_clientes")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class HistorialCliente {
+
+    // Identificador del cliente
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private long creadas;
+    private long reprogramadas;
+    private long canceladas;
+    private long completadas;
+    private Instant ultimaActividad;
+}
@@ -0,0 +1,39 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una cita según su registro de eventos; es la proyección del calendario.
+ */
+@Document("proyeccion_citas")
+@CompoundIndexes({
+        @CompoundIndex(name = "estilista_fecha", def = "{'estilistaId': 1, 'fechaHora': 1}")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ProyeccionCita {
+
+    // Identificador de la cita
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private String usuarioId;
+    private String estilistaId;
+    private String servicioId;
+    private LocalDateTime fechaHora;
+    private LocalDateTime fechaHoraFin;
+    private EstadoCita estado;
+
+    // Último evento aplicado; los eventos con secuencia menor o igual ya están reflejados
+    private long secuencia;
+}
@@ -2,10 +2,14 @@ package co.edu.uniquindio.laos.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document("quejas")
+// servicioId no es un campo del modelo pero QuejaRepo lo consulta
+@CompoundIndex(name = "servicio", def = "{'servicioId': 1}")
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -17,10 +21,13 @@ public class Queja {
     @EqualsAndHashCode.Include
     private String id;
 
+    @Indexed
     private String clienteId;
     private String nombreCliente;
     private String descripcion;
+    @Indexed
     private LocalDateTime fecha;
+    @Indexed
     private EstadoQueja estadoQueja;
     private String nombreServicio;
     private String nombreEstilista;
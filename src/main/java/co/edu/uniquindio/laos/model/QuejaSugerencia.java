@@ -2,12 +2,21 @@ package co.edu.uniquindio.laos.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDateTime;
 
 @Document("quejas_sugerencias")
+@CompoundIndexes({
+        @CompoundIndex(name = "usuario_id", def = "{'usuarioId': 1}"),
+        // Enlace anterior con @DBRef; se quita cuando la migración de enlaces a usuarios termine
+        @CompoundIndex(name = "usuario", def = "{'usuario.$id': 1}")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -19,7 +28,12 @@ public class QuejaSugerencia {
     @EqualsAndHashCode.Include
     private String id;
     private TipoPQRS tipoPQRS;
-    @DBRef
+    // Cliente que la envió, guardado como ObjectId; null si es anónima
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String usuarioId;
+    // Enlace de las anteriores; MigracionEnlacesUsuarioServiceImple lo pasa a usuarioId. Es perezoso para no
+    // leer el usuario al cargar la PQRS, y se conserva para que un save no lo borre antes de migrarlo
+    @DBRef(lazy = true)
     private Usuario usuario;
     private String descripcion;
     private EstadoPQRS estadoPQRS;
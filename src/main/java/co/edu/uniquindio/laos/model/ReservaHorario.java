@@ -0,0 +1,38 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Reclamo de un bloque de agenda de un estilista.
+ * El identificador combina el estilista y el inicio del bloque, de modo que el índice
+ * único de _id garantiza que un bloque solo pueda pertenecer a una cita.
+ * Los bloques de un apartado temporal llevan expiraEn y el índice TTL los borra al vencer;
+ * los de una cita confirmada no tienen ese campo y no vencen.
+ */
+@Document("reservas_horario")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ReservaHorario {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private String estilistaId;
+    private LocalDateTime inicioBloque;
+
+    @Indexed
+    private String citaId;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiraEn;
+}
@@ -2,6 +2,7 @@ package co.edu.uniquindio.laos.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -22,6 +23,7 @@ public class Sugerencia {
     private String email;
     private String motivo;
     private String mensaje;
+    @Indexed
     private String fecha;
     private boolean revisado;
 }
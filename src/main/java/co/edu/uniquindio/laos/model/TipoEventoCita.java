@@ -0,0 +1,5 @@
+package co.edu.uniquindio.laos.model;
+
+public enum TipoEventoCita {
+    CREADA, REPROGRAMADA, REASIGNADA, CANCELADA, COMPLETADA
+}
@@ -1,11 +1,16 @@
 package co.edu.uniquindio.laos.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document("usuarios")
+@CompoundIndex(name = "codigo_activacion", def = "{'codigoActivacion.codigo': 1}", sparse = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -17,10 +22,12 @@ public class Usuario {
     @EqualsAndHashCode.Include
     private String id;
 
+    @Indexed
     private String cedula;
     private String nombreCompleto;
     private String direccion;
     private String telefono;
+    @Indexed
     private String email;
     private String contrasenia;
     private Rol rol;
@@ -30,5 +37,11 @@ public class Usuario {
     private CodigoRecuperacion codigoRecuperacion;
     private int fallosInicioSesion;
     private LocalDateTime tiempoBloqueo;
+    // Secreto de la URL del feed .ics del cliente; solo existe después de pedir la suscripción y nunca se serializa
+    @JsonIgnore
+    @Indexed(unique = true, sparse = true)
+    private String tokenCalendario;
+    @Version
+    private Long version;
 }
 
@@ -0,0 +1,33 @@
+package co.edu.uniquindio.laos.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+@Document("utilizacion_estilistas")
+@CompoundIndexes({
+        @CompoundIndex(name = "estilista_dia", def = "{'estilistaId': 1, 'dia': 1}")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class UtilizacionEstilista {
+
+    // estilistaId:dia
+    @Id
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private String estilistaId;
+    private LocalDate dia;
+
+    // Citas confirmadas, reprogramadas o completadas del día y sus minutos reservados
+    private int citas;
+    private long minutos;
+}
@@ -0,0 +1,19 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ApartadoHorarioRepo extends MongoRepository<ApartadoHorario, String> {
+
+    // Holds of the given stylists that overlap [desde, hasta) and have not expired at ahora
+    @Query("{ 'estilistaId': { $in: ?0 }, 'fechaHora': { $lt: ?2 }, 'fechaHoraFin': { $gt: ?1 }, 'expiraEn': { $gt: ?3 } }")
+    List<ApartadoHorario> buscarVigentes(Collection<String> idsEstilistas, LocalDateTime desde, LocalDateTime hasta, Instant ahora);
+}
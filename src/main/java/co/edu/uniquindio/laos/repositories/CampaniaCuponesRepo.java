@@ -0,0 +1,17 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.CampaniaCupones;
+import co.edu.uniquindio.laos.model.EstadoCampania;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CampaniaCuponesRepo extends MongoRepository<CampaniaCupones, String> {
+
+    // Campaigns in the given state, oldest first
+    @Query(value = "{ 'estado': ?0 }", sort = "{ 'fechaInicio': 1 }")
+    List<CampaniaCupones> buscarPorEstado(EstadoCampania estado);
+}
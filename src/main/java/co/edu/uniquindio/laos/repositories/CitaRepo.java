@@ -3,21 +3,26 @@ package co.edu.uniquindio.laos.repositories;
 import co.edu.uniquindio.laos.model.Cita;
 import co.edu.uniquindio.laos.model.EstadoCita;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CitaRepo extends MongoRepository<Cita, String> {
+public interface CitaRepo extends MongoRepository<Cita, String>, CitaRepoPaginado, CitaRepoCalendario, CitaRepoMantenimiento,
+        CitaRepoArchivo {
 
     // Find all appointments by client id
     List<Cita> findByUsuarioId(String clienteId);
 
+    @Query(value = "{ 'usuarioId': ?0, 'estado': { $in: ?1 } }", fields = CAMPOS_LISTADO)
     List<Cita> findByUsuarioIdAndEstadoIn(String clienteId, List<String> estados);
 
     // Find all appointments by stylist id
+    @Query(value = "{ 'estilistaId': ?0 }", fields = CAMPOS_LISTADO)
     List<Cita> findByEstilistaId(String estilistaId);
 
     List<Cita> findByEstadoIn(List<String> estados);
@@ -26,8 +31,13 @@ public interface CitaRepo extends MongoRepository<Cita, String> {
     Optional<Cita> findById(String citaId);
 
     // Find all appointments by status
+    @Query(value = "{ 'estado': ?0 }", fields = CAMPOS_LISTADO)
     List<Cita> findByEstado(EstadoCita estado);
 
-    // Find all appointments by client id and status
-    boolean existsByEstilistaIdAndFechaHora(String idEstilista, LocalDateTime fechaHora);
-}
\ No newline at end of file
+    // Find non-cancelled appointments of several stylists starting inside (desde, hasta), served by the (estilistaId, fechaHora) index
+    @Query("{ 'estilistaId': { $in: ?0 }, 'fechaHora': { $gt: ?1, $lt: ?2 }, 'estado': { $ne: 'CANCELADA' } }")
+    List<Cita> findActivasByEstilistaIdInAndFechaHoraEntre(Collection<String> idsEstilistas, LocalDateTime desde, LocalDateTime hasta);
+
+    // Most recently modified appointment, served by the fechaModificacion index; its timestamp is the calendar version
+    Optional<Cita> findTopByOrderByFechaModificacionDesc();
+}
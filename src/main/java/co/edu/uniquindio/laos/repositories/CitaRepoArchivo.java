@@ -0,0 +1,39 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.HistorialCliente;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CitaRepoArchivo {
+
+    // Cold collection holding archived appointments; same document shape and indexes as citas
+    String COLECCION_ARCHIVO = "citas_archivo";
+
+    // CANCELADA/COMPLETADA appointments in citas that started before antesDe and hold no pending events, oldest first, at most limite
+    List<Cita> buscarParaArchivar(LocalDateTime antesDe, int limite);
+
+    // Copy the appointments to the archive and remove them from citas; returns the ids actually moved
+    List<String> archivar(List<Cita> citas);
+
+    List<Cita> buscarArchivadasPorUsuario(String usuarioId, Collection<EstadoCita> estados);
+
+    List<Cita> buscarArchivadasPorEstilista(String estilistaId);
+
+    List<Cita> buscarArchivadasPorEstado(EstadoCita estado);
+
+    Optional<Cita> buscarArchivadaPorId(String id);
+
+    // Same keyset page as CitaRepoPaginado.buscarPagina, read from the archive
+    List<Cita> buscarPaginaArchivo(EstadoCita estado, String estilistaId, String usuarioId,
+                                   LocalDateTime desde, LocalDateTime hasta,
+                                   LocalDateTime cursorFechaHora, String cursorId, int limite);
+
+    // Completed count and latest activity of each client over citas and the archive in one aggregation;
+    // clients without appointments are absent from the result
+    List<HistorialCliente> resumirPorCliente(Collection<String> usuarioIds);
+}
@@ -0,0 +1,145 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AccumulatorOperators;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.MatchOperation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Implementación del archivo de citas.
+ *
+ * Las citas canceladas y completadas antiguas se mueven de citas a citas_archivo, que guarda
+ * los mismos documentos con los mismos índices. Así la colección activa y sus índices solo
+ * contienen las citas que todavía se consultan a menudo.
+ *
+ * Mover un lote no es atómico: primero se copian las citas y luego se borran de citas,
+ * exigiendo de nuevo el estado. Si el proceso se cae entre los dos pasos, el siguiente lote
+ * vuelve a copiar las mismas citas (las copias previas se reemplazan) y las termina de mover.
+ * Si una cita cambió de estado mientras se copiaba, se queda en citas y su copia se elimina.
+ * Tampoco se archivan citas con eventos que aún no se copian a eventos_citas.
+ *
+ * El resumen por cliente recorre las dos colecciones en una sola agregación con $unionWith,
+ * entrando a cada una por el índice de usuarioId, para que cuente también las citas archivadas.
+ */
+@RequiredArgsConstructor
+public class CitaRepoArchivoImpl implements CitaRepoArchivo {
+
+    private static final List<EstadoCita> ESTADOS_ARCHIVABLES = List.of(EstadoCita.CANCELADA, EstadoCita.COMPLETADA);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Cita> buscarParaArchivar(LocalDateTime antesDe, int limite) {
+        // Una cita con eventos sin copiar espera al siguiente lote para no llevárselos al archivo
+        Criteria criteria = Criteria.where("estado").in(ESTADOS_ARCHIVABLES).and("fechaHora").lt(antesDe)
+                .and("eventosPendientes.eventoId").exists(false);
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.asc("fechaHora")))
+                .limit(limite);
+        return mongoTemplate.find(query, Cita.class);
+    }
+
+    @Override
+    public List<String> archivar(List<Cita> citas) {
+        if (citas.isEmpty()) {
+            return List.of();
+        }
+        List<String> ids = citas.stream().map(Cita::getId).toList();
+
+        // Un lote reintentado puede encontrar copias de una ejecución que no terminó
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Cita.class, COLECCION_ARCHIVO);
+        mongoTemplate.insert(citas, COLECCION_ARCHIVO);
+
+        long borradas = mongoTemplate.remove(
+                new Query(Criteria.where("_id").in(ids).and("estado").in(ESTADOS_ARCHIVABLES)
+                        .and("eventosPendientes.eventoId").exists(false)),
+                Cita.class).getDeletedCount();
+        if (borradas == ids.size()) {
+            return ids;
+        }
+
+        // Las que siguen en citas cambiaron de estado durante la copia: su copia sobra
+        Query siguenActivas = new Query(Criteria.where("_id").in(ids));
+        siguenActivas.fields().include("_id");
+        Set<String> activas = new HashSet<>();
+        mongoTemplate.find(siguenActivas, Cita.class).forEach(cita -> activas.add(cita.getId()));
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(activas)), Cita.class, COLECCION_ARCHIVO);
+
+        return ids.stream().filter(id -> !activas.contains(id)).toList();
+    }
+
+    @Override
+    public List<Cita> buscarArchivadasPorUsuario(String usuarioId, Collection<EstadoCita> estados) {
+        return mongoTemplate.find(
+                paraListado(new Query(Criteria.where("usuarioId").is(usuarioId).and("estado").in(estados))),
+                Cita.class, COLECCION_ARCHIVO);
+    }
+
+    @Override
+    public List<Cita> buscarArchivadasPorEstilista(String estilistaId) {
+        return mongoTemplate.find(
+                paraListado(new Query(Criteria.where("estilistaId").is(estilistaId))), Cita.class, COLECCION_ARCHIVO);
+    }
+
+    @Override
+    public List<Cita> buscarArchivadasPorEstado(EstadoCita estado) {
+        return mongoTemplate.find(
+                paraListado(new Query(Criteria.where("estado").is(estado))), Cita.class, COLECCION_ARCHIVO);
+    }
+
+    @Override
+    public Optional<Cita> buscarArchivadaPorId(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, Cita.class, COLECCION_ARCHIVO));
+    }
+
+    @Override
+    public List<Cita> buscarPaginaArchivo(EstadoCita estado, String estilistaId, String usuarioId,
+                                          LocalDateTime desde, LocalDateTime hasta,
+                                          LocalDateTime cursorFechaHora, String cursorId, int limite) {
+        Query query = CitaRepoPaginadoImpl.construirConsulta(
+                estado, estilistaId, usuarioId, desde, hasta, cursorFechaHora, cursorId, limite);
+        return mongoTemplate.find(query, Cita.class, COLECCION_ARCHIVO);
+    }
+
+    @Override
+    public List<HistorialCliente> resumirPorCliente(Collection<String> usuarioIds) {
+        if (usuarioIds.isEmpty()) {
+            return List.of();
+        }
+        MatchOperation deLosClientes = Aggregation.match(Criteria.where("usuarioId").in(usuarioIds));
+        Aggregation agregacion = Aggregation.newAggregation(
+                deLosClientes,
+                UnionWithOperation.unionWith(COLECCION_ARCHIVO).pipeline(deLosClientes),
+                Aggregation.group("usuarioId")
+                        .sum(ConditionalOperators.when(Criteria.where("estado").is(EstadoCita.COMPLETADA.name()))
+                                .then(1).otherwise(0)).as("completadas")
+                        // Una cita próxima también es actividad; las citas anteriores al registro de cambios no tienen fechaModificacion
+                        .max(AccumulatorOperators.Max.maxOf("fechaHora").and("fechaModificacion")).as("ultimaActividad"));
+        return mongoTemplate.aggregate(agregacion, Cita.class, HistorialCliente.class).getMappedResults();
+    }
+
+    /**
+     * Limita la consulta a los campos que usan los listados
+     */
+    private static Query paraListado(Query query) {
+        Document.parse(CitaRepoPaginado.CAMPOS_LISTADO).keySet().forEach(query.fields()::include);
+        return query;
+    }
+}
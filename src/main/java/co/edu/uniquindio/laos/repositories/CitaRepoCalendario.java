@@ -0,0 +1,30 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface CitaRepoCalendario {
+
+    // Calendar window [desde, hasta), optionally for one stylist; with modificadasDespues only changed appointments in any state
+    List<Cita> buscarCalendario(LocalDateTime desde, LocalDateTime hasta, String estilistaId, Instant modificadasDespues);
+
+    // Daily agenda window [desde, hasta) of one stylist or of all (estilistaId null), without cancelled appointments
+    List<Cita> buscarAgendaDiaria(LocalDateTime desde, LocalDateTime hasta, String estilistaId);
+
+    // Appointments changed after modificadasDespues in any state and on any date, with the daily agenda fields
+    List<Cita> buscarAgendaModificada(Instant modificadasDespues);
+
+    // Lazily iterated .ics feed of one stylist or one client (the other id is null) in [desde, hasta), without cancelled appointments
+    Stream<Cita> recorrerFeedIcs(String estilistaId, String usuarioId, LocalDateTime desde, LocalDateTime hasta);
+
+    // Appointments of one stylist or one client in [desde, hasta) in any state, counted on the (subject, fechaHora) index alone
+    long contarFeedIcs(String estilistaId, String usuarioId, LocalDateTime desde, LocalDateTime hasta);
+
+    // Latest modification of any appointment of one stylist or one client, served by the (subject, fechaModificacion) index
+    Optional<Instant> buscarUltimaModificacion(String estilistaId, String usuarioId);
+}
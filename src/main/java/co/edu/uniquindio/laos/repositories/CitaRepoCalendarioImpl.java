@@ -0,0 +1,143 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Implementación de la consulta del calendario de citas.
+ *
+ * La consulta siempre está acotada por una ventana de fechas (y opcionalmente por estilista),
+ * solo trae los campos que necesita el calendario y, en modo incremental, devuelve únicamente
+ * las citas modificadas después de una versión, incluidas las canceladas para que el cliente
+ * pueda quitarlas.
+ *
+ * La agenda diaria de los estilistas usa la misma ventana con los campos que muestra el
+ * teléfono del estilista, incluidas las citas completadas del día. Sus cambios se piden solo por
+ * fecha de modificación, sin la ventana, para recibir también las citas que salieron de ella.
+ *
+ * El feed .ics de un estilista o de un cliente se recorre con un cursor en lugar de cargarse
+ * en una lista. Su versión se arma con dos lecturas que solo tocan índices: la modificación
+ * más reciente del sujeto y el número de citas del sujeto en la ventana.
+ */
+@RequiredArgsConstructor
+public class CitaRepoCalendarioImpl implements CitaRepoCalendario {
+
+    /**
+     * Estados que aparecen en el feed .ics y en la agenda diaria; las canceladas se omiten
+     */
+    private static final List<EstadoCita> ESTADOS_FEED_ICS =
+            List.of(EstadoCita.CONFIRMADA, EstadoCita.REPROGRAMADA, EstadoCita.COMPLETADA);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Cita> buscarCalendario(LocalDateTime desde, LocalDateTime hasta, String estilistaId, Instant modificadasDespues) {
+        Criteria criteria = Criteria.where("fechaHora").gte(desde).lt(hasta);
+        if (estilistaId != null) {
+            criteria = criteria.and("estilistaId").is(estilistaId);
+        }
+        if (modificadasDespues == null) {
+            criteria = criteria.and("estado").in(EstadoCita.CONFIRMADA, EstadoCita.REPROGRAMADA);
+        } else {
+            criteria = criteria.and("fechaModificacion").gt(modificadasDespues);
+        }
+
+        Query query = new Query(criteria).with(Sort.by(Sort.Order.asc("fechaHora"), Sort.Order.asc("_id")));
+        query.fields()
+                .include("estilistaId")
+                .include("servicioId")
+                .include("fechaHora")
+                .include("fechaHoraFin")
+                .include("servicioDuracionMinutos")
+                .include("estado");
+
+        return mongoTemplate.find(query, Cita.class);
+    }
+
+    @Override
+    public List<Cita> buscarAgendaDiaria(LocalDateTime desde, LocalDateTime hasta, String estilistaId) {
+        Criteria criteria = Criteria.where("fechaHora").gte(desde).lt(hasta);
+        if (estilistaId != null) {
+            criteria = criteria.and("estilistaId").is(estilistaId);
+        }
+        criteria = criteria.and("estado").in(ESTADOS_FEED_ICS);
+
+        Query query = new Query(criteria).with(Sort.by(Sort.Order.asc("fechaHora"), Sort.Order.asc("_id")));
+        incluirCamposAgenda(query);
+        return mongoTemplate.find(query, Cita.class);
+    }
+
+    @Override
+    public List<Cita> buscarAgendaModificada(Instant modificadasDespues) {
+        Query query = new Query(Criteria.where("fechaModificacion").gt(modificadasDespues));
+        incluirCamposAgenda(query);
+        return mongoTemplate.find(query, Cita.class);
+    }
+
+    @Override
+    public Stream<Cita> recorrerFeedIcs(String estilistaId, String usuarioId, LocalDateTime desde, LocalDateTime hasta) {
+        Criteria criteria = criterioSujeto(estilistaId, usuarioId)
+                .and("fechaHora").gte(desde).lt(hasta)
+                .and("estado").in(ESTADOS_FEED_ICS);
+
+        Query query = new Query(criteria).with(Sort.by(Sort.Order.asc("fechaHora"), Sort.Order.asc("_id")));
+        query.fields()
+                .include("estilistaNombre")
+                .include("servicioNombre")
+                .include("fechaHora")
+                .include("fechaHoraFin")
+                .include("servicioDuracionMinutos")
+                .include("estado")
+                .include("fechaModificacion")
+                .include("version");
+
+        return mongoTemplate.stream(query, Cita.class);
+    }
+
+    @Override
+    public long contarFeedIcs(String estilistaId, String usuarioId, LocalDateTime desde, LocalDateTime hasta) {
+        // Sin filtro de estado para que el conteo no tenga que leer documentos; un cambio
+        // de estado ya se refleja en la fecha de modificación
+        Query query = new Query(criterioSujeto(estilistaId, usuarioId).and("fechaHora").gte(desde).lt(hasta));
+        return mongoTemplate.count(query, Cita.class);
+    }
+
+    @Override
+    public Optional<Instant> buscarUltimaModificacion(String estilistaId, String usuarioId) {
+        Query query = new Query(criterioSujeto(estilistaId, usuarioId))
+                .with(Sort.by(Sort.Order.desc("fechaModificacion")))
+                .limit(1);
+        query.fields().include("fechaModificacion");
+
+        return Optional.ofNullable(mongoTemplate.findOne(query, Cita.class))
+                .map(Cita::getFechaModificacion);
+    }
+
+    private static Criteria criterioSujeto(String estilistaId, String usuarioId) {
+        return estilistaId != null
+                ? Criteria.where("estilistaId").is(estilistaId)
+                : Criteria.where("usuarioId").is(usuarioId);
+    }
+
+    private static void incluirCamposAgenda(Query query) {
+        query.fields()
+                .include("usuarioId")
+                .include("estilistaId")
+                .include("servicioNombre")
+                .include("fechaHora")
+                .include("fechaHoraFin")
+                .include("servicioDuracionMinutos")
+                .include("estado");
+    }
+}
@@ -0,0 +1,40 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface CitaRepoMantenimiento {
+
+    // Ids of CONFIRMADA/REPROGRAMADA appointments already finished at ahora, oldest first, at most limite
+    List<String> buscarIdsVencidas(LocalDateTime ahora, int limite);
+
+    // Move the given appointments to COMPLETADA if they are still CONFIRMADA/REPROGRAMADA, recording a COMPLETADA
+    // event in the same update; returns how many changed
+    long marcarCompletadas(Collection<String> ids, Instant fechaModificacion);
+
+    // Set the appointment to CANCELADA in place with its CANCELADA event and return it as it was before; empty if it does not exist
+    Optional<Cita> cancelar(String id, Instant fechaModificacion);
+
+    // Write each appointment's new stylist, stylist name and state in one unordered bulk write, only where it still
+    // belongs to estilistaAnterior, is CONFIRMADA/REPROGRAMADA and has the version and fechaHora it was read with,
+    // each with its REASIGNADA or CANCELADA event; returns the ids that changed
+    Set<String> aplicarCambiosDeEstilista(String estilistaAnterior, List<Cita> citas, Instant fechaModificacion);
+
+    // Appointments that still hold events not yet copied to eventos_citas (id and events only), served by the sparse index
+    List<Cita> buscarConEventosPendientes(int limite);
+
+    // Remove from each appointment the pending events it was read with; events added since then stay
+    void descartarEventosPendientes(List<Cita> relevadas);
+
+    // Copy the stylist's current name onto its hot and archived appointments that hold a different one
+    long actualizarNombreEstilista(String estilistaId, String nombre);
+
+    // Copy the service's current name onto its hot and archived appointments that hold a different one
+    long actualizarNombreServicio(String servicioId, String nombre);
+}
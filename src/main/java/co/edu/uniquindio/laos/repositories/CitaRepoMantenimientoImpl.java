@@ -0,0 +1,202 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.EventoPendienteCita;
+import co.edu.uniquindio.laos.model.TipoEventoCita;
+import co.edu.uniquindio.laos.utils.EventosCitaUtils;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de las operaciones de mantenimiento de citas.
+ *
+ * Las citas vencidas se buscan por el índice (estado, fechaHora) y se actualizan con un solo
+ * updateMulti por lote. El filtro de la actualización vuelve a exigir el estado, así una cita
+ * cancelada o reprogramada entre la búsqueda y la actualización no se marca como completada.
+ * updateMulti no pasa por la auditoría de Spring Data, por eso fechaModificacion se asigna aquí.
+ * Lo mismo vale para las reasignaciones de estilista, que se escriben juntas en un bulk write.
+ * Como el bulk write solo devuelve cuántas cambiaron, las reasignaciones se releen después para
+ * saber cuáles se aplicaron.
+ * Todas estas escrituras incrementan la versión de la cita, así un save que partió de una
+ * lectura anterior falla por bloqueo optimista en lugar de deshacer el cambio. Cancelar,
+ * completar y reasignar agregan su evento a eventosPendientes en la misma actualización.
+ */
+@RequiredArgsConstructor
+public class CitaRepoMantenimientoImpl implements CitaRepoMantenimiento {
+
+    /**
+     * Las citas antiguas sin fin guardado se consideran terminadas un día después de su inicio
+     */
+    private static final long DIAS_CITAS_SIN_FIN = 1;
+
+    private static final List<EstadoCita> ESTADOS_ACTIVOS = List.of(EstadoCita.CONFIRMADA, EstadoCita.REPROGRAMADA);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<String> buscarIdsVencidas(LocalDateTime ahora, int limite) {
+        Criteria criteria = Criteria.where("estado").in(ESTADOS_ACTIVOS)
+                .and("fechaHora").lt(ahora)
+                .orOperator(
+                        Criteria.where("fechaHoraFin").lte(ahora),
+                        new Criteria().andOperator(
+                                Criteria.where("fechaHoraFin").is(null),
+                                Criteria.where("fechaHora").lte(ahora.minusDays(DIAS_CITAS_SIN_FIN))));
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.asc("fechaHora")))
+                .limit(limite);
+        query.fields().include("_id");
+
+        return mongoTemplate.find(query, Cita.class).stream()
+                .map(Cita::getId)
+                .toList();
+    }
+
+    @Override
+    public Optional<Cita> cancelar(String id, Instant fechaModificacion) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        Update update = new Update()
+                .set("estado", EstadoCita.CANCELADA)
+                .set("fechaModificacion", fechaModificacion)
+                .push("eventosPendientes", EventosCitaUtils.nuevoEvento(TipoEventoCita.CANCELADA, null, fechaModificacion))
+                .inc("version", 1);
+        // Se devuelve la cita anterior: sus bloques y su horario son los que hay que liberar
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), Cita.class));
+    }
+
+    @Override
+    public long marcarCompletadas(Collection<String> ids, Instant fechaModificacion) {
+        Query query = new Query(Criteria.where("_id").in(ids).and("estado").in(ESTADOS_ACTIVOS));
+        Update update = new Update()
+                .set("estado", EstadoCita.COMPLETADA)
+                .set("fechaModificacion", fechaModificacion)
+                // El mismo evento en todas las citas del lote; al copiarlo se le antepone el id de cada cita
+                .push("eventosPendientes", EventosCitaUtils.nuevoEvento(TipoEventoCita.COMPLETADA, null, fechaModificacion))
+                .inc("version", 1);
+        return mongoTemplate.updateMulti(query, update, Cita.class).getModifiedCount();
+    }
+
+    @Override
+    public Set<String> aplicarCambiosDeEstilista(String estilistaAnterior, List<Cita> citas, Instant fechaModificacion) {
+        if (citas.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cita.class);
+        for (Cita cita : citas) {
+            // Si la cita cambió desde que se leyó (otra reprogramación o cancelación), no se pisa
+            Query query = new Query(Criteria.where("_id").is(cita.getId())
+                    .and("version").is(cita.getVersion())
+                    .and("fechaHora").is(cita.getFechaHora())
+                    .and("estilistaId").is(estilistaAnterior)
+                    .and("estado").in(ESTADOS_ACTIVOS));
+            Update update = new Update()
+                    .set("estilistaId", cita.getEstilistaId())
+                    .set("estilistaNombre", cita.getEstilistaNombre())
+                    .set("estado", cita.getEstado())
+                    .set("fechaModificacion", fechaModificacion)
+                    .push("eventosPendientes", EventosCitaUtils.nuevoEvento(
+                            cita.getEstado() == EstadoCita.CANCELADA ? TipoEventoCita.CANCELADA : TipoEventoCita.REASIGNADA,
+                            cita, fechaModificacion))
+                    .inc("version", 1);
+            operaciones.updateOne(query, update);
+        }
+        operaciones.execute();
+        return buscarAplicadas(citas);
+    }
+
+    /**
+     * Relee las citas de una reasignación para saber a cuáles se les aplicó el cambio: las que
+     * avanzaron de versión y quedaron con el estilista y el estado que se escribieron. Una cita
+     * cuyo filtro no coincidió conserva el estilista anterior o el estado que le dio otra petición.
+     */
+    private Set<String> buscarAplicadas(List<Cita> citas) {
+        Query query = new Query(Criteria.where("_id").in(citas.stream().map(Cita::getId).toList()));
+        query.fields().include("_id").include("version").include("estilistaId").include("estado");
+        Map<String, Cita> actuales = mongoTemplate.find(query, Cita.class).stream()
+                .collect(Collectors.toMap(Cita::getId, Function.identity()));
+
+        Set<String> aplicadas = new HashSet<>();
+        for (Cita cita : citas) {
+            Cita actual = actuales.get(cita.getId());
+            long versionLeida = cita.getVersion() == null ? 0 : cita.getVersion();
+            if (actual != null && actual.getVersion() != null && actual.getVersion() > versionLeida
+                    && Objects.equals(actual.getEstilistaId(), cita.getEstilistaId())
+                    && actual.getEstado() == cita.getEstado()) {
+                aplicadas.add(cita.getId());
+            }
+        }
+        return aplicadas;
+    }
+
+    @Override
+    public List<Cita> buscarConEventosPendientes(int limite) {
+        Query query = new Query(Criteria.where("eventosPendientes.eventoId").exists(true)).limit(limite);
+        query.fields().include("_id").include("eventosPendientes");
+        return mongoTemplate.find(query, Cita.class);
+    }
+
+    @Override
+    public void descartarEventosPendientes(List<Cita> relevadas) {
+        if (relevadas.isEmpty()) {
+            return;
+        }
+        BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cita.class);
+        for (Cita cita : relevadas) {
+            List<String> ids = cita.getEventosPendientes().stream().map(EventoPendienteCita::getEventoId).toList();
+            // Sin tocar la versión: un save que partió de una lectura anterior puede volver a escribir
+            // estos eventos, y copiarlos de nuevo no los duplica
+            operaciones.updateOne(new Query(Criteria.where("_id").is(cita.getId())),
+                    new Update().pull("eventosPendientes", new Document("eventoId", new Document("$in", ids))));
+        }
+        operaciones.execute();
+    }
+
+    @Override
+    public long actualizarNombreEstilista(String estilistaId, String nombre) {
+        return actualizarCopia("estilistaId", estilistaId, "estilistaNombre", nombre);
+    }
+
+    @Override
+    public long actualizarNombreServicio(String servicioId, String nombre) {
+        return actualizarCopia("servicioId", servicioId, "servicioNombre", nombre);
+    }
+
+    /**
+     * Actualiza una copia desnormalizada en citas y en citas_archivo. El filtro $ne deja fuera
+     * las citas que ya tienen el valor, así una reconciliación sin cambios no escribe nada;
+     * también alcanza a las citas antiguas que aún no tienen la copia.
+     * fechaModificacion sí se actualiza porque el feed .ics muestra los nombres y su ETag
+     * depende de ella.
+     */
+    private long actualizarCopia(String campoId, String id, String campoCopia, String valor) {
+        Query query = new Query(Criteria.where(campoId).is(id).and(campoCopia).ne(valor));
+        Update update = new Update()
+                .set(campoCopia, valor)
+                .set("fechaModificacion", Instant.now())
+                .inc("version", 1);
+        return mongoTemplate.updateMulti(query, update, Cita.class).getModifiedCount()
+                + mongoTemplate.updateMulti(query, update, Cita.class, CitaRepoArchivo.COLECCION_ARCHIVO).getModifiedCount();
+    }
+}
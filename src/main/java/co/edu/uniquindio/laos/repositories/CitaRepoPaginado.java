@@ -0,0 +1,19 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CitaRepoPaginado {
+
+    // Fields read by appointment listings; everything InformacionCitaDTO needs, stored on the document
+    String CAMPOS_LISTADO = "{ 'usuarioId': 1, 'estilistaId': 1, 'estilistaNombre': 1, 'servicioId': 1, "
+            + "'servicioNombre': 1, 'fechaHora': 1, 'estado': 1 }";
+
+    // Keyset page ordered by (fechaHora, _id); null filters are ignored, the cursor is the last (fechaHora, id) already returned
+    List<Cita> buscarPagina(EstadoCita estado, String estilistaId, String usuarioId,
+                            LocalDateTime desde, LocalDateTime hasta,
+                            LocalDateTime cursorFechaHora, String cursorId, int limite);
+}
@@ -0,0 +1,77 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de la paginación por cursor (keyset) de citas.
+ *
+ * En lugar de saltar registros con skip, cada página continúa desde el último
+ * (fechaHora, _id) devuelto. Con los índices que empiezan por el filtro y siguen por
+ * fechaHora, cada página es un recorrido acotado del índice y su costo no depende de
+ * qué tan profundo esté el cursor.
+ */
+@RequiredArgsConstructor
+public class CitaRepoPaginadoImpl implements CitaRepoPaginado {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Cita> buscarPagina(EstadoCita estado, String estilistaId, String usuarioId,
+                                   LocalDateTime desde, LocalDateTime hasta,
+                                   LocalDateTime cursorFechaHora, String cursorId, int limite) {
+        return mongoTemplate.find(
+                construirConsulta(estado, estilistaId, usuarioId, desde, hasta, cursorFechaHora, cursorId, limite),
+                Cita.class);
+    }
+
+    /**
+     * Construye la consulta de una página; también la usa el archivo de citas, que tiene los mismos índices
+     */
+    static Query construirConsulta(EstadoCita estado, String estilistaId, String usuarioId,
+                                   LocalDateTime desde, LocalDateTime hasta,
+                                   LocalDateTime cursorFechaHora, String cursorId, int limite) {
+        List<Criteria> condiciones = new ArrayList<>();
+        if (estado != null) {
+            condiciones.add(Criteria.where("estado").is(estado));
+        }
+        if (estilistaId != null) {
+            condiciones.add(Criteria.where("estilistaId").is(estilistaId));
+        }
+        if (usuarioId != null) {
+            condiciones.add(Criteria.where("usuarioId").is(usuarioId));
+        }
+        if (desde != null) {
+            condiciones.add(Criteria.where("fechaHora").gte(desde));
+        }
+        if (hasta != null) {
+            condiciones.add(Criteria.where("fechaHora").lt(hasta));
+        }
+        if (cursorFechaHora != null) {
+            // Siguiente posición después del cursor en el orden (fechaHora, _id)
+            condiciones.add(new Criteria().orOperator(
+                    Criteria.where("fechaHora").gt(cursorFechaHora),
+                    new Criteria().andOperator(
+                            Criteria.where("fechaHora").is(cursorFechaHora),
+                            Criteria.where("_id").gt(cursorId))));
+        }
+
+        Query query = condiciones.isEmpty()
+                ? new Query()
+                : new Query(new Criteria().andOperator(condiciones.toArray(new Criteria[0])));
+        query.with(Sort.by(Sort.Order.asc("fechaHora"), Sort.Order.asc("_id")));
+        query.limit(limite);
+        Document.parse(CAMPOS_LISTADO).keySet().forEach(query.fields()::include);
+        return query;
+    }
+}
@@ -4,25 +4,39 @@ import co.edu.uniquindio.laos.model.Cupon;
 import co.edu.uniquindio.laos.model.EstadoCupon;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CuponRepo extends MongoRepository<Cupon, String> {
+public interface CuponRepo extends MongoRepository<Cupon, String>, CuponRepoRedencion, CuponRepoLote,
+        CuponRepoMantenimiento {
     @Query("{ 'codigo' : ?0, 'estadoCupon' : { $ne: ?1 } }")
     Optional<Cupon> findByCodigoAndEstadoNot(String codigo, EstadoCupon estadoCupon);
 
-    @Query("{ 'usuario.$id': ObjectId(?0), 'estadoCupon': { $ne: ?1 } }")
-    List<Cupon> findByUsuarioIdAndEstadoNot(String usuarioId, EstadoCupon estadoCupon);
+    // usuarioId is mapped to ObjectId by the entity; the usuario.$id branch covers coupons not yet migrated.
+    // Expired coupons are left out by date too, so they stay hidden until the sweep marks them VENCIDO
+    @Query("{ 'estadoCupon': { $nin: ['ELIMINADO', 'VENCIDO'] }, $and: [ "
+            + "{ $or: [ { 'usuarioId': ?0 }, { 'usuario.$id': ObjectId(?0) } ] }, "
+            + "{ $or: [ { 'fechaVencimiento': null }, { 'fechaVencimiento': { $gte: ?1 } } ] } ] }")
+    List<Cupon> buscarVigentesPorUsuario(String usuarioId, LocalDate hoy);
 
-    @Query("{ 'codigo' : ?0, 'usuario.$id' : ObjectId(?1), 'estadoCupon' : { $ne: ?2 } }")
+    @Query("{ 'codigo' : ?0, $or: [ { 'usuarioId' : ?1 }, { 'usuario.$id' : ObjectId(?1) } ], 'estadoCupon' : { $ne: ?2 } }")
     Optional<Cupon> findByCodigoAndIdUsuarioAndEstadoNot(String codigo, String idUsuario, EstadoCupon estadoCupon);
 
     @Query("{ '_id' : ObjectId(?0), 'estadoCupon' : { $ne: ?1 } }")
     Optional<Cupon> findByIdAndEstadoNot(String id, EstadoCupon estadoCupon);
 
-    @Query("{'estadoCupon': {$ne: 'ELIMINADO'}}")
-    List<Cupon> findCuponesNoEliminados();
+    // Coupons neither deleted nor expired, whether or not the sweep has already marked them VENCIDO
+    @Query("{ 'estadoCupon': { $nin: ['ELIMINADO', 'VENCIDO'] }, "
+            + "$or: [ { 'fechaVencimiento': null }, { 'fechaVencimiento': { $gte: ?0 } } ] }")
+    List<Cupon> buscarVigentes(LocalDate hoy);
+
+    // Soft delete in place; returns 0 if the coupon does not exist or was already deleted
+    @Query("{ '_id' : ObjectId(?0), 'estadoCupon' : { $ne: 'ELIMINADO' } }")
+    @Update("{ '$set': { 'estadoCupon': 'ELIMINADO' }, '$inc': { 'version': 1 } }")
+    long marcarEliminado(String id);
 }
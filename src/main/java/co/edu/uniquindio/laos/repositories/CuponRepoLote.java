@@ -0,0 +1,21 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cupon;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface CuponRepoLote {
+
+    // Insert the coupons in one ordered bulk write, which stops at the first code already taken; returns the position
+    // of that coupon (every coupon before it was inserted, none after it), or the list size if all were inserted
+    int insertarEnOrden(List<Cupon> cupones);
+
+    // Insert every coupon in one unordered bulk write; returns the coupons rejected because their code was taken or
+    // their client already has a coupon of the same campaign
+    List<Cupon> insertarSinOrden(List<Cupon> cupones);
+
+    // Ids of the given clients that already have a coupon of the campaign
+    Set<String> buscarUsuariosConCupon(String campania, Collection<String> usuarioIds);
+}
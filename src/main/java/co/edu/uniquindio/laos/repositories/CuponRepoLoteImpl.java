@@ -0,0 +1,91 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cupon;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de la inserción de cupones en lote.
+ *
+ * El índice único de codigo es quien decide si un código ya existe, así que no hace falta
+ * consultar antes de insertar. Con una escritura ordenada MongoDB inserta en orden hasta el
+ * primer código repetido y reporta su posición: todo lo anterior quedó guardado y lo posterior
+ * no se intentó, de modo que quien llama solo cambia ese código y reenvía el resto. Para los
+ * cupones de campaña por cliente la escritura es sin orden: se intentan todos y se devuelven los
+ * rechazados, que pueden ser por código o por el índice único de campaña y cliente.
+ */
+@RequiredArgsConstructor
+public class CuponRepoLoteImpl implements CuponRepoLote {
+
+    /**
+     * Código de error de MongoDB para una clave única repetida
+     */
+    private static final int CLAVE_DUPLICADA = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public int insertarEnOrden(List<Cupon> cupones) {
+        if (cupones.isEmpty()) {
+            return 0;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Cupon.class)
+                    .insert(cupones)
+                    .execute();
+            return cupones.size();
+        } catch (BulkOperationException e) {
+            // Una escritura ordenada se detiene en el primer error, así que hay uno solo
+            BulkWriteError error = e.getErrors().get(0);
+            if (error.getCode() != CLAVE_DUPLICADA) {
+                throw e;
+            }
+            return error.getIndex();
+        }
+    }
+
+    @Override
+    public List<Cupon> insertarSinOrden(List<Cupon> cupones) {
+        if (cupones.isEmpty()) {
+            return List.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cupon.class)
+                    .insert(cupones)
+                    .execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            List<Cupon> rechazados = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != CLAVE_DUPLICADA) {
+                    throw e;
+                }
+                rechazados.add(cupones.get(error.getIndex()));
+            }
+            return rechazados;
+        }
+    }
+
+    @Override
+    public Set<String> buscarUsuariosConCupon(String campania, Collection<String> usuarioIds) {
+        List<ObjectId> ids = usuarioIds.stream().map(ObjectId::new).toList();
+        // La condición $exists deja que el plan use el índice parcial campania_usuario_id
+        Query query = new Query(Criteria.where("campania").is(campania).and("usuarioId").in(ids).exists(true));
+        query.fields().include("usuarioId");
+        return mongoTemplate.find(query, Cupon.class).stream()
+                .map(Cupon::getUsuarioId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,26 @@
+package co.edu.uniquindio.laos.repositories;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface CuponRepoMantenimiento {
+
+    // Ids of ACTIVO coupons whose fechaVencimiento is before hoy, earliest first, at most limite
+    List<String> buscarIdsVencidos(LocalDate hoy, int limite);
+
+    // Move the given coupons to VENCIDO if they are still ACTIVO and past fechaVencimiento; returns how many changed
+    long marcarVencidos(Collection<String> ids, LocalDate hoy, Instant fecha);
+
+    // Move up to limite coupons from the usuario @DBRef link to the usuarioId field; returns how many changed
+    // A coupon that would repeat its campaign for the same client is marked ELIMINADO instead, with the link in usuarioIdConflicto
+    long migrarEnlacesUsuario(int limite);
+
+    // Coupons still holding the usuario @DBRef link
+    long contarEnlacesUsuarioPendientes();
+
+    // Give every coupon sharing its codigo with another a unique codigo, keeping the newest non deleted one as is;
+    // returns how many were renamed
+    long renombrarCodigosRepetidos();
+}
@@ -0,0 +1,115 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de las operaciones de mantenimiento de cupones.
+ *
+ * Los cupones vencidos se buscan por el índice (estadoCupon, fechaVencimiento) y se pasan a
+ * VENCIDO con un solo updateMulti por lote. El filtro de la actualización vuelve a exigir el
+ * estado y la fecha, así un cupón editado, eliminado o ya vencido por otro nodo entre la búsqueda
+ * y la actualización no se toca, y repetir el lote no cambia nada. La actualización incrementa la
+ * versión para que un save que partió de una lectura anterior falle por bloqueo optimista. La
+ * migración del enlace a usuarios se apoya en MigracionEnlaceUsuario; un cupón de campaña que
+ * repetiría la campaña para el mismo cliente se elimina, porque el cliente ya tiene el suyo.
+ *
+ * Antes del índice único codigo_unico un código podía repetirse: crearCupon solo comparaba con
+ * los cupones no eliminados y el generador anterior no comprobaba colisiones. Para poder crear el
+ * índice, los repetidos se renombran agregando su _id al código; se conserva tal cual el más
+ * reciente que no esté eliminado, o el más reciente si todos lo están.
+ */
+@RequiredArgsConstructor
+public class CuponRepoMantenimientoImpl implements CuponRepoMantenimiento {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<String> buscarIdsVencidos(LocalDate hoy, int limite) {
+        Query query = new Query(Criteria.where("estadoCupon").is(EstadoCupon.ACTIVO).and("fechaVencimiento").lt(hoy))
+                .with(Sort.by(Sort.Order.asc("fechaVencimiento")))
+                .limit(limite);
+        query.fields().include("_id");
+
+        return mongoTemplate.find(query, Cupon.class).stream()
+                .map(Cupon::getId)
+                .toList();
+    }
+
+    @Override
+    public long marcarVencidos(Collection<String> ids, LocalDate hoy, Instant fecha) {
+        Query query = new Query(Criteria.where("_id").in(ids)
+                .and("estadoCupon").is(EstadoCupon.ACTIVO)
+                .and("fechaVencimiento").lt(hoy));
+        Update update = new Update()
+                .set("estadoCupon", EstadoCupon.VENCIDO)
+                .set("fechaVencido", fecha)
+                .inc("version", 1);
+        return mongoTemplate.updateMulti(query, update, Cupon.class).getModifiedCount();
+    }
+
+    @Override
+    public long migrarEnlacesUsuario(int limite) {
+        return MigracionEnlaceUsuario.migrarLote(mongoTemplate, Cupon.class, limite, true,
+                Map.of("estadoCupon", EstadoCupon.ELIMINADO));
+    }
+
+    @Override
+    public long contarEnlacesUsuarioPendientes() {
+        return MigracionEnlaceUsuario.contarPendientes(mongoTemplate, Cupon.class);
+    }
+
+    @Override
+    public long renombrarCodigosRepetidos() {
+        // Del más reciente al más antiguo, así el primero de cada grupo es el más nuevo
+        Aggregation agg = Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("codigo").ne(null)),
+                        Aggregation.sort(Sort.by(Sort.Order.desc("_id"))),
+                        Aggregation.project("codigo", "estadoCupon"),
+                        Aggregation.group("codigo")
+                                .count().as("total")
+                                .push(Aggregation.ROOT).as("cupones"),
+                        Aggregation.match(Criteria.where("total").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<Document> repetidos = mongoTemplate.aggregate(agg, Cupon.class, Document.class).getMappedResults();
+        if (repetidos.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cupon.class);
+        for (Document repetido : repetidos) {
+            List<Document> cupones = repetido.getList("cupones", Document.class);
+            Document conservado = cupones.stream()
+                    .filter(cupon -> !EstadoCupon.ELIMINADO.name().equals(cupon.getString("estadoCupon")))
+                    .findFirst()
+                    .orElse(cupones.get(0));
+            for (Document cupon : cupones) {
+                if (cupon != conservado) {
+                    Object id = cupon.get("_id");
+                    String sufijo = id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+                    String codigo = cupon.getString("codigo");
+                    operaciones.updateOne(new Query(Criteria.where("_id").is(id).and("codigo").is(codigo)),
+                            new Update().set("codigo", codigo + "-" + sufijo).inc("version", 1));
+                }
+            }
+        }
+        return operaciones.execute().getModifiedCount();
+    }
+}
@@ -0,0 +1,15 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cupon;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface CuponRepoRedencion {
+
+    // Atomically record one use of the ACTIVO coupon with the given code, only if it is not expired at hoy, belongs to
+    // the client or to nobody, and is under both its total and per-client limits; returns the coupon after the use,
+    // empty if any condition failed
+    Optional<Cupon> redimir(String codigo, String usuarioId, LocalDate hoy, Instant fecha);
+}
@@ -0,0 +1,70 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.BooleanOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Implementación de la redención de cupones.
+ *
+ * Todas las condiciones de la redención (estado, vencimiento, dueño y límites de uso) van en el
+ * filtro del mismo findAndModify que suma el uso, así que MongoDB las evalúa y aplica el cambio
+ * sobre el documento de forma atómica: dos redenciones simultáneas nunca ven el mismo conteo. Los
+ * límites se comparan contra los conteos del propio documento con $expr; un límite o un conteo
+ * ausente cuenta como sin límite y como cero usos. La búsqueda entra por el índice de codigo.
+ */
+@RequiredArgsConstructor
+public class CuponRepoRedencionImpl implements CuponRepoRedencion {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Cupon> redimir(String codigo, String usuarioId, LocalDate hoy, Instant fecha) {
+        String usosCliente = "usosPorCliente." + usuarioId;
+        AggregationExpression dentroDeLimites = BooleanOperators.And.and(
+                menorQue("usos", "usosMaximos"),
+                menorQue(usosCliente, "maximoUsosPorCliente"));
+
+        Query query = new Query(Criteria.where("codigo").is(codigo)
+                .and("estadoCupon").is(EstadoCupon.ACTIVO)
+                .andOperator(
+                        new Criteria().orOperator(
+                                Criteria.where("fechaVencimiento").is(null),
+                                Criteria.where("fechaVencimiento").gte(hoy)),
+                        new Criteria().orOperator(
+                                new Criteria().andOperator(
+                                        Criteria.where("usuarioId").is(null),
+                                        Criteria.where("usuario").is(null)),
+                                Criteria.where("usuarioId").is(new ObjectId(usuarioId)),
+                                // Cupones aún no migrados desde el enlace con @DBRef
+                                Criteria.where("usuario.$id").is(new ObjectId(usuarioId))),
+                        Criteria.expr(dentroDeLimites)));
+        Update update = new Update()
+                .inc("usos", 1)
+                .inc(usosCliente, 1)
+                .set("fechaUltimoUso", fecha)
+                // Un guardado versionado leído antes de la redención falla en vez de borrar el uso
+                .inc("version", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Cupon.class));
+    }
+
+    private static AggregationExpression menorQue(String conteo, String limite) {
+        return ComparisonOperators.valueOf(ConditionalOperators.ifNull(conteo).then(0))
+                .lessThan(ConditionalOperators.ifNull(limite).then(Integer.MAX_VALUE));
+    }
+}
@@ -3,6 +3,8 @@ package co.edu.uniquindio.laos.repositories;
 import co.edu.uniquindio.laos.model.Estilista;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,4 +14,18 @@ public interface EstilistaRepo extends MongoRepository<Estilista, String> {
 
     @NotNull
     Optional<Estilista> findById(@NotNull String id);
+
+    // Give the stylist a calendar feed token only if it has none yet; returns 0 if it already had one
+    @Query("{ '_id': ObjectId(?0), 'tokenCalendario': null }")
+    @Update("{ '$set': { 'tokenCalendario': ?1 } }")
+    long asignarTokenCalendarioSiFalta(String id, String token);
+
+    // Replace the calendar feed token, which revokes the previous subscription URL
+    @Query("{ '_id': ObjectId(?0) }")
+    @Update("{ '$set': { 'tokenCalendario': ?1 } }")
+    long renovarTokenCalendario(String id, String token);
+
+    // Resolve a calendar feed token to its stylist, reading only the id
+    @Query(value = "{ 'tokenCalendario': ?0 }", fields = "{ '_id': 1 }")
+    Optional<Estilista> buscarPorTokenCalendario(String token);
 }
@@ -0,0 +1,28 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.EventoCita;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EventoCitaRepo extends MongoRepository<EventoCita, String>, EventoCitaRepoLote {
+
+    // Full history of one appointment in log order, served by the (citaId, secuencia) index
+    List<EventoCita> findByCitaIdOrderBySecuenciaAsc(String citaId);
+
+    // Next events after a log position, in order; the page only limits the batch size
+    @Query(value = "{ 'secuencia': { $gt: ?0 } }", sort = "{ 'secuencia': 1 }")
+    List<EventoCita> buscarDespuesDe(long secuencia, Pageable pagina);
+
+    // Next events of one partition in (desde, hasta], in order, served by the (particion, secuencia) index
+    @Query(value = "{ 'particion': ?0, 'secuencia': { $gt: ?1, $lte: ?2 } }", sort = "{ 'secuencia': 1 }")
+    List<EventoCita> buscarEnParticion(int particion, long desde, long hasta, Pageable pagina);
+
+    // Last event of the log
+    Optional<EventoCita> findTopByOrderBySecuenciaDesc();
+}
@@ -0,0 +1,17 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.EventoCita;
+
+import java.util.List;
+
+public interface EventoCitaRepoLote {
+
+    // Name of the counter in contadores that hands out log positions
+    String CONTADOR_SECUENCIA = "eventos_citas";
+
+    // Reserve cantidad consecutive log positions with one atomic increment; returns the last one
+    long reservarSecuencias(int cantidad);
+
+    // Insert the events in one unordered bulk write, skipping those already copied
+    void insertarSinDuplicados(List<EventoCita> eventos);
+}
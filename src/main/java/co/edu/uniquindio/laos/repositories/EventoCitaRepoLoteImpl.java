@@ -0,0 +1,62 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Contador;
+import co.edu.uniquindio.laos.model.EventoCita;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+/**
+ * Implementación de la escritura del registro de eventos de citas.
+ *
+ * Las posiciones del registro salen de un contador que se incrementa una vez por lote. Un
+ * evento puede llegar dos veces (un save que partió de una lectura anterior lo vuelve a dejar
+ * pendiente); su id es el mismo, así que el segundo insert se rechaza y solo queda un hueco
+ * en la secuencia, que las proyecciones no necesitan continua.
+ */
+@RequiredArgsConstructor
+public class EventoCitaRepoLoteImpl implements EventoCitaRepoLote {
+
+    /**
+     * Código de error de MongoDB para una clave única repetida
+     */
+    private static final int CLAVE_DUPLICADA = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long reservarSecuencias(int cantidad) {
+        Contador contador = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(CONTADOR_SECUENCIA)),
+                new Update().inc("valor", cantidad),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Contador.class);
+        return contador.getValor();
+    }
+
+    @Override
+    public void insertarSinDuplicados(List<EventoCita> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EventoCita.class)
+                    .insert(eventos)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != CLAVE_DUPLICADA) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
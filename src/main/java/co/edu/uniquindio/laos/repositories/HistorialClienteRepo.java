@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HistorialClienteRepo extends MongoRepository<HistorialCliente, String> {
+}
@@ -0,0 +1,18 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.EsperaCita;
+import co.edu.uniquindio.laos.model.EstadoEspera;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ListaEsperaRepo extends MongoRepository<EsperaCita, String>, ListaEsperaRepoOferta {
+
+    // Waitlist entries of a client in the given states, oldest first
+    @Query(value = "{ 'usuarioId': ?0, 'estado': { $in: ?1 } }", sort = "{ 'fechaRegistro': 1 }")
+    List<EsperaCita> buscarPorUsuario(String usuarioId, Collection<EstadoEspera> estados);
+}
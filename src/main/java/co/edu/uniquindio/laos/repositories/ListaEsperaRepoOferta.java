@@ -0,0 +1,34 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.EsperaCita;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ListaEsperaRepoOferta {
+
+    // Atomically move the oldest ACTIVA entry of the stylist and service whose window contains [inicio, fin) to OFRECIDA
+    // with the offered slot and its expiry, and return it; empty if nobody is waiting for that slot
+    Optional<EsperaCita> tomarSiguiente(String estilistaId, String servicioId, LocalDateTime inicio, LocalDateTime fin,
+                                        Instant ofertaExpiraEn);
+
+    // Record the hold that keeps the offered slot for an OFRECIDA entry
+    void registrarApartado(String id, String apartadoId);
+
+    // Put an OFRECIDA entry back to ACTIVA, in its original place, when the slot could not be held for it
+    void devolver(String id);
+
+    // Move the OFRECIDA entry holding the given hold to ATENDIDA; returns whether one changed
+    boolean marcarAtendida(String apartadoId);
+
+    // OFRECIDA entries whose offer expired at ahora, oldest expiry first, at most limite
+    List<EsperaCita> buscarOfertasVencidas(Instant ahora, int limite);
+
+    // Move an entry to EXPIRADA if it is still OFRECIDA; returns whether it changed
+    boolean vencerOferta(String id);
+
+    // Move a client's ACTIVA or OFRECIDA entry to CANCELADA and return it as it was before; empty if there is none
+    Optional<EsperaCita> cancelar(String id, String usuarioId);
+}
@@ -0,0 +1,97 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.EsperaCita;
+import co.edu.uniquindio.laos.model.EstadoEspera;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implementación de las ofertas de la lista de espera.
+ *
+ * El siguiente candidato de un horario se toma con un findAndModify sobre el índice candidatos:
+ * la búsqueda recorre en orden de llegada solo las inscripciones activas del estilista y el
+ * servicio, y el cambio a OFRECIDA es atómico, así dos cancelaciones simultáneas nunca ofrecen
+ * horarios a la misma persona. Los demás cambios de estado exigen el estado anterior en el filtro.
+ */
+@RequiredArgsConstructor
+public class ListaEsperaRepoOfertaImpl implements ListaEsperaRepoOferta {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<EsperaCita> tomarSiguiente(String estilistaId, String servicioId, LocalDateTime inicio,
+                                               LocalDateTime fin, Instant ofertaExpiraEn) {
+        Query query = new Query(Criteria.where("estilistaId").is(estilistaId)
+                .and("servicioId").is(servicioId)
+                .and("estado").is(EstadoEspera.ACTIVA)
+                .and("desde").lte(inicio)
+                .and("hasta").gte(fin))
+                .with(Sort.by(Sort.Order.asc("fechaRegistro")));
+        Update update = new Update()
+                .set("estado", EstadoEspera.OFRECIDA)
+                .set("ofertaFechaHora", inicio)
+                .set("ofertaFechaHoraFin", fin)
+                .set("ofertaExpiraEn", ofertaExpiraEn);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), EsperaCita.class));
+    }
+
+    @Override
+    public void registrarApartado(String id, String apartadoId) {
+        Query query = new Query(Criteria.where("_id").is(id).and("estado").is(EstadoEspera.OFRECIDA));
+        mongoTemplate.updateFirst(query, new Update().set("apartadoId", apartadoId), EsperaCita.class);
+    }
+
+    @Override
+    public void devolver(String id) {
+        Query query = new Query(Criteria.where("_id").is(id).and("estado").is(EstadoEspera.OFRECIDA));
+        Update update = new Update()
+                .set("estado", EstadoEspera.ACTIVA)
+                .unset("apartadoId")
+                .unset("ofertaFechaHora")
+                .unset("ofertaFechaHoraFin")
+                .unset("ofertaExpiraEn");
+        mongoTemplate.updateFirst(query, update, EsperaCita.class);
+    }
+
+    @Override
+    public boolean marcarAtendida(String apartadoId) {
+        Query query = new Query(Criteria.where("apartadoId").is(apartadoId).and("estado").is(EstadoEspera.OFRECIDA));
+        return mongoTemplate.updateFirst(query, new Update().set("estado", EstadoEspera.ATENDIDA), EsperaCita.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public List<EsperaCita> buscarOfertasVencidas(Instant ahora, int limite) {
+        Query query = new Query(Criteria.where("estado").is(EstadoEspera.OFRECIDA).and("ofertaExpiraEn").lte(ahora))
+                .with(Sort.by(Sort.Order.asc("ofertaExpiraEn")))
+                .limit(limite);
+        return mongoTemplate.find(query, EsperaCita.class);
+    }
+
+    @Override
+    public boolean vencerOferta(String id) {
+        Query query = new Query(Criteria.where("_id").is(id).and("estado").is(EstadoEspera.OFRECIDA));
+        return mongoTemplate.updateFirst(query, new Update().set("estado", EstadoEspera.EXPIRADA), EsperaCita.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public Optional<EsperaCita> cancelar(String id, String usuarioId) {
+        Query query = new Query(Criteria.where("_id").is(id)
+                .and("usuarioId").is(usuarioId)
+                .and("estado").in(EstadoEspera.ACTIVA, EstadoEspera.OFRECIDA));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().set("estado", EstadoEspera.CANCELADA),
+                FindAndModifyOptions.options().returnNew(false), EsperaCita.class));
+    }
+}
@@ -0,0 +1,118 @@
+package co.edu.uniquindio.laos.repositories;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paso de un lote de documentos del enlace usuario con @DBRef al campo usuarioId, compartido por
+ * los fragmentos de cupones y de quejas y sugerencias.
+ *
+ * Los pendientes se leen como documentos, sin resolver la referencia, por el índice de usuario.$id.
+ * Cada uno se actualiza en la misma escritura masiva sin orden con un filtro que exige el enlace
+ * leído, así un documento que cambió entre la lectura y la escritura se deja para el siguiente lote
+ * y repetir un lote no tiene efecto.
+ *
+ * Un documento cuyo usuarioId choca con un índice único (un cupón de campaña repetido para el mismo
+ * cliente) no puede migrarse nunca; si se dejara con el enlace anterior se volvería a leer en cada
+ * lote. Se resuelve en una segunda escritura: el enlace pasa a usuarioIdConflicto, que no está en
+ * ningún índice único, junto con las marcas que pida la colección, y el documento sale de los
+ * pendientes.
+ */
+final class MigracionEnlaceUsuario {
+
+    private static final int CLAVE_DUPLICADA = 11000;
+
+    private MigracionEnlaceUsuario() {
+    }
+
+    /**
+     * @param versionado Si el documento lleva @Version y la actualización debe incrementarla
+     * @param marcasConflicto Campos que se fijan además en un documento que choca con un índice único
+     * @return Documentos que dejaron el enlace anterior, migrados o resueltos como conflicto
+     */
+    static long migrarLote(MongoTemplate mongoTemplate, Class<?> entidad, int limite, boolean versionado,
+                           Map<String, Object> marcasConflicto) {
+        Query query = new Query(Criteria.where("usuario.$id").exists(true)).limit(limite);
+        query.fields().include("usuario");
+        List<Document> pendientes = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(entidad));
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entidad);
+        for (Document pendiente : pendientes) {
+            Object usuarioId = idEnlace(pendiente.get("usuario"));
+            Update update = new Update()
+                    .set("usuarioId", usuarioId)
+                    .unset("usuario");
+            if (versionado) {
+                update.inc("version", 1);
+            }
+            operaciones.updateOne(filtroEnlace(pendiente, usuarioId), update);
+        }
+        try {
+            return operaciones.execute().getModifiedCount();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != CLAVE_DUPLICADA)) {
+                throw e;
+            }
+            // El índice de cada error es la posición de la operación en el lote, la misma que en pendientes
+            List<Document> conflictos = e.getErrors().stream()
+                    .map(error -> pendientes.get(error.getIndex()))
+                    .toList();
+            return e.getResult().getModifiedCount()
+                    + resolverConflictos(mongoTemplate, entidad, conflictos, versionado, marcasConflicto);
+        }
+    }
+
+    /**
+     * Saca de los pendientes los documentos que chocaron con un índice único
+     * @return Documentos resueltos
+     */
+    private static long resolverConflictos(MongoTemplate mongoTemplate, Class<?> entidad, List<Document> conflictos,
+                                           boolean versionado, Map<String, Object> marcasConflicto) {
+        BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entidad);
+        for (Document conflicto : conflictos) {
+            Object usuarioId = idEnlace(conflicto.get("usuario"));
+            Update update = new Update()
+                    .set("usuarioIdConflicto", usuarioId)
+                    .unset("usuario");
+            marcasConflicto.forEach(update::set);
+            if (versionado) {
+                update.inc("version", 1);
+            }
+            operaciones.updateOne(filtroEnlace(conflicto, usuarioId), update);
+        }
+        return operaciones.execute().getModifiedCount();
+    }
+
+    /**
+     * @return Documentos que aún tienen el enlace anterior
+     */
+    static long contarPendientes(MongoTemplate mongoTemplate, Class<?> entidad) {
+        return mongoTemplate.count(new Query(Criteria.where("usuario.$id").exists(true)), entidad);
+    }
+
+    /**
+     * Filtro por _id que además exige el enlace leído
+     */
+    private static Query filtroEnlace(Document pendiente, Object usuarioId) {
+        return new Query(Criteria.where("_id").is(pendiente.get("_id")).and("usuario.$id").is(usuarioId));
+    }
+
+    /**
+     * El driver entrega el enlace como DBRef o como el documento { $ref, $id } según el codec
+     */
+    private static Object idEnlace(Object enlace) {
+        return enlace instanceof DBRef dbRef ? dbRef.getId() : ((Document) enlace).get("$id");
+    }
+}
@@ -0,0 +1,15 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.ProyeccionCita;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProyeccionCitaRepo extends MongoRepository<ProyeccionCita, String>, ProyeccionCitaRepoLote {
+
+    // Projected state of several appointments by id
+    List<ProyeccionCita> findByIdIn(Collection<String> ids);
+}
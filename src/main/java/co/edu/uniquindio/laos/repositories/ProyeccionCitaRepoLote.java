@@ -0,0 +1,19 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import co.edu.uniquindio.laos.model.ProyeccionCita;
+import co.edu.uniquindio.laos.model.UtilizacionEstilista;
+
+import java.util.Collection;
+
+public interface ProyeccionCitaRepoLote {
+
+    // Add the utilization and client history deltas with upserting $inc, then replace the appointment states;
+    // one unordered bulk write per collection
+    void guardarCambios(Collection<ProyeccionCita> estados,
+                        Collection<UtilizacionEstilista> utilizacion,
+                        Collection<HistorialCliente> historial);
+
+    // Empty every projection collection before a full replay
+    void vaciarProyecciones();
+}
@@ -0,0 +1,75 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import co.edu.uniquindio.laos.model.ProyeccionCita;
+import co.edu.uniquindio.laos.model.UtilizacionEstilista;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+/**
+ * Implementación de la escritura de las proyecciones del registro de eventos de citas.
+ *
+ * La utilización y el historial se escriben como incrementos, que no dependen del orden;
+ * así varios hilos de una reconstrucción pueden sumar sobre el mismo estilista o cliente.
+ * El estado de cada cita se reemplaza completo y lo escribe siempre un solo hilo, el de su
+ * partición.
+ */
+@RequiredArgsConstructor
+public class ProyeccionCitaRepoLoteImpl implements ProyeccionCitaRepoLote {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void guardarCambios(Collection<ProyeccionCita> estados,
+                               Collection<UtilizacionEstilista> utilizacion,
+                               Collection<HistorialCliente> historial) {
+        if (!utilizacion.isEmpty()) {
+            BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UtilizacionEstilista.class);
+            for (UtilizacionEstilista delta : utilizacion) {
+                operaciones.upsert(new Query(Criteria.where("_id").is(delta.getId())), new Update()
+                        .setOnInsert("estilistaId", delta.getEstilistaId())
+                        .setOnInsert("dia", delta.getDia())
+                        .inc("citas", delta.getCitas())
+                        .inc("minutos", delta.getMinutos()));
+            }
+            operaciones.execute();
+        }
+        if (!historial.isEmpty()) {
+            BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HistorialCliente.class);
+            for (HistorialCliente delta : historial) {
+                Update update = new Update()
+                        .inc("creadas", delta.getCreadas())
+                        .inc("reprogramadas", delta.getReprogramadas())
+                        .inc("canceladas", delta.getCanceladas())
+                        .inc("completadas", delta.getCompletadas());
+                if (delta.getUltimaActividad() != null) {
+                    update.max("ultimaActividad", delta.getUltimaActividad());
+                }
+                operaciones.upsert(new Query(Criteria.where("_id").is(delta.getId())), update);
+            }
+            operaciones.execute();
+        }
+        if (!estados.isEmpty()) {
+            BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProyeccionCita.class);
+            for (ProyeccionCita estado : estados) {
+                operaciones.replaceOne(new Query(Criteria.where("_id").is(estado.getId())), estado,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            operaciones.execute();
+        }
+    }
+
+    @Override
+    public void vaciarProyecciones() {
+        mongoTemplate.remove(new Query(), ProyeccionCita.class);
+        mongoTemplate.remove(new Query(), UtilizacionEstilista.class);
+        mongoTemplate.remove(new Query(), HistorialCliente.class);
+    }
+}
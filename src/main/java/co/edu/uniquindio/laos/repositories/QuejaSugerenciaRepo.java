@@ -14,7 +14,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 @Repository
-public interface QuejaSugerenciaRepo extends MongoRepository<QuejaSugerencia, String> {
+public interface QuejaSugerenciaRepo extends MongoRepository<QuejaSugerencia, String>, QuejaSugerenciaRepoMigracion {
 
     // Contar número de quejas por tipo
     @Aggregation(pipeline = {
@@ -33,7 +33,11 @@ public interface QuejaSugerenciaRepo extends MongoRepository<QuejaSugerencia, St
 
     // Contar cantidad de quejas por usuario (considerando ANONIMO si no tiene usuario)
     @Aggregation(pipeline = {
-            "{ $group: { _id: { $ifNull: ['$usuario._id', 'ANONIMO'] }, count: { $sum: 1 } } }"
+            // Entries not yet migrated from the @DBRef link are grouped by usuario.$id; $getField reads the
+            // $-prefixed key, which a field path cannot
+            "{ $group: { _id: { $ifNull: [{ $toString: { $ifNull: ['$usuarioId', "
+                    + "{ $getField: { field: { $literal: '$id' }, input: '$usuario' } }] } }, 'ANONIMO'] }, "
+                    + "count: { $sum: 1 } } }"
     })
     List<Map<String, Object>> contarQuejasPorUsuarioRaw();
 
@@ -48,7 +52,8 @@ public interface QuejaSugerenciaRepo extends MongoRepository<QuejaSugerencia, St
 
     // Contar número de quejas/sugerencias de un usuario por tipo
     @Aggregation(pipeline = {
-            "{ $match: { 'usuario._id': ObjectId(?0) } }",
+            // The usuario.$id branch covers entries not yet migrated from the @DBRef link
+            "{ $match: { $or: [ { 'usuarioId': ObjectId(?0) }, { 'usuario.$id': ObjectId(?0) } ] } }",
             "{ $group: { _id: '$tipoPQRS', count: { $sum: 1 } } }"
     })
     List<Map<String, Object>> contarQuejasPorUsuarioYTipoRaw(String usuarioId);
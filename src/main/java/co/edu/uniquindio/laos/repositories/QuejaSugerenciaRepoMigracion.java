@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.repositories;
+
+public interface QuejaSugerenciaRepoMigracion {
+
+    // Move up to limite entries from the usuario @DBRef link to the usuarioId field; returns how many changed
+    long migrarEnlacesUsuario(int limite);
+
+    // Entries still holding the usuario @DBRef link
+    long contarEnlacesUsuarioPendientes();
+}
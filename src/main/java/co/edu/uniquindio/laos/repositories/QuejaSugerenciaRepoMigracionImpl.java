@@ -0,0 +1,27 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.QuejaSugerencia;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Map;
+
+/**
+ * Implementación de la migración del enlace a usuarios de las quejas y sugerencias; el paso de
+ * cada lote es el mismo de los cupones, en MigracionEnlaceUsuario.
+ */
+@RequiredArgsConstructor
+public class QuejaSugerenciaRepoMigracionImpl implements QuejaSugerenciaRepoMigracion {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long migrarEnlacesUsuario(int limite) {
+        return MigracionEnlaceUsuario.migrarLote(mongoTemplate, QuejaSugerencia.class, limite, false, Map.of());
+    }
+
+    @Override
+    public long contarEnlacesUsuarioPendientes() {
+        return MigracionEnlaceUsuario.contarPendientes(mongoTemplate, QuejaSugerencia.class);
+    }
+}
@@ -0,0 +1,41 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.ReservaHorario;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservaHorarioRepo extends MongoRepository<ReservaHorario, String>, ReservaHorarioRepoLote {
+
+    // Find all blocks claimed by an appointment
+    List<ReservaHorario> findByCitaId(String citaId);
+
+    // Release every block claimed by an appointment
+    void deleteByCitaId(String citaId);
+
+    // Release only the given blocks, and only if they still belong to the appointment
+    void deleteByIdInAndCitaId(Collection<String> ids, String citaId);
+
+    // Release every block claimed by several appointments (used when they are archived)
+    void deleteByCitaIdIn(Collection<String> citaIds);
+
+    // Release the blocks several appointments hold with one stylist, keeping those they hold with another
+    void deleteByEstilistaIdAndCitaIdIn(String estilistaId, Collection<String> citaIds);
+
+    // Make a hold's blocks permanent, only those that have not expired at ahora; returns how many changed
+    @Query("{ 'citaId': ?0, 'expiraEn': { $gt: ?1 } }")
+    @Update("{ '$unset': { 'expiraEn': '' } }")
+    long confirmarApartado(String citaId, Instant ahora);
+
+    // Release the blocks of a hold that has not been confirmed, never those of a real appointment
+    void deleteByCitaIdAndExpiraEnIsNotNull(String citaId);
+
+    // Remove expired hold blocks the TTL monitor has not deleted yet, so they can be claimed again
+    long deleteByIdInAndExpiraEnLessThanEqual(Collection<String> ids, Instant ahora);
+}
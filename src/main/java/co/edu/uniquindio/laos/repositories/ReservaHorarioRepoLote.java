@@ -0,0 +1,11 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.ReservaHorario;
+
+import java.util.List;
+
+public interface ReservaHorarioRepoLote {
+
+    // Insert every block in one unordered bulk write; returns the blocks rejected because their id was already taken
+    List<ReservaHorario> insertarSinOrden(List<ReservaHorario> reservas);
+}
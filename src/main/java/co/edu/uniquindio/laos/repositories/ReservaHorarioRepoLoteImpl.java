@@ -0,0 +1,51 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.ReservaHorario;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación del reclamo de bloques en lote.
+ *
+ * Un insert ordenado se detiene en el primer bloque repetido, así que no dice qué otros
+ * bloques de la serie también estaban tomados. Con una escritura masiva sin orden MongoDB
+ * intenta todos los bloques y devuelve cada rechazo por su posición.
+ */
+@RequiredArgsConstructor
+public class ReservaHorarioRepoLoteImpl implements ReservaHorarioRepoLote {
+
+    /**
+     * Código de error de MongoDB para una clave única repetida
+     */
+    private static final int CLAVE_DUPLICADA = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<ReservaHorario> insertarSinOrden(List<ReservaHorario> reservas) {
+        if (reservas.isEmpty()) {
+            return List.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReservaHorario.class)
+                    .insert(reservas)
+                    .execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            List<ReservaHorario> rechazadas = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != CLAVE_DUPLICADA) {
+                    throw e;
+                }
+                rechazadas.add(reservas.get(error.getIndex()));
+            }
+            return rechazadas;
+        }
+    }
+}
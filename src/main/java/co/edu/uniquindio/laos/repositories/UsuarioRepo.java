@@ -4,11 +4,14 @@ import co.edu.uniquindio.laos.model.EstadoUsuario;
 import co.edu.uniquindio.laos.model.Usuario;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
-public interface UsuarioRepo extends MongoRepository<Usuario, String> {
+public interface UsuarioRepo extends MongoRepository<Usuario, String>, UsuarioRepoSegmento {
 
     Optional<Usuario> findByEmail(String email);
 
@@ -26,4 +29,38 @@ public interface UsuarioRepo extends MongoRepository<Usuario, String> {
 
     @Query("{ 'codigoActivacion.codigo': ?0, 'estadoUsuario': { $ne: ?1 } }")
     Optional<Usuario> findByCodigoRegistroCodigoAndEstadoUsuarioNot(String codigoActivacion, EstadoUsuario estadoUsuario);
-}
\ No newline at end of file
+
+    // Add one failed login in place, so concurrent failures are all counted; returns how many users matched
+    @Query("{ 'email': ?0, 'estadoUsuario': { $ne: 'ELIMINADO' } }")
+    @Update("{ '$inc': { 'fallosInicioSesion': 1, 'version': 1 } }")
+    long incrementarFallosInicioSesion(String email);
+
+    // Lock the account until the given time once it has reached the maximum failed logins
+    @Query("{ 'email': ?0, 'fallosInicioSesion': { $gte: ?1 }, 'estadoUsuario': { $ne: 'ELIMINADO' } }")
+    @Update("{ '$set': { 'tiempoBloqueo': ?2 }, '$inc': { 'version': 1 } }")
+    long bloquearSiAlcanzaFallos(String email, int maxFallos, LocalDateTime tiempoBloqueo);
+
+    // Reset the failed login counter and lock; writes nothing if there is nothing to reset
+    @Query("{ 'email': ?0, $or: [ { 'fallosInicioSesion': { $gt: 0 } }, { 'tiempoBloqueo': { $ne: null } } ] }")
+    @Update("{ '$set': { 'fallosInicioSesion': 0, 'tiempoBloqueo': null }, '$inc': { 'version': 1 } }")
+    long reiniciarFallosInicioSesion(String email);
+
+    // Soft delete in place; returns 0 if the user does not exist or was already deleted
+    @Query("{ '_id': ObjectId(?0), 'estadoUsuario': { $ne: 'ELIMINADO' } }")
+    @Update("{ '$set': { 'estadoUsuario': 'ELIMINADO' }, '$inc': { 'version': 1 } }")
+    long marcarEliminado(String id);
+
+    // Give the user a calendar feed token only if it has none yet; returns 0 if it already had one
+    @Query("{ '_id': ObjectId(?0), 'tokenCalendario': null, 'estadoUsuario': { $ne: 'ELIMINADO' } }")
+    @Update("{ '$set': { 'tokenCalendario': ?1 }, '$inc': { 'version': 1 } }")
+    long asignarTokenCalendarioSiFalta(String id, String token);
+
+    // Replace the calendar feed token, which revokes the previous subscription URL
+    @Query("{ '_id': ObjectId(?0), 'estadoUsuario': { $ne: 'ELIMINADO' } }")
+    @Update("{ '$set': { 'tokenCalendario': ?1 }, '$inc': { 'version': 1 } }")
+    long renovarTokenCalendario(String id, String token);
+
+    // Resolve a calendar feed token to its user, reading only the id
+    @Query(value = "{ 'tokenCalendario': ?0, 'estadoUsuario': { $ne: 'ELIMINADO' } }", fields = "{ '_id': 1 }")
+    Optional<Usuario> buscarPorTokenCalendario(String token);
+}
@@ -0,0 +1,14 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.Usuario;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface UsuarioRepoSegmento {
+
+    // Stream the ACTIVO clients registered in [registradoDesde, registradoHasta) (either bound optional) whose id is
+    // after despuesDeId (null for the start), in _id order, with only id and registration date loaded; close the stream
+    Stream<Usuario> recorrerClientes(LocalDateTime registradoDesde, LocalDateTime registradoHasta, String despuesDeId,
+                                     int tamanioLote);
+}
@@ -0,0 +1,49 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.EstadoUsuario;
+import co.edu.uniquindio.laos.model.Rol;
+import co.edu.uniquindio.laos.model.Usuario;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Implementación del recorrido de clientes por segmento.
+ *
+ * El recorrido va en orden de _id sobre su índice, así que un proceso que guarda el último id
+ * visto puede retomar con _id mayor que ese sin repetir ni saltarse clientes. Los documentos
+ * llegan del cursor de a un lote y solo con el id y la fecha de registro.
+ */
+@RequiredArgsConstructor
+public class UsuarioRepoSegmentoImpl implements UsuarioRepoSegmento {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Stream<Usuario> recorrerClientes(LocalDateTime registradoDesde, LocalDateTime registradoHasta,
+                                            String despuesDeId, int tamanioLote) {
+        Criteria criterio = Criteria.where("rol").is(Rol.CLIENTE).and("estadoUsuario").is(EstadoUsuario.ACTIVO);
+        if (despuesDeId != null) {
+            criterio.and("_id").gt(new ObjectId(despuesDeId));
+        }
+        if (registradoDesde != null && registradoHasta != null) {
+            criterio.and("fechaRegistro").gte(registradoDesde).lt(registradoHasta);
+        } else if (registradoDesde != null) {
+            criterio.and("fechaRegistro").gte(registradoDesde);
+        } else if (registradoHasta != null) {
+            criterio.and("fechaRegistro").lt(registradoHasta);
+        }
+
+        Query query = new Query(criterio)
+                .with(Sort.by(Sort.Order.asc("_id")))
+                .cursorBatchSize(tamanioLote);
+        query.fields().include("_id").include("fechaRegistro");
+        return mongoTemplate.stream(query, Usuario.class);
+    }
+}
@@ -0,0 +1,17 @@
+package co.edu.uniquindio.laos.repositories;
+
+import co.edu.uniquindio.laos.model.UtilizacionEstilista;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UtilizacionEstilistaRepo extends MongoRepository<UtilizacionEstilista, String> {
+
+    // Daily utilization of one stylist for the days in [desde, hasta], served by the (estilistaId, dia) index
+    @Query(value = "{ 'estilistaId': ?0, 'dia': { $gte: ?1, $lte: ?2 } }", sort = "{ 'dia': 1 }")
+    List<UtilizacionEstilista> buscarPorEstilista(String estilistaId, LocalDate desde, LocalDate hasta);
+}
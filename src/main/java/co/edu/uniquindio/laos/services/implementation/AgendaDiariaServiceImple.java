@@ -0,0 +1,317 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cita.AgendaDiariaDTO;
+import co.edu.uniquindio.laos.dto.cita.CitaAgendaDTO;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.AgendaDiariaService;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación de la agenda diaria precalculada de los estilistas.
+ *
+ * Guarda en memoria, por estilista, sus citas de hoy y de mañana ya convertidas a la respuesta
+ * del endpoint, así que pedir la agenda de hoy es una lectura de un mapa. Cada agenda es una
+ * instantánea inmutable que se reemplaza completa:
+ * - cada noche se reconstruyen todas con una sola consulta de los dos días
+ * - las citas que se crean, reprograman, cancelan o reasignan en este nodo se aplican al momento
+ * - una tarea periódica trae las citas modificadas desde la última pasada, de cualquier fecha,
+ *   para recoger los cambios hechos en otros nodos y los de las tareas programadas; una cita que
+ *   se movió fuera de hoy y mañana llega igual y se quita
+ * - la misma tarea vuelve a leer completas todas las agendas cuando la última lectura completa
+ *   pasa de la mitad de la antigüedad máxima, para corregir lo que se le haya escapado a los cambios
+ *
+ * Los cambios no cuentan como lectura completa: si la agenda de un estilista no es de hoy o no
+ * se ha leído completa dentro de la antigüedad máxima (por ejemplo, porque la sincronización está
+ * fallando), se responde con una consulta en vivo de sus citas y esa respuesta reemplaza la agenda
+ * guardada.
+ */
+@Service
+public class AgendaDiariaServiceImple implements AgendaDiariaService {
+
+    /**
+     * Duración asumida para citas sin fin guardado ni duración de servicio
+     */
+    private static final int DURACION_POR_DEFECTO_MINUTOS = 60;
+
+    /**
+     * Margen con el que se piden los cambios antes de la última sincronización, para no perder
+     * guardados cuya fecha de modificación quedó un poco por detrás de la consulta anterior
+     */
+    private static final Duration MARGEN_CAMBIOS = Duration.ofSeconds(5);
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final Comparator<Cita> ORDEN_FECHA_ID = Comparator
+            .comparing(Cita::getFechaHora)
+            .thenComparing(Cita::getId);
+
+    private final CitaRepo citaRepo;
+    private final CatalogoService catalogoService;
+    private final Duration antiguedadMaxima;
+    private final Clock reloj;
+
+    /**
+     * Agenda de hoy y mañana de cada estilista
+     */
+    private final Map<String, AgendaEstilista> agendas = new ConcurrentHashMap<>();
+
+    /**
+     * Momento de la última consulta de cambios; la siguiente pide los modificados desde aquí
+     */
+    private volatile Instant ultimaSincronizacion = Instant.EPOCH;
+
+    /**
+     * Momento de la última lectura completa de todas las agendas
+     */
+    private volatile Instant ultimaReconstruccion = Instant.EPOCH;
+
+    private final Counter enMemoria;
+    private final Counter enVivo;
+
+    @Autowired
+    public AgendaDiariaServiceImple(CitaRepo citaRepo,
+                                    CatalogoService catalogoService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${laos.agenda.diaria.antiguedad-maxima-segundos:300}") long antiguedadMaximaSegundos) {
+        this(citaRepo, catalogoService, meterRegistry, antiguedadMaximaSegundos, Clock.systemDefaultZone());
+    }
+
+    AgendaDiariaServiceImple(CitaRepo citaRepo,
+                             CatalogoService catalogoService,
+                             MeterRegistry meterRegistry,
+                             long antiguedadMaximaSegundos,
+                             Clock reloj) {
+        this.citaRepo = citaRepo;
+        this.catalogoService = catalogoService;
+        this.antiguedadMaxima = Duration.ofSeconds(antiguedadMaximaSegundos);
+        this.reloj = reloj;
+        this.enMemoria = Counter.builder("laos.agenda.diaria")
+                .description("Lecturas de la agenda diaria de los estilistas")
+                .tag("resultado", "memoria")
+                .register(meterRegistry);
+        this.enVivo = Counter.builder("laos.agenda.diaria")
+                .description("Lecturas de la agenda diaria de los estilistas")
+                .tag("resultado", "en_vivo")
+                .register(meterRegistry);
+        Gauge.builder("laos.agenda.diaria.estilistas", agendas, Map::size)
+                .description("Agendas diarias guardadas en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtiene las citas de hoy y mañana de un estilista
+     * @param estilistaId Identificador del estilista
+     * @return Agenda guardada en memoria, o consultada en vivo si la guardada está desactualizada
+     */
+    @Override
+    public AgendaDiariaDTO obtenerAgendaHoy(String estilistaId) {
+        AgendaEstilista agenda = agendas.get(estilistaId);
+        Instant ahora = reloj.instant();
+        if (agenda != null && agenda.dia().equals(LocalDate.now(reloj)) && !estaVencida(agenda, ahora)) {
+            enMemoria.increment();
+            return agenda.respuesta();
+        }
+
+        enVivo.increment();
+        LocalDate hoy = LocalDate.now(reloj);
+        List<Cita> citas = citaRepo.buscarAgendaDiaria(hoy.atStartOfDay(), hoy.plusDays(2).atStartOfDay(), estilistaId);
+        AgendaEstilista consultada = AgendaEstilista.construir(estilistaId, hoy, citas, ahora);
+        agendas.put(estilistaId, consultada);
+        return consultada.respuesta();
+    }
+
+    /**
+     * Aplica a la agenda guardada de su estilista una cita que se acaba de crear o modificar.
+     * Las citas canceladas o fuera de hoy y mañana se quitan.
+     * @param cita Cita tal como quedó guardada
+     */
+    @Override
+    public void actualizarCita(Cita cita) {
+        if (cita.getEstilistaId() == null) {
+            return;
+        }
+        agendas.computeIfPresent(cita.getEstilistaId(), (id, agenda) -> agenda.con(List.of(cita), Set.of()));
+    }
+
+    /**
+     * Quita una cita de la agenda guardada de un estilista
+     * @param estilistaId Estilista que tenía la cita
+     * @param citaId Identificador de la cita
+     */
+    @Override
+    public void quitarCita(String estilistaId, String citaId) {
+        if (estilistaId == null) {
+            return;
+        }
+        agendas.computeIfPresent(estilistaId, (id, agenda) -> agenda.con(List.of(), Set.of(citaId)));
+    }
+
+    /**
+     * Reconstruye la agenda de hoy y mañana de todos los estilistas con una sola consulta
+     * @return Número de agendas construidas
+     */
+    @Override
+    @Scheduled(cron = "${laos.agenda.diaria.cron:0 0 0 * * *}")
+    public int reconstruir() {
+        Instant inicio = reloj.instant();
+        LocalDate hoy = LocalDate.now(reloj);
+        List<Cita> citas = citaRepo.buscarAgendaDiaria(hoy.atStartOfDay(), hoy.plusDays(2).atStartOfDay(), null);
+
+        Map<String, List<Cita>> porEstilista = new HashMap<>();
+        // Los estilistas sin citas también tienen agenda, así su primera lectura no va a la base de datos
+        catalogoService.obtenerEstilistas().forEach(estilista -> porEstilista.put(estilista.getId(), new ArrayList<>()));
+        for (Cita cita : citas) {
+            porEstilista.computeIfAbsent(cita.getEstilistaId(), id -> new ArrayList<>()).add(cita);
+        }
+
+        Map<String, AgendaEstilista> nuevas = new HashMap<>();
+        porEstilista.forEach((estilistaId, deEstilista) ->
+                nuevas.put(estilistaId, AgendaEstilista.construir(estilistaId, hoy, deEstilista, inicio)));
+        agendas.putAll(nuevas);
+        agendas.keySet().retainAll(nuevas.keySet());
+        ultimaSincronizacion = inicio;
+        ultimaReconstruccion = inicio;
+        return nuevas.size();
+    }
+
+    /**
+     * Aplica a las agendas guardadas las citas modificadas desde la última pasada
+     * @return Número de citas modificadas que se aplicaron; en la primera pasada del nodo, al
+     * cambiar de día o al tocar la lectura completa, número de agendas reconstruidas
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${laos.agenda.diaria.sincronizacion-ms:60000}",
+            initialDelayString = "${laos.agenda.diaria.sincronizacion-ms:60000}")
+    public int sincronizar() {
+        Instant inicio = reloj.instant();
+        LocalDate hoy = LocalDate.now(reloj);
+        if (ultimaReconstruccion.equals(Instant.EPOCH) || agendas.values().stream().anyMatch(agenda -> !agenda.dia().equals(hoy))) {
+            // Primera pasada del nodo, o cambió el día y la reconstrucción nocturna no ha corrido aquí
+            return reconstruir();
+        }
+        if (ultimaReconstruccion.plus(antiguedadMaxima.dividedBy(2)).isBefore(inicio)) {
+            // Se relee todo antes de que las agendas venzan y las lecturas tengan que ir a la base de datos
+            return reconstruir();
+        }
+
+        // Sin ventana de fechas: una cita movida a otro día también tiene que salir de la agenda
+        List<Cita> cambiadas = citaRepo.buscarAgendaModificada(ultimaSincronizacion.minus(MARGEN_CAMBIOS));
+
+        Set<String> ids = new HashSet<>();
+        Map<String, List<Cita>> porEstilista = new HashMap<>();
+        for (Cita cita : cambiadas) {
+            ids.add(cita.getId());
+            porEstilista.computeIfAbsent(cita.getEstilistaId(), id -> new ArrayList<>()).add(cita);
+        }
+        // Una cita reasignada sigue en la agenda de su estilista anterior: se quita de todas y se vuelve a poner
+        for (String estilistaId : agendas.keySet()) {
+            List<Cita> deEstilista = porEstilista.getOrDefault(estilistaId, List.of());
+            agendas.computeIfPresent(estilistaId, (id, agenda) -> agenda.con(deEstilista, ids).sincronizada(inicio));
+        }
+        ultimaSincronizacion = inicio;
+        return cambiadas.size();
+    }
+
+    private boolean estaVencida(AgendaEstilista agenda, Instant ahora) {
+        return agenda.leidaEn().plus(antiguedadMaxima).isBefore(ahora);
+    }
+
+    /**
+     * Instantánea inmutable de la agenda de hoy y mañana de un estilista
+     * @param estilistaId Identificador del estilista
+     * @param dia Día que la agenda considera hoy
+     * @param citas Citas de los dos días por identificador
+     * @param leidaEn Última vez que se leyó completa de la base de datos
+     * @param actualizadaEn Última vez que se comparó con la base de datos, completa o por cambios
+     * @param respuesta Respuesta del endpoint, armada una sola vez
+     */
+    private record AgendaEstilista(String estilistaId, LocalDate dia, Map<String, Cita> citas,
+                                   Instant leidaEn, Instant actualizadaEn, AgendaDiariaDTO respuesta) {
+
+        static AgendaEstilista construir(String estilistaId, LocalDate dia, List<Cita> citas, Instant leidaEn) {
+            Map<String, Cita> porId = new HashMap<>();
+            for (Cita cita : citas) {
+                if (pertenece(cita, estilistaId, dia)) {
+                    porId.put(cita.getId(), cita);
+                }
+            }
+            return crear(estilistaId, dia, porId, leidaEn, leidaEn);
+        }
+
+        /**
+         * Quita las citas indicadas y agrega o reemplaza las recibidas que siguen en la agenda
+         */
+        AgendaEstilista con(List<Cita> cambiadas, Set<String> quitadas) {
+            Map<String, Cita> nuevas = new HashMap<>(citas);
+            nuevas.keySet().removeAll(quitadas);
+            for (Cita cita : cambiadas) {
+                if (pertenece(cita, estilistaId, dia)) {
+                    nuevas.put(cita.getId(), cita);
+                } else {
+                    nuevas.remove(cita.getId());
+                }
+            }
+            return crear(estilistaId, dia, nuevas, leidaEn, actualizadaEn);
+        }
+
+        AgendaEstilista sincronizada(Instant momento) {
+            return crear(estilistaId, dia, citas, leidaEn, momento);
+        }
+
+        private static boolean pertenece(Cita cita, String estilistaId, LocalDate dia) {
+            if (!estilistaId.equals(cita.getEstilistaId()) || cita.getEstado() == EstadoCita.CANCELADA
+                    || cita.getFechaHora() == null) {
+                return false;
+            }
+            LocalDate diaCita = cita.getFechaHora().toLocalDate();
+            return diaCita.equals(dia) || diaCita.equals(dia.plusDays(1));
+        }
+
+        private static AgendaEstilista crear(String estilistaId, LocalDate dia, Map<String, Cita> citas,
+                                             Instant leidaEn, Instant actualizadaEn) {
+            List<Cita> ordenadas = citas.values().stream().sorted(ORDEN_FECHA_ID).toList();
+            List<CitaAgendaDTO> hoy = new ArrayList<>();
+            List<CitaAgendaDTO> maniana = new ArrayList<>();
+            for (Cita cita : ordenadas) {
+                (cita.getFechaHora().toLocalDate().equals(dia) ? hoy : maniana).add(convertir(cita));
+            }
+            AgendaDiariaDTO respuesta = new AgendaDiariaDTO(estilistaId, dia, List.copyOf(hoy), List.copyOf(maniana),
+                    actualizadaEn.toString());
+            return new AgendaEstilista(estilistaId, dia, Map.copyOf(citas), leidaEn, actualizadaEn, respuesta);
+        }
+
+        private static CitaAgendaDTO convertir(Cita cita) {
+            LocalDateTime fin = cita.getFechaHoraFin();
+            if (fin == null) {
+                Integer duracion = cita.getServicioDuracionMinutos();
+                fin = cita.getFechaHora().plusMinutes(duracion != null && duracion > 0 ? duracion : DURACION_POR_DEFECTO_MINUTOS);
+            }
+            return new CitaAgendaDTO(cita.getId(), cita.getUsuarioId(), cita.getServicioNombre(),
+                    FORMATO_HORA.format(cita.getFechaHora()), FORMATO_HORA.format(fin), cita.getEstado());
+        }
+    }
+}
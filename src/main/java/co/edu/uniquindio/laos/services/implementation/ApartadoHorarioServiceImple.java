@@ -0,0 +1,162 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.ApartadoVencidoException;
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.repositories.ApartadoHorarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.ApartadoHorarioService;
+import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de los apartados temporales de horario.
+ *
+ * Mientras el cliente elige cupón y confirma, el horario queda apartado: sus bloques se
+ * reclaman en reservas_horario igual que los de una cita, así que ninguna otra reserva ni
+ * apartado puede tomarlos. Tanto el apartado como sus bloques llevan un vencimiento con índice
+ * TTL, de modo que MongoDB los borra solos si el cliente no confirma; no hay tarea de limpieza.
+ * Entre el vencimiento y el paso del monitor TTL los apartados se ignoran comparando expiraEn.
+ */
+@Service
+public class ApartadoHorarioServiceImple implements ApartadoHorarioService {
+
+    private final ApartadoHorarioRepo apartadoHorarioRepo;
+    private final ReservaHorarioService reservaHorarioService;
+    private final Duration duracionApartado;
+    private final Clock reloj;
+
+    @Autowired
+    public ApartadoHorarioServiceImple(ApartadoHorarioRepo apartadoHorarioRepo,
+                                       ReservaHorarioService reservaHorarioService,
+                                       @Value("${laos.citas.apartado.minutos:10}") long minutosApartado) {
+        this(apartadoHorarioRepo, reservaHorarioService, minutosApartado, Clock.systemDefaultZone());
+    }
+
+    ApartadoHorarioServiceImple(ApartadoHorarioRepo apartadoHorarioRepo,
+                                ReservaHorarioService reservaHorarioService,
+                                long minutosApartado,
+                                Clock reloj) {
+        this.apartadoHorarioRepo = apartadoHorarioRepo;
+        this.reservaHorarioService = reservaHorarioService;
+        this.duracionApartado = Duration.ofMinutes(minutosApartado);
+        this.reloj = reloj;
+    }
+
+    /**
+     * Aparta un horario de un estilista durante el tiempo configurado
+     * @param usuarioId Cliente que aparta el horario
+     * @param estilistaId Estilista del horario
+     * @param servicioId Servicio que se va a reservar
+     * @param inicio Inicio del horario
+     * @param fin Fin del horario
+     * @return Apartado creado, con su vencimiento
+     * @throws Exception Si el horario ya está reservado o apartado por otro cliente
+     */
+    @Override
+    public ApartadoHorario apartar(String usuarioId, String estilistaId, String servicioId,
+                                   LocalDateTime inicio, LocalDateTime fin) throws Exception {
+        return apartar(usuarioId, estilistaId, servicioId, inicio, fin, duracionApartado);
+    }
+
+    /**
+     * Aparta un horario de un estilista durante un tiempo dado, por ejemplo el plazo para
+     * reclamar un horario ofrecido desde la lista de espera
+     * @param usuarioId Cliente para el que se aparta el horario
+     * @param estilistaId Estilista del horario
+     * @param servicioId Servicio que se va a reservar
+     * @param inicio Inicio del horario
+     * @param fin Fin del horario
+     * @param duracion Tiempo que dura el apartado
+     * @return Apartado creado, con su vencimiento
+     * @throws Exception Si el horario ya está reservado o apartado por otro cliente
+     */
+    @Override
+    public ApartadoHorario apartar(String usuarioId, String estilistaId, String servicioId,
+                                   LocalDateTime inicio, LocalDateTime fin, Duration duracion) throws Exception {
+        ApartadoHorario apartado = ApartadoHorario.builder()
+                .id(new ObjectId().toHexString())
+                .usuarioId(usuarioId)
+                .estilistaId(estilistaId)
+                .servicioId(servicioId)
+                .fechaHora(inicio)
+                .fechaHoraFin(fin)
+                .expiraEn(reloj.instant().plus(duracion))
+                .build();
+
+        reservaHorarioService.apartar(estilistaId, inicio, fin, apartado.getId(), apartado.getExpiraEn());
+        try {
+            return apartadoHorarioRepo.save(apartado);
+        } catch (RuntimeException e) {
+            reservaHorarioService.liberarApartado(apartado.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * Confirma un apartado vigente: sus bloques pasan a ser permanentes y el apartado se borra.
+     * Quien llama debe crear la cita con el mismo identificador del apartado.
+     * @param apartadoId Identificador del apartado
+     * @return Datos del horario apartado
+     * @throws ApartadoVencidoException Si el apartado no existe, ya venció o ya se confirmó
+     */
+    @Override
+    public ApartadoHorario confirmar(String apartadoId) throws ApartadoVencidoException {
+        Instant ahora = reloj.instant();
+        Optional<ApartadoHorario> vigente = apartadoHorarioRepo.findById(apartadoId)
+                .filter(apartado -> apartado.getExpiraEn().isAfter(ahora));
+        if (vigente.isEmpty()) {
+            throw new ApartadoVencidoException("El apartado no existe o ya venció");
+        }
+
+        ApartadoHorario apartado = vigente.get();
+        boolean confirmado = reservaHorarioService.confirmarApartado(apartado.getEstilistaId(),
+                apartado.getFechaHora(), apartado.getFechaHoraFin(), apartadoId, ahora);
+        apartadoHorarioRepo.deleteById(apartadoId);
+        if (!confirmado) {
+            throw new ApartadoVencidoException("El apartado no existe o ya venció");
+        }
+        return apartado;
+    }
+
+    /**
+     * Libera un apartado antes de su vencimiento, por ejemplo si el cliente abandona la reserva.
+     * No toca los bloques de un apartado que ya se confirmó como cita.
+     * @param apartadoId Identificador del apartado
+     */
+    @Override
+    public void liberar(String apartadoId) {
+        reservaHorarioService.liberarApartado(apartadoId);
+        apartadoHorarioRepo.deleteById(apartadoId);
+    }
+
+    /**
+     * Obtiene los horarios apartados y vigentes de varios estilistas en un rango
+     * @param idsEstilistas Estilistas a consultar
+     * @param desde Inicio del rango
+     * @param hasta Fin del rango
+     * @return Intervalos apartados por estilista; los estilistas sin apartados no aparecen
+     */
+    @Override
+    public Map<String, List<Intervalo>> obtenerApartados(Collection<String> idsEstilistas, LocalDateTime desde, LocalDateTime hasta) {
+        if (idsEstilistas.isEmpty()) {
+            return Map.of();
+        }
+        return apartadoHorarioRepo.buscarVigentes(idsEstilistas, desde, hasta, reloj.instant()).stream()
+                .collect(Collectors.groupingBy(ApartadoHorario::getEstilistaId,
+                        Collectors.mapping(apartado -> new Intervalo(apartado.getFechaHora(), apartado.getFechaHoraFin()),
+                                Collectors.toList())));
+    }
+}
@@ -0,0 +1,125 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.ReservaHorarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.ArchivoCitasService;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementación de la tarea que archiva las citas finalizadas.
+ *
+ * Mueve a citas_archivo, por lotes, las citas canceladas y completadas que empezaron hace más
+ * de una edad configurable, y libera los bloques de agenda que todavía reclamaban. Igual que la
+ * tarea que completa citas, trabaja con un máximo de lotes por ejecución y un arriendo en
+ * bloqueos_tareas para que solo un nodo la ejecute a la vez.
+ */
+@Service
+public class ArchivoCitasServiceImple implements ArchivoCitasService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "archivar-citas";
+
+    private final CitaRepo citaRepo;
+    private final ReservaHorarioRepo reservaHorarioRepo;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final int edadDias;
+    private final int tamanioLote;
+    private final int maxLotes;
+    private final Duration duracionBloqueo;
+    private final Clock reloj;
+
+    private final Counter archivadas;
+    private final Timer duracion;
+
+    @Autowired
+    public ArchivoCitasServiceImple(CitaRepo citaRepo,
+                                    ReservaHorarioRepo reservaHorarioRepo,
+                                    BloqueoTareaService bloqueoTareaService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${laos.citas.archivo.edad-dias:90}") int edadDias,
+                                    @Value("${laos.citas.archivo.tamanio-lote:500}") int tamanioLote,
+                                    @Value("${laos.citas.archivo.max-lotes:50}") int maxLotes,
+                                    @Value("${laos.citas.archivo.bloqueo-segundos:600}") long bloqueoSegundos) {
+        this(citaRepo, reservaHorarioRepo, bloqueoTareaService, meterRegistry,
+                edadDias, tamanioLote, maxLotes, bloqueoSegundos, Clock.systemDefaultZone());
+    }
+
+    ArchivoCitasServiceImple(CitaRepo citaRepo,
+                             ReservaHorarioRepo reservaHorarioRepo,
+                             BloqueoTareaService bloqueoTareaService,
+                             MeterRegistry meterRegistry,
+                             int edadDias,
+                             int tamanioLote,
+                             int maxLotes,
+                             long bloqueoSegundos,
+                             Clock reloj) {
+        this.citaRepo = citaRepo;
+        this.reservaHorarioRepo = reservaHorarioRepo;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.edadDias = edadDias;
+        this.tamanioLote = tamanioLote;
+        this.maxLotes = maxLotes;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.reloj = reloj;
+        this.archivadas = Counter.builder("laos.citas.archivadas")
+                .description("Citas movidas a citas_archivo")
+                .register(meterRegistry);
+        this.duracion = Timer.builder("laos.citas.archivar.duracion")
+                .description("Duración de cada ejecución de la tarea que archiva citas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Archiva las citas canceladas y completadas más antiguas que la edad configurada
+     * @return Número de citas archivadas en esta ejecución; 0 si otro nodo tiene la tarea
+     */
+    @Override
+    @Scheduled(cron = "${laos.citas.archivo.cron:0 30 3 * * *}")
+    public int archivarCitasFinalizadas() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+
+        long inicio = System.nanoTime();
+        int total = 0;
+        try {
+            LocalDateTime antesDe = LocalDateTime.now(reloj).minusDays(edadDias);
+            for (int lote = 0; lote < maxLotes; lote++) {
+                List<Cita> citas = citaRepo.buscarParaArchivar(antesDe, tamanioLote);
+                if (citas.isEmpty()) {
+                    break;
+                }
+                List<String> movidas = citaRepo.archivar(citas);
+                if (!movidas.isEmpty()) {
+                    reservaHorarioRepo.deleteByCitaIdIn(movidas);
+                }
+                total += movidas.size();
+                archivadas.increment(movidas.size());
+
+                // Un lote incompleto significa que no quedan más; si se perdió el arriendo, otro nodo sigue
+                if (citas.size() < tamanioLote || !bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+                    break;
+                }
+            }
+        } finally {
+            duracion.record(Duration.ofNanos(System.nanoTime() - inicio));
+            bloqueoTareaService.liberar(TAREA);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,84 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.BloqueoTarea;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Implementación de los bloqueos de tareas programadas.
+ *
+ * Cuando la aplicación corre en varios nodos, cada tarea programada se dispara en todos.
+ * Antes de trabajar, el nodo toma un arriendo sobre el documento de la tarea en
+ * bloqueos_tareas con un solo findAndModify: lo consigue si el arriendo está vencido o ya es
+ * suyo. Si el documento no existe, el upsert lo crea; si dos nodos lo intentan a la vez, el
+ * índice único de _id deja pasar solo a uno. Si un nodo se cae, el arriendo vence solo.
+ */
+@Service
+public class BloqueoTareaServiceImple implements BloqueoTareaService {
+
+    private final MongoTemplate mongoTemplate;
+    private final Clock reloj;
+
+    /**
+     * Identificador de esta instancia de la aplicación
+     */
+    private final String propietario;
+
+    @Autowired
+    public BloqueoTareaServiceImple(MongoTemplate mongoTemplate) {
+        this(mongoTemplate, Clock.systemUTC(), UUID.randomUUID().toString());
+    }
+
+    BloqueoTareaServiceImple(MongoTemplate mongoTemplate, Clock reloj, String propietario) {
+        this.mongoTemplate = mongoTemplate;
+        this.reloj = reloj;
+        this.propietario = propietario;
+    }
+
+    /**
+     * Toma o renueva el arriendo de una tarea
+     * @param tarea Nombre de la tarea
+     * @param duracion Tiempo que dura el arriendo; debe superar lo que tarda una ejecución
+     * @return true si esta instancia tiene el arriendo
+     */
+    @Override
+    public boolean adquirir(String tarea, Duration duracion) {
+        Instant ahora = reloj.instant();
+        Query query = new Query(Criteria.where("_id").is(tarea).orOperator(
+                Criteria.where("vigenteHasta").lt(ahora),
+                Criteria.where("propietario").is(propietario)));
+        Update update = new Update()
+                .set("propietario", propietario)
+                .set("vigenteHasta", ahora.plus(duracion));
+        try {
+            BloqueoTarea bloqueo = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), BloqueoTarea.class);
+            return bloqueo != null;
+        } catch (DuplicateKeyException e) {
+            // Otro nodo tiene un arriendo vigente
+            return false;
+        }
+    }
+
+    /**
+     * Libera el arriendo de una tarea si todavía pertenece a esta instancia
+     * @param tarea Nombre de la tarea
+     */
+    @Override
+    public void liberar(String tarea) {
+        Query query = new Query(Criteria.where("_id").is(tarea).and("propietario").is(propietario));
+        mongoTemplate.updateFirst(query, new Update().set("vigenteHasta", reloj.instant()), BloqueoTarea.class);
+    }
+}
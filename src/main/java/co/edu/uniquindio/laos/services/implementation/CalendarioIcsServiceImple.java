@@ -0,0 +1,372 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.EstadoUsuario;
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+import co.edu.uniquindio.laos.repositories.UsuarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.CalendarioIcsService;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Implementación del feed iCalendar (.ics) de un estilista o de un cliente.
+ *
+ * El feed cubre una ventana alrededor de hoy y se escribe evento por evento mientras se recorre
+ * el cursor de MongoDB, sin armar una lista de citas en memoria. Los calendarios de los teléfonos
+ * lo consultan cada pocos minutos, así que cada respuesta lleva un ETag por sujeto: la fecha de
+ * modificación más reciente de sus citas, el número de citas en la ventana y el día actual. Toda
+ * escritura sobre una cita actualiza su fecha de modificación, y una cita que pasa a otro estilista
+ * o se archiva cambia el conteo, así que el ETag cambia con cualquier cambio del sujeto en cualquier
+ * nodo sin guardar nada en memoria. Las dos lecturas solo usan índices.
+ *
+ * Las aplicaciones de calendario no envían el JWT, así que el feed se publica fuera del filtro de
+ * tokens en una URL con un secreto propio de cada sujeto. El secreto se crea la primera vez que el
+ * sujeto pide su URL con su sesión y se puede renovar, lo que deja sin efecto la URL anterior.
+ */
+@Service
+public class CalendarioIcsServiceImple implements CalendarioIcsService {
+
+    /**
+     * Duración asumida para citas sin fin guardado ni duración de servicio
+     */
+    private static final int DURACION_POR_DEFECTO_MINUTOS = 60;
+
+    /**
+     * Largo máximo de una línea del .ics en octetos, sin el salto de línea (RFC 5545)
+     */
+    private static final int LARGO_MAXIMO_LINEA = 75;
+
+    private static final String SALTO = "\r\n";
+
+    /**
+     * Bytes aleatorios del secreto de la URL del feed
+     */
+    private static final int BYTES_TOKEN = 32;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private static final DateTimeFormatter FORMATO_UTC =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final CitaRepo citaRepo;
+    private final UsuarioRepo usuarioRepo;
+    private final EstilistaRepo estilistaRepo;
+    private final int diasAntes;
+    private final int diasDespues;
+    private final ZoneId zona;
+    private final Clock reloj;
+
+    @Autowired
+    public CalendarioIcsServiceImple(CitaRepo citaRepo,
+                                     UsuarioRepo usuarioRepo,
+                                     EstilistaRepo estilistaRepo,
+                                     @Value("${laos.calendario.ics.dias-antes:30}") int diasAntes,
+                                     @Value("${laos.calendario.ics.dias-despues:180}") int diasDespues,
+                                     @Value("${laos.calendario.ics.zona:America/Bogota}") String zona) {
+        this(citaRepo, usuarioRepo, estilistaRepo, diasAntes, diasDespues, ZoneId.of(zona), Clock.systemDefaultZone());
+    }
+
+    CalendarioIcsServiceImple(CitaRepo citaRepo, UsuarioRepo usuarioRepo, EstilistaRepo estilistaRepo,
+                              int diasAntes, int diasDespues, ZoneId zona, Clock reloj) {
+        this.citaRepo = citaRepo;
+        this.usuarioRepo = usuarioRepo;
+        this.estilistaRepo = estilistaRepo;
+        this.diasAntes = diasAntes;
+        this.diasDespues = diasDespues;
+        this.zona = zona;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Calcula el ETag del feed de un estilista
+     * @param estilistaId Identificador del estilista
+     * @return ETag entre comillas
+     */
+    @Override
+    public String obtenerEtagEstilista(String estilistaId) {
+        return calcularEtag("estilista", estilistaId, null);
+    }
+
+    /**
+     * Calcula el ETag del feed de un cliente
+     * @param clienteId Identificador del cliente
+     * @return ETag entre comillas
+     */
+    @Override
+    public String obtenerEtagCliente(String clienteId) {
+        return calcularEtag("cliente", null, clienteId);
+    }
+
+    /**
+     * Escribe el feed de un estilista en la salida, una cita a la vez
+     * @param estilistaId Identificador del estilista
+     * @param salida Flujo de la respuesta
+     * @throws IOException Si falla la escritura
+     */
+    @Override
+    public void escribirFeedEstilista(String estilistaId, OutputStream salida) throws IOException {
+        escribirFeed("Agenda Laos", estilistaId, null, salida);
+    }
+
+    /**
+     * Escribe el feed de un cliente en la salida, una cita a la vez
+     * @param clienteId Identificador del cliente
+     * @param salida Flujo de la respuesta
+     * @throws IOException Si falla la escritura
+     */
+    @Override
+    public void escribirFeedCliente(String clienteId, OutputStream salida) throws IOException {
+        escribirFeed("Mis citas Laos", null, clienteId, salida);
+    }
+
+    /**
+     * Obtiene el secreto de la URL del feed de un estilista, creándolo si aún no tiene
+     * @param estilistaId Identificador del estilista
+     * @return Secreto del feed
+     * @throws RecursoNoEncontradoException Si el estilista no existe
+     */
+    @Override
+    public String obtenerTokenEstilista(String estilistaId) throws RecursoNoEncontradoException {
+        Estilista estilista = buscarEstilista(estilistaId);
+        if (estilista.getTokenCalendario() != null) {
+            return estilista.getTokenCalendario();
+        }
+        // Si otra petición lo asignó primero, esta no escribe y se devuelve el que quedó guardado
+        estilistaRepo.asignarTokenCalendarioSiFalta(estilistaId, generarToken());
+        return buscarEstilista(estilistaId).getTokenCalendario();
+    }
+
+    /**
+     * Obtiene el secreto de la URL del feed de un cliente, creándolo si aún no tiene
+     * @param clienteId Identificador del cliente
+     * @return Secreto del feed
+     * @throws RecursoNoEncontradoException Si el cliente no existe o fue eliminado
+     */
+    @Override
+    public String obtenerTokenCliente(String clienteId) throws RecursoNoEncontradoException {
+        Usuario cliente = buscarCliente(clienteId);
+        if (cliente.getTokenCalendario() != null) {
+            return cliente.getTokenCalendario();
+        }
+        usuarioRepo.asignarTokenCalendarioSiFalta(clienteId, generarToken());
+        return buscarCliente(clienteId).getTokenCalendario();
+    }
+
+    /**
+     * Reemplaza el secreto del feed de un estilista; la URL anterior deja de funcionar
+     * @param estilistaId Identificador del estilista
+     * @return Secreto nuevo
+     * @throws RecursoNoEncontradoException Si el estilista no existe
+     */
+    @Override
+    public String renovarTokenEstilista(String estilistaId) throws RecursoNoEncontradoException {
+        String token = generarToken();
+        if (!ObjectId.isValid(estilistaId) || estilistaRepo.renovarTokenCalendario(estilistaId, token) == 0) {
+            throw new RecursoNoEncontradoException("Estilista no encontrado");
+        }
+        return token;
+    }
+
+    /**
+     * Reemplaza el secreto del feed de un cliente; la URL anterior deja de funcionar
+     * @param clienteId Identificador del cliente
+     * @return Secreto nuevo
+     * @throws RecursoNoEncontradoException Si el cliente no existe o fue eliminado
+     */
+    @Override
+    public String renovarTokenCliente(String clienteId) throws RecursoNoEncontradoException {
+        String token = generarToken();
+        if (!ObjectId.isValid(clienteId) || usuarioRepo.renovarTokenCalendario(clienteId, token) == 0) {
+            throw new RecursoNoEncontradoException("Cliente no encontrado");
+        }
+        return token;
+    }
+
+    /**
+     * Resuelve el secreto de una URL de feed al estilista dueño
+     * @param token Secreto recibido en la URL
+     * @return Identificador del estilista
+     * @throws RecursoNoEncontradoException Si ningún estilista tiene ese secreto
+     */
+    @Override
+    public String buscarEstilistaPorToken(String token) throws RecursoNoEncontradoException {
+        return estilistaRepo.buscarPorTokenCalendario(token)
+                .map(Estilista::getId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Calendario no encontrado"));
+    }
+
+    /**
+     * Resuelve el secreto de una URL de feed al cliente dueño
+     * @param token Secreto recibido en la URL
+     * @return Identificador del cliente
+     * @throws RecursoNoEncontradoException Si ningún cliente activo tiene ese secreto
+     */
+    @Override
+    public String buscarClientePorToken(String token) throws RecursoNoEncontradoException {
+        return usuarioRepo.buscarPorTokenCalendario(token)
+                .map(Usuario::getId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Calendario no encontrado"));
+    }
+
+    private Estilista buscarEstilista(String estilistaId) throws RecursoNoEncontradoException {
+        if (!ObjectId.isValid(estilistaId)) {
+            throw new RecursoNoEncontradoException("Estilista no encontrado");
+        }
+        return estilistaRepo.findById(estilistaId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Estilista no encontrado"));
+    }
+
+    private Usuario buscarCliente(String clienteId) throws RecursoNoEncontradoException {
+        if (!ObjectId.isValid(clienteId)) {
+            throw new RecursoNoEncontradoException("Cliente no encontrado");
+        }
+        return usuarioRepo.findByIdAndEstadoUsuarioNot(clienteId, EstadoUsuario.ELIMINADO)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Cliente no encontrado"));
+    }
+
+    /**
+     * Genera un secreto aleatorio apto para URL
+     * @return 32 bytes de SecureRandom en Base64 sin relleno
+     */
+    private static String generarToken() {
+        byte[] bytes = new byte[BYTES_TOKEN];
+        ALEATORIO.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String calcularEtag(String tipo, String estilistaId, String usuarioId) {
+        LocalDate hoy = LocalDate.now(reloj);
+        long ultimaModificacion = citaRepo.buscarUltimaModificacion(estilistaId, usuarioId)
+                .map(Instant::toEpochMilli)
+                .orElse(0L);
+        long citas = citaRepo.contarFeedIcs(estilistaId, usuarioId, inicioVentana(hoy), finVentana(hoy));
+        // El día entra en el ETag porque la ventana se corre cada día
+        return "\"" + ultimaModificacion + "-" + citas + "-"
+                + Integer.toHexString(Objects.hash(tipo, estilistaId, usuarioId, hoy)) + "\"";
+    }
+
+    private void escribirFeed(String nombre, String estilistaId, String usuarioId, OutputStream salida) throws IOException {
+        LocalDate hoy = LocalDate.now(reloj);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+
+        escribirLinea(writer, "BEGIN:VCALENDAR");
+        escribirLinea(writer, "VERSION:2.0");
+        escribirLinea(writer, "PRODID:-//Laos//Citas//ES");
+        escribirLinea(writer, "CALSCALE:GREGORIAN");
+        escribirLinea(writer, "METHOD:PUBLISH");
+        escribirLinea(writer, "X-WR-CALNAME:" + escaparTexto(nombre));
+
+        try (Stream<Cita> citas = citaRepo.recorrerFeedIcs(estilistaId, usuarioId, inicioVentana(hoy), finVentana(hoy))) {
+            Iterator<Cita> iterador = citas.iterator();
+            while (iterador.hasNext()) {
+                escribirEvento(writer, iterador.next(), estilistaId == null);
+            }
+        }
+
+        escribirLinea(writer, "END:VCALENDAR");
+        writer.flush();
+    }
+
+    private void escribirEvento(Writer writer, Cita cita, boolean mostrarEstilista) throws IOException {
+        Instant modificada = cita.getFechaModificacion() != null ? cita.getFechaModificacion() : reloj.instant();
+        String resumen = cita.getServicioNombre() != null ? cita.getServicioNombre() : "Cita";
+        if (mostrarEstilista && cita.getEstilistaNombre() != null) {
+            resumen += " con " + cita.getEstilistaNombre();
+        }
+
+        escribirLinea(writer, "BEGIN:VEVENT");
+        escribirLinea(writer, "UID:" + cita.getId() + "@laos");
+        escribirLinea(writer, "DTSTAMP:" + FORMATO_UTC.format(modificada));
+        escribirLinea(writer, "LAST-MODIFIED:" + FORMATO_UTC.format(modificada));
+        escribirLinea(writer, "SEQUENCE:" + (cita.getVersion() != null ? cita.getVersion() : 0));
+        escribirLinea(writer, "DTSTART:" + formatearFecha(cita.getFechaHora()));
+        escribirLinea(writer, "DTEND:" + formatearFecha(calcularFin(cita)));
+        escribirLinea(writer, "SUMMARY:" + escaparTexto(resumen));
+        escribirLinea(writer, "STATUS:CONFIRMED");
+        if (cita.getEstado() == EstadoCita.COMPLETADA) {
+            escribirLinea(writer, "TRANSP:TRANSPARENT");
+        }
+        escribirLinea(writer, "END:VEVENT");
+    }
+
+    private LocalDateTime calcularFin(Cita cita) {
+        if (cita.getFechaHoraFin() != null) {
+            return cita.getFechaHoraFin();
+        }
+        Integer duracion = cita.getServicioDuracionMinutos();
+        return cita.getFechaHora().plusMinutes(duracion != null && duracion > 0 ? duracion : DURACION_POR_DEFECTO_MINUTOS);
+    }
+
+    private String formatearFecha(LocalDateTime fechaHora) {
+        return FORMATO_UTC.format(fechaHora.atZone(zona).toInstant());
+    }
+
+    private LocalDateTime inicioVentana(LocalDate hoy) {
+        return hoy.minusDays(diasAntes).atStartOfDay();
+    }
+
+    private LocalDateTime finVentana(LocalDate hoy) {
+        return hoy.plusDays(diasDespues + 1L).atStartOfDay();
+    }
+
+    /**
+     * Escapa los caracteres especiales de un valor de texto (RFC 5545, 3.3.11)
+     */
+    static String escaparTexto(String texto) {
+        return texto.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    /**
+     * Escribe una línea terminada en CRLF, partida en líneas de continuación si supera
+     * los 75 octetos; nunca corta un carácter UTF-8 a la mitad.
+     */
+    static void escribirLinea(Writer writer, String linea) throws IOException {
+        int octetos = 0;
+        int limite = LARGO_MAXIMO_LINEA;
+        for (int i = 0; i < linea.length(); ) {
+            int codigo = linea.codePointAt(i);
+            int largo = Character.charCount(codigo);
+            int octetosCaracter = codigo < 0x80 ? 1 : codigo < 0x800 ? 2 : codigo < 0x10000 ? 3 : 4;
+            if (octetos + octetosCaracter > limite) {
+                writer.write(SALTO);
+                writer.write(' ');
+                octetos = 0;
+                limite = LARGO_MAXIMO_LINEA - 1;
+            }
+            writer.write(linea, i, largo);
+            octetos += octetosCaracter;
+            i += largo;
+        }
+        writer.write(SALTO);
+    }
+}
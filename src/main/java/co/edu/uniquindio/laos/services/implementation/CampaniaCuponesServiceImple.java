@@ -0,0 +1,340 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cupon.CampaniaCuponesDTO;
+import co.edu.uniquindio.laos.dto.cupon.CrearCampaniaCuponesDTO;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.exceptions.RecursoEncontradoException;
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+import co.edu.uniquindio.laos.model.CampaniaCupones;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCampania;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.CampaniaCuponesRepo;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.repositories.UsuarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.CampaniaCuponesService;
+import co.edu.uniquindio.laos.utils.TextUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implementación de la asignación de cupones de campaña a segmentos de clientes.
+ *
+ * Crear una campaña solo guarda el segmento y la plantilla; la asignación la hace una tarea
+ * programada con arriendo. La tarea recorre usuarios con un cursor en orden de _id, de a lotes:
+ * por cada lote resume las citas de esos clientes en citas y en el archivo (una agregación por
+ * lote, así cuentan también las citas anteriores al registro de eventos), filtra el segmento, inserta sus cupones con una escritura masiva sin orden y guarda el último id como
+ * punto de control. En memoria solo hay un lote a la vez. Si el nodo cae, la siguiente ejecución
+ * retoma desde el punto de control; un lote que alcanzó a insertarse pero no a registrarse se
+ * repite sin duplicar porque el índice único de campaña y cliente rechaza el segundo cupón.
+ */
+@Service
+public class CampaniaCuponesServiceImple implements CampaniaCuponesService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "campanias-cupones";
+
+    private static final int LONGITUD_CODIGO = 8;
+
+    private final CampaniaCuponesRepo campaniaCuponesRepo;
+    private final UsuarioRepo usuarioRepo;
+    private final CitaRepo citaRepo;
+    private final CuponRepo cuponRepo;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final int tamanioLote;
+    private final int maxLotes;
+    private final Duration duracionBloqueo;
+    private final Clock reloj;
+
+    private final Counter evaluados;
+    private final Counter asignados;
+
+    @Autowired
+    public CampaniaCuponesServiceImple(CampaniaCuponesRepo campaniaCuponesRepo,
+                                       UsuarioRepo usuarioRepo,
+                                       CitaRepo citaRepo,
+                                       CuponRepo cuponRepo,
+                                       BloqueoTareaService bloqueoTareaService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${laos.cupones.campanias.tamanio-lote:500}") int tamanioLote,
+                                       @Value("${laos.cupones.campanias.max-lotes:20}") int maxLotes,
+                                       @Value("${laos.cupones.campanias.bloqueo-segundos:300}") long bloqueoSegundos) {
+        this(campaniaCuponesRepo, usuarioRepo, citaRepo, cuponRepo, bloqueoTareaService, meterRegistry,
+                tamanioLote, maxLotes, bloqueoSegundos, Clock.systemDefaultZone());
+    }
+
+    CampaniaCuponesServiceImple(CampaniaCuponesRepo campaniaCuponesRepo,
+                                UsuarioRepo usuarioRepo,
+                                CitaRepo citaRepo,
+                                CuponRepo cuponRepo,
+                                BloqueoTareaService bloqueoTareaService,
+                                MeterRegistry meterRegistry,
+                                int tamanioLote,
+                                int maxLotes,
+                                long bloqueoSegundos,
+                                Clock reloj) {
+        this.campaniaCuponesRepo = campaniaCuponesRepo;
+        this.usuarioRepo = usuarioRepo;
+        this.citaRepo = citaRepo;
+        this.cuponRepo = cuponRepo;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.tamanioLote = tamanioLote;
+        this.maxLotes = maxLotes;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.reloj = reloj;
+        this.evaluados = Counter.builder("laos.cupones.campanias.evaluados")
+                .description("Clientes recorridos por las campañas de cupones")
+                .register(meterRegistry);
+        this.asignados = Counter.builder("laos.cupones.campanias.asignados")
+                .description("Cupones de campaña creados para clientes del segmento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra una campaña para que la tarea programada asigne sus cupones
+     * @param crearCampaniaCuponesDTO Segmento de clientes y plantilla de los cupones
+     * @return Identificador de la campaña
+     * @throws RecursoEncontradoException Si ya existe una campaña con ese nombre
+     * @throws RangoFechasInvalidoException Si el rango de fechas de registro está invertido
+     */
+    @Override
+    public String crearCampania(CrearCampaniaCuponesDTO crearCampaniaCuponesDTO) throws RecursoEncontradoException,
+            RangoFechasInvalidoException {
+        if (crearCampaniaCuponesDTO.registradoDesde() != null && crearCampaniaCuponesDTO.registradoHasta() != null
+                && crearCampaniaCuponesDTO.registradoHasta().isBefore(crearCampaniaCuponesDTO.registradoDesde())) {
+            throw new RangoFechasInvalidoException("La fecha inicial de registro debe ser anterior a la final");
+        }
+
+        Instant ahora = reloj.instant();
+        CampaniaCupones campania = CampaniaCupones.builder()
+                .campania(crearCampaniaCuponesDTO.campania())
+                .registradoDesde(crearCampaniaCuponesDTO.registradoDesde() == null ? null
+                        : crearCampaniaCuponesDTO.registradoDesde().atStartOfDay())
+                // El último día se incluye completo
+                .registradoHasta(crearCampaniaCuponesDTO.registradoHasta() == null ? null
+                        : crearCampaniaCuponesDTO.registradoHasta().plusDays(1).atStartOfDay())
+                .minCitasCompletadas(crearCampaniaCuponesDTO.minCitasCompletadas())
+                .maxCitasCompletadas(crearCampaniaCuponesDTO.maxCitasCompletadas())
+                .diasInactividad(crearCampaniaCuponesDTO.diasInactividad())
+                .nombre(TextUtils.normalizarTexto(crearCampaniaCuponesDTO.nombre()))
+                .porcentajeDescuento(crearCampaniaCuponesDTO.porcentajeDescuento())
+                .fechaVencimiento(crearCampaniaCuponesDTO.fechaVencimiento())
+                .usosMaximos(crearCampaniaCuponesDTO.usosMaximos() == null ? 1 : crearCampaniaCuponesDTO.usosMaximos())
+                .estado(EstadoCampania.EN_CURSO)
+                .fechaInicio(ahora)
+                .fechaActualizacion(ahora)
+                .build();
+        try {
+            return campaniaCuponesRepo.save(campania).getId();
+        } catch (DuplicateKeyException e) {
+            throw new RecursoEncontradoException("Ya existe una campaña con el nombre ingresado");
+        }
+    }
+
+    /**
+     * Consulta el avance de una campaña
+     * @param id Identificador de la campaña
+     * @return Estado, clientes evaluados y cupones asignados hasta el último punto de control
+     * @throws RecursoNoEncontradoException Si la campaña no existe
+     */
+    @Override
+    public CampaniaCuponesDTO obtenerCampania(String id) throws RecursoNoEncontradoException {
+        CampaniaCupones campania = campaniaCuponesRepo.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("No existe una campaña con el id: " + id));
+        return new CampaniaCuponesDTO(
+                campania.getId(),
+                campania.getCampania(),
+                campania.getEstado(),
+                campania.getEvaluados(),
+                campania.getAsignados(),
+                formatear(campania.getFechaInicio()),
+                formatear(campania.getFechaActualizacion()),
+                formatear(campania.getFechaFin()));
+    }
+
+    /**
+     * Avanza las campañas en curso, de la más antigua a la más reciente, hasta el máximo de lotes
+     * por ejecución; lo que falte se retoma en la siguiente desde el punto de control
+     * @return Cupones asignados en esta ejecución; 0 si otro nodo tiene la tarea
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${laos.cupones.campanias.intervalo-ms:30000}")
+    public int procesarCampanias() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+
+        int total = 0;
+        try {
+            int[] lotesRestantes = {maxLotes};
+            for (CampaniaCupones campania : campaniaCuponesRepo.buscarPorEstado(EstadoCampania.EN_CURSO)) {
+                total += procesar(campania, lotesRestantes);
+                // Una campaña sin terminar significa que se agotaron los lotes o se perdió el arriendo
+                if (campania.getEstado() != EstadoCampania.COMPLETADA) {
+                    break;
+                }
+            }
+        } finally {
+            bloqueoTareaService.liberar(TAREA);
+        }
+        return total;
+    }
+
+    /**
+     * Recorre los clientes de una campaña desde su punto de control
+     * @return Cupones asignados
+     */
+    private int procesar(CampaniaCupones campania, int[] lotesRestantes) {
+        int total = 0;
+        try (Stream<Usuario> clientes = usuarioRepo.recorrerClientes(campania.getRegistradoDesde(),
+                campania.getRegistradoHasta(), campania.getUltimoUsuarioId(), tamanioLote)) {
+            Iterator<Usuario> iterador = clientes.iterator();
+            List<String> lote = new ArrayList<>(tamanioLote);
+            while (iterador.hasNext()) {
+                lote.add(iterador.next().getId());
+                if (lote.size() < tamanioLote) {
+                    continue;
+                }
+                total += procesarLote(campania, lote);
+                lote.clear();
+                if (--lotesRestantes[0] <= 0 || !bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+                    return total;
+                }
+            }
+            total += procesarLote(campania, lote);
+        }
+
+        campania.setEstado(EstadoCampania.COMPLETADA);
+        campania.setFechaFin(reloj.instant());
+        campania.setFechaActualizacion(campania.getFechaFin());
+        campaniaCuponesRepo.save(campania);
+        return total;
+    }
+
+    /**
+     * Asigna los cupones de un lote de clientes y guarda el punto de control
+     * @return Cupones asignados
+     */
+    private int procesarLote(CampaniaCupones campania, List<String> idsClientes) {
+        if (idsClientes.isEmpty()) {
+            return 0;
+        }
+        int creados = insertarCupones(campania, filtrarSegmento(campania, idsClientes));
+
+        campania.setUltimoUsuarioId(idsClientes.get(idsClientes.size() - 1));
+        campania.setEvaluados(campania.getEvaluados() + idsClientes.size());
+        campania.setAsignados(campania.getAsignados() + creados);
+        campania.setFechaActualizacion(reloj.instant());
+        campaniaCuponesRepo.save(campania);
+
+        evaluados.increment(idsClientes.size());
+        asignados.increment(creados);
+        return creados;
+    }
+
+    /**
+     * Aplica los criterios de citas e inactividad con el resumen de citas de los clientes del lote
+     */
+    private List<String> filtrarSegmento(CampaniaCupones campania, List<String> idsClientes) {
+        if (campania.getMinCitasCompletadas() == null && campania.getMaxCitasCompletadas() == null
+                && campania.getDiasInactividad() == null) {
+            return idsClientes;
+        }
+
+        Map<String, HistorialCliente> historiales = citaRepo.resumirPorCliente(idsClientes).stream()
+                .collect(Collectors.toMap(HistorialCliente::getId, Function.identity()));
+        Instant inactivoAntesDe = campania.getDiasInactividad() == null ? null
+                : reloj.instant().minus(Duration.ofDays(campania.getDiasInactividad()));
+
+        List<String> segmento = new ArrayList<>();
+        for (String id : idsClientes) {
+            // Un cliente sin resumen no tiene citas ni actividad
+            HistorialCliente historial = historiales.get(id);
+            long completadas = historial == null ? 0 : historial.getCompletadas();
+            Instant ultimaActividad = historial == null ? null : historial.getUltimaActividad();
+
+            if (campania.getMinCitasCompletadas() != null && completadas < campania.getMinCitasCompletadas()) {
+                continue;
+            }
+            if (campania.getMaxCitasCompletadas() != null && completadas > campania.getMaxCitasCompletadas()) {
+                continue;
+            }
+            if (inactivoAntesDe != null && ultimaActividad != null && !ultimaActividad.isBefore(inactivoAntesDe)) {
+                continue;
+            }
+            segmento.add(id);
+        }
+        return segmento;
+    }
+
+    /**
+     * Inserta un cupón por cliente. Los rechazados por el índice de campaña y cliente ya tenían su
+     * cupón; los demás chocaron por código y se reintentan con un código nuevo.
+     * @return Cupones insertados
+     */
+    private int insertarCupones(CampaniaCupones campania, List<String> idsClientes) {
+        List<Cupon> pendientes = idsClientes.stream()
+                .map(id -> construirCupon(campania, id))
+                .collect(Collectors.toList());
+
+        int creados = 0;
+        while (!pendientes.isEmpty()) {
+            List<Cupon> rechazados = cuponRepo.insertarSinOrden(pendientes);
+            creados += pendientes.size() - rechazados.size();
+            if (rechazados.isEmpty()) {
+                break;
+            }
+
+            Set<String> conCupon = cuponRepo.buscarUsuariosConCupon(campania.getCampania(),
+                    rechazados.stream().map(cupon -> cupon.getUsuarioId()).toList());
+            pendientes = rechazados.stream()
+                    .filter(cupon -> !conCupon.contains(cupon.getUsuarioId()))
+                    .map(cupon -> construirCupon(campania, cupon.getUsuarioId()))
+                    .collect(Collectors.toList());
+        }
+        return creados;
+    }
+
+    private Cupon construirCupon(CampaniaCupones campania, String usuarioId) {
+        return Cupon.builder()
+                .codigo(GeneracionCuponesServiceImple.generarCodigo(LONGITUD_CODIGO))
+                .nombre(campania.getNombre())
+                .porcentajeDescuento(campania.getPorcentajeDescuento())
+                .estadoCupon(EstadoCupon.ACTIVO)
+                .fechaVencimiento(campania.getFechaVencimiento())
+                .usuarioId(usuarioId)
+                .usosMaximos(campania.getUsosMaximos())
+                .usos(0)
+                .campania(campania.getCampania())
+                // La inserción en lote no inicializa la versión; sin ella un guardado posterior se tomaría como nuevo
+                .version(0L)
+                .build();
+    }
+
+    private String formatear(Instant instante) {
+        return instante == null ? null : instante.toString();
+    }
+}
@@ -0,0 +1,248 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Servicio;
+import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+import co.edu.uniquindio.laos.repositories.ServiciosRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Implementación del servicio de catálogo que mantiene en memoria los estilistas
+ * y servicios del establecimiento.
+ *
+ * El catálogo cambia muy pocas veces y se lee en casi todas las peticiones, por lo que
+ * se guarda como una instantánea inmutable que se reemplaza completa (copy-on-write).
+ * Las lecturas no toman bloqueos; la instantánea se invalida cada vez que se guarda o
+ * elimina un Estilista o un Servicio y, además, caduca tras un tiempo de vida para que
+ * otros nodos también vean los cambios. Los aciertos y fallos se publican en Micrometer.
+ */
+@Service
+public class CatalogoServiceImple implements CatalogoService {
+
+    /**
+     * Catálogo en memoria de estilistas
+     */
+    private final CatalogoEnMemoria<Estilista> estilistas;
+
+    /**
+     * Catálogo en memoria de servicios
+     */
+    private final CatalogoEnMemoria<Servicio> servicios;
+
+    public CatalogoServiceImple(EstilistaRepo estilistaRepo,
+                                ServiciosRepo serviciosRepo,
+                                MeterRegistry meterRegistry,
+                                @Value("${laos.catalogo.max-entradas:1000}") int maxEntradas,
+                                @Value("${laos.catalogo.ttl-segundos:300}") long ttlSegundos) {
+        Duration ttl = Duration.ofSeconds(ttlSegundos);
+        this.estilistas = new CatalogoEnMemoria<>("estilistas", estilistaRepo::findAll,
+                estilistaRepo::findAllById, Estilista::getId, maxEntradas, ttl, meterRegistry);
+        this.servicios = new CatalogoEnMemoria<>("servicios", serviciosRepo::findAll,
+                serviciosRepo::findAllById, Servicio::getId, maxEntradas, ttl, meterRegistry);
+    }
+
+    /**
+     * Recupera todos los estilistas desde la instantánea en memoria
+     * @return Lista inmutable de estilistas
+     */
+    @Override
+    public List<Estilista> obtenerEstilistas() {
+        return estilistas.todos();
+    }
+
+    /**
+     * Recupera todos los servicios desde la instantánea en memoria
+     * @return Lista inmutable de servicios
+     */
+    @Override
+    public List<Servicio> obtenerServicios() {
+        return servicios.todos();
+    }
+
+    /**
+     * Resuelve un conjunto de estilistas por su identificador
+     * @param ids Identificadores a resolver
+     * @return Mapa id -> estilista con los identificadores encontrados
+     */
+    @Override
+    public Map<String, Estilista> obtenerEstilistasPorId(Collection<String> ids) {
+        return estilistas.porIds(ids);
+    }
+
+    /**
+     * Resuelve un conjunto de servicios por su identificador
+     * @param ids Identificadores a resolver
+     * @return Mapa id -> servicio con los identificadores encontrados
+     */
+    @Override
+    public Map<String, Servicio> obtenerServiciosPorId(Collection<String> ids) {
+        return servicios.porIds(ids);
+    }
+
+    /**
+     * Descarta la instantánea de estilistas; la siguiente lectura la recarga
+     */
+    @Override
+    public void invalidarEstilistas() {
+        estilistas.invalidar();
+    }
+
+    /**
+     * Descarta la instantánea de servicios; la siguiente lectura la recarga
+     */
+    @Override
+    public void invalidarServicios() {
+        servicios.invalidar();
+    }
+
+    /**
+     * Instantánea inmutable de un catálogo
+     * @param lista Elementos en el orden devuelto por la base de datos
+     * @param porId Índice de los elementos por identificador
+     * @param cargadaEn Marca de tiempo (System.nanoTime) de la carga
+     */
+    private record Instantanea<T>(List<T> lista, Map<String, T> porId, long cargadaEn) {
+    }
+
+    /**
+     * Catálogo acotado de lectura mayoritaria con reemplazo completo en cada recarga.
+     * Si la colección supera el máximo de entradas no se guarda en memoria y las
+     * consultas se resuelven directamente contra la base de datos.
+     */
+    private static final class CatalogoEnMemoria<T> {
+
+        private final Supplier<List<T>> cargarTodos;
+        private final Function<Iterable<String>, Iterable<T>> cargarPorIds;
+        private final Function<T, String> obtenerId;
+        private final int maxEntradas;
+        private final long ttlNanos;
+        private final Counter aciertos;
+        private final Counter fallos;
+
+        private final AtomicReference<Instantanea<T>> instantanea = new AtomicReference<>();
+        private final Object bloqueoEscritura = new Object();
+        private long generacion;
+        private volatile boolean excedeLimite;
+
+        CatalogoEnMemoria(String nombre,
+                          Supplier<List<T>> cargarTodos,
+                          Function<Iterable<String>, Iterable<T>> cargarPorIds,
+                          Function<T, String> obtenerId,
+                          int maxEntradas,
+                          Duration ttl,
+                          MeterRegistry meterRegistry) {
+            this.cargarTodos = cargarTodos;
+            this.cargarPorIds = cargarPorIds;
+            this.obtenerId = obtenerId;
+            this.maxEntradas = maxEntradas;
+            this.ttlNanos = ttl.toNanos();
+            this.aciertos = Counter.builder("laos.catalogo.cache")
+                    .description("Lecturas del catálogo en memoria")
+                    .tag("catalogo", nombre)
+                    .tag("resultado", "acierto")
+                    .register(meterRegistry);
+            this.fallos = Counter.builder("laos.catalogo.cache")
+                    .description("Lecturas del catálogo en memoria")
+                    .tag("catalogo", nombre)
+                    .tag("resultado", "fallo")
+                    .register(meterRegistry);
+            Gauge.builder("laos.catalogo.cache.tamanio", instantanea,
+                            ref -> ref.get() == null ? 0 : ref.get().lista().size())
+                    .description("Elementos en la instantánea del catálogo")
+                    .tag("catalogo", nombre)
+                    .register(meterRegistry);
+        }
+
+        List<T> todos() {
+            Instantanea<T> actual = vigente();
+            if (actual != null) {
+                aciertos.increment();
+                return actual.lista();
+            }
+            fallos.increment();
+            return cargar().lista();
+        }
+
+        Map<String, T> porIds(Collection<String> ids) {
+            if (ids.isEmpty()) {
+                return Map.of();
+            }
+
+            Instantanea<T> actual = vigente();
+            if (actual != null) {
+                aciertos.increment();
+            } else {
+                fallos.increment();
+                if (excedeLimite) {
+                    // El catálogo es demasiado grande para memoria: consulta puntual
+                    Map<String, T> encontrados = new HashMap<>();
+                    cargarPorIds.apply(ids).forEach(e -> encontrados.put(obtenerId.apply(e), e));
+                    return encontrados;
+                }
+                actual = cargar();
+            }
+
+            Map<String, T> encontrados = new HashMap<>();
+            for (String id : ids) {
+                T elemento = actual.porId().get(id);
+                if (elemento != null) {
+                    encontrados.put(id, elemento);
+                }
+            }
+            return encontrados;
+        }
+
+        void invalidar() {
+            synchronized (bloqueoEscritura) {
+                generacion++;
+                instantanea.set(null);
+            }
+        }
+
+        private Instantanea<T> vigente() {
+            Instantanea<T> actual = instantanea.get();
+            if (actual != null && System.nanoTime() - actual.cargadaEn() > ttlNanos) {
+                instantanea.compareAndSet(actual, null);
+                return null;
+            }
+            return actual;
+        }
+
+        private Instantanea<T> cargar() {
+            long generacionInicial;
+            synchronized (bloqueoEscritura) {
+                generacionInicial = generacion;
+            }
+
+            List<T> elementos = cargarTodos.get();
+            Map<String, T> porId = new HashMap<>();
+            for (T elemento : elementos) {
+                porId.put(obtenerId.apply(elemento), elemento);
+            }
+            Instantanea<T> nueva = new Instantanea<>(List.copyOf(elementos), Map.copyOf(porId), System.nanoTime());
+
+            excedeLimite = elementos.size() > maxEntradas;
+            synchronized (bloqueoEscritura) {
+                // Solo se publica si nadie invalidó el catálogo mientras se cargaba
+                if (!excedeLimite && generacion == generacionInicial) {
+                    instantanea.set(nueva);
+                }
+            }
+            return nueva;
+        }
+    }
+}
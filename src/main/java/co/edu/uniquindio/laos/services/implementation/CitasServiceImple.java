@@ -1,29 +1,71 @@
 package co.edu.uniquindio.laos.services.implementation;
 
+    import co.edu.uniquindio.laos.dto.cita.ApartadoHorarioDTO;
     import co.edu.uniquindio.laos.dto.cita.CrearCitaDTO;
+    import co.edu.uniquindio.laos.dto.cita.CrearCitasLoteDTO;
+    import co.edu.uniquindio.laos.dto.cita.CitaReasignadaDTO;
+    import co.edu.uniquindio.laos.dto.cita.FiltroCitasDTO;
     import co.edu.uniquindio.laos.dto.cita.InformacionCitaDTO;
+    import co.edu.uniquindio.laos.dto.cita.OcurrenciaFallidaDTO;
+    import co.edu.uniquindio.laos.dto.cita.PaginaCitasDTO;
+    import co.edu.uniquindio.laos.dto.cita.ReasignarCitasDTO;
     import co.edu.uniquindio.laos.dto.cita.ReprogramarCitaDTO;
+    import co.edu.uniquindio.laos.dto.cita.ResultadoCitasLoteDTO;
+    import co.edu.uniquindio.laos.dto.cita.ResultadoReasignacionDTO;
     import co.edu.uniquindio.laos.dto.cita.CalendarioCitasDTO;
+    import co.edu.uniquindio.laos.dto.cita.CalendarioFeedDTO;
+    import co.edu.uniquindio.laos.dto.cita.HorarioDisponibleDTO;
+    import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+    import co.edu.uniquindio.laos.exceptions.CursorInvalidoException;
     import co.edu.uniquindio.laos.exceptions.HorarioYEstilistaOcupadoException;
+    import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
     import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+    import co.edu.uniquindio.laos.exceptions.SerieCitasInvalidaException;
+    import co.edu.uniquindio.laos.model.ApartadoHorario;
     import co.edu.uniquindio.laos.model.Cita;
     import co.edu.uniquindio.laos.model.EstadoCita;
     import co.edu.uniquindio.laos.model.Estilista;
     import co.edu.uniquindio.laos.model.Servicio;
+    import co.edu.uniquindio.laos.model.TipoEventoCita;
     import co.edu.uniquindio.laos.repositories.CitaRepo;
-    import co.edu.uniquindio.laos.repositories.ServiciosRepo;
-    import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+    import co.edu.uniquindio.laos.services.interfaces.AgendaDiariaService;
+    import co.edu.uniquindio.laos.services.interfaces.ApartadoHorarioService;
+    import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
     import co.edu.uniquindio.laos.services.interfaces.CitasService;
+    import co.edu.uniquindio.laos.services.interfaces.ListaEsperaService;
+    import co.edu.uniquindio.laos.services.interfaces.NotificacionCitasService;
+    import co.edu.uniquindio.laos.services.interfaces.OcupacionAgendaService;
+    import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+    import co.edu.uniquindio.laos.utils.AgendaUtils;
+    import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+    import co.edu.uniquindio.laos.utils.EventosCitaUtils;
+    import co.edu.uniquindio.laos.utils.ReintentoUtils;
     import lombok.RequiredArgsConstructor;
+    import org.bson.types.ObjectId;
     import org.springframework.beans.factory.annotation.Autowired;
+    import org.springframework.beans.factory.annotation.Value;
     import org.springframework.stereotype.Service;
     import org.springframework.transaction.annotation.Transactional;
 
+    import java.nio.charset.StandardCharsets;
+    import java.time.Instant;
+    import java.time.LocalDate;
     import java.time.LocalDateTime;
     import java.time.format.DateTimeFormatter;
+    import java.time.format.DateTimeParseException;
+    import java.time.temporal.ChronoUnit;
+    import java.util.ArrayList;
     import java.util.Arrays;
+    import java.util.Base64;
+    import java.util.Comparator;
+    import java.util.HashMap;
+    import java.util.HashSet;
+    import java.util.LinkedHashMap;
     import java.util.List;
+    import java.util.Map;
+    import java.util.Objects;
     import java.util.Optional;
+    import java.util.Set;
     import java.util.stream.Collectors;
 
     /**
@@ -38,15 +80,106 @@ package co.edu.uniquindio.laos.services.implementation;
     @RequiredArgsConstructor
     public class CitasServiceImple implements CitasService {
 
+        /**
+         * Duración asumida para citas cuyo servicio no define duración
+         */
+        private static final int DURACION_POR_DEFECTO_MINUTOS = 60;
+
+        /**
+         * Número de citas por página cuando no se indica
+         */
+        private static final int TAMANIO_PAGINA_POR_DEFECTO = 50;
+
+        /**
+         * Número máximo de citas por página
+         */
+        private static final int TAMANIO_PAGINA_MAXIMO = 200;
+        /**
+         * Días hacia atrás y hacia adelante que cubre el calendario cuando no se indica la ventana
+         */
+        private static final int DIAS_CALENDARIO_ANTES = 7;
+        private static final int DIAS_CALENDARIO_DESPUES = 60;
+        /**
+         * Margen con el que se piden los cambios del calendario antes de la versión del cliente
+         */
+        private static final long MARGEN_CAMBIOS_MS = 5000;
+        /**
+         * Formato de fecha y hora con el que se reciben las citas
+         */
+        private static final DateTimeFormatter FORMATO_FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        /**
+         * Orden de la paginación por cursor, usado al mezclar citas activas y archivadas
+         */
+        private static final Comparator<Cita> ORDEN_FECHA_ID = Comparator
+                .comparing(Cita::getFechaHora, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparing(Cita::getId, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+
         /**
          * Repositorio para el acceso y persistencia de citas en la base de datos
          */
         @Autowired
         private CitaRepo citaRepo;
+        /**
+         * Catálogo en memoria para resolver estilistas y servicios sin consultar la base de datos
+         */
         @Autowired
-        private EstilistaRepo estilistaRepository;
+        private CatalogoService catalogoService;
+        /**
+         * Reclamos atómicos de bloques de agenda que impiden reservas dobles concurrentes
+         */
+        @Autowired
+        private ReservaHorarioService reservaHorarioService;
+        /**
+         * Ocupación de agenda en memoria para resolver conflictos y disponibilidad sin consultar la base de datos
+         */
         @Autowired
-        private ServiciosRepo servicioRepository;
+        private OcupacionAgendaService ocupacionAgendaService;
+        /**
+         * Avisos asíncronos a los clientes cuando una operación masiva cambia sus citas
+         */
+        @Autowired
+        private NotificacionCitasService notificacionCitasService;
+        /**
+         * Apartados temporales de horario mientras el cliente confirma la reserva
+         */
+        @Autowired
+        private ApartadoHorarioService apartadoHorarioService;
+        /**
+         * Agenda de hoy y mañana de cada estilista, precalculada en memoria
+         */
+        @Autowired
+        private AgendaDiariaService agendaDiariaService;
+        /**
+         * Lista de espera a la que se ofrecen los horarios que se liberan al cancelar
+         */
+        @Autowired
+        private ListaEsperaService listaEsperaService;
+
+        /**
+         * Hora (0-23) en que abre el establecimiento
+         */
+        @Value("${laos.agenda.hora-apertura:8}")
+        private int horaApertura;
+        /**
+         * Hora (1-24) en que cierra el establecimiento
+         */
+        @Value("${laos.agenda.hora-cierre:18}")
+        private int horaCierre;
+        /**
+         * Máximo de días que puede abarcar una consulta de disponibilidad
+         */
+        @Value("${laos.agenda.max-dias-consulta:31}")
+        private int maxDiasConsulta;
+        /**
+         * Máximo de días que puede abarcar la ventana del calendario
+         */
+        @Value("${laos.calendario.max-dias:120}")
+        private int maxDiasCalendario;
+        /**
+         * Máximo de citas que se pueden crear en una sola petición de lote o serie
+         */
+        @Value("${laos.citas.lote.max-citas:60}")
+        private int maxCitasLote;
 
 
 
@@ -62,74 +195,640 @@ package co.edu.uniquindio.laos.services.implementation;
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
             LocalDateTime newFechaHora = LocalDateTime.parse(crearCitaDTO.fechaHora(), formatter);
 
-            // Verifica si el estilista ya tiene una cita en ese horario
-            if(citaRepo.existsByEstilistaIdAndFechaHora(crearCitaDTO.idEstilista(), newFechaHora)) {
+            // Estilista y servicio salen del catálogo en memoria; sus datos se copian en la cita
+            Servicio servicio = buscarServicio(crearCitaDTO.idServicio());
+            Estilista estilista = crearCitaDTO.idEstilista() == null
+                    ? null
+                    : catalogoService.obtenerEstilistasPorId(Set.of(crearCitaDTO.idEstilista())).get(crearCitaDTO.idEstilista());
+            int duracion = duracionDeServicio(servicio);
+            LocalDateTime newFechaHoraFin = newFechaHora.plusMinutes(duracion);
+
+            // Verifica si el estilista ya tiene una cita que se cruce con ese horario
+            if(ocupacionAgendaService.existeSolapamiento(crearCitaDTO.idEstilista(), newFechaHora, newFechaHoraFin, null)) {
                 throw new HorarioYEstilistaOcupadoException("El estilista ya tiene una cita programada en ese horario");
             }
 
+            // Reclama los bloques del estilista antes de guardar; si otra petición concurrente
+            // ya los tomó, la reserva falla aquí aunque la consulta anterior no viera conflicto
+            String citaId = new ObjectId().toHexString();
+            reservaHorarioService.reservar(crearCitaDTO.idEstilista(), newFechaHora, newFechaHoraFin, citaId);
+
             // Construye y guarda la nueva cita
             Cita cita = Cita.builder()
+                    .id(citaId)
                     .usuarioId(crearCitaDTO.idCliente())
                     .estilistaId(crearCitaDTO.idEstilista())
                     .servicioId(crearCitaDTO.idServicio())
+                    .estilistaNombre(estilista == null ? null : estilista.getNombre())
+                    .servicioNombre(servicio == null ? null : servicio.getNombre())
+                    .servicioDuracionMinutos(duracion)
+                    .servicioPrecio(servicio == null ? null : servicio.getPrecio())
                     .fechaHora(newFechaHora)
+                    .fechaHoraFin(newFechaHoraFin)
                     .estado(EstadoCita.CONFIRMADA)
                     .build();
+            EventosCitaUtils.registrarEvento(cita, TipoEventoCita.CREADA, Instant.now());
 
-            citaRepo.save(cita);
+            try {
+                citaRepo.save(cita);
+            } catch (RuntimeException e) {
+                reservaHorarioService.liberar(citaId);
+                throw e;
+            }
+            ocupacionAgendaService.registrar(cita.getEstilistaId(), citaId, newFechaHora, newFechaHoraFin);
+            agendaDiariaService.actualizarCita(cita);
             return cita.getId();
         }
 
         /**
-         * Cancela una cita existente cambiando su estado
+         * Aparta el horario de una cita durante unos minutos, sin crearla todavía.
+         * El apartado reclama los bloques del estilista como una cita, así que mientras esté
+         * vigente nadie más puede reservar ni apartar ese horario.
+         * @param crearCitaDTO Datos de la cita que se va a reservar
+         * @return Apartado con el horario y su vencimiento
+         * @throws Exception Si el estilista ya tiene una cita o un apartado en ese horario
+         */
+        @Override
+        public ApartadoHorarioDTO apartarHorario(CrearCitaDTO crearCitaDTO) throws Exception {
+            LocalDateTime inicio = LocalDateTime.parse(crearCitaDTO.fechaHora(), FORMATO_FECHA_HORA);
+            LocalDateTime fin = inicio.plusMinutes(obtenerDuracionServicio(crearCitaDTO.idServicio()));
+
+            if(ocupacionAgendaService.existeSolapamiento(crearCitaDTO.idEstilista(), inicio, fin, null)) {
+                throw new HorarioYEstilistaOcupadoException("El estilista ya tiene una cita programada en ese horario");
+            }
+
+            ApartadoHorario apartado = apartadoHorarioService.apartar(crearCitaDTO.idCliente(),
+                    crearCitaDTO.idEstilista(), crearCitaDTO.idServicio(), inicio, fin);
+            return new ApartadoHorarioDTO(
+                    apartado.getId(),
+                    apartado.getEstilistaId(),
+                    apartado.getFechaHora().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                    apartado.getFechaHoraFin().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                    apartado.getExpiraEn().toString());
+        }
+
+        /**
+         * Crea la cita de un apartado vigente. La cita toma el identificador del apartado y se
+         * queda con sus bloques, que dejan de vencer.
+         * @param apartadoId Identificador del apartado
+         * @return Identificador de la cita creada
+         * @throws Exception Si el apartado no existe, ya venció o ya se confirmó
+         */
+        @Override
+        public String confirmarApartado(String apartadoId) throws Exception {
+            ApartadoHorario apartado = apartadoHorarioService.confirmar(apartadoId);
+
+            Servicio servicio = buscarServicio(apartado.getServicioId());
+            Estilista estilista = catalogoService.obtenerEstilistasPorId(Set.of(apartado.getEstilistaId()))
+                    .get(apartado.getEstilistaId());
+            Cita cita = Cita.builder()
+                    .id(apartado.getId())
+                    .usuarioId(apartado.getUsuarioId())
+                    .estilistaId(apartado.getEstilistaId())
+                    .servicioId(apartado.getServicioId())
+                    .estilistaNombre(estilista == null ? null : estilista.getNombre())
+                    .servicioNombre(servicio == null ? null : servicio.getNombre())
+                    .servicioDuracionMinutos((int) ChronoUnit.MINUTES.between(apartado.getFechaHora(), apartado.getFechaHoraFin()))
+                    .servicioPrecio(servicio == null ? null : servicio.getPrecio())
+                    .fechaHora(apartado.getFechaHora())
+                    .fechaHoraFin(apartado.getFechaHoraFin())
+                    .estado(EstadoCita.CONFIRMADA)
+                    .build();
+            EventosCitaUtils.registrarEvento(cita, TipoEventoCita.CREADA, Instant.now());
+
+            try {
+                citaRepo.save(cita);
+            } catch (RuntimeException e) {
+                reservaHorarioService.liberar(cita.getId());
+                throw e;
+            }
+            ocupacionAgendaService.registrar(cita.getEstilistaId(), cita.getId(), cita.getFechaHora(), cita.getFechaHoraFin());
+            agendaDiariaService.actualizarCita(cita);
+            listaEsperaService.marcarAtendida(apartadoId);
+            return cita.getId();
+        }
+
+        /**
+         * Libera un apartado que el cliente abandonó, sin esperar a que venza
+         * @param apartadoId Identificador del apartado
+         */
+        @Override
+        public void liberarApartado(String apartadoId) {
+            apartadoHorarioService.liberar(apartadoId);
+        }
+
+        /**
+         * Crea varias citas del mismo cliente, estilista y servicio en una sola operación.
+         *
+         * Los conflictos de toda la serie se revisan de una vez contra la ocupación en memoria,
+         * los bloques de agenda se reclaman con una sola escritura masiva y las citas se insertan
+         * juntas, así que una serie larga cuesta casi lo mismo que una cita. Las fechas que no se
+         * pueden reservar no detienen a las demás; se devuelven con su motivo.
+         * @param crearCitasLoteDTO Fechas sueltas y/o recurrencia de las citas
+         * @return Citas creadas y fechas que fallaron
+         * @throws Exception Si la solicitud no define fechas válidas o supera el máximo permitido
+         */
+        @Override
+        public ResultadoCitasLoteDTO crearCitasLote(CrearCitasLoteDTO crearCitasLoteDTO) throws Exception {
+            if (crearCitasLoteDTO.idEstilista() == null) {
+                throw new SerieCitasInvalidaException("Debe indicar el estilista de las citas");
+            }
+            List<String> ocurrencias = expandirOcurrencias(crearCitasLoteDTO);
+
+            Servicio servicio = buscarServicio(crearCitasLoteDTO.idServicio());
+            Estilista estilista = catalogoService.obtenerEstilistasPorId(Set.of(crearCitasLoteDTO.idEstilista()))
+                    .get(crearCitasLoteDTO.idEstilista());
+            int duracion = duracionDeServicio(servicio);
+
+            // Una cita candidata por fecha válida; el motivo queda en la posición de cada fecha que falla
+            String[] motivos = new String[ocurrencias.size()];
+            List<Cita> candidatas = new ArrayList<>();
+            List<Integer> posiciones = new ArrayList<>();
+            for (int i = 0; i < ocurrencias.size(); i++) {
+                LocalDateTime inicio = null;
+                if (ocurrencias.get(i) != null) {
+                    try {
+                        inicio = LocalDateTime.parse(ocurrencias.get(i), FORMATO_FECHA_HORA);
+                    } catch (DateTimeParseException e) {
+                        // Se reporta abajo como fecha inválida
+                    }
+                }
+                if (inicio == null) {
+                    motivos[i] = "La fecha debe tener el formato yyyy-MM-dd HH:mm";
+                    continue;
+                }
+                candidatas.add(Cita.builder()
+                        .id(new ObjectId().toHexString())
+                        .usuarioId(crearCitasLoteDTO.idCliente())
+                        .estilistaId(crearCitasLoteDTO.idEstilista())
+                        .servicioId(crearCitasLoteDTO.idServicio())
+                        .estilistaNombre(estilista == null ? null : estilista.getNombre())
+                        .servicioNombre(servicio == null ? null : servicio.getNombre())
+                        .servicioDuracionMinutos(duracion)
+                        .servicioPrecio(servicio == null ? null : servicio.getPrecio())
+                        .fechaHora(inicio)
+                        .fechaHoraFin(inicio.plusMinutes(duracion))
+                        .estado(EstadoCita.CONFIRMADA)
+                        .build());
+                posiciones.add(i);
+            }
+
+            // Una sola revisión de conflictos para todas las fechas de la serie
+            Set<Integer> ocupadas = ocupacionAgendaService.buscarSolapamientos(crearCitasLoteDTO.idEstilista(),
+                    candidatas.stream().map(cita -> new Intervalo(cita.getFechaHora(), cita.getFechaHoraFin())).toList());
+
+            Map<String, Intervalo> intervalosPorCita = new LinkedHashMap<>();
+            for (int i = 0; i < candidatas.size(); i++) {
+                Cita cita = candidatas.get(i);
+                if (ocupadas.contains(i)) {
+                    motivos[posiciones.get(i)] = "El estilista ya tiene una cita programada en ese horario";
+                } else {
+                    intervalosPorCita.put(cita.getId(), new Intervalo(cita.getFechaHora(), cita.getFechaHoraFin()));
+                }
+            }
+
+            // Reclama los bloques de todas las citas libres con una sola escritura; las que se
+            // cruzan con otra petición concurrente o con otra fecha de la misma serie se descartan
+            Set<String> sinReserva = intervalosPorCita.isEmpty()
+                    ? Set.of()
+                    : reservaHorarioService.reservarLote(crearCitasLoteDTO.idEstilista(), intervalosPorCita);
+
+            List<Cita> aGuardar = new ArrayList<>();
+            for (int i = 0; i < candidatas.size(); i++) {
+                Cita cita = candidatas.get(i);
+                if (!intervalosPorCita.containsKey(cita.getId())) {
+                    continue;
+                }
+                if (sinReserva.contains(cita.getId())) {
+                    motivos[posiciones.get(i)] = "El estilista ya tiene una cita programada en ese horario";
+                } else {
+                    aGuardar.add(cita);
+                }
+            }
+
+            if (!aGuardar.isEmpty()) {
+                Instant creadas = Instant.now();
+                aGuardar.forEach(cita -> EventosCitaUtils.registrarEvento(cita, TipoEventoCita.CREADA, creadas));
+                try {
+                    citaRepo.insert(aGuardar);
+                } catch (RuntimeException e) {
+                    reservaHorarioService.liberarLote(aGuardar.stream().map(Cita::getId).toList());
+                    throw e;
+                }
+                for (Cita cita : aGuardar) {
+                    ocupacionAgendaService.registrar(cita.getEstilistaId(), cita.getId(), cita.getFechaHora(), cita.getFechaHoraFin());
+                    agendaDiariaService.actualizarCita(cita);
+                }
+            }
+
+            List<OcurrenciaFallidaDTO> fallidas = new ArrayList<>();
+            for (int i = 0; i < motivos.length; i++) {
+                if (motivos[i] != null) {
+                    fallidas.add(new OcurrenciaFallidaDTO(ocurrencias.get(i), motivos[i]));
+                }
+            }
+            return new ResultadoCitasLoteDTO(aGuardar.stream().map(Cita::getId).toList(), fallidas);
+        }
+
+        /**
+         * Reúne las fechas de una solicitud de lote: las fechas sueltas seguidas de las de la
+         * serie recurrente, si se indicó
+         * @param crearCitasLoteDTO Solicitud de lote
+         * @return Fechas en formato yyyy-MM-dd HH:mm, sin validar
+         * @throws SerieCitasInvalidaException Si la recurrencia está incompleta, no hay fechas o son demasiadas
+         */
+        private List<String> expandirOcurrencias(CrearCitasLoteDTO crearCitasLoteDTO) throws SerieCitasInvalidaException {
+            List<String> ocurrencias = new ArrayList<>();
+            if (crearCitasLoteDTO.fechasHoras() != null) {
+                ocurrencias.addAll(crearCitasLoteDTO.fechasHoras());
+            }
+
+            if (crearCitasLoteDTO.fechaHoraInicio() != null) {
+                Integer cadaDias = crearCitasLoteDTO.cadaDias();
+                Integer repeticiones = crearCitasLoteDTO.repeticiones();
+                if (cadaDias == null || cadaDias < 1 || repeticiones == null || repeticiones < 1) {
+                    throw new SerieCitasInvalidaException("La recurrencia necesita cadaDias y repeticiones mayores que cero");
+                }
+                if (ocurrencias.size() + repeticiones > maxCitasLote) {
+                    throw new SerieCitasInvalidaException("No se pueden crear más de " + maxCitasLote + " citas por petición");
+                }
+                LocalDateTime inicio;
+                try {
+                    inicio = LocalDateTime.parse(crearCitasLoteDTO.fechaHoraInicio(), FORMATO_FECHA_HORA);
+                } catch (DateTimeParseException e) {
+                    throw new SerieCitasInvalidaException("La fecha de inicio debe tener el formato yyyy-MM-dd HH:mm");
+                }
+                for (int i = 0; i < repeticiones; i++) {
+                    ocurrencias.add(FORMATO_FECHA_HORA.format(inicio.plusDays((long) i * cadaDias)));
+                }
+            }
+
+            if (ocurrencias.isEmpty()) {
+                throw new SerieCitasInvalidaException("Debe indicar al menos una fecha o una recurrencia");
+            }
+            if (ocurrencias.size() > maxCitasLote) {
+                throw new SerieCitasInvalidaException("No se pueden crear más de " + maxCitasLote + " citas por petición");
+            }
+            return ocurrencias;
+        }
+
+        /**
+         * Cancela una cita existente cambiando su estado.
+         * El estado se cambia con una actualización parcial y atómica; la cita que devuelve es la
+         * anterior al cambio, de la que se toma el horario a liberar y a ofrecer a la lista de espera.
          * @param idCita Identificador único de la cita a cancelar
          * @return Identificador de la cita cancelada
          * @throws Exception Si la cita no existe
          */
         @Override
         public String cancelarCita(String idCita) throws Exception {
-            Optional<Cita> optionalCita = citaRepo.findById(idCita);
+            Optional<Cita> optionalCita = citaRepo.cancelar(idCita, Instant.now());
 
             if (optionalCita.isEmpty()) {
                 throw new RecursoNoEncontradoException("No existe una cita con el id: " + idCita);
             }
 
             Cita cita = optionalCita.get();
-            cita.setEstado(EstadoCita.CANCELADA);
-            citaRepo.save(cita);
+            reservaHorarioService.liberar(idCita);
+            ocupacionAgendaService.eliminar(cita.getEstilistaId(), idCita, cita.getFechaHora(), calcularFechaHoraFin(cita));
+            agendaDiariaService.quitarCita(cita.getEstilistaId(), idCita);
+
+            // Un horario futuro que estaba reservado se ofrece al primero de la lista de espera
+            if (cita.getEstado() == EstadoCita.CONFIRMADA || cita.getEstado() == EstadoCita.REPROGRAMADA) {
+                listaEsperaService.ofrecerHorario(cita.getEstilistaId(), cita.getServicioId(),
+                        cita.getFechaHora(), calcularFechaHoraFin(cita));
+            }
 
             return idCita;
         }
 
         /**
-         * Cambia la fecha y hora de una cita existente
+         * Cambia la fecha y hora de una cita existente.
+         * La cita se guarda con su versión: si otra operación la modificó después de leerla,
+         * se vuelve a leer y se repite la reprogramación un número acotado de veces. Si no se
+         * logra, los bloques reclamados se ajustan al estado con el que quedó la cita.
          * @param reprogramarCitaDTO Datos para la reprogramación con el nuevo horario
          * @return Identificador de la cita reprogramada
-         * @throws Exception Si la cita no existe o el horario no está disponible
+         * @throws Exception Si la cita no existe, ya fue cancelada o completada, el horario no está
+         * disponible o la cita siguió cambiando en todos los intentos
          */
         @Override
         public String reprogramarCita(ReprogramarCitaDTO reprogramarCitaDTO) throws Exception {
-            Optional<Cita> optionalCita = citaRepo.findById(reprogramarCitaDTO.citaId());
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+            LocalDateTime newFechaHora = LocalDateTime.parse(reprogramarCitaDTO.nuevaFechaHora(), FORMATO_FECHA_HORA);
+            try {
+                return ReintentoUtils.conReintentos(() -> intentarReprogramacion(reprogramarCitaDTO.citaId(), newFechaHora));
+            } catch (ConflictoConcurrenciaException e) {
+                realinearReservas(reprogramarCitaDTO.citaId());
+                throw e;
+            }
+        }
+
+        /**
+         * Un intento de reprogramación: lee la cita, reclama el nuevo horario y la guarda
+         * @param citaId Identificador de la cita
+         * @param newFechaHora Nuevo inicio de la cita
+         * @return Identificador de la cita reprogramada
+         * @throws Exception Si la cita no existe, no está activa o el horario no está disponible
+         */
+        private String intentarReprogramacion(String citaId, LocalDateTime newFechaHora) throws Exception {
+            Optional<Cita> optionalCita = citaRepo.findById(citaId);
 
             if (optionalCita.isEmpty()) {
-                throw new RecursoNoEncontradoException("No existe una cita con el id: " + reprogramarCitaDTO.citaId());
+                throw new RecursoNoEncontradoException("No existe una cita con el id: " + citaId);
             }
 
-            LocalDateTime newFechaHora = LocalDateTime.parse(reprogramarCitaDTO.nuevaFechaHora(), formatter);
+            Cita cita = optionalCita.get();
+            // Una cancelación concurrente no debe quedar deshecha al repetir la reprogramación
+            if (cita.getEstado() == EstadoCita.CANCELADA || cita.getEstado() == EstadoCita.COMPLETADA) {
+                throw new ConflictoConcurrenciaException("La cita ya fue cancelada o completada");
+            }
+            LocalDateTime newFechaHoraFin = newFechaHora.plusMinutes(obtenerDuracionCita(cita));
 
-            // Verifica disponibilidad del estilista en el nuevo horario
-            if(citaRepo.existsByEstilistaIdAndFechaHora(optionalCita.get().getEstilistaId(), newFechaHora)) {
+            // Verifica disponibilidad del estilista en el nuevo horario, sin contar la propia cita
+            if(ocupacionAgendaService.existeSolapamiento(cita.getEstilistaId(), newFechaHora, newFechaHoraFin, cita.getId())) {
                 throw new HorarioYEstilistaOcupadoException("El estilista ya tiene una cita programada en ese horario");
             }
+            reservaHorarioService.reprogramar(cita.getEstilistaId(), newFechaHora, newFechaHoraFin, cita.getId());
+
+            LocalDateTime fechaHoraAnterior = cita.getFechaHora();
+            LocalDateTime fechaHoraFinAnterior = calcularFechaHoraFin(cita);
 
             // Actualiza la cita con la nueva fecha y estado
-            Cita cita = optionalCita.get();
             cita.setFechaHora(newFechaHora);
+            cita.setFechaHoraFin(newFechaHoraFin);
             cita.setEstado(EstadoCita.REPROGRAMADA);
+            EventosCitaUtils.registrarEvento(cita, TipoEventoCita.REPROGRAMADA, Instant.now());
             citaRepo.save(cita);
 
-            return reprogramarCitaDTO.citaId();
+            ocupacionAgendaService.eliminar(cita.getEstilistaId(), cita.getId(), fechaHoraAnterior, fechaHoraFinAnterior);
+            ocupacionAgendaService.registrar(cita.getEstilistaId(), cita.getId(), newFechaHora, newFechaHoraFin);
+            agendaDiariaService.actualizarCita(cita);
+
+            return citaId;
+        }
+
+        /**
+         * Deja los bloques reclamados por una cita de acuerdo con su estado guardado, después de una
+         * reprogramación que alcanzó a reclamar un horario pero no pudo guardar la cita
+         * @param citaId Identificador de la cita
+         * @throws Exception Si el horario guardado de la cita ya está reclamado por otra
+         */
+        private void realinearReservas(String citaId) throws Exception {
+            Optional<Cita> optionalCita = citaRepo.findById(citaId);
+            if (optionalCita.isEmpty() || optionalCita.get().getEstado() == EstadoCita.CANCELADA
+                    || optionalCita.get().getEstado() == EstadoCita.COMPLETADA) {
+                reservaHorarioService.liberar(citaId);
+                return;
+            }
+            Cita cita = optionalCita.get();
+            reservaHorarioService.reprogramar(cita.getEstilistaId(), cita.getFechaHora(), calcularFechaHoraFin(cita), citaId);
+        }
+
+        /**
+         * Reasigna o cancela en bloque las citas de un estilista que no estará disponible.
+         *
+         * Una sola consulta trae las citas de los días afectados del estilista ausente y de todos
+         * los posibles reemplazos; los huecos libres se buscan en memoria, repartiendo las citas
+         * entre los estilistas que atienden el servicio y están libres a esa hora. Los bloques
+         * del nuevo estilista se reclaman antes de escribir y los del ausente se liberan después.
+         * Los cambios se escriben con un solo bulk write que exige la versión y el horario leídos;
+         * solo las citas que el bulk write alcanzó a cambiar liberan al ausente, actualizan la agenda
+         * en memoria y se avisan al cliente, en segundo plano. Las que cambiaron entre la lectura y
+         * la escritura devuelven los bloques que se habían reclamado con el nuevo estilista.
+         * @param reasignarCitasDTO Estilista, rango afectado y si solo se quiere cancelar
+         * @return Citas reasignadas, citas canceladas y cambios descartados por modificaciones concurrentes
+         * @throws Exception Si el rango no es válido o el estilista no existe
+         */
+        @Override
+        public ResultadoReasignacionDTO reasignarCitasEstilista(ReasignarCitasDTO reasignarCitasDTO) throws Exception {
+            if (reasignarCitasDTO.desde() == null || reasignarCitasDTO.hasta() == null) {
+                throw new RangoFechasInvalidoException("Debe indicar el inicio y el fin del rango afectado");
+            }
+            LocalDateTime desde;
+            LocalDateTime hasta;
+            try {
+                desde = LocalDateTime.parse(reasignarCitasDTO.desde(), FORMATO_FECHA_HORA);
+                hasta = LocalDateTime.parse(reasignarCitasDTO.hasta(), FORMATO_FECHA_HORA);
+            } catch (DateTimeParseException e) {
+                throw new RangoFechasInvalidoException("Las fechas deben tener el formato yyyy-MM-dd HH:mm");
+            }
+            if (!hasta.isAfter(desde)) {
+                throw new RangoFechasInvalidoException("La fecha final debe ser posterior a la inicial");
+            }
+            if (ChronoUnit.DAYS.between(desde.toLocalDate(), hasta.toLocalDate()) >= maxDiasConsulta) {
+                throw new RangoFechasInvalidoException("El rango no puede superar " + maxDiasConsulta + " días");
+            }
+
+            String ausenteId = reasignarCitasDTO.estilistaId();
+            Estilista ausente = ausenteId == null ? null : catalogoService.obtenerEstilistasPorId(Set.of(ausenteId)).get(ausenteId);
+            if (ausente == null) {
+                throw new RecursoNoEncontradoException("No existe un estilista con el id: " + ausenteId);
+            }
+
+            List<Estilista> reemplazos = reasignarCitasDTO.soloCancelar()
+                    ? List.of()
+                    : catalogoService.obtenerEstilistas().stream()
+                            .filter(estilista -> !ausenteId.equals(estilista.getId()))
+                            .toList();
+
+            // Una sola consulta para los días afectados de todos los estilistas involucrados
+            Set<String> idsEstilistas = new HashSet<>();
+            idsEstilistas.add(ausenteId);
+            reemplazos.forEach(estilista -> idsEstilistas.add(estilista.getId()));
+            List<Cita> citasDeLosDias = citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(idsEstilistas,
+                    desde.toLocalDate().atStartOfDay().minusMinutes(obtenerDuracionMaxima()),
+                    hasta.toLocalDate().plusDays(1).atStartOfDay());
+
+            Map<String, List<Intervalo>> ocupados = new HashMap<>();
+            reemplazos.forEach(estilista -> ocupados.put(estilista.getId(), new ArrayList<>()));
+            List<Cita> afectadas = new ArrayList<>();
+            Map<String, Intervalo> intervalos = new HashMap<>();
+            for (Cita cita : citasDeLosDias) {
+                Intervalo intervalo = new Intervalo(cita.getFechaHora(), calcularFechaHoraFin(cita));
+                if (!ausenteId.equals(cita.getEstilistaId())) {
+                    ocupados.get(cita.getEstilistaId()).add(intervalo);
+                } else if (!cita.getFechaHora().isBefore(desde) && cita.getFechaHora().isBefore(hasta)
+                        && (cita.getEstado() == EstadoCita.CONFIRMADA || cita.getEstado() == EstadoCita.REPROGRAMADA)) {
+                    afectadas.add(cita);
+                    intervalos.put(cita.getId(), intervalo);
+                }
+            }
+            afectadas.sort(ORDEN_FECHA_ID);
+
+            // Asigna cada cita al estilista libre que atiende el servicio y tiene menos citas
+            List<Cita> reasignadas = new ArrayList<>();
+            List<Cita> canceladas = new ArrayList<>();
+            for (Cita cita : afectadas) {
+                Intervalo intervalo = intervalos.get(cita.getId());
+                Estilista reemplazo = reemplazos.stream()
+                        .filter(estilista -> atiendeServicio(estilista, cita.getServicioId()))
+                        .filter(estilista -> estaLibre(ocupados.get(estilista.getId()), intervalo))
+                        .min(Comparator.comparingInt(estilista -> ocupados.get(estilista.getId()).size()))
+                        .orElse(null);
+                if (reemplazo == null) {
+                    cita.setEstado(EstadoCita.CANCELADA);
+                    canceladas.add(cita);
+                } else {
+                    ocupados.get(reemplazo.getId()).add(intervalo);
+                    cita.setEstilistaId(reemplazo.getId());
+                    cita.setEstilistaNombre(reemplazo.getNombre());
+                    reasignadas.add(cita);
+                }
+            }
+
+            // Reclama los bloques de cada nuevo estilista; si otra reserva ganó el horario, la cita se cancela
+            Map<String, Map<String, Intervalo>> reservasPorEstilista = new HashMap<>();
+            for (Cita cita : reasignadas) {
+                reservasPorEstilista.computeIfAbsent(cita.getEstilistaId(), id -> new LinkedHashMap<>())
+                        .put(cita.getId(), intervalos.get(cita.getId()));
+            }
+            Set<String> sinReserva = new HashSet<>();
+            for (Map.Entry<String, Map<String, Intervalo>> entrada : reservasPorEstilista.entrySet()) {
+                sinReserva.addAll(reservaHorarioService.reservarLote(entrada.getKey(), entrada.getValue()));
+            }
+            if (!sinReserva.isEmpty()) {
+                for (Cita cita : reasignadas) {
+                    if (sinReserva.contains(cita.getId())) {
+                        cita.setEstilistaId(ausenteId);
+                        cita.setEstilistaNombre(ausente.getNombre());
+                        cita.setEstado(EstadoCita.CANCELADA);
+                        canceladas.add(cita);
+                    }
+                }
+                reasignadas.removeIf(cita -> sinReserva.contains(cita.getId()));
+            }
+
+            Set<String> aplicadas;
+            try {
+                aplicadas = citaRepo.aplicarCambiosDeEstilista(ausenteId, afectadas, Instant.now());
+            } catch (RuntimeException e) {
+                reservasPorEstilista.forEach((estilistaId, reservas) ->
+                        reservaHorarioService.liberarLote(estilistaId, reservas.keySet()));
+                throw e;
+            }
+            // Las citas que cambiaron entre la lectura y la escritura siguen con el ausente
+            reservasPorEstilista.forEach((estilistaId, reservas) -> reservaHorarioService.liberarLote(estilistaId,
+                    reservas.keySet().stream().filter(id -> !aplicadas.contains(id)).toList()));
+            afectadas.removeIf(cita -> !aplicadas.contains(cita.getId()));
+            reasignadas.removeIf(cita -> !aplicadas.contains(cita.getId()));
+            canceladas.removeIf(cita -> !aplicadas.contains(cita.getId()));
+            reservaHorarioService.liberarLote(ausenteId, aplicadas);
+
+            for (Cita cita : afectadas) {
+                Intervalo intervalo = intervalos.get(cita.getId());
+                ocupacionAgendaService.eliminar(ausenteId, cita.getId(), intervalo.inicio(), intervalo.fin());
+                agendaDiariaService.quitarCita(ausenteId, cita.getId());
+            }
+            for (Cita cita : reasignadas) {
+                Intervalo intervalo = intervalos.get(cita.getId());
+                ocupacionAgendaService.registrar(cita.getEstilistaId(), cita.getId(), intervalo.inicio(), intervalo.fin());
+                agendaDiariaService.actualizarCita(cita);
+            }
+
+            if (!afectadas.isEmpty()) {
+                notificacionCitasService.notificarCambiosDeEstilista(reasignadas, canceladas);
+            }
+
+            return new ResultadoReasignacionDTO(
+                    reasignadas.stream()
+                            .map(cita -> new CitaReasignadaDTO(cita.getId(), cita.getFechaHora(),
+                                    cita.getEstilistaId(), cita.getEstilistaNombre()))
+                            .toList(),
+                    canceladas.stream().map(Cita::getId).toList(),
+                    intervalos.size() - aplicadas.size());
+        }
+
+        /**
+         * Indica si un intervalo no se cruza con ninguno de los ocupados
+         * @param ocupados Intervalos ocupados del estilista
+         * @param intervalo Intervalo a revisar
+         * @return true si el estilista está libre en todo el intervalo
+         */
+        private boolean estaLibre(List<Intervalo> ocupados, Intervalo intervalo) {
+            return ocupados.stream().noneMatch(ocupado ->
+                    ocupado.inicio().isBefore(intervalo.fin()) && intervalo.inicio().isBefore(ocupado.fin()));
+        }
+
+        /**
+         * Indica si un estilista atiende un servicio; sin lista de servicios atiende todos
+         * @param estilista Estilista a revisar
+         * @param servicioId Identificador del servicio
+         * @return true si el estilista puede atender el servicio
+         */
+        private boolean atiendeServicio(Estilista estilista, String servicioId) {
+            return estilista.getServiciosIds() == null
+                    || estilista.getServiciosIds().isEmpty()
+                    || estilista.getServiciosIds().contains(servicioId);
+        }
+
+        /**
+         * Duración del servicio más largo del catálogo; las citas que empezaron antes de un día
+         * pueden seguir en curso hasta ese tiempo después
+         * @return Duración máxima en minutos
+         */
+        private int obtenerDuracionMaxima() {
+            return catalogoService.obtenerServicios().stream()
+                    .mapToInt(this::duracionDeServicio)
+                    .max()
+                    .orElse(DURACION_POR_DEFECTO_MINUTOS);
+        }
+
+        /**
+         * Calcula la hora de finalización de una cita. Las citas anteriores a que se guardara
+         * fechaHoraFin la derivan de la duración de su servicio.
+         * @param cita Cita de la que se quiere conocer el fin
+         * @return Fecha y hora de finalización de la cita
+         */
+        private LocalDateTime calcularFechaHoraFin(Cita cita) {
+            if (cita.getFechaHoraFin() != null) {
+                return cita.getFechaHoraFin();
+            }
+            return cita.getFechaHora().plusMinutes(obtenerDuracionCita(cita));
+        }
+
+        /**
+         * Obtiene la duración de una cita: la copiada al reservar o, en citas antiguas, la actual del servicio
+         * @param cita Cita de la que se quiere conocer la duración
+         * @return Duración en minutos
+         */
+        private int obtenerDuracionCita(Cita cita) {
+            if (cita.getServicioDuracionMinutos() != null && cita.getServicioDuracionMinutos() > 0) {
+                return cita.getServicioDuracionMinutos();
+            }
+            return obtenerDuracionServicio(cita.getServicioId());
+        }
+
+        /**
+         * Obtiene la duración en minutos de un servicio desde el catálogo en memoria
+         * @param servicioId Identificador del servicio
+         * @return Duración del servicio, o la duración por defecto si no existe o no la tiene definida
+         */
+        private int obtenerDuracionServicio(String servicioId) {
+            return duracionDeServicio(buscarServicio(servicioId));
+        }
+
+        /**
+         * Busca un servicio en el catálogo en memoria
+         * @param servicioId Identificador del servicio, puede ser null
+         * @return Servicio, o null si no existe
+         */
+        private Servicio buscarServicio(String servicioId) {
+            if (servicioId == null) {
+                return null;
+            }
+            return catalogoService.obtenerServiciosPorId(Set.of(servicioId)).get(servicioId);
+        }
+
+        /**
+         * Duración de un servicio, o la duración por defecto si no existe o no la tiene definida
+         * @param servicio Servicio, puede ser null
+         * @return Duración en minutos
+         */
+        private int duracionDeServicio(Servicio servicio) {
+            if (servicio == null || servicio.getDuracionMinutos() <= 0) {
+                return DURACION_POR_DEFECTO_MINUTOS;
+            }
+            return servicio.getDuracionMinutos();
         }
 
         /**
@@ -141,36 +840,34 @@ package co.edu.uniquindio.laos.services.implementation;
         public List<InformacionCitaDTO> obtenerCitasPorClienteId(String clienteId) {
             List<String> estadosPermitidos = Arrays.asList("CONFIRMADA", "REPROGRAMADA");
             List<Cita> citas = citaRepo.findByUsuarioIdAndEstadoIn(clienteId, estadosPermitidos);
-            return citas.stream()
-                    .map(this::convertirCitaADTO)
-                    .collect(Collectors.toList());
+            return convertirCitasADTO(citas);
         }
 
         /**
-         * Recupera las citas canceladas y completadas de un cliente específico
+         * Recupera las citas canceladas y completadas de un cliente específico, incluidas las archivadas
          * @param clienteId Identificador único del cliente
          * @return Lista de citas canceladas o completadas del cliente
          */
         @Override
         public List<InformacionCitaDTO> obtenerCitasCanceladasYCompletadasPorClienteId(String clienteId) {
             List<String> estados = Arrays.asList("CANCELADA", "COMPLETADA");
-            List<Cita> citas = citaRepo.findByUsuarioIdAndEstadoIn(clienteId, estados);
-            return citas.stream()
-                    .map(this::convertirCitaADTO)
-                    .collect(Collectors.toList());
+            List<Cita> citas = unirConArchivo(
+                    citaRepo.findByUsuarioIdAndEstadoIn(clienteId, estados),
+                    citaRepo.buscarArchivadasPorUsuario(clienteId, List.of(EstadoCita.CANCELADA, EstadoCita.COMPLETADA)));
+            return convertirCitasADTO(citas);
         }
 
         /**
-         * Recupera todas las citas asignadas a un estilista específico
+         * Recupera todas las citas asignadas a un estilista específico, incluidas las archivadas
          * @param estilistaId Identificador único del estilista
          * @return Lista de citas del estilista
          */
         @Override
         public List<InformacionCitaDTO> obtenerCitasPorEstilistaId(String estilistaId) {
-            List<Cita> citas = citaRepo.findByEstilistaId(estilistaId);
-            return citas.stream()
-                    .map(this::convertirCitaADTO)
-                    .collect(Collectors.toList());
+            List<Cita> citas = unirConArchivo(
+                    citaRepo.findByEstilistaId(estilistaId),
+                    citaRepo.buscarArchivadasPorEstilista(estilistaId));
+            return convertirCitasADTO(citas);
         }
 
         /**
@@ -181,7 +878,8 @@ package co.edu.uniquindio.laos.services.implementation;
          */
         @Override
         public InformacionCitaDTO obtenerCitaPorId(String citaId) throws Exception {
-            Optional<Cita> optionalCita = citaRepo.findById(citaId);
+            Optional<Cita> optionalCita = citaRepo.findById(citaId)
+                    .or(() -> citaRepo.buscarArchivadaPorId(citaId));
 
             if (optionalCita.isEmpty()) {
                 throw new RecursoNoEncontradoException("No existe una cita con el id: " + citaId);
@@ -200,66 +898,420 @@ package co.edu.uniquindio.laos.services.implementation;
             try {
                 EstadoCita estadoCita = EstadoCita.valueOf(estado.toUpperCase());
                 List<Cita> citas = citaRepo.findByEstado(estadoCita);
-                return citas.stream()
-                        .map(this::convertirCitaADTO)
-                        .collect(Collectors.toList());
+                if (puedeEstarArchivada(estadoCita)) {
+                    citas = unirConArchivo(citas, citaRepo.buscarArchivadasPorEstado(estadoCita));
+                }
+                return convertirCitasADTO(citas);
             } catch (IllegalArgumentException e) {
                 return List.of();
             }
         }
 
+        /**
+         * Lista citas por páginas usando paginación por cursor sobre (fechaHora, _id).
+         *
+         * Cada página pide una cita más de las solicitadas para saber si hay una siguiente;
+         * el cursor codifica la fecha y el id de la última cita devuelta, así que la siguiente
+         * página retoma desde ahí sin recorrer las anteriores.
+         *
+         * @param filtro Filtros opcionales (estado, estilista, cliente, rango de días), cursor y tamaño
+         * @return Página de citas y cursor de la siguiente, o null si es la última
+         * @throws Exception Si el rango de fechas o el cursor no son válidos
+         */
+        @Override
+        public PaginaCitasDTO listarCitas(FiltroCitasDTO filtro) throws Exception {
+            EstadoCita estado = null;
+            if (!estaVacio(filtro.estado()) && !"TODAS".equalsIgnoreCase(filtro.estado())) {
+                try {
+                    estado = EstadoCita.valueOf(filtro.estado().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return new PaginaCitasDTO(List.of(), null);
+                }
+            }
+
+            LocalDateTime desde;
+            LocalDateTime hasta;
+            try {
+                desde = estaVacio(filtro.desde()) ? null : LocalDate.parse(filtro.desde()).atStartOfDay();
+                hasta = estaVacio(filtro.hasta()) ? null : LocalDate.parse(filtro.hasta()).plusDays(1).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                throw new RangoFechasInvalidoException("Las fechas deben tener el formato yyyy-MM-dd");
+            }
+            if (desde != null && hasta != null && !hasta.isAfter(desde)) {
+                throw new RangoFechasInvalidoException("La fecha final no puede ser anterior a la inicial");
+            }
+
+            LocalDateTime cursorFechaHora = null;
+            String cursorId = null;
+            if (!estaVacio(filtro.cursor())) {
+                String[] cursor = decodificarCursor(filtro.cursor());
+                cursorFechaHora = LocalDateTime.parse(cursor[0]);
+                cursorId = cursor[1];
+            }
+
+            int tamanio = filtro.tamanio() == null
+                    ? TAMANIO_PAGINA_POR_DEFECTO
+                    : Math.max(1, Math.min(filtro.tamanio(), TAMANIO_PAGINA_MAXIMO));
+
+            List<Cita> citas = citaRepo.buscarPagina(
+                    estado,
+                    estaVacio(filtro.estilistaId()) ? null : filtro.estilistaId(),
+                    estaVacio(filtro.clienteId()) ? null : filtro.clienteId(),
+                    desde,
+                    hasta,
+                    cursorFechaHora,
+                    cursorId,
+                    tamanio + 1);
+            if (puedeEstarArchivada(estado)) {
+                // Ambas páginas vienen en el mismo orden: se mezclan y se conservan las primeras
+                List<Cita> archivadas = citaRepo.buscarPaginaArchivo(
+                        estado,
+                        estaVacio(filtro.estilistaId()) ? null : filtro.estilistaId(),
+                        estaVacio(filtro.clienteId()) ? null : filtro.clienteId(),
+                        desde,
+                        hasta,
+                        cursorFechaHora,
+                        cursorId,
+                        tamanio + 1);
+                citas = unirConArchivo(citas, archivadas);
+                if (citas.size() > tamanio + 1) {
+                    citas = citas.subList(0, tamanio + 1);
+                }
+            }
+
+            boolean hayMas = citas.size() > tamanio;
+            List<Cita> pagina = hayMas ? citas.subList(0, tamanio) : citas;
+            String siguienteCursor = hayMas ? codificarCursor(pagina.get(pagina.size() - 1)) : null;
+
+            return new PaginaCitasDTO(convertirCitasADTO(pagina), siguienteCursor);
+        }
+
+        /**
+         * Indica si las citas de un estado pueden estar en el archivo
+         * @param estado Estado filtrado, null si se consultan todos
+         * @return true para canceladas, completadas o cualquier estado
+         */
+        private boolean puedeEstarArchivada(EstadoCita estado) {
+            return estado == null || estado == EstadoCita.CANCELADA || estado == EstadoCita.COMPLETADA;
+        }
+
+        /**
+         * Une citas de la colección activa con citas del archivo. Si una cita aparece en ambas
+         * (un archivado a medio terminar) prevalece la activa. El resultado queda ordenado por
+         * (fechaHora, id), el mismo orden de la paginación.
+         * @param activas Citas leídas de citas
+         * @param archivadas Citas leídas de citas_archivo
+         * @return Citas sin repetir
+         */
+        private List<Cita> unirConArchivo(List<Cita> activas, List<Cita> archivadas) {
+            if (archivadas.isEmpty()) {
+                return activas;
+            }
+            Map<String, Cita> porId = new HashMap<>();
+            archivadas.forEach(cita -> porId.put(cita.getId(), cita));
+            activas.forEach(cita -> porId.put(cita.getId(), cita));
+            return porId.values().stream()
+                    .sorted(ORDEN_FECHA_ID)
+                    .toList();
+        }
+
+        /**
+         * Codifica la posición de una cita en el orden (fechaHora, _id) como cursor opaco
+         * @param cita Última cita de la página
+         * @return Cursor en Base64 apto para URL
+         */
+        private String codificarCursor(Cita cita) {
+            String posicion = cita.getFechaHora() + "|" + cita.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(posicion.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decodifica un cursor generado por codificarCursor
+         * @param cursor Cursor recibido del cliente
+         * @return Fecha y hora en formato ISO y el id de la cita
+         * @throws CursorInvalidoException Si el cursor no fue generado por este servicio
+         */
+        private String[] decodificarCursor(String cursor) throws CursorInvalidoException {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                if (partes.length != 2 || partes[1].isBlank()) {
+                    throw new CursorInvalidoException("El cursor de paginación no es válido");
+                }
+                LocalDateTime.parse(partes[0]);
+                return partes;
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new CursorInvalidoException("El cursor de paginación no es válido");
+            }
+        }
+
+        private boolean estaVacio(String valor) {
+            return valor == null || valor.isBlank();
+        }
+
         /**
          * Convierte una entidad Cita en un objeto DTO para su transferencia
          * @param cita Entidad de cita a convertir
          * @return Objeto DTO con la información relevante de la cita
          */
         private InformacionCitaDTO convertirCitaADTO(Cita cita) {
+            return convertirCitasADTO(List.of(cita)).get(0);
+        }
+
+        /**
+         * Convierte un conjunto de citas en DTOs.
+         *
+         * Los nombres de estilista y servicio vienen copiados en la propia cita, así que en
+         * general no hace falta ninguna consulta adicional. Solo las citas antiguas que aún no
+         * tienen las copias se resuelven, todas juntas, contra el catálogo en memoria.
+         *
+         * @param citas Citas a convertir
+         * @return Lista de DTOs en el mismo orden de las citas recibidas
+         */
+        private List<InformacionCitaDTO> convertirCitasADTO(List<Cita> citas) {
+            if (citas.isEmpty()) {
+                return List.of();
+            }
+
+            Set<String> idsEstilistas = citas.stream()
+                    .filter(cita -> cita.getEstilistaNombre() == null)
+                    .map(Cita::getEstilistaId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Set<String> idsServicios = citas.stream()
+                    .filter(cita -> cita.getServicioNombre() == null)
+                    .map(Cita::getServicioId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+
+            // Una sola resolución por catálogo para las citas sin copia
+            Map<String, String> nombresEstilistas = new HashMap<>();
+            if (!idsEstilistas.isEmpty()) {
+                catalogoService.obtenerEstilistasPorId(idsEstilistas)
+                        .forEach((id, estilista) -> nombresEstilistas.put(id, estilista.getNombre()));
+            }
+
+            Map<String, String> nombresServicios = new HashMap<>();
+            if (!idsServicios.isEmpty()) {
+                catalogoService.obtenerServiciosPorId(idsServicios)
+                        .forEach((id, servicio) -> nombresServicios.put(id, servicio.getNombre()));
+            }
+
+            return citas.stream()
+                    .map(cita -> new InformacionCitaDTO(
+                            cita.getId(),
+                            cita.getUsuarioId(),
+                            cita.getEstilistaId(),
+                            cita.getEstilistaNombre() != null
+                                    ? cita.getEstilistaNombre()
+                                    : nombresEstilistas.getOrDefault(cita.getEstilistaId(), "Vacio"),
+                            cita.getServicioId(),
+                            cita.getServicioNombre() != null
+                                    ? cita.getServicioNombre()
+                                    : nombresServicios.getOrDefault(cita.getServicioId(), "Vacio"),
+                            cita.getFechaHora(),
+                            cita.getEstado()
+                    ))
+                    .collect(Collectors.toList());
+        }
 
-            String nombreEstilista = "Vacio";
+        /**
+         * Calcula los huecos libres de la agenda en un rango de días.
+         *
+         * Si se indica un estilista se consulta solo su agenda; si no, la de todos los
+         * estilistas que atienden el servicio (o todos, si tampoco se indica servicio).
+         * La ocupación se toma de los mapas de bits en memoria (los días que falten se cargan
+         * con una sola consulta), más los apartados vigentes, y los huecos se calculan con un
+         * barrido sobre los intervalos ordenados.
+         *
+         * @param estilistaId Identificador del estilista, opcional
+         * @param servicioId Identificador del servicio, opcional; define la duración mínima del hueco
+         * @param fechaDesde Primer día del rango en formato yyyy-MM-dd
+         * @param fechaHasta Último día del rango (incluido) en formato yyyy-MM-dd
+         * @return Huecos libres agrupados por estilista y ordenados por inicio
+         * @throws Exception Si el rango es inválido o el estilista no existe
+         */
+        @Override
+        public List<HorarioDisponibleDTO> obtenerHorariosDisponibles(String estilistaId, String servicioId,
+                                                                     String fechaDesde, String fechaHasta) throws Exception {
+            LocalDate diaDesde;
+            LocalDate diaHasta;
+            try {
+                diaDesde = LocalDate.parse(fechaDesde);
+                diaHasta = LocalDate.parse(fechaHasta);
+            } catch (DateTimeParseException e) {
+                throw new RangoFechasInvalidoException("Las fechas deben tener el formato yyyy-MM-dd");
+            }
+            if (diaHasta.isBefore(diaDesde)) {
+                throw new RangoFechasInvalidoException("La fecha final no puede ser anterior a la inicial");
+            }
+            if (ChronoUnit.DAYS.between(diaDesde, diaHasta) >= maxDiasConsulta) {
+                throw new RangoFechasInvalidoException("El rango no puede superar " + maxDiasConsulta + " días");
+            }
 
-            // Obtener nombre del estilista
-            Optional<Estilista> estilistaOptional = estilistaRepository.findById(cita.getEstilistaId());
+            List<Estilista> estilistas = obtenerEstilistasParaServicio(estilistaId, servicioId);
+            List<Intervalo> ventanas = construirVentanasAtencion(diaDesde, diaHasta, LocalDateTime.now());
+            if (estilistas.isEmpty() || ventanas.isEmpty()) {
+                return List.of();
+            }
 
-            if (estilistaOptional.isPresent()){
-                nombreEstilista = estilistaOptional.get().getNombre();
+            // La ocupación sale de memoria; solo los días que falten se cargan, con una sola consulta
+            List<String> idsEstilistas = estilistas.stream().map(Estilista::getId).toList();
+            Map<String, List<Intervalo>> ocupadosPorEstilista = new HashMap<>(ocupacionAgendaService.obtenerOcupados(
+                    idsEstilistas,
+                    ventanas.get(0).inicio().toLocalDate(),
+                    ventanas.get(ventanas.size() - 1).inicio().toLocalDate()));
+
+            // Los horarios apartados por otros clientes también cuentan como ocupados
+            apartadoHorarioService.obtenerApartados(idsEstilistas, ventanas.get(0).inicio(), ventanas.get(ventanas.size() - 1).fin())
+                    .forEach((id, apartados) -> ocupadosPorEstilista.merge(id, apartados, (ocupados, nuevos) -> {
+                        List<Intervalo> todos = new ArrayList<>(ocupados);
+                        todos.addAll(nuevos);
+                        return todos;
+                    }));
+
+            int duracion = obtenerDuracionServicio(servicioId);
+            DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+            List<HorarioDisponibleDTO> disponibles = new ArrayList<>();
+            for (Estilista estilista : estilistas) {
+                List<Intervalo> huecos = AgendaUtils.calcularHuecosLibres(
+                        ventanas,
+                        ocupadosPorEstilista.getOrDefault(estilista.getId(), List.of()),
+                        duracion,
+                        ReservaHorarioServiceImple.MINUTOS_POR_BLOQUE);
+                for (Intervalo hueco : huecos) {
+                    disponibles.add(new HorarioDisponibleDTO(
+                            estilista.getId(),
+                            estilista.getNombre(),
+                            hueco.inicio().format(formatter),
+                            hueco.fin().format(formatter)));
+                }
             }
+            return disponibles;
+        }
 
-            String nombreServicio = "Vacio";
-            // Obtener nombre del servicio
-            Optional<Servicio> servicioOptional = servicioRepository.findById(cita.getServicioId());
+        /**
+         * Determina los estilistas cuya agenda se debe consultar
+         * @param estilistaId Identificador del estilista, opcional
+         * @param servicioId Identificador del servicio, opcional
+         * @return Estilistas que atienden el servicio indicado
+         * @throws RecursoNoEncontradoException Si se indica un estilista que no existe
+         */
+        private List<Estilista> obtenerEstilistasParaServicio(String estilistaId, String servicioId) throws RecursoNoEncontradoException {
+            List<Estilista> candidatos;
+            if (estilistaId != null && !estilistaId.isBlank()) {
+                Estilista estilista = catalogoService.obtenerEstilistasPorId(Set.of(estilistaId)).get(estilistaId);
+                if (estilista == null) {
+                    throw new RecursoNoEncontradoException("No existe un estilista con el id: " + estilistaId);
+                }
+                candidatos = List.of(estilista);
+            } else {
+                candidatos = catalogoService.obtenerEstilistas();
+            }
 
-            if (servicioOptional.isPresent()){
-                nombreServicio = servicioOptional.get().getNombre();
+            if (servicioId == null || servicioId.isBlank()) {
+                return candidatos;
             }
+            return candidatos.stream()
+                    .filter(estilista -> atiendeServicio(estilista, servicioId))
+                    .toList();
+        }
 
-            return new InformacionCitaDTO(
-                    cita.getId(),
-                    cita.getUsuarioId(),
-                    cita.getEstilistaId(),
-                    nombreEstilista,
-                    cita.getServicioId(),
-                    nombreServicio,
-                    cita.getFechaHora(),
-                    cita.getEstado()
-            );
+        /**
+         * Construye las ventanas de atención de cada día del rango, descartando lo ya transcurrido
+         * @param diaDesde Primer día del rango
+         * @param diaHasta Último día del rango, incluido
+         * @param ahora Momento actual
+         * @return Ventanas de atención ordenadas por inicio
+         */
+        private List<Intervalo> construirVentanasAtencion(LocalDate diaDesde, LocalDate diaHasta, LocalDateTime ahora) {
+            List<Intervalo> ventanas = new ArrayList<>();
+            for (LocalDate dia = diaDesde; !dia.isAfter(diaHasta); dia = dia.plusDays(1)) {
+                LocalDateTime apertura = dia.atStartOfDay().plusHours(horaApertura);
+                LocalDateTime cierre = dia.atStartOfDay().plusHours(horaCierre);
+                if (apertura.isBefore(ahora)) {
+                    apertura = ahora;
+                }
+                if (apertura.isBefore(cierre)) {
+                    ventanas.add(new Intervalo(apertura, cierre));
+                }
+            }
+            return ventanas;
         }
 
+        /**
+         * Obtiene el feed del calendario acotado a una ventana de fechas y, opcionalmente, a un estilista.
+         *
+         * Sin cambiosDesde se devuelven las citas confirmadas y reprogramadas de la ventana. Con
+         * cambiosDesde solo se devuelven las citas de la ventana modificadas después de esa versión,
+         * en cualquier estado, para que el cliente agregue, mueva o quite (CANCELADA) las que cambiaron.
+         * La versión devuelta es la fecha de modificación más reciente en milisegundos y se lee antes
+         * de la consulta, así un cambio concurrente aparece en la siguiente consulta en lugar de perderse.
+         *
+         * @param fechaDesde Primer día de la ventana (yyyy-MM-dd); por defecto hace 7 días
+         * @param fechaHasta Último día de la ventana, incluido (yyyy-MM-dd); por defecto dentro de 60 días
+         * @param estilistaId Identificador del estilista, opcional
+         * @param cambiosDesde Versión que ya tiene el cliente, opcional
+         * @return Citas de la ventana y versión del calendario
+         * @throws Exception Si el rango de fechas es inválido
+         */
         @Override
-        public List<CalendarioCitasDTO> obtenerCitasConfirmadasYReprogramadas() {
-            List<Cita> citas = citaRepo.findByEstadoIn(List.of("CONFIRMADA", "REPROGRAMADA"));
+        public CalendarioFeedDTO obtenerCalendario(String fechaDesde, String fechaHasta, String estilistaId,
+                                                   Long cambiosDesde) throws Exception {
+            LocalDate diaDesde;
+            LocalDate diaHasta;
+            try {
+                diaDesde = estaVacio(fechaDesde) ? LocalDate.now().minusDays(DIAS_CALENDARIO_ANTES) : LocalDate.parse(fechaDesde);
+                diaHasta = estaVacio(fechaHasta) ? LocalDate.now().plusDays(DIAS_CALENDARIO_DESPUES) : LocalDate.parse(fechaHasta);
+            } catch (DateTimeParseException e) {
+                throw new RangoFechasInvalidoException("Las fechas deben tener el formato yyyy-MM-dd");
+            }
+            if (diaHasta.isBefore(diaDesde)) {
+                throw new RangoFechasInvalidoException("La fecha final no puede ser anterior a la inicial");
+            }
+            if (ChronoUnit.DAYS.between(diaDesde, diaHasta) >= maxDiasCalendario) {
+                throw new RangoFechasInvalidoException("El rango no puede superar " + maxDiasCalendario + " días");
+            }
 
-            return citas.stream()
+            long version = obtenerVersionCalendario();
+
+            // El margen cubre guardados cuya fecha de modificación quedó un poco por detrás de la versión leída
+            Instant modificadasDespues = cambiosDesde == null
+                    ? null
+                    : Instant.ofEpochMilli(Math.max(0, cambiosDesde - MARGEN_CAMBIOS_MS));
+
+            List<Cita> citas = citaRepo.buscarCalendario(
+                    diaDesde.atStartOfDay(),
+                    diaHasta.plusDays(1).atStartOfDay(),
+                    estaVacio(estilistaId) ? null : estilistaId,
+                    modificadasDespues);
+
+            List<CalendarioCitasDTO> calendario = citas.stream()
                     .map(this::convertirACalendarioCitasDTO)
                     .toList();
+            return new CalendarioFeedDTO(calendario, version, cambiosDesde != null);
+        }
+
+        /**
+         * Obtiene la versión actual del calendario: la fecha de modificación más reciente
+         * de cualquier cita, en milisegundos. Es una lectura indexada de un solo documento.
+         * @return Versión del calendario, 0 si no hay citas
+         */
+        @Override
+        public long obtenerVersionCalendario() {
+            return citaRepo.findTopByOrderByFechaModificacionDesc()
+                    .map(Cita::getFechaModificacion)
+                    .map(Instant::toEpochMilli)
+                    .orElse(0L);
         }
 
         public CalendarioCitasDTO convertirACalendarioCitasDTO(Cita cita) {
             DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
             String fechaHoraInicio = cita.getFechaHora().format(formatter);
-            String fechaHoraFin = cita.getFechaHora().plusHours(1).format(formatter); // Suma 1 hora
+            String fechaHoraFin = calcularFechaHoraFin(cita).format(formatter); // Según la duración del servicio
 
-            return new CalendarioCitasDTO(fechaHoraInicio, fechaHoraFin);
+            return new CalendarioCitasDTO(cita.getId(), cita.getEstilistaId(), cita.getServicioId(),
+                    fechaHoraInicio, fechaHoraFin, cita.getEstado());
         }
 
     }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.CompletarCitasService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementación de la tarea que completa las citas vencidas.
+ *
+ * Periódicamente pasa a COMPLETADA las citas confirmadas o reprogramadas que ya terminaron,
+ * en lotes de tamaño fijo (una búsqueda de ids y un updateMulti por lote) y con un máximo de
+ * lotes por ejecución; lo que quede se procesa en la siguiente. Solo un nodo trabaja a la vez
+ * gracias al arriendo de BloqueoTareaService, que se renueva después de cada lote.
+ */
+@Service
+public class CompletarCitasServiceImple implements CompletarCitasService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "completar-citas";
+
+    private final CitaRepo citaRepo;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final int tamanioLote;
+    private final int maxLotes;
+    private final Duration duracionBloqueo;
+    private final Clock reloj;
+
+    private final Counter completadas;
+    private final Timer duracion;
+
+    @Autowired
+    public CompletarCitasServiceImple(CitaRepo citaRepo,
+                                      BloqueoTareaService bloqueoTareaService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${laos.citas.completar.tamanio-lote:500}") int tamanioLote,
+                                      @Value("${laos.citas.completar.max-lotes:20}") int maxLotes,
+                                      @Value("${laos.citas.completar.bloqueo-segundos:300}") long bloqueoSegundos) {
+        this(citaRepo, bloqueoTareaService, meterRegistry, tamanioLote, maxLotes, bloqueoSegundos, Clock.systemDefaultZone());
+    }
+
+    CompletarCitasServiceImple(CitaRepo citaRepo,
+                               BloqueoTareaService bloqueoTareaService,
+                               MeterRegistry meterRegistry,
+                               int tamanioLote,
+                               int maxLotes,
+                               long bloqueoSegundos,
+                               Clock reloj) {
+        this.citaRepo = citaRepo;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.tamanioLote = tamanioLote;
+        this.maxLotes = maxLotes;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.reloj = reloj;
+        this.completadas = Counter.builder("laos.citas.completadas")
+                .description("Citas pasadas a COMPLETADA por la tarea programada")
+                .register(meterRegistry);
+        this.duracion = Timer.builder("laos.citas.completar.duracion")
+                .description("Duración de cada ejecución de la tarea que completa citas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pasa a COMPLETADA las citas que ya terminaron
+     * @return Número de citas completadas en esta ejecución; 0 si otro nodo tiene la tarea
+     */
+    @Override
+    @Scheduled(cron = "${laos.citas.completar.cron:0 */10 * * * *}")
+    public int completarCitasVencidas() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+
+        long inicio = System.nanoTime();
+        int total = 0;
+        try {
+            LocalDateTime ahora = LocalDateTime.now(reloj);
+            for (int lote = 0; lote < maxLotes; lote++) {
+                List<String> ids = citaRepo.buscarIdsVencidas(ahora, tamanioLote);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long modificadas = citaRepo.marcarCompletadas(ids, reloj.instant());
+                total += (int) modificadas;
+                completadas.increment(modificadas);
+
+                // Un lote incompleto significa que no quedan más; si se perdió el arriendo, otro nodo sigue
+                if (ids.size() < tamanioLote || !bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+                    break;
+                }
+            }
+        } finally {
+            duracion.record(Duration.ofNanos(System.nanoTime() - inicio));
+            bloqueoTareaService.liberar(TAREA);
+        }
+        return total;
+    }
+}
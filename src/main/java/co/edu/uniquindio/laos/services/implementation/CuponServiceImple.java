@@ -3,19 +3,27 @@ package co.edu.uniquindio.laos.services.implementation;
         import co.edu.uniquindio.laos.dto.cupon.CrearCuponDTO;
         import co.edu.uniquindio.laos.dto.cupon.CuponDTO;
         import co.edu.uniquindio.laos.dto.cupon.EditarCuponDTO;
+        import co.edu.uniquindio.laos.dto.cupon.InformacionCuponDTO;
+        import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+        import co.edu.uniquindio.laos.exceptions.CuponNoDisponibleException;
         import co.edu.uniquindio.laos.exceptions.RecursoEncontradoException;
         import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
         import co.edu.uniquindio.laos.model.Cupon;
         import co.edu.uniquindio.laos.model.EstadoCupon;
         import co.edu.uniquindio.laos.repositories.CuponRepo;
         import co.edu.uniquindio.laos.services.interfaces.CuponService;
+        import co.edu.uniquindio.laos.utils.ReintentoUtils;
         import co.edu.uniquindio.laos.utils.TextUtils;
         import lombok.RequiredArgsConstructor;
+        import org.bson.types.ObjectId;
+        import org.springframework.dao.DuplicateKeyException;
         import org.springframework.stereotype.Service;
         import org.springframework.transaction.annotation.Transactional;
+        import java.security.SecureRandom;
+        import java.time.Instant;
+        import java.time.LocalDate;
         import java.util.List;
         import java.util.Optional;
-        import java.util.Random;
         import java.util.stream.Collectors;
 
         /**
@@ -34,6 +42,11 @@ package co.edu.uniquindio.laos.services.implementation;
              */
             private final CuponRepo cuponRepo;
 
+            /**
+             * Generador de códigos; a diferencia de Random, sus valores no se pueden predecir
+             */
+            private static final SecureRandom ALEATORIO = new SecureRandom();
+
             /**
              * Crea un nuevo cupón de descuento en el sistema
              * @param crearCuponDTO Datos necesarios para crear el cupón
@@ -54,37 +67,59 @@ package co.edu.uniquindio.laos.services.implementation;
                         .porcentajeDescuento(crearCuponDTO.porcentajeDescuento())
                         .estadoCupon(EstadoCupon.ACTIVO)
                         .fechaVencimiento(crearCuponDTO.fechaVencimiento())
+                        .usosMaximos(crearCuponDTO.usosMaximos())
+                        .maximoUsosPorCliente(crearCuponDTO.maximoUsosPorCliente())
                         .build();
 
-                cuponRepo.save(cupon);
+                try {
+                    cuponRepo.save(cupon);
+                } catch (DuplicateKeyException e) {
+                    // El índice único codigo_unico también cubre cupones eliminados y creaciones simultáneas
+                    throw new RecursoEncontradoException("Ya existe un cupón con el código ingresado");
+                }
 
                 return "Cupon creado exitosamente";
             }
 
             /**
              * Actualiza la información de un cupón existente
+             * El guardado es versionado; si el cupón cambió desde que se leyó, se vuelve a leer
+             * y se aplican los cambios de nuevo
              * @param editarCuponDTO Datos actualizados del cupón
              * @return Identificador único del cupón actualizado
              * @throws RecursoNoEncontradoException Si el cupón no existe
+             * @throws RecursoEncontradoException Si el nuevo código ya pertenece a otro cupón
+             * @throws ConflictoConcurrenciaException Si el cupón siguió cambiando en todos los intentos
              */
             @Override
-            public String editarCupon(EditarCuponDTO editarCuponDTO) throws RecursoNoEncontradoException {
-
-                Cupon cupon = obtenerCuponPorId(editarCuponDTO.id());
-
-                cupon.setCodigo(editarCuponDTO.codigo());
-                cupon.setNombre(editarCuponDTO.nombre());
-                cupon.setPorcentajeDescuento(editarCuponDTO.porcentajeDescuento());
-                cupon.setEstadoCupon(editarCuponDTO.estadoCupon());
-                cupon.setFechaVencimiento(editarCuponDTO.fechaVencimiento());
-
-                cuponRepo.save(cupon);
-
-                return cupon.getId();
+            public String editarCupon(EditarCuponDTO editarCuponDTO) throws RecursoNoEncontradoException,
+                    RecursoEncontradoException, ConflictoConcurrenciaException {
+
+                try {
+                    return ReintentoUtils.conReintentos(() -> {
+                        Cupon cupon = obtenerCuponPorId(editarCuponDTO.id());
+
+                        cupon.setCodigo(editarCuponDTO.codigo());
+                        cupon.setNombre(editarCuponDTO.nombre());
+                        cupon.setPorcentajeDescuento(editarCuponDTO.porcentajeDescuento());
+                        cupon.setEstadoCupon(editarCuponDTO.estadoCupon());
+                        cupon.setFechaVencimiento(editarCuponDTO.fechaVencimiento());
+                        cupon.setUsosMaximos(editarCuponDTO.usosMaximos());
+                        cupon.setMaximoUsosPorCliente(editarCuponDTO.maximoUsosPorCliente());
+
+                        cuponRepo.save(cupon);
+
+                        return cupon.getId();
+                    });
+                } catch (DuplicateKeyException e) {
+                    // El código nuevo ya lo tiene otro cupón, incluso uno eliminado; lo decide el índice único
+                    throw new RecursoEncontradoException("Ya existe un cupón con el código ingresado");
+                }
             }
 
             /**
              * Elimina lógicamente un cupón cambiando su estado a ELIMINADO
+             * Solo cambia el estado, con una actualización parcial del documento
              * @param idCupon Identificador único del cupón a eliminar
              * @return Mensaje de confirmación de la eliminación
              * @throws RecursoNoEncontradoException Si el cupón no existe
@@ -92,11 +127,9 @@ package co.edu.uniquindio.laos.services.implementation;
             @Override
             public String eliminarCupon(String idCupon) throws RecursoNoEncontradoException {
 
-                Cupon cupon = obtenerCuponPorId(idCupon);
-
-                cupon.setEstadoCupon(EstadoCupon.ELIMINADO);
-
-                cuponRepo.save(cupon);
+                if (cuponRepo.marcarEliminado(completarId(idCupon)) == 0) {
+                    throw new RecursoNoEncontradoException("Cupón no encontrado");
+                }
 
                 return "Cupón eliminado con éxito.";
             }
@@ -120,23 +153,17 @@ package co.edu.uniquindio.laos.services.implementation;
             }
 
             /**
-             * Recupera todos los cupones asociados a un usuario específico
+             * Recupera los cupones vigentes (ni eliminados ni vencidos) asociados a un usuario específico
              * @param idUsuario Identificador único del usuario
              * @return Lista de cupones del usuario
              */
             @Override
             public List<Cupon> obtenerListaCuponPorIdUsuario(String idUsuario) {
-                if (idUsuario.length() != 24) {
-                    if (idUsuario.length() < 24) {
-                        // Si es más corto, completar con ceros al final
-                        idUsuario = String.format("%-24s", idUsuario).replace(' ', '0');
-                    } else {
-                        // Si es más largo, recortar a 24 caracteres
-                        idUsuario = idUsuario.substring(0, 24);
-                    }
+                // Un id que no es un ObjectId no puede ser dueño de ningún cupón
+                if (!ObjectId.isValid(idUsuario)) {
+                    return List.of();
                 }
-                return cuponRepo.findByUsuarioIdAndEstadoNot(idUsuario, EstadoCupon.ELIMINADO);
-
+                return cuponRepo.buscarVigentesPorUsuario(idUsuario, LocalDate.now());
             }
 
             /**
@@ -148,14 +175,8 @@ package co.edu.uniquindio.laos.services.implementation;
              */
             @Override
             public Cupon obtenerCuponPorCodigoYIdUsuario(String codigo, String idUsuario) throws RecursoNoEncontradoException {
-                if (idUsuario.length() != 24) {
-                    if (idUsuario.length() < 24) {
-                        // Si es más corto, completar con ceros al final
-                        idUsuario = String.format("%-24s", idUsuario).replace(' ', '0');
-                    } else {
-                        // Si es más largo, recortar a 24 caracteres
-                        idUsuario = idUsuario.substring(0, 24);
-                    }
+                if (!ObjectId.isValid(idUsuario)) {
+                    throw new RecursoNoEncontradoException("Cupón no encontrado");
                 }
                 Optional<Cupon> cuponExistente = cuponRepo.findByCodigoAndIdUsuarioAndEstadoNot(codigo, idUsuario, EstadoCupon.ELIMINADO);
 
@@ -174,15 +195,7 @@ package co.edu.uniquindio.laos.services.implementation;
              */
             @Override
             public Cupon obtenerCuponPorId(String id) throws RecursoNoEncontradoException {
-                if (id.length() != 24) {
-                    if (id.length() < 24) {
-                        // Si es más corto, completar con ceros al final
-                        id = String.format("%-24s", id).replace(' ', '0');
-                    } else {
-                        // Si es más largo, recortar a 24 caracteres
-                        id = id.substring(0, 24);
-                    }
-                }
+                id = completarId(id);
                 Optional<Cupon> cuponExistente = cuponRepo.findByIdAndEstadoNot(id, EstadoCupon.ELIMINADO);
 
                 if (cuponExistente.isEmpty()) {
@@ -192,6 +205,67 @@ package co.edu.uniquindio.laos.services.implementation;
                 return cuponExistente.get();
             }
 
+            /**
+             * Redime un cupón para un cliente, registrando el uso.
+             * La validación y el registro del uso son una sola operación atómica en la base de datos,
+             * así que dos compras simultáneas no pueden gastar el mismo uso. Solo si la redención no
+             * procede se vuelve a leer el cupón para explicar el motivo.
+             * @param codigo Código del cupón
+             * @param idUsuario Identificador del cliente que lo usa
+             * @return Código y porcentaje de descuento aplicado
+             * @throws RecursoNoEncontradoException Si no existe un cupón con ese código
+             * @throws CuponNoDisponibleException Si el cupón está inactivo, vencido, es de otro cliente o agotó sus usos
+             */
+            @Override
+            public InformacionCuponDTO redimirCupon(String codigo, String idUsuario) throws RecursoNoEncontradoException,
+                    CuponNoDisponibleException {
+                if (!ObjectId.isValid(idUsuario)) {
+                    throw new RecursoNoEncontradoException("Cliente no encontrado");
+                }
+                LocalDate hoy = LocalDate.now();
+
+                Optional<Cupon> redimido = cuponRepo.redimir(codigo, idUsuario, hoy, Instant.now());
+                if (redimido.isPresent()) {
+                    return new InformacionCuponDTO(redimido.get().getCodigo(), redimido.get().getPorcentajeDescuento());
+                }
+
+                Cupon cupon = obtenerCuponPorCodigo(codigo);
+                throw new CuponNoDisponibleException(motivoNoDisponible(cupon, idUsuario, hoy));
+            }
+
+            /**
+             * Explica por qué no se pudo redimir un cupón, en el mismo orden en que se validan las condiciones
+             */
+            private String motivoNoDisponible(Cupon cupon, String idUsuario, LocalDate hoy) {
+                if (cupon.getEstadoCupon() == EstadoCupon.VENCIDO) {
+                    return "El cupón está vencido";
+                }
+                if (cupon.getEstadoCupon() != EstadoCupon.ACTIVO) {
+                    return "El cupón no está activo";
+                }
+                if (cupon.getFechaVencimiento() != null && cupon.getFechaVencimiento().isBefore(hoy)) {
+                    return "El cupón está vencido";
+                }
+                String duenio = cupon.getUsuarioId() != null ? cupon.getUsuarioId()
+                        : cupon.getUsuario() != null ? cupon.getUsuario().getId() : null;
+                if (duenio != null && !idUsuario.equals(duenio)) {
+                    return "El cupón pertenece a otro cliente";
+                }
+                if (cupon.getUsosMaximos() != null && valor(cupon.getUsos()) >= cupon.getUsosMaximos()) {
+                    return "El cupón ya alcanzó su máximo de usos";
+                }
+                if (cupon.getMaximoUsosPorCliente() != null && cupon.getUsosPorCliente() != null
+                        && valor(cupon.getUsosPorCliente().get(idUsuario)) >= cupon.getMaximoUsosPorCliente()) {
+                    return "Ya usó este cupón el máximo de veces permitido";
+                }
+                // Las condiciones cambiaron entre la redención y la lectura
+                return "El cupón no está disponible en este momento, intente de nuevo";
+            }
+
+            private int valor(Integer conteo) {
+                return conteo == null ? 0 : conteo;
+            }
+
             /**
              * Recupera un cupón por su identificador único y lo convierte a formato DTO
              * @param id Identificador único del cupón
@@ -200,15 +274,7 @@ package co.edu.uniquindio.laos.services.implementation;
              */
             @Override
             public CuponDTO obtenerCuponPorIdParaAdmin(String id) throws RecursoNoEncontradoException {
-                if (id.length() != 24) {
-                    if (id.length() < 24) {
-                        // Si es más corto, completar con ceros al final
-                        id = String.format("%-24s", id).replace(' ', '0');
-                    } else {
-                        // Si es más largo, recortar a 24 caracteres
-                        id = id.substring(0, 24);
-                    }
-                }
+                id = completarId(id);
                 Optional<Cupon> cuponExistente = cuponRepo.findByIdAndEstadoNot(id, EstadoCupon.ELIMINADO);
 
                 if (cuponExistente.isEmpty()) {
@@ -224,28 +290,30 @@ package co.edu.uniquindio.laos.services.implementation;
                         cupon.getNombre(),
                         cupon.getPorcentajeDescuento(),
                         cupon.getEstadoCupon(),
-                        cupon.getFechaVencimiento()
+                        cupon.getFechaVencimiento(),
+                        cupon.getUsosMaximos(),
+                        cupon.getMaximoUsosPorCliente(),
+                        cupon.getUsos()
                 );
             }
 
             /**
-             * Recupera todos los cupones del sistema y los convierte a formato DTO
-             * @return Lista de cupones en formato DTO para transferencia de datos
-             */
-            /**
-             * Recupera todos los cupones del sistema que no estén en estado "ELIMINADO" y los convierte a formato DTO
+             * Recupera los cupones del sistema que no estén eliminados ni vencidos y los convierte a formato DTO
              * @return Lista de cupones en formato DTO para transferencia de datos
              */
             @Override
             public List<CuponDTO> listarCupones() {
-                return cuponRepo.findCuponesNoEliminados().stream()
+                return cuponRepo.buscarVigentes(LocalDate.now()).stream()
                         .map(cupon -> new CuponDTO(
                                 cupon.getId(),
                                 cupon.getCodigo(),
                                 cupon.getNombre(),
                                 cupon.getPorcentajeDescuento(),
                                 cupon.getEstadoCupon(),
-                                cupon.getFechaVencimiento()
+                                cupon.getFechaVencimiento(),
+                                cupon.getUsosMaximos(),
+                                cupon.getMaximoUsosPorCliente(),
+                                cupon.getUsos()
                         ))
                         .collect(Collectors.toList());
             }
@@ -261,12 +329,28 @@ package co.edu.uniquindio.laos.services.implementation;
 
                 StringBuilder codigo = new StringBuilder();
 
-                Random random = new Random();
-
                 for (int i = 0; i < 6; i++) {
-                    codigo.append(cadena.charAt(random.nextInt(cadena.length())));
+                    codigo.append(cadena.charAt(ALEATORIO.nextInt(cadena.length())));
                 }
 
                 return codigo.toString();
             }
+
+            /**
+             * Normaliza un identificador a los 24 caracteres de un ObjectId
+             * @param id Identificador recibido
+             * @return Identificador completado con ceros o recortado a 24 caracteres
+             */
+            private String completarId(String id) {
+                if (id.length() != 24) {
+                    if (id.length() < 24) {
+                        // Si es más corto, completar con ceros al final
+                        id = String.format("%-24s", id).replace(' ', '0');
+                    } else {
+                        // Si es más largo, recortar a 24 caracteres
+                        id = id.substring(0, 24);
+                    }
+                }
+                return id;
+            }
         }
\ No newline at end of file
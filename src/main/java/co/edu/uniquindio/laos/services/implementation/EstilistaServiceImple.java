@@ -1,7 +1,7 @@
 package co.edu.uniquindio.laos.services.implementation;
 
 import co.edu.uniquindio.laos.model.Estilista;
-import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
 import co.edu.uniquindio.laos.services.interfaces.EstilistaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -23,20 +23,21 @@ import java.util.List;
 public class EstilistaServiceImple implements EstilistaService {
 
     /**
-     * Repositorio para el acceso y persistencia de estilistas en la base de datos
+     * Catálogo en memoria de estilistas y servicios
      */
-    private final EstilistaRepo estilistaRepo;
+    private final CatalogoService catalogoService;
 
     /**
      * Recupera la lista completa de todos los estilistas registrados en el sistema
      *
      * Este método permite obtener información sobre todos los profesionales
-     * disponibles para realizar servicios en el establecimiento.
+     * disponibles para realizar servicios en el establecimiento. La lista se sirve
+     * desde el catálogo en memoria, sin consultar la base de datos en cada petición.
      *
      * @return Lista de objetos Estilista con la información de todos los estilistas
      */
     @Override
     public List<Estilista> obtenerTodosLosEstilistas() {
-        return estilistaRepo.findAll();
+        return catalogoService.obtenerEstilistas();
     }
 }
\ No newline at end of file
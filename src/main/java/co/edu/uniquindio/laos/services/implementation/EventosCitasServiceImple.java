@@ -0,0 +1,479 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.Contador;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.EventoCita;
+import co.edu.uniquindio.laos.model.EventoPendienteCita;
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import co.edu.uniquindio.laos.model.ProyeccionCita;
+import co.edu.uniquindio.laos.model.TipoEventoCita;
+import co.edu.uniquindio.laos.model.UtilizacionEstilista;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.ContadorRepo;
+import co.edu.uniquindio.laos.repositories.EventoCitaRepo;
+import co.edu.uniquindio.laos.repositories.HistorialClienteRepo;
+import co.edu.uniquindio.laos.repositories.ProyeccionCitaRepo;
+import co.edu.uniquindio.laos.repositories.UtilizacionEstilistaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.EventosCitasService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del registro de eventos de citas y de sus proyecciones.
+ *
+ * Cada cambio de una cita deja su evento dentro de la misma cita (eventosPendientes), en la
+ * misma escritura. Una tarea periódica copia esos eventos a eventos_citas, donde reciben una
+ * posición creciente, y los quita de las citas. A continuación aplica los eventos nuevos a las
+ * proyecciones, por lotes y desde la última posición aplicada:
+ * - proyeccion_citas: el estado de cada cita según sus eventos (el calendario)
+ * - utilizacion_estilistas: citas y minutos reservados por estilista y día
+ * - historial_clientes: cuántas citas creó, reprogramó, canceló y completó cada cliente
+ *
+ * Cada lote cuesta una lectura de los estados previos y una escritura masiva por proyección.
+ * La reconstrucción vacía las proyecciones y repite todo el registro en paralelo, un hilo por
+ * grupo de particiones; los eventos de una cita están en una sola partición y se aplican en orden.
+ * Si un nodo se cae entre escribir los incrementos y guardar la posición, el lote se vuelve a
+ * aplicar y los contadores pueden quedar desviados; la reconstrucción los deja exactos.
+ * Copia, proyección y reconstrucción usan el mismo arriendo, así nunca se pisan entre nodos.
+ */
+@Service
+public class EventosCitasServiceImple implements EventosCitasService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "eventos-citas";
+
+    /**
+     * Contador con la última posición del registro aplicada a las proyecciones
+     */
+    static final String PUNTO_CONTROL = "proyecciones_citas";
+
+    /**
+     * Número de particiones del registro
+     */
+    static final int PARTICIONES = 16;
+
+    /**
+     * Duración asumida para citas sin fin
+     */
+    private static final int DURACION_POR_DEFECTO_MINUTOS = 60;
+
+    /**
+     * Estados que ocupan tiempo del estilista en la utilización
+     */
+    private static final Set<EstadoCita> ESTADOS_OCUPADOS =
+            Set.of(EstadoCita.CONFIRMADA, EstadoCita.REPROGRAMADA, EstadoCita.COMPLETADA);
+
+    private final CitaRepo citaRepo;
+    private final EventoCitaRepo eventoCitaRepo;
+    private final ContadorRepo contadorRepo;
+    private final ProyeccionCitaRepo proyeccionCitaRepo;
+    private final UtilizacionEstilistaRepo utilizacionEstilistaRepo;
+    private final HistorialClienteRepo historialClienteRepo;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final int tamanioLote;
+    private final int maxLotes;
+    private final int hilosReconstruccion;
+    private final Duration duracionBloqueo;
+    private final Duration duracionBloqueoReconstruccion;
+
+    private final Counter relevados;
+    private final Counter proyectados;
+
+    @Autowired
+    public EventosCitasServiceImple(CitaRepo citaRepo,
+                                    EventoCitaRepo eventoCitaRepo,
+                                    ContadorRepo contadorRepo,
+                                    ProyeccionCitaRepo proyeccionCitaRepo,
+                                    UtilizacionEstilistaRepo utilizacionEstilistaRepo,
+                                    HistorialClienteRepo historialClienteRepo,
+                                    BloqueoTareaService bloqueoTareaService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${laos.citas.eventos.tamanio-lote:500}") int tamanioLote,
+                                    @Value("${laos.citas.eventos.max-lotes:20}") int maxLotes,
+                                    @Value("${laos.citas.eventos.hilos-reconstruccion:4}") int hilosReconstruccion,
+                                    @Value("${laos.citas.eventos.bloqueo-segundos:120}") long bloqueoSegundos,
+                                    @Value("${laos.citas.eventos.bloqueo-reconstruccion-segundos:3600}") long bloqueoReconstruccionSegundos) {
+        this.citaRepo = citaRepo;
+        this.eventoCitaRepo = eventoCitaRepo;
+        this.contadorRepo = contadorRepo;
+        this.proyeccionCitaRepo = proyeccionCitaRepo;
+        this.utilizacionEstilistaRepo = utilizacionEstilistaRepo;
+        this.historialClienteRepo = historialClienteRepo;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.tamanioLote = tamanioLote;
+        this.maxLotes = maxLotes;
+        this.hilosReconstruccion = hilosReconstruccion;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.duracionBloqueoReconstruccion = Duration.ofSeconds(bloqueoReconstruccionSegundos);
+        this.relevados = Counter.builder("laos.citas.eventos.relevados")
+                .description("Eventos de citas copiados a eventos_citas")
+                .register(meterRegistry);
+        this.proyectados = Counter.builder("laos.citas.eventos.proyectados")
+                .description("Eventos de citas aplicados a las proyecciones")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Copia los eventos pendientes de las citas al registro y los aplica a las proyecciones
+     * @return Número de eventos aplicados; 0 si otro nodo tiene la tarea
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${laos.citas.eventos.intervalo-ms:5000}")
+    public int procesarEventos() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+        try {
+            if (!relevarEventos(duracionBloqueo)) {
+                return 0;
+            }
+            return proyectarEventos();
+        } finally {
+            bloqueoTareaService.liberar(TAREA);
+        }
+    }
+
+    /**
+     * Vacía las proyecciones y las vuelve a calcular repitiendo todo el registro en paralelo
+     * @return Número de eventos repetidos
+     * @throws ConflictoConcurrenciaException Si otro nodo está procesando los eventos
+     */
+    @Override
+    public long reconstruirProyecciones() throws ConflictoConcurrenciaException {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueoReconstruccion)) {
+            throw new ConflictoConcurrenciaException("Otra instancia está procesando los eventos de citas");
+        }
+        try {
+            relevarEventos(duracionBloqueoReconstruccion);
+            long hasta = eventoCitaRepo.findTopByOrderBySecuenciaDesc().map(EventoCita::getSecuencia).orElse(0L);
+
+            proyeccionCitaRepo.vaciarProyecciones();
+            guardarPuntoControl(0);
+
+            AtomicLong total = new AtomicLong();
+            ExecutorService hilos = Executors.newFixedThreadPool(hilosReconstruccion);
+            try {
+                List<Future<?>> tareas = new ArrayList<>();
+                for (int particion = 0; particion < PARTICIONES; particion++) {
+                    int actual = particion;
+                    tareas.add(hilos.submit(() -> total.addAndGet(repetirParticion(actual, hasta))));
+                }
+                for (Future<?> tarea : tareas) {
+                    tarea.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                // Sin terminar, las proyecciones se vuelven a calcular desde cero en la siguiente ejecución
+                proyeccionCitaRepo.vaciarProyecciones();
+                guardarPuntoControl(0);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("No se pudieron reconstruir las proyecciones de citas", e);
+            } finally {
+                hilos.shutdownNow();
+            }
+
+            guardarPuntoControl(hasta);
+            proyectados.increment(total.get());
+            return total.get();
+        } finally {
+            bloqueoTareaService.liberar(TAREA);
+        }
+    }
+
+    /**
+     * Obtiene todos los eventos de una cita en orden
+     * @param citaId Identificador de la cita
+     * @return Eventos de la cita, vacío si no tiene
+     */
+    @Override
+    public List<EventoCita> obtenerHistorialCita(String citaId) {
+        return eventoCitaRepo.findByCitaIdOrderBySecuenciaAsc(citaId);
+    }
+
+    /**
+     * Obtiene la utilización diaria de un estilista
+     * @param estilistaId Identificador del estilista
+     * @param desde Primer día (yyyy-MM-dd)
+     * @param hasta Último día, incluido (yyyy-MM-dd)
+     * @return Utilización de los días con citas, ordenada por día
+     * @throws RangoFechasInvalidoException Si las fechas no son válidas
+     */
+    @Override
+    public List<UtilizacionEstilista> obtenerUtilizacion(String estilistaId, String desde, String hasta)
+            throws RangoFechasInvalidoException {
+        LocalDate diaDesde;
+        LocalDate diaHasta;
+        try {
+            diaDesde = LocalDate.parse(desde);
+            diaHasta = LocalDate.parse(hasta);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new RangoFechasInvalidoException("Las fechas deben tener el formato yyyy-MM-dd");
+        }
+        if (diaHasta.isBefore(diaDesde)) {
+            throw new RangoFechasInvalidoException("La fecha final no puede ser anterior a la inicial");
+        }
+        return utilizacionEstilistaRepo.buscarPorEstilista(estilistaId, diaDesde, diaHasta);
+    }
+
+    /**
+     * Obtiene el historial de citas de un cliente
+     * @param clienteId Identificador del cliente
+     * @return Historial del cliente, en ceros si todavía no tiene eventos
+     */
+    @Override
+    public HistorialCliente obtenerHistorialCliente(String clienteId) {
+        return historialClienteRepo.findById(clienteId)
+                .orElseGet(() -> HistorialCliente.builder().id(clienteId).build());
+    }
+
+    /**
+     * Copia al registro los eventos pendientes de las citas, por lotes
+     * @return false si se perdió el arriendo y otro nodo debe seguir
+     */
+    private boolean relevarEventos(Duration duracion) {
+        for (int lote = 0; lote < maxLotes; lote++) {
+            List<Cita> citas = citaRepo.buscarConEventosPendientes(tamanioLote);
+            if (citas.isEmpty()) {
+                return true;
+            }
+
+            // Cada $push agrega al final de eventosPendientes, así que el arreglo ya tiene el orden real
+            // de los cambios de la cita; la fecha viene del reloj de cada nodo y no sirve para ordenar
+            List<EventoCita> eventos = new ArrayList<>();
+            for (Cita cita : citas) {
+                for (EventoPendienteCita pendiente : cita.getEventosPendientes()) {
+                    eventos.add(convertirEvento(cita.getId(), pendiente));
+                }
+            }
+
+            long ultima = eventoCitaRepo.reservarSecuencias(eventos.size());
+            long secuencia = ultima - eventos.size();
+            for (EventoCita evento : eventos) {
+                evento.setSecuencia(++secuencia);
+            }
+            eventoCitaRepo.insertarSinDuplicados(eventos);
+            citaRepo.descartarEventosPendientes(citas);
+            relevados.increment(eventos.size());
+
+            // Un lote incompleto significa que no quedan más
+            if (citas.size() < tamanioLote) {
+                return true;
+            }
+            if (!bloqueoTareaService.adquirir(TAREA, duracion)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aplica a las proyecciones los eventos posteriores al punto de control, por lotes
+     * @return Número de eventos aplicados
+     */
+    private int proyectarEventos() {
+        long desde = contadorRepo.findById(PUNTO_CONTROL).map(Contador::getValor).orElse(0L);
+        int total = 0;
+        for (int lote = 0; lote < maxLotes; lote++) {
+            List<EventoCita> eventos = eventoCitaRepo.buscarDespuesDe(desde, PageRequest.of(0, tamanioLote));
+            if (eventos.isEmpty()) {
+                break;
+            }
+            aplicarLote(eventos);
+            desde = eventos.get(eventos.size() - 1).getSecuencia();
+            guardarPuntoControl(desde);
+            total += eventos.size();
+            proyectados.increment(eventos.size());
+
+            if (eventos.size() < tamanioLote || !bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Repite los eventos de una partición hasta una posición del registro
+     * @return Número de eventos repetidos
+     */
+    private long repetirParticion(int particion, long hasta) {
+        long desde = 0;
+        long total = 0;
+        while (true) {
+            List<EventoCita> eventos = eventoCitaRepo.buscarEnParticion(particion, desde, hasta, PageRequest.of(0, tamanioLote));
+            if (eventos.isEmpty()) {
+                return total;
+            }
+            aplicarLote(eventos);
+            desde = eventos.get(eventos.size() - 1).getSecuencia();
+            total += eventos.size();
+        }
+    }
+
+    /**
+     * Aplica un lote de eventos en orden: lee de una vez el estado previo de sus citas,
+     * acumula los cambios en memoria y los escribe con una escritura masiva por proyección
+     */
+    void aplicarLote(List<EventoCita> eventos) {
+        Set<String> ids = eventos.stream().map(EventoCita::getCitaId).collect(Collectors.toSet());
+        Map<String, ProyeccionCita> estados = new HashMap<>();
+        proyeccionCitaRepo.findByIdIn(ids).forEach(estado -> estados.put(estado.getId(), estado));
+
+        CambiosProyeccion cambios = new CambiosProyeccion();
+        Map<String, ProyeccionCita> modificados = new HashMap<>();
+        for (EventoCita evento : eventos) {
+            ProyeccionCita anterior = estados.get(evento.getCitaId());
+            // Un lote repetido después de una caída no vuelve a aplicar lo que ya está en el estado
+            if (anterior != null && evento.getSecuencia() <= anterior.getSecuencia()) {
+                continue;
+            }
+            ProyeccionCita nuevo = cambios.aplicar(anterior, evento);
+            estados.put(nuevo.getId(), nuevo);
+            modificados.put(nuevo.getId(), nuevo);
+        }
+
+        proyeccionCitaRepo.guardarCambios(modificados.values(), cambios.utilizacion.values(), cambios.historial.values());
+    }
+
+    private void guardarPuntoControl(long secuencia) {
+        contadorRepo.save(Contador.builder().id(PUNTO_CONTROL).valor(secuencia).build());
+    }
+
+    private static EventoCita convertirEvento(String citaId, EventoPendienteCita pendiente) {
+        return EventoCita.builder()
+                .id(citaId + ":" + pendiente.getEventoId())
+                .particion(Math.floorMod(citaId.hashCode(), PARTICIONES))
+                .citaId(citaId)
+                .tipo(pendiente.getTipo())
+                .fecha(pendiente.getFecha())
+                .usuarioId(pendiente.getUsuarioId())
+                .estilistaId(pendiente.getEstilistaId())
+                .servicioId(pendiente.getServicioId())
+                .fechaHora(pendiente.getFechaHora())
+                .fechaHoraFin(pendiente.getFechaHoraFin())
+                .build();
+    }
+
+    /**
+     * Cambios acumulados de un lote: incrementos de utilización por estilista y día y
+     * de historial por cliente
+     */
+    static class CambiosProyeccion {
+
+        final Map<String, UtilizacionEstilista> utilizacion = new HashMap<>();
+        final Map<String, HistorialCliente> historial = new HashMap<>();
+
+        /**
+         * Aplica un evento al estado previo de su cita
+         * @param anterior Estado previo, null si la cita no tiene eventos anteriores
+         * @param evento Evento a aplicar
+         * @return Nuevo estado de la cita
+         */
+        ProyeccionCita aplicar(ProyeccionCita anterior, EventoCita evento) {
+            ProyeccionCita nuevo = anterior == null
+                    ? ProyeccionCita.builder().id(evento.getCitaId()).build()
+                    : copiar(anterior);
+
+            if (evento.getUsuarioId() != null) {
+                nuevo.setUsuarioId(evento.getUsuarioId());
+            }
+            switch (evento.getTipo()) {
+                case CREADA, REPROGRAMADA -> {
+                    nuevo.setEstilistaId(evento.getEstilistaId());
+                    nuevo.setServicioId(evento.getServicioId());
+                    nuevo.setFechaHora(evento.getFechaHora());
+                    nuevo.setFechaHoraFin(evento.getFechaHoraFin());
+                    nuevo.setEstado(evento.getTipo() == TipoEventoCita.CREADA
+                            ? EstadoCita.CONFIRMADA
+                            : EstadoCita.REPROGRAMADA);
+                }
+                // Otro estilista atiende la misma cita: la utilización pasa de estilista y el estado no cambia
+                case REASIGNADA -> nuevo.setEstilistaId(evento.getEstilistaId());
+                case CANCELADA -> nuevo.setEstado(EstadoCita.CANCELADA);
+                case COMPLETADA -> nuevo.setEstado(EstadoCita.COMPLETADA);
+            }
+            nuevo.setSecuencia(evento.getSecuencia());
+
+            // Las citas creadas antes del registro llegan sin estado previo: solo cuentan desde aquí
+            if (anterior != null && ESTADOS_OCUPADOS.contains(anterior.getEstado())) {
+                sumarUtilizacion(anterior, -1);
+            }
+            if (ESTADOS_OCUPADOS.contains(nuevo.getEstado()) && nuevo.getFechaHora() != null) {
+                sumarUtilizacion(nuevo, 1);
+            }
+            sumarHistorial(nuevo.getUsuarioId(), evento);
+            return nuevo;
+        }
+
+        private void sumarUtilizacion(ProyeccionCita cita, int signo) {
+            if (cita.getEstilistaId() == null || cita.getFechaHora() == null) {
+                return;
+            }
+            LocalDate dia = cita.getFechaHora().toLocalDate();
+            long minutos = cita.getFechaHoraFin() == null
+                    ? DURACION_POR_DEFECTO_MINUTOS
+                    : ChronoUnit.MINUTES.between(cita.getFechaHora(), cita.getFechaHoraFin());
+            UtilizacionEstilista delta = utilizacion.computeIfAbsent(cita.getEstilistaId() + ":" + dia,
+                    id -> UtilizacionEstilista.builder().id(id).estilistaId(cita.getEstilistaId()).dia(dia).build());
+            delta.setCitas(delta.getCitas() + signo);
+            delta.setMinutos(delta.getMinutos() + signo * minutos);
+        }
+
+        private void sumarHistorial(String usuarioId, EventoCita evento) {
+            // La reasignación la decide el salón, no el cliente: no cuenta como actividad suya
+            if (usuarioId == null || evento.getTipo() == TipoEventoCita.REASIGNADA) {
+                return;
+            }
+            HistorialCliente delta = historial.computeIfAbsent(usuarioId, id -> HistorialCliente.builder().id(id).build());
+            switch (evento.getTipo()) {
+                case CREADA -> delta.setCreadas(delta.getCreadas() + 1);
+                case REPROGRAMADA -> delta.setReprogramadas(delta.getReprogramadas() + 1);
+                case CANCELADA -> delta.setCanceladas(delta.getCanceladas() + 1);
+                case COMPLETADA -> delta.setCompletadas(delta.getCompletadas() + 1);
+            }
+            if (delta.getUltimaActividad() == null || evento.getFecha().isAfter(delta.getUltimaActividad())) {
+                delta.setUltimaActividad(evento.getFecha());
+            }
+        }
+
+        private static ProyeccionCita copiar(ProyeccionCita estado) {
+            return ProyeccionCita.builder()
+                    .id(estado.getId())
+                    .usuarioId(estado.getUsuarioId())
+                    .estilistaId(estado.getEstilistaId())
+                    .servicioId(estado.getServicioId())
+                    .fechaHora(estado.getFechaHora())
+                    .fechaHoraFin(estado.getFechaHoraFin())
+                    .estado(estado.getEstado())
+                    .secuencia(estado.getSecuencia())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cupon.GenerarCuponesDTO;
+import co.edu.uniquindio.laos.dto.cupon.ResultadoGeneracionCuponesDTO;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.services.interfaces.GeneracionCuponesService;
+import co.edu.uniquindio.laos.utils.TextUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementación de la generación de cupones en lote para campañas.
+ *
+ * Los códigos salen de SecureRandom sobre un alfabeto sin caracteres que se confunden al leerlos
+ * (0/O, 1/I/L) y un conjunto en memoria descarta los repetidos dentro de la misma solicitud, así
+ * que no hay ninguna consulta previa por código. Cada lote se guarda con una escritura ordenada
+ * respaldada por el índice único de codigo: si un código ya existía en la base, la escritura se
+ * detiene en él, se le asigna un código nuevo y se reenvía desde ahí. Solo los códigos que chocan
+ * se regeneran. El avance se publica por lote en laos.cupones.generados, cuya tasa es el
+ * rendimiento, y la respuesta incluye la duración y los cupones por segundo de la solicitud.
+ */
+@Service
+public class GeneracionCuponesServiceImple implements GeneracionCuponesService {
+
+    /**
+     * Alfabeto de los códigos: 31 símbolos, sin 0, O, 1, I ni L
+     */
+    static final String ALFABETO = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
+
+    private static final int LONGITUD_POR_DEFECTO = 8;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private final CuponRepo cuponRepo;
+    private final int tamanioLote;
+
+    private final Counter generados;
+    private final Counter colisiones;
+    private final Timer duracion;
+
+    @Autowired
+    public GeneracionCuponesServiceImple(CuponRepo cuponRepo,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${laos.cupones.generacion.tamanio-lote:1000}") int tamanioLote) {
+        this.cuponRepo = cuponRepo;
+        this.tamanioLote = tamanioLote;
+        this.generados = Counter.builder("laos.cupones.generados")
+                .description("Cupones de campaña insertados, sumados al terminar cada lote")
+                .register(meterRegistry);
+        this.colisiones = Counter.builder("laos.cupones.colisiones")
+                .description("Códigos generados que ya existían en la base de datos y se regeneraron")
+                .register(meterRegistry);
+        this.duracion = Timer.builder("laos.cupones.generacion.duracion")
+                .description("Duración de cada solicitud de generación de cupones")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Genera e inserta los cupones de una campaña, todos con códigos distintos
+     * @param generarCuponesDTO Campaña, cantidad y condiciones de los cupones
+     * @return Cupones generados, códigos regenerados por choque, duración y rendimiento
+     */
+    @Override
+    public ResultadoGeneracionCuponesDTO generarCupones(GenerarCuponesDTO generarCuponesDTO) {
+        long inicio = System.nanoTime();
+        int cantidad = generarCuponesDTO.cantidad();
+        int longitud = generarCuponesDTO.longitudCodigo() == null ? LONGITUD_POR_DEFECTO : generarCuponesDTO.longitudCodigo();
+        Set<String> codigos = new HashSet<>(cantidad * 2);
+
+        int insertados = 0;
+        int choques = 0;
+        try {
+            while (insertados < cantidad) {
+                List<Cupon> lote = new ArrayList<>(Math.min(tamanioLote, cantidad - insertados));
+                for (int i = 0; i < Math.min(tamanioLote, cantidad - insertados); i++) {
+                    lote.add(construirCupon(generarCuponesDTO, codigoNuevo(codigos, longitud)));
+                }
+
+                int posicion = 0;
+                while (posicion < lote.size()) {
+                    int guardados = cuponRepo.insertarEnOrden(lote.subList(posicion, lote.size()));
+                    posicion += guardados;
+                    insertados += guardados;
+                    generados.increment(guardados);
+                    if (posicion < lote.size()) {
+                        // El código de esta posición ya existía: solo ese se cambia y se sigue desde ahí
+                        lote.get(posicion).setCodigo(codigoNuevo(codigos, longitud));
+                        choques++;
+                        colisiones.increment();
+                    }
+                }
+            }
+        } finally {
+            duracion.record(Duration.ofNanos(System.nanoTime() - inicio));
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        double segundos = nanos / 1_000_000_000.0;
+        return new ResultadoGeneracionCuponesDTO(
+                generarCuponesDTO.campania(),
+                insertados,
+                choques,
+                Duration.ofNanos(nanos).toMillis(),
+                segundos > 0 ? insertados / segundos : insertados);
+    }
+
+    private Cupon construirCupon(GenerarCuponesDTO generarCuponesDTO, String codigo) {
+        return Cupon.builder()
+                .codigo(codigo)
+                .nombre(TextUtils.normalizarTexto(generarCuponesDTO.nombre()))
+                .porcentajeDescuento(generarCuponesDTO.porcentajeDescuento())
+                .estadoCupon(EstadoCupon.ACTIVO)
+                .fechaVencimiento(generarCuponesDTO.fechaVencimiento())
+                .usosMaximos(generarCuponesDTO.usosMaximos() == null ? 1 : generarCuponesDTO.usosMaximos())
+                .usos(0)
+                .campania(generarCuponesDTO.campania())
+                // La inserción en lote no inicializa la versión; sin ella un guardado posterior se tomaría como nuevo
+                .version(0L)
+                .build();
+    }
+
+    /**
+     * Genera un código que no se haya entregado antes en esta solicitud
+     */
+    private String codigoNuevo(Set<String> codigos, int longitud) {
+        String codigo;
+        do {
+            codigo = generarCodigo(longitud);
+        } while (!codigos.add(codigo));
+        return codigo;
+    }
+
+    /**
+     * Genera un código aleatorio con el alfabeto de cupones
+     * @param longitud Número de caracteres
+     * @return Código generado con SecureRandom
+     */
+    static String generarCodigo(int longitud) {
+        StringBuilder codigo = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            codigo.append(ALFABETO.charAt(ALEATORIO.nextInt(ALFABETO.length())));
+        }
+        return codigo.toString();
+    }
+}
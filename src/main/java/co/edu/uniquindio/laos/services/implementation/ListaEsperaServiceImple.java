@@ -0,0 +1,327 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cita.EsperaCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.RegistrarEsperaDTO;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.model.EsperaCita;
+import co.edu.uniquindio.laos.model.EstadoEspera;
+import co.edu.uniquindio.laos.repositories.ListaEsperaRepo;
+import co.edu.uniquindio.laos.services.interfaces.ApartadoHorarioService;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import co.edu.uniquindio.laos.services.interfaces.ListaEsperaService;
+import co.edu.uniquindio.laos.services.interfaces.NotificacionCitasService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Implementación de la lista de espera de citas.
+ *
+ * Un cliente se anota para un estilista, un servicio y una ventana de fechas. Cuando se cancela
+ * una cita futura, el horario se ofrece al cliente que lleva más tiempo esperando y cuya ventana
+ * lo contiene: la entrada se toma con un findAndModify (dos nodos nunca ofrecen el mismo horario
+ * a la misma persona) y el horario se le aparta con un apartado de la duración de la oferta, así
+ * que nadie más puede reservarlo mientras decide. Si confirma el apartado, la entrada queda
+ * ATENDIDA; si no, una tarea programada la pasa a EXPIRADA, suelta el apartado y ofrece el
+ * horario al siguiente. Las entradas se borran solas (índice TTL) cuando termina su ventana.
+ */
+@Service
+public class ListaEsperaServiceImple implements ListaEsperaService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "lista-espera";
+
+    private static final DateTimeFormatter FORMATO_FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final Set<EstadoEspera> ESTADOS_VIGENTES = Set.of(EstadoEspera.ACTIVA, EstadoEspera.OFRECIDA);
+
+    private final ListaEsperaRepo listaEsperaRepo;
+    private final ApartadoHorarioService apartadoHorarioService;
+    private final NotificacionCitasService notificacionCitasService;
+    private final CatalogoService catalogoService;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final Duration duracionOferta;
+    private final int maxDias;
+    private final int tamanioLote;
+    private final int maxLotes;
+    private final Duration duracionBloqueo;
+    private final Clock reloj;
+
+    private final Counter ofrecidas;
+    private final Counter sinEspera;
+    private final Counter ocupadas;
+    private final Counter fallidas;
+    private final Counter vencidas;
+
+    @Autowired
+    public ListaEsperaServiceImple(ListaEsperaRepo listaEsperaRepo,
+                                   ApartadoHorarioService apartadoHorarioService,
+                                   NotificacionCitasService notificacionCitasService,
+                                   CatalogoService catalogoService,
+                                   BloqueoTareaService bloqueoTareaService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${laos.lista-espera.oferta-minutos:15}") long minutosOferta,
+                                   @Value("${laos.lista-espera.max-dias:31}") int maxDias,
+                                   @Value("${laos.lista-espera.tamanio-lote:100}") int tamanioLote,
+                                   @Value("${laos.lista-espera.max-lotes:10}") int maxLotes,
+                                   @Value("${laos.lista-espera.bloqueo-segundos:120}") long bloqueoSegundos) {
+        this(listaEsperaRepo, apartadoHorarioService, notificacionCitasService, catalogoService, bloqueoTareaService,
+                meterRegistry, minutosOferta, maxDias, tamanioLote, maxLotes, bloqueoSegundos, Clock.systemDefaultZone());
+    }
+
+    ListaEsperaServiceImple(ListaEsperaRepo listaEsperaRepo,
+                            ApartadoHorarioService apartadoHorarioService,
+                            NotificacionCitasService notificacionCitasService,
+                            CatalogoService catalogoService,
+                            BloqueoTareaService bloqueoTareaService,
+                            MeterRegistry meterRegistry,
+                            long minutosOferta,
+                            int maxDias,
+                            int tamanioLote,
+                            int maxLotes,
+                            long bloqueoSegundos,
+                            Clock reloj) {
+        this.listaEsperaRepo = listaEsperaRepo;
+        this.apartadoHorarioService = apartadoHorarioService;
+        this.notificacionCitasService = notificacionCitasService;
+        this.catalogoService = catalogoService;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.duracionOferta = Duration.ofMinutes(minutosOferta);
+        this.maxDias = maxDias;
+        this.tamanioLote = tamanioLote;
+        this.maxLotes = maxLotes;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.reloj = reloj;
+        this.ofrecidas = contador(meterRegistry, "ofrecida");
+        this.sinEspera = contador(meterRegistry, "sin_espera");
+        this.ocupadas = contador(meterRegistry, "ocupado");
+        this.fallidas = contador(meterRegistry, "error");
+        this.vencidas = Counter.builder("laos.lista-espera.vencidas")
+                .description("Ofertas de la lista de espera que vencieron sin confirmarse")
+                .register(meterRegistry);
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("laos.lista-espera.ofertas")
+                .description("Horarios liberados ofrecidos a la lista de espera, por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Anota a un cliente en la lista de espera de un estilista y un servicio
+     * @param registrarEsperaDTO Cliente, estilista, servicio y ventana de fechas aceptable
+     * @return Identificador de la entrada creada
+     * @throws Exception Si la ventana no es válida o el estilista o el servicio no existen
+     */
+    @Override
+    public String registrar(RegistrarEsperaDTO registrarEsperaDTO) throws Exception {
+        LocalDateTime desde;
+        LocalDateTime hasta;
+        try {
+            desde = LocalDateTime.parse(registrarEsperaDTO.desde(), FORMATO_FECHA_HORA);
+            hasta = LocalDateTime.parse(registrarEsperaDTO.hasta(), FORMATO_FECHA_HORA);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new RangoFechasInvalidoException("Las fechas deben tener el formato yyyy-MM-dd HH:mm");
+        }
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        if (!desde.isBefore(hasta)) {
+            throw new RangoFechasInvalidoException("La fecha inicial debe ser anterior a la final");
+        }
+        if (!hasta.isAfter(ahora)) {
+            throw new RangoFechasInvalidoException("La ventana de espera ya terminó");
+        }
+        if (hasta.isAfter(ahora.plusDays(maxDias))) {
+            throw new RangoFechasInvalidoException("La ventana de espera no puede superar " + maxDias + " días desde hoy");
+        }
+        if (!catalogoService.obtenerEstilistasPorId(Set.of(registrarEsperaDTO.idEstilista())).containsKey(registrarEsperaDTO.idEstilista())) {
+            throw new RecursoNoEncontradoException("No existe un estilista con el id: " + registrarEsperaDTO.idEstilista());
+        }
+        if (!catalogoService.obtenerServiciosPorId(Set.of(registrarEsperaDTO.idServicio())).containsKey(registrarEsperaDTO.idServicio())) {
+            throw new RecursoNoEncontradoException("No existe un servicio con el id: " + registrarEsperaDTO.idServicio());
+        }
+
+        EsperaCita espera = EsperaCita.builder()
+                .usuarioId(registrarEsperaDTO.idCliente())
+                .estilistaId(registrarEsperaDTO.idEstilista())
+                .servicioId(registrarEsperaDTO.idServicio())
+                .desde(desde)
+                .hasta(hasta)
+                .estado(EstadoEspera.ACTIVA)
+                .fechaRegistro(reloj.instant())
+                .build();
+        return listaEsperaRepo.save(espera).getId();
+    }
+
+    /**
+     * Saca a un cliente de la lista de espera. Si tenía un horario ofrecido, lo suelta y lo
+     * ofrece al siguiente en la lista.
+     * @param esperaId Identificador de la entrada
+     * @param clienteId Cliente dueño de la entrada
+     * @throws Exception Si la entrada no existe, no es del cliente o ya no está vigente
+     */
+    @Override
+    public void cancelar(String esperaId, String clienteId) throws Exception {
+        EsperaCita espera = listaEsperaRepo.cancelar(esperaId, clienteId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("No existe una espera vigente con el id: " + esperaId));
+
+        if (espera.getEstado() == EstadoEspera.OFRECIDA) {
+            soltarOferta(espera);
+        }
+    }
+
+    /**
+     * Lista las entradas vigentes de un cliente, de la más antigua a la más reciente
+     * @param clienteId Identificador del cliente
+     * @return Entradas activas u ofrecidas
+     */
+    @Override
+    public List<EsperaCitaDTO> obtenerEsperas(String clienteId) {
+        return listaEsperaRepo.buscarPorUsuario(clienteId, ESTADOS_VIGENTES).stream()
+                .map(espera -> new EsperaCitaDTO(
+                        espera.getId(),
+                        espera.getEstilistaId(),
+                        espera.getServicioId(),
+                        formatear(espera.getDesde()),
+                        formatear(espera.getHasta()),
+                        espera.getEstado(),
+                        espera.getApartadoId(),
+                        formatear(espera.getOfertaFechaHora()),
+                        espera.getOfertaExpiraEn() == null ? null : espera.getOfertaExpiraEn().toString()))
+                .toList();
+    }
+
+    /**
+     * Ofrece un horario que se acaba de liberar al cliente que lleva más tiempo esperando por él.
+     * Nunca lanza excepciones: quien libera el horario ya terminó su operación y la oferta es un
+     * efecto secundario.
+     * @param estilistaId Estilista del horario
+     * @param servicioId Servicio de la cita que liberó el horario
+     * @param inicio Inicio del horario
+     * @param fin Fin del horario
+     * @return true si el horario quedó apartado para un cliente de la lista
+     */
+    @Override
+    public boolean ofrecerHorario(String estilistaId, String servicioId, LocalDateTime inicio, LocalDateTime fin) {
+        if (estilistaId == null || servicioId == null || inicio == null || fin == null
+                || !inicio.isAfter(LocalDateTime.now(reloj))) {
+            return false;
+        }
+
+        Optional<EsperaCita> siguiente;
+        try {
+            siguiente = listaEsperaRepo.tomarSiguiente(estilistaId, servicioId, inicio, fin,
+                    reloj.instant().plus(duracionOferta));
+        } catch (RuntimeException e) {
+            fallidas.increment();
+            return false;
+        }
+        if (siguiente.isEmpty()) {
+            sinEspera.increment();
+            return false;
+        }
+
+        EsperaCita espera = siguiente.get();
+        ApartadoHorario apartado;
+        try {
+            apartado = apartadoHorarioService.apartar(espera.getUsuarioId(), estilistaId, servicioId, inicio, fin, duracionOferta);
+        } catch (Exception e) {
+            // Otro cliente tomó el horario antes: la espera vuelve a su lugar en la lista
+            listaEsperaRepo.devolver(espera.getId());
+            ocupadas.increment();
+            return false;
+        }
+
+        try {
+            listaEsperaRepo.registrarApartado(espera.getId(), apartado.getId());
+        } catch (RuntimeException e) {
+            apartadoHorarioService.liberar(apartado.getId());
+            listaEsperaRepo.devolver(espera.getId());
+            fallidas.increment();
+            return false;
+        }
+        notificacionCitasService.notificarOfertaListaEspera(apartado);
+        ofrecidas.increment();
+        return true;
+    }
+
+    /**
+     * Marca como atendida la espera cuyo horario ofrecido se confirmó
+     * @param apartadoId Apartado que se convirtió en cita
+     */
+    @Override
+    public void marcarAtendida(String apartadoId) {
+        listaEsperaRepo.marcarAtendida(apartadoId);
+    }
+
+    /**
+     * Vence las ofertas que no se confirmaron a tiempo y ofrece cada horario al siguiente en la lista
+     * @return Número de ofertas vencidas en esta ejecución; 0 si otro nodo tiene la tarea
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${laos.lista-espera.vencimiento-ms:60000}")
+    public int procesarOfertasVencidas() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+
+        int total = 0;
+        try {
+            for (int lote = 0; lote < maxLotes; lote++) {
+                List<EsperaCita> vencidasLote = listaEsperaRepo.buscarOfertasVencidas(reloj.instant(), tamanioLote);
+                if (vencidasLote.isEmpty()) {
+                    break;
+                }
+                for (EsperaCita espera : vencidasLote) {
+                    // Si el cliente confirmó o canceló entre la búsqueda y aquí, la entrada ya no está OFRECIDA
+                    if (listaEsperaRepo.vencerOferta(espera.getId())) {
+                        vencidas.increment();
+                        total++;
+                        soltarOferta(espera);
+                    }
+                }
+
+                if (vencidasLote.size() < tamanioLote || !bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+                    break;
+                }
+            }
+        } finally {
+            bloqueoTareaService.liberar(TAREA);
+        }
+        return total;
+    }
+
+    /**
+     * Suelta el apartado de una oferta que ya no se va a confirmar y ofrece el horario al siguiente.
+     * El apartado se libera sin esperar al monitor TTL de MongoDB para que el horario quede libre enseguida.
+     */
+    private void soltarOferta(EsperaCita espera) {
+        if (espera.getApartadoId() != null) {
+            apartadoHorarioService.liberar(espera.getApartadoId());
+        }
+        ofrecerHorario(espera.getEstilistaId(), espera.getServicioId(),
+                espera.getOfertaFechaHora(), espera.getOfertaFechaHoraFin());
+    }
+
+    private String formatear(LocalDateTime fechaHora) {
+        return fechaHora == null ? null : fechaHora.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
@@ -0,0 +1,144 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.repositories.QuejaSugerenciaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.MigracionEnlacesUsuarioService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementación de la migración en línea de los enlaces a usuarios.
+ *
+ * Los cupones y las quejas y sugerencias guardaban al cliente con @DBRef; ahora lo guardan como
+ * ObjectId en usuarioId. Esta tarea pasa los documentos anteriores al campo nuevo en lotes de
+ * tamaño fijo (una lectura y una escritura masiva por lote), con un máximo de lotes por ejecución
+ * y bajo el arriendo de BloqueoTareaService, mientras la aplicación sigue atendiendo. Mientras
+ * queden documentos sin migrar, las consultas por cliente buscan también por usuario.$id. Cada
+ * colección se da por terminada cuando el conteo de documentos con usuario.$id llega a 0, no por
+ * un lote incompleto; el conteo queda en laos.migracion.enlaces-usuario.pendientes y, cuando esté
+ * en 0 para las dos colecciones, se pueden quitar esa rama de las consultas y los índices
+ * anteriores.
+ */
+@Service
+public class MigracionEnlacesUsuarioServiceImple implements MigracionEnlacesUsuarioService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "migrar-enlaces-usuario";
+
+    private final CuponRepo cuponRepo;
+    private final QuejaSugerenciaRepo quejaSugerenciaRepo;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final int tamanioLote;
+    private final int maxLotes;
+    private final Duration duracionBloqueo;
+
+    private final Counter cuponesMigrados;
+    private final Counter quejasMigradas;
+
+    /**
+     * Documentos con el enlace anterior según el último conteo; -1 mientras no se haya contado
+     */
+    private final AtomicLong cuponesPendientes = new AtomicLong(-1);
+    private final AtomicLong quejasPendientes = new AtomicLong(-1);
+
+    @Autowired
+    public MigracionEnlacesUsuarioServiceImple(CuponRepo cuponRepo,
+                                               QuejaSugerenciaRepo quejaSugerenciaRepo,
+                                               BloqueoTareaService bloqueoTareaService,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${laos.migracion.enlaces-usuario.tamanio-lote:500}") int tamanioLote,
+                                               @Value("${laos.migracion.enlaces-usuario.max-lotes:20}") int maxLotes,
+                                               @Value("${laos.migracion.enlaces-usuario.bloqueo-segundos:300}") long bloqueoSegundos) {
+        this.cuponRepo = cuponRepo;
+        this.quejaSugerenciaRepo = quejaSugerenciaRepo;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.tamanioLote = tamanioLote;
+        this.maxLotes = maxLotes;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.cuponesMigrados = contador(meterRegistry, "cupones");
+        this.quejasMigradas = contador(meterRegistry, "quejas_sugerencias");
+        pendientes(meterRegistry, "cupones", cuponesPendientes);
+        pendientes(meterRegistry, "quejas_sugerencias", quejasPendientes);
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String coleccion) {
+        return Counter.builder("laos.migracion.enlaces-usuario.migrados")
+                .description("Documentos que dejaron el enlace @DBRef, pasados a usuarioId o resueltos como conflicto")
+                .tag("coleccion", coleccion)
+                .register(meterRegistry);
+    }
+
+    private static void pendientes(MeterRegistry meterRegistry, String coleccion, AtomicLong pendientes) {
+        Gauge.builder("laos.migracion.enlaces-usuario.pendientes", pendientes, AtomicLong::get)
+                .description("Documentos que aún tienen el enlace @DBRef a usuario")
+                .tag("coleccion", coleccion)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pasa a usuarioId los cupones y luego las quejas y sugerencias que aún tienen el enlace anterior
+     * @return Documentos migrados en esta ejecución; 0 si otro nodo tiene la tarea o ya no quedan
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${laos.migracion.enlaces-usuario.intervalo-ms:60000}")
+    public int migrarEnlaces() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+
+        int total = 0;
+        try {
+            int[] lotesRestantes = {maxLotes};
+            total += migrar(cuponRepo::migrarEnlacesUsuario, cuponRepo::contarEnlacesUsuarioPendientes,
+                    cuponesMigrados, cuponesPendientes, lotesRestantes);
+            total += migrar(quejaSugerenciaRepo::migrarEnlacesUsuario, quejaSugerenciaRepo::contarEnlacesUsuarioPendientes,
+                    quejasMigradas, quejasPendientes, lotesRestantes);
+        } finally {
+            bloqueoTareaService.liberar(TAREA);
+        }
+        return total;
+    }
+
+    /**
+     * Migra lotes de una colección hasta que el conteo de pendientes llegue a 0, se agoten los lotes
+     * de la ejecución o se pierda el arriendo
+     */
+    private int migrar(IntToLongFunction migrarLote, LongSupplier contarPendientes, Counter migrados,
+                       AtomicLong pendientes, int[] lotesRestantes) {
+        if (lotesRestantes[0] == 0) {
+            return 0;
+        }
+        int total = 0;
+        pendientes.set(contarPendientes.getAsLong());
+        while (pendientes.get() > 0 && lotesRestantes[0] > 0) {
+            lotesRestantes[0]--;
+            long modificados = migrarLote.applyAsLong(tamanioLote);
+            total += (int) modificados;
+            migrados.increment(modificados);
+            pendientes.set(contarPendientes.getAsLong());
+
+            // Un lote sin cambios significa que todo lo leído cambió antes de escribirlo; se sigue en la
+            // siguiente ejecución. Si se perdió el arriendo, otro nodo sigue
+            if (modificados == 0) {
+                break;
+            }
+            if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+                lotesRestantes[0] = 0;
+            }
+        }
+        return total;
+    }
+}
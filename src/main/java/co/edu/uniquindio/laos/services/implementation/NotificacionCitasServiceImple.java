@@ -0,0 +1,113 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.EmailDTO;
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.UsuarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.EmailService;
+import co.edu.uniquindio.laos.services.interfaces.NotificacionCitasService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de los avisos a clientes por cambios en sus citas.
+ *
+ * Se ejecuta fuera del hilo de la petición: la operación masiva responde en cuanto escribe
+ * los cambios y los correos salen después. Los clientes de todas las citas se leen con una
+ * sola consulta; un correo que falla no detiene los demás y queda contado en las métricas.
+ */
+@Service
+public class NotificacionCitasServiceImple implements NotificacionCitasService {
+
+    private static final DateTimeFormatter FORMATO_FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final UsuarioRepo usuarioRepo;
+    private final EmailService emailService;
+    private final Counter enviadas;
+    private final Counter fallidas;
+
+    public NotificacionCitasServiceImple(UsuarioRepo usuarioRepo, EmailService emailService, MeterRegistry meterRegistry) {
+        this.usuarioRepo = usuarioRepo;
+        this.emailService = emailService;
+        this.enviadas = Counter.builder("laos.citas.notificaciones")
+                .description("Avisos de cambios en citas enviados a clientes")
+                .tag("resultado", "enviada")
+                .register(meterRegistry);
+        this.fallidas = Counter.builder("laos.citas.notificaciones")
+                .description("Avisos de cambios en citas enviados a clientes")
+                .tag("resultado", "fallida")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Avisa a cada cliente que su cita pasó a otro estilista o fue cancelada
+     * @param reasignadas Citas que ya tienen el nuevo estilista
+     * @param canceladas Citas canceladas porque no hubo estilista libre
+     */
+    @Override
+    @Async
+    public void notificarCambiosDeEstilista(List<Cita> reasignadas, List<Cita> canceladas) {
+        Set<String> idsClientes = new HashSet<>();
+        reasignadas.forEach(cita -> idsClientes.add(cita.getUsuarioId()));
+        canceladas.forEach(cita -> idsClientes.add(cita.getUsuarioId()));
+        idsClientes.remove(null);
+        if (idsClientes.isEmpty()) {
+            return;
+        }
+
+        Map<String, Usuario> clientes = usuarioRepo.findAllById(idsClientes).stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+
+        for (Cita cita : reasignadas) {
+            enviar(clientes.get(cita.getUsuarioId()), "Cambio de estilista en su cita",
+                    "Su cita del " + FORMATO_FECHA_HORA.format(cita.getFechaHora()) + " se mantiene, ahora con "
+                            + (cita.getEstilistaNombre() == null ? "otro estilista" : cita.getEstilistaNombre())
+                            + ", porque su estilista no estará disponible.");
+        }
+        for (Cita cita : canceladas) {
+            enviar(clientes.get(cita.getUsuarioId()), "Cita cancelada",
+                    "Su cita del " + FORMATO_FECHA_HORA.format(cita.getFechaHora())
+                            + " fue cancelada porque su estilista no estará disponible. Puede reservar un nuevo horario.");
+        }
+    }
+
+    /**
+     * Avisa a un cliente de la lista de espera que se liberó un horario y quedó apartado para él
+     * @param apartado Apartado a nombre del cliente, con su vencimiento
+     */
+    @Override
+    @Async
+    public void notificarOfertaListaEspera(ApartadoHorario apartado) {
+        Usuario cliente = apartado.getUsuarioId() == null ? null : usuarioRepo.findById(apartado.getUsuarioId()).orElse(null);
+        enviar(cliente, "Se liberó un horario para usted",
+                "Se liberó el horario del " + FORMATO_FECHA_HORA.format(apartado.getFechaHora())
+                        + " que esperaba. Lo guardamos a su nombre hasta las "
+                        + FORMATO_FECHA_HORA.format(apartado.getExpiraEn().atZone(ZoneId.systemDefault()))
+                        + "; para reservarlo confirme el apartado " + apartado.getId() + ".");
+    }
+
+    private void enviar(Usuario cliente, String asunto, String cuerpo) {
+        if (cliente == null || cliente.getEmail() == null) {
+            fallidas.increment();
+            return;
+        }
+        try {
+            emailService.enviarCorreo(new EmailDTO(asunto, cuerpo, cliente.getEmail()));
+            enviadas.increment();
+        } catch (Exception e) {
+            fallidas.increment();
+        }
+    }
+}
@@ -0,0 +1,619 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.Servicio;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import co.edu.uniquindio.laos.services.interfaces.OcupacionAgendaService;
+import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Implementación del servicio de ocupación de agenda.
+ *
+ * Mantiene en memoria, por estilista y por día, un mapa de bits con una franja de 15 minutos
+ * por bit (96 franjas en dos long) junto con los intervalos exactos de las citas de ese día.
+ * Las comprobaciones de conflicto y las búsquedas de disponibilidad se responden desde aquí;
+ * solo los días que aún no están en memoria se cargan desde la base de datos, con una única
+ * consulta para todos los estilistas y días que falten.
+ *
+ * Cada día es una instantánea inmutable que se reemplaza completa al crear, cancelar o
+ * reprogramar una cita, por lo que las lecturas no toman bloqueos. Solo se guardan días de hoy
+ * en adelante, hasta un máximo configurable, y una tarea nocturna descarta los días pasados.
+ * Otra tarea periódica compara lo guardado con la base de datos y corrige las diferencias.
+ * Los reclamos de ReservaHorarioService siguen siendo la garantía frente a reservas dobles.
+ *
+ * Lo guardado en memoria es local a cada nodo y puede quedar atrás de un cambio hecho en otro,
+ * así que un cruce encontrado en memoria es solo un indicio: antes de rechazar se confirma con
+ * reservas_horario y, si el horario no está reclamado, se descartan esos días y se vuelven a
+ * cargar desde la base de datos.
+ */
+@Service
+public class OcupacionAgendaServiceImple implements OcupacionAgendaService {
+
+    /**
+     * Tamaño en minutos de cada franja del mapa de bits, igual al bloque de los reclamos
+     */
+    static final int MINUTOS_POR_FRANJA = ReservaHorarioServiceImple.MINUTOS_POR_BLOQUE;
+
+    /**
+     * Número de franjas de un día
+     */
+    private static final int FRANJAS_POR_DIA = 24 * 60 / MINUTOS_POR_FRANJA;
+
+    /**
+     * Duración asumida para citas cuyo servicio no define duración
+     */
+    private static final int DURACION_POR_DEFECTO_MINUTOS = 60;
+
+    private final CitaRepo citaRepo;
+    private final CatalogoService catalogoService;
+    private final ReservaHorarioService reservaHorarioService;
+    private final Clock reloj;
+    private final int maxDias;
+
+    /**
+     * Ocupación de cada (estilista, día) guardado en memoria
+     */
+    private final Map<ClaveDia, OcupacionDia> dias = new ConcurrentHashMap<>();
+
+    /**
+     * Contador de modificaciones por estilista. Una carga desde la base de datos solo se
+     * publica si nadie modificó la agenda del estilista mientras se consultaba.
+     */
+    private final Map<String, AtomicLong> generaciones = new ConcurrentHashMap<>();
+
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter inconsistencias;
+
+    @Autowired
+    public OcupacionAgendaServiceImple(CitaRepo citaRepo,
+                                       CatalogoService catalogoService,
+                                       ReservaHorarioService reservaHorarioService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${laos.agenda.ocupacion.max-dias:5000}") int maxDias) {
+        this(citaRepo, catalogoService, reservaHorarioService, meterRegistry, maxDias, Clock.systemDefaultZone());
+    }
+
+    OcupacionAgendaServiceImple(CitaRepo citaRepo,
+                                CatalogoService catalogoService,
+                                ReservaHorarioService reservaHorarioService,
+                                MeterRegistry meterRegistry,
+                                int maxDias,
+                                Clock reloj) {
+        this.citaRepo = citaRepo;
+        this.catalogoService = catalogoService;
+        this.reservaHorarioService = reservaHorarioService;
+        this.maxDias = maxDias;
+        this.reloj = reloj;
+        this.aciertos = Counter.builder("laos.agenda.ocupacion")
+                .description("Lecturas de la ocupación de agenda en memoria")
+                .tag("resultado", "acierto")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("laos.agenda.ocupacion")
+                .description("Lecturas de la ocupación de agenda en memoria")
+                .tag("resultado", "fallo")
+                .register(meterRegistry);
+        this.inconsistencias = Counter.builder("laos.agenda.ocupacion.inconsistencias")
+                .description("Días en memoria que no coincidían con la base de datos")
+                .register(meterRegistry);
+        Gauge.builder("laos.agenda.ocupacion.dias", dias, Map::size)
+                .description("Días de agenda guardados en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indica si el intervalo [inicio, fin) se cruza con alguna cita activa del estilista.
+     * Primero se consulta el mapa de bits; solo si hay franjas ocupadas se comparan los
+     * intervalos exactos de las citas del día. Un cruce se confirma con los reclamos antes
+     * de darlo por cierto.
+     * @param estilistaId Identificador del estilista
+     * @param inicio Inicio del intervalo
+     * @param fin Fin del intervalo
+     * @param citaExcluida Cita que no se tiene en cuenta (la que se reprograma), puede ser null
+     * @return true si existe al menos una cita que se cruza con el intervalo
+     */
+    @Override
+    public boolean existeSolapamiento(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaExcluida) {
+        if (!cruzaEnMemoria(estilistaId, inicio, fin, citaExcluida)) {
+            return false;
+        }
+        if (reservaHorarioService.estaReclamado(estilistaId, inicio, fin, citaExcluida)) {
+            return true;
+        }
+        descartar(estilistaId, inicio, fin);
+        return cruzaEnMemoria(estilistaId, inicio, fin, citaExcluida);
+    }
+
+    /**
+     * Indica cuáles de varios intervalos de un mismo estilista se cruzan con sus citas activas.
+     * Solo se leen los días que tocan los intervalos, y los que falten en memoria se cargan
+     * juntos con una sola consulta, así que revisar una serie larga cuesta casi lo mismo que
+     * revisar una cita. Los cruces que no confirmen los reclamos se revisan otra vez con los
+     * días recargados desde la base de datos.
+     * @param estilistaId Identificador del estilista
+     * @param intervalos Intervalos a revisar
+     * @return Posiciones (en la lista recibida) de los intervalos que se cruzan con alguna cita
+     */
+    @Override
+    public Set<Integer> buscarSolapamientos(String estilistaId, List<Intervalo> intervalos) {
+        Set<Integer> cruzados = cruzanEnMemoria(estilistaId, intervalos);
+
+        Set<Integer> sinConfirmar = new HashSet<>();
+        for (int i : cruzados) {
+            Intervalo intervalo = intervalos.get(i);
+            if (!reservaHorarioService.estaReclamado(estilistaId, intervalo.inicio(), intervalo.fin(), null)) {
+                sinConfirmar.add(i);
+                descartar(estilistaId, intervalo.inicio(), intervalo.fin());
+            }
+        }
+        if (sinConfirmar.isEmpty()) {
+            return cruzados;
+        }
+
+        Set<Integer> confirmados = new HashSet<>(cruzados);
+        confirmados.removeAll(sinConfirmar);
+        List<Intervalo> revisar = sinConfirmar.stream().sorted().map(intervalos::get).toList();
+        List<Integer> posiciones = sinConfirmar.stream().sorted().toList();
+        for (int i : cruzanEnMemoria(estilistaId, revisar)) {
+            confirmados.add(posiciones.get(i));
+        }
+        return confirmados;
+    }
+
+    /**
+     * Obtiene los intervalos ocupados de varios estilistas en un rango de días
+     * @param idsEstilistas Identificadores de los estilistas
+     * @param desde Primer día del rango
+     * @param hasta Último día del rango, incluido
+     * @return Mapa estilista -> intervalos ocupados, alineados a las franjas y ordenados
+     */
+    @Override
+    public Map<String, List<Intervalo>> obtenerOcupados(Collection<String> idsEstilistas, LocalDate desde, LocalDate hasta) {
+        Map<ClaveDia, OcupacionDia> ocupacion = obtenerDias(idsEstilistas, desde, hasta);
+
+        Map<String, List<Intervalo>> ocupados = new HashMap<>();
+        for (String estilistaId : idsEstilistas) {
+            List<Intervalo> intervalos = new ArrayList<>();
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                intervalos.addAll(ocupacion.get(new ClaveDia(estilistaId, dia)).ocupados());
+            }
+            ocupados.put(estilistaId, intervalos);
+        }
+        return ocupados;
+    }
+
+    /**
+     * Agrega una cita a los días en memoria que abarca
+     * @param estilistaId Identificador del estilista
+     * @param citaId Identificador de la cita
+     * @param inicio Inicio de la cita
+     * @param fin Fin de la cita
+     */
+    @Override
+    public void registrar(String estilistaId, String citaId, LocalDateTime inicio, LocalDateTime fin) {
+        Intervalo intervalo = new Intervalo(inicio, fin);
+        modificar(estilistaId, inicio, fin, dia -> dia.con(citaId, intervalo));
+    }
+
+    /**
+     * Quita una cita de los días en memoria que abarcaba
+     * @param estilistaId Identificador del estilista
+     * @param citaId Identificador de la cita
+     * @param inicio Inicio que tenía la cita
+     * @param fin Fin que tenía la cita
+     */
+    @Override
+    public void eliminar(String estilistaId, String citaId, LocalDateTime inicio, LocalDateTime fin) {
+        modificar(estilistaId, inicio, fin, dia -> dia.sin(citaId));
+    }
+
+    /**
+     * Descarta de memoria los días anteriores a hoy
+     */
+    @Override
+    @Scheduled(cron = "${laos.agenda.ocupacion.cron-limpieza:0 5 0 * * *}")
+    public void descartarDiasPasados() {
+        LocalDate hoy = LocalDate.now(reloj);
+        dias.keySet().removeIf(clave -> clave.dia().isBefore(hoy));
+    }
+
+    /**
+     * Compara todos los días en memoria con la base de datos usando una sola consulta
+     * y reemplaza los que no coincidan
+     * @return Número de días que estaban desactualizados
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${laos.agenda.ocupacion.verificacion-ms:600000}",
+            initialDelayString = "${laos.agenda.ocupacion.verificacion-ms:600000}")
+    public int verificarConsistencia() {
+        Map<ClaveDia, OcupacionDia> actuales = new HashMap<>(dias);
+        if (actuales.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> idsEstilistas = new HashSet<>();
+        LocalDate desde = null;
+        LocalDate hasta = null;
+        for (ClaveDia clave : actuales.keySet()) {
+            idsEstilistas.add(clave.estilistaId());
+            desde = desde == null || clave.dia().isBefore(desde) ? clave.dia() : desde;
+            hasta = hasta == null || clave.dia().isAfter(hasta) ? clave.dia() : hasta;
+        }
+
+        Map<String, Long> generacionesIniciales = leerGeneraciones(idsEstilistas);
+        Map<ClaveDia, Map<String, Intervalo>> esperadas = cargarDesdeBaseDeDatos(idsEstilistas, desde, hasta);
+
+        int diferencias = 0;
+        for (Map.Entry<ClaveDia, OcupacionDia> entrada : actuales.entrySet()) {
+            ClaveDia clave = entrada.getKey();
+            OcupacionDia esperada = OcupacionDia.construir(clave.dia(), esperadas.getOrDefault(clave, Map.of()));
+            if (!esperada.equivaleA(entrada.getValue())) {
+                diferencias++;
+                inconsistencias.increment();
+                AtomicLong generacion = generacion(clave.estilistaId());
+                synchronized (generacion) {
+                    if (generacion.get() == generacionesIniciales.get(clave.estilistaId())) {
+                        dias.replace(clave, entrada.getValue(), esperada);
+                    } else {
+                        // La agenda cambió durante la verificación; se recargará en la próxima lectura
+                        dias.remove(clave);
+                    }
+                }
+            }
+        }
+        return diferencias;
+    }
+
+    /**
+     * Indica si el intervalo se cruza con alguna cita según los días en memoria, cargando los que falten
+     */
+    private boolean cruzaEnMemoria(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaExcluida) {
+        Map<ClaveDia, OcupacionDia> ocupacion = obtenerDias(List.of(estilistaId), inicio.toLocalDate(), ultimoDia(fin));
+        for (OcupacionDia dia : ocupacion.values()) {
+            if (dia.cruzaCon(inicio, fin, citaExcluida)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Posiciones de los intervalos que se cruzan con alguna cita según los días en memoria.
+     * Los días que falten se cargan juntos con una sola consulta.
+     */
+    private Set<Integer> cruzanEnMemoria(String estilistaId, List<Intervalo> intervalos) {
+        Set<LocalDate> diasTocados = new TreeSet<>();
+        for (Intervalo intervalo : intervalos) {
+            for (LocalDate dia = intervalo.inicio().toLocalDate(); !dia.isAfter(ultimoDia(intervalo.fin())); dia = dia.plusDays(1)) {
+                diasTocados.add(dia);
+            }
+        }
+        if (diasTocados.isEmpty()) {
+            return Set.of();
+        }
+        Map<ClaveDia, OcupacionDia> ocupacion = obtenerDias(List.of(estilistaId), diasTocados);
+
+        Set<Integer> cruzados = new HashSet<>();
+        for (int i = 0; i < intervalos.size(); i++) {
+            Intervalo intervalo = intervalos.get(i);
+            for (LocalDate dia = intervalo.inicio().toLocalDate(); !dia.isAfter(ultimoDia(intervalo.fin())); dia = dia.plusDays(1)) {
+                if (ocupacion.get(new ClaveDia(estilistaId, dia)).cruzaCon(intervalo.inicio(), intervalo.fin(), null)) {
+                    cruzados.add(i);
+                    break;
+                }
+            }
+        }
+        return cruzados;
+    }
+
+    /**
+     * Descarta de memoria los días que abarca un intervalo cuyo cruce no confirmaron los reclamos,
+     * para que la siguiente lectura los cargue desde la base de datos
+     */
+    private void descartar(String estilistaId, LocalDateTime inicio, LocalDateTime fin) {
+        AtomicLong generacion = generacion(estilistaId);
+        synchronized (generacion) {
+            generacion.incrementAndGet();
+            for (LocalDate dia = inicio.toLocalDate(); !dia.isAfter(ultimoDia(fin)); dia = dia.plusDays(1)) {
+                if (dias.remove(new ClaveDia(estilistaId, dia)) != null) {
+                    inconsistencias.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene la ocupación de varios estilistas y días, cargando los que falten con una sola consulta
+     * @param idsEstilistas Identificadores de los estilistas
+     * @param desde Primer día
+     * @param hasta Último día, incluido
+     * @return Ocupación de cada (estilista, día) solicitado
+     */
+    private Map<ClaveDia, OcupacionDia> obtenerDias(Collection<String> idsEstilistas, LocalDate desde, LocalDate hasta) {
+        List<LocalDate> rango = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            rango.add(dia);
+        }
+        return obtenerDias(idsEstilistas, rango);
+    }
+
+    /**
+     * Obtiene la ocupación de varios estilistas en días sueltos. Los que falten se cargan con
+     * una sola consulta entre el primer y el último día faltante.
+     * @param idsEstilistas Identificadores de los estilistas
+     * @param diasConsultados Días a obtener, no necesariamente consecutivos
+     * @return Ocupación de cada (estilista, día) solicitado
+     */
+    private Map<ClaveDia, OcupacionDia> obtenerDias(Collection<String> idsEstilistas, Collection<LocalDate> diasConsultados) {
+        Map<ClaveDia, OcupacionDia> resultado = new HashMap<>();
+        List<ClaveDia> faltantes = new ArrayList<>();
+        for (String estilistaId : idsEstilistas) {
+            for (LocalDate dia : diasConsultados) {
+                ClaveDia clave = new ClaveDia(estilistaId, dia);
+                OcupacionDia ocupacion = dias.get(clave);
+                if (ocupacion != null) {
+                    resultado.put(clave, ocupacion);
+                } else {
+                    faltantes.add(clave);
+                }
+            }
+        }
+        aciertos.increment(resultado.size());
+        fallos.increment(faltantes.size());
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+
+        Set<String> estilistasFaltantes = new HashSet<>();
+        LocalDate primerFaltante = null;
+        LocalDate ultimoFaltante = null;
+        for (ClaveDia clave : faltantes) {
+            estilistasFaltantes.add(clave.estilistaId());
+            primerFaltante = primerFaltante == null || clave.dia().isBefore(primerFaltante) ? clave.dia() : primerFaltante;
+            ultimoFaltante = ultimoFaltante == null || clave.dia().isAfter(ultimoFaltante) ? clave.dia() : ultimoFaltante;
+        }
+
+        Map<String, Long> generacionesIniciales = leerGeneraciones(estilistasFaltantes);
+        Map<ClaveDia, Map<String, Intervalo>> cargadas =
+                cargarDesdeBaseDeDatos(estilistasFaltantes, primerFaltante, ultimoFaltante);
+
+        LocalDate hoy = LocalDate.now(reloj);
+        for (ClaveDia clave : faltantes) {
+            OcupacionDia ocupacion = OcupacionDia.construir(clave.dia(), cargadas.getOrDefault(clave, Map.of()));
+            resultado.put(clave, ocupacion);
+            if (!clave.dia().isBefore(hoy) && dias.size() < maxDias) {
+                publicar(clave, ocupacion, generacionesIniciales.get(clave.estilistaId()));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Consulta las citas activas de los estilistas en el rango de días y las agrupa por (estilista, día)
+     * @param idsEstilistas Identificadores de los estilistas
+     * @param desde Primer día
+     * @param hasta Último día, incluido
+     * @return Citas de cada (estilista, día) indexadas por identificador
+     */
+    private Map<ClaveDia, Map<String, Intervalo>> cargarDesdeBaseDeDatos(Collection<String> idsEstilistas,
+                                                                         LocalDate desde, LocalDate hasta) {
+        // Se amplía hacia atrás la duración máxima para incluir citas que empezaron antes y siguen en curso
+        List<Cita> citas = citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(
+                idsEstilistas,
+                desde.atStartOfDay().minusMinutes(obtenerDuracionMaxima()),
+                hasta.plusDays(1).atStartOfDay());
+
+        Map<ClaveDia, Map<String, Intervalo>> agrupadas = new HashMap<>();
+        for (Cita cita : citas) {
+            Intervalo intervalo = new Intervalo(cita.getFechaHora(), calcularFechaHoraFin(cita));
+            for (LocalDate dia = intervalo.inicio().toLocalDate(); !dia.isAfter(ultimoDia(intervalo.fin())); dia = dia.plusDays(1)) {
+                if (!dia.isBefore(desde) && !dia.isAfter(hasta)) {
+                    agrupadas.computeIfAbsent(new ClaveDia(cita.getEstilistaId(), dia), k -> new HashMap<>())
+                            .put(cita.getId(), intervalo);
+                }
+            }
+        }
+        return agrupadas;
+    }
+
+    /**
+     * Guarda en memoria un día recién cargado si la agenda del estilista no cambió mientras se consultaba
+     */
+    private void publicar(ClaveDia clave, OcupacionDia ocupacion, long generacionInicial) {
+        AtomicLong generacion = generacion(clave.estilistaId());
+        synchronized (generacion) {
+            if (generacion.get() == generacionInicial) {
+                dias.putIfAbsent(clave, ocupacion);
+            }
+        }
+    }
+
+    /**
+     * Aplica un cambio a los días en memoria que abarca el intervalo. Los días que no están
+     * en memoria no se tocan: se cargarán ya actualizados desde la base de datos.
+     */
+    private void modificar(String estilistaId, LocalDateTime inicio, LocalDateTime fin,
+                           UnaryOperator<OcupacionDia> cambio) {
+        AtomicLong generacion = generacion(estilistaId);
+        synchronized (generacion) {
+            generacion.incrementAndGet();
+            for (LocalDate dia = inicio.toLocalDate(); !dia.isAfter(ultimoDia(fin)); dia = dia.plusDays(1)) {
+                dias.computeIfPresent(new ClaveDia(estilistaId, dia), (clave, ocupacion) -> cambio.apply(ocupacion));
+            }
+        }
+    }
+
+    private AtomicLong generacion(String estilistaId) {
+        return generaciones.computeIfAbsent(estilistaId, id -> new AtomicLong());
+    }
+
+    private Map<String, Long> leerGeneraciones(Collection<String> idsEstilistas) {
+        Map<String, Long> leidas = new HashMap<>();
+        for (String estilistaId : idsEstilistas) {
+            leidas.put(estilistaId, generacion(estilistaId).get());
+        }
+        return leidas;
+    }
+
+    /**
+     * Calcula la hora de finalización de una cita. Las citas anteriores a que se guardara
+     * fechaHoraFin la derivan de la duración actual de su servicio.
+     */
+    private LocalDateTime calcularFechaHoraFin(Cita cita) {
+        if (cita.getFechaHoraFin() != null) {
+            return cita.getFechaHoraFin();
+        }
+        Servicio servicio = cita.getServicioId() == null ? null
+                : catalogoService.obtenerServiciosPorId(Set.of(cita.getServicioId())).get(cita.getServicioId());
+        int duracion = servicio == null || servicio.getDuracionMinutos() <= 0
+                ? DURACION_POR_DEFECTO_MINUTOS : servicio.getDuracionMinutos();
+        return cita.getFechaHora().plusMinutes(duracion);
+    }
+
+    /**
+     * Obtiene la duración del servicio más largo del catálogo, nunca menor que la duración por defecto
+     */
+    private int obtenerDuracionMaxima() {
+        return catalogoService.obtenerServicios().stream()
+                .mapToInt(Servicio::getDuracionMinutos)
+                .reduce(DURACION_POR_DEFECTO_MINUTOS, Math::max);
+    }
+
+    /**
+     * Último día que toca un intervalo que termina (sin incluir) en fin
+     */
+    private static LocalDate ultimoDia(LocalDateTime fin) {
+        return fin.minusNanos(1).toLocalDate();
+    }
+
+    /**
+     * Clave de un día de agenda de un estilista
+     */
+    private record ClaveDia(String estilistaId, LocalDate dia) {
+    }
+
+    /**
+     * Instantánea inmutable de la ocupación de un día
+     * @param dia Día representado
+     * @param franjas Mapa de bits con una franja por bit desde las 00:00
+     * @param citas Intervalos exactos de las citas que tocan el día, por identificador
+     */
+    private record OcupacionDia(LocalDate dia, long[] franjas, Map<String, Intervalo> citas) {
+
+        static OcupacionDia construir(LocalDate dia, Map<String, Intervalo> citas) {
+            long[] franjas = new long[(FRANJAS_POR_DIA + 63) / 64];
+            for (Intervalo intervalo : citas.values()) {
+                int desde = franjaInicial(dia, intervalo.inicio());
+                int hasta = franjaFinal(dia, intervalo.fin());
+                for (int franja = desde; franja < hasta; franja++) {
+                    franjas[franja >> 6] |= 1L << franja;
+                }
+            }
+            return new OcupacionDia(dia, franjas, Map.copyOf(citas));
+        }
+
+        OcupacionDia con(String citaId, Intervalo intervalo) {
+            Map<String, Intervalo> nuevas = new LinkedHashMap<>(citas);
+            nuevas.put(citaId, intervalo);
+            return construir(dia, nuevas);
+        }
+
+        OcupacionDia sin(String citaId) {
+            if (!citas.containsKey(citaId)) {
+                return this;
+            }
+            Map<String, Intervalo> nuevas = new LinkedHashMap<>(citas);
+            nuevas.remove(citaId);
+            return construir(dia, nuevas);
+        }
+
+        boolean cruzaCon(LocalDateTime inicio, LocalDateTime fin, String citaExcluida) {
+            int desde = franjaInicial(dia, inicio);
+            int hasta = franjaFinal(dia, fin);
+            boolean algunaOcupada = false;
+            for (int franja = desde; franja < hasta && !algunaOcupada; franja++) {
+                algunaOcupada = (franjas[franja >> 6] & (1L << franja)) != 0;
+            }
+            if (!algunaOcupada) {
+                return false;
+            }
+            // Las franjas son de 15 minutos: se confirma con los intervalos exactos
+            return citas.entrySet().stream()
+                    .filter(e -> !Objects.equals(e.getKey(), citaExcluida))
+                    .map(Map.Entry::getValue)
+                    .anyMatch(i -> i.inicio().isBefore(fin) && i.fin().isAfter(inicio));
+        }
+
+        List<Intervalo> ocupados() {
+            List<Intervalo> intervalos = new ArrayList<>();
+            LocalDateTime medianoche = dia.atStartOfDay();
+            int franja = 0;
+            while (franja < FRANJAS_POR_DIA) {
+                if ((franjas[franja >> 6] & (1L << franja)) == 0) {
+                    franja++;
+                    continue;
+                }
+                int inicio = franja;
+                while (franja < FRANJAS_POR_DIA && (franjas[franja >> 6] & (1L << franja)) != 0) {
+                    franja++;
+                }
+                intervalos.add(new Intervalo(
+                        medianoche.plusMinutes((long) inicio * MINUTOS_POR_FRANJA),
+                        medianoche.plusMinutes((long) franja * MINUTOS_POR_FRANJA)));
+            }
+            return intervalos;
+        }
+
+        boolean equivaleA(OcupacionDia otra) {
+            return Arrays.equals(franjas, otra.franjas) && citas.equals(otra.citas);
+        }
+
+        /**
+         * Primera franja que toca un instante, limitada al día
+         */
+        private static int franjaInicial(LocalDate dia, LocalDateTime inicio) {
+            if (inicio.toLocalDate().isBefore(dia)) {
+                return 0;
+            }
+            return (inicio.getHour() * 60 + inicio.getMinute()) / MINUTOS_POR_FRANJA;
+        }
+
+        /**
+         * Franja siguiente a la última que toca un intervalo que termina en fin, limitada al día
+         */
+        private static int franjaFinal(LocalDate dia, LocalDateTime fin) {
+            if (fin.toLocalDate().isAfter(dia)) {
+                return FRANJAS_POR_DIA;
+            }
+            int minutos = fin.getHour() * 60 + fin.getMinute() + (fin.getSecond() > 0 || fin.getNano() > 0 ? 1 : 0);
+            return (minutos + MINUTOS_POR_FRANJA - 1) / MINUTOS_POR_FRANJA;
+        }
+    }
+}
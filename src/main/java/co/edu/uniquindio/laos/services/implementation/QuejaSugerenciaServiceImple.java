@@ -62,7 +62,7 @@ package co.edu.uniquindio.laos.services.implementation;
 
                                 quejaSugerencia = QuejaSugerencia.builder()
                                         .tipoPQRS(TipoPQRS.valueOf(enviarQuejaSugerenciaDTO.tipo()))
-                                        .usuario( usuario )
+                                        .usuarioId( usuario.getId() )
                                         .descripcion(enviarQuejaSugerenciaDTO.descripcion())
                                         .estadoPQRS(EstadoPQRS.PENDIENTE)
                                         .fechaEnvio(LocalDateTime.now())
@@ -117,7 +117,7 @@ package co.edu.uniquindio.laos.services.implementation;
                                     .map(quejaSugerencia -> new QuejaSugerenciaDTO(
                                             quejaSugerencia.getId(),
                                             quejaSugerencia.getTipoPQRS().toString(),
-                                            quejaSugerencia.getUsuario().getId(),
+                                            idCliente(quejaSugerencia),
                                             quejaSugerencia.getDescripcion(),
                                             quejaSugerencia.getEstadoPQRS().toString(),
                                             quejaSugerencia.getRespuesta(),
@@ -127,6 +127,17 @@ package co.edu.uniquindio.laos.services.implementation;
                                     .collect(Collectors.toList());
                         }
 
+                        /**
+                         * Id del cliente que envió la PQRS, también para las que aún tienen el enlace anterior
+                         * con @DBRef; null si es anónima
+                         */
+                        private String idCliente(QuejaSugerencia quejaSugerencia) {
+                            if (quejaSugerencia.getUsuarioId() != null) {
+                                return quejaSugerencia.getUsuarioId();
+                            }
+                            return quejaSugerencia.getUsuario() == null ? null : quejaSugerencia.getUsuario().getId();
+                        }
+
                         /**
                          * Genera un reporte con el número de quejas agrupadas por tipo (queja, reclamo, sugerencia)
                          *
@@ -0,0 +1,107 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Servicio;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import co.edu.uniquindio.laos.services.interfaces.ReconciliacionCitasService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Implementación de la reconciliación de las copias guardadas en las citas.
+ *
+ * Cada cita guarda el nombre de su estilista y de su servicio para poder listarse sin
+ * consultar el catálogo. Cuando se guarda un estilista o un servicio, CatalogoMongoListener
+ * pide actualizar sus citas en segundo plano. Como un evento se puede perder (un nodo que se
+ * cae, un cambio hecho directamente en la base de datos), una tarea nocturna recorre todo el
+ * catálogo y corrige lo que haya quedado distinto; esa misma tarea completa las citas antiguas
+ * que todavía no tienen las copias.
+ */
+@Service
+public class ReconciliacionCitasServiceImple implements ReconciliacionCitasService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "reconciliar-citas";
+
+    private final CitaRepo citaRepo;
+    private final CatalogoService catalogoService;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final Duration duracionBloqueo;
+    private final Counter reconciliadas;
+
+    public ReconciliacionCitasServiceImple(CitaRepo citaRepo,
+                                           CatalogoService catalogoService,
+                                           BloqueoTareaService bloqueoTareaService,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${laos.citas.reconciliacion.bloqueo-segundos:1800}") long bloqueoSegundos) {
+        this.citaRepo = citaRepo;
+        this.catalogoService = catalogoService;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.reconciliadas = Counter.builder("laos.citas.reconciliadas")
+                .description("Citas cuya copia del nombre de estilista o servicio se actualizó")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Actualiza el nombre del estilista en todas sus citas
+     * @param estilistaId Identificador del estilista
+     * @param nombre Nombre actual del estilista
+     */
+    @Override
+    @Async
+    public void reconciliarEstilista(String estilistaId, String nombre) {
+        reconciliadas.increment(citaRepo.actualizarNombreEstilista(estilistaId, nombre));
+    }
+
+    /**
+     * Actualiza el nombre del servicio en todas sus citas
+     * @param servicioId Identificador del servicio
+     * @param nombre Nombre actual del servicio
+     */
+    @Override
+    @Async
+    public void reconciliarServicio(String servicioId, String nombre) {
+        reconciliadas.increment(citaRepo.actualizarNombreServicio(servicioId, nombre));
+    }
+
+    /**
+     * Recorre todos los estilistas y servicios del catálogo y corrige sus citas.
+     * Cada corrección usa el índice del identificador y solo escribe las citas distintas.
+     * @return Número de citas actualizadas; 0 si otro nodo tiene la tarea
+     */
+    @Override
+    @Scheduled(cron = "${laos.citas.reconciliacion.cron:0 0 4 * * *}")
+    public long reconciliarTodo() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+        long total = 0;
+        try {
+            for (Estilista estilista : catalogoService.obtenerEstilistas()) {
+                if (estilista.getNombre() != null) {
+                    total += citaRepo.actualizarNombreEstilista(estilista.getId(), estilista.getNombre());
+                }
+            }
+            for (Servicio servicio : catalogoService.obtenerServicios()) {
+                if (servicio.getNombre() != null) {
+                    total += citaRepo.actualizarNombreServicio(servicio.getId(), servicio.getNombre());
+                }
+            }
+        } finally {
+            reconciliadas.increment(total);
+            bloqueoTareaService.liberar(TAREA);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,292 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.HorarioYEstilistaOcupadoException;
+import co.edu.uniquindio.laos.model.ReservaHorario;
+import co.edu.uniquindio.laos.repositories.ReservaHorarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del servicio de reservas de horario.
+ *
+ * La agenda de cada estilista se divide en bloques de 15 minutos y una cita reclama
+ * todos los bloques que toca insertando un documento por bloque en la colección
+ * reservas_horario. Como el _id es "estilista|inicioDelBloque", MongoDB rechaza de forma
+ * atómica el segundo reclamo de un mismo bloque sin necesidad de transacciones ni de un
+ * bloqueo global: dos reservas solo compiten si son del mismo estilista y se cruzan.
+ *
+ * Un apartado temporal reclama los bloques igual que una cita, pero con un vencimiento que
+ * el índice TTL de la colección hace cumplir sin tareas de limpieza. Como el monitor TTL
+ * corre cada minuto, un bloque vencido que aún existe se borra al chocar con un reclamo nuevo.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservaHorarioServiceImple implements ReservaHorarioService {
+
+    /**
+     * Tamaño en minutos de cada bloque de agenda
+     */
+    static final int MINUTOS_POR_BLOQUE = 15;
+
+    /**
+     * Repositorio de bloques reclamados
+     */
+    private final ReservaHorarioRepo reservaHorarioRepo;
+
+    /**
+     * Reclama todos los bloques del intervalo [inicio, fin) para una cita
+     * @param estilistaId Identificador del estilista
+     * @param inicio Inicio de la cita
+     * @param fin Fin de la cita
+     * @param citaId Identificador de la cita que reclama los bloques
+     * @throws Exception Si alguno de los bloques ya pertenece a otra cita
+     */
+    @Override
+    public void reservar(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaId) throws Exception {
+        reclamar(construirReservas(estilistaId, inicio, fin, citaId), citaId);
+    }
+
+    /**
+     * Reclama los bloques del intervalo [inicio, fin) para un apartado temporal
+     * @param estilistaId Identificador del estilista
+     * @param inicio Inicio del horario apartado
+     * @param fin Fin del horario apartado
+     * @param apartadoId Identificador del apartado, que será el de la cita al confirmarlo
+     * @param expiraEn Instante en que vencen los bloques si no se confirman
+     * @throws Exception Si alguno de los bloques ya pertenece a otra cita o a otro apartado vigente
+     */
+    @Override
+    public void apartar(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String apartadoId, Instant expiraEn) throws Exception {
+        List<ReservaHorario> reservas = construirReservas(estilistaId, inicio, fin, apartadoId);
+        reservas.forEach(reserva -> reserva.setExpiraEn(expiraEn));
+        reclamar(reservas, apartadoId);
+    }
+
+    /**
+     * Convierte los bloques de un apartado en reclamos permanentes de la cita. Cada bloque se
+     * confirma solo si no ha vencido; si falta alguno, se liberan los que alcanzaron a confirmarse.
+     * Si no se confirmó ninguno (el apartado venció o lo confirmó otra petición) no se borra
+     * nada más que bloques aún temporales, para no tocar los de una cita ya creada.
+     * @param estilistaId Identificador del estilista
+     * @param inicio Inicio del horario apartado
+     * @param fin Fin del horario apartado
+     * @param apartadoId Identificador del apartado y de la cita
+     * @param ahora Instante de la confirmación
+     * @return true si todos los bloques seguían apartados y quedaron confirmados
+     */
+    @Override
+    public boolean confirmarApartado(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String apartadoId, Instant ahora) {
+        int esperados = construirReservas(estilistaId, inicio, fin, apartadoId).size();
+        long confirmados = reservaHorarioRepo.confirmarApartado(apartadoId, ahora);
+        if (confirmados == esperados) {
+            return true;
+        }
+        if (confirmados == 0) {
+            reservaHorarioRepo.deleteByCitaIdAndExpiraEnIsNotNull(apartadoId);
+        } else {
+            reservaHorarioRepo.deleteByCitaId(apartadoId);
+        }
+        return false;
+    }
+
+    /**
+     * Libera los bloques de un apartado que no se confirmó
+     * @param apartadoId Identificador del apartado
+     */
+    @Override
+    public void liberarApartado(String apartadoId) {
+        reservaHorarioRepo.deleteByCitaIdAndExpiraEnIsNotNull(apartadoId);
+    }
+
+    /**
+     * Mueve una cita a un nuevo intervalo. Primero reclama los bloques nuevos que aún no
+     * tiene y solo después libera los que ya no necesita, así la cita nunca queda sin
+     * horario si el nuevo está ocupado.
+     * @param estilistaId Identificador del estilista
+     * @param inicio Nuevo inicio de la cita
+     * @param fin Nuevo fin de la cita
+     * @param citaId Identificador de la cita
+     * @throws Exception Si alguno de los bloques nuevos ya pertenece a otra cita
+     */
+    @Override
+    public void reprogramar(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaId) throws Exception {
+        Set<String> actuales = reservaHorarioRepo.findByCitaId(citaId).stream()
+                .map(ReservaHorario::getId)
+                .collect(Collectors.toSet());
+
+        List<ReservaHorario> nuevas = construirReservas(estilistaId, inicio, fin, citaId);
+        Set<String> idsNuevos = nuevas.stream()
+                .map(ReservaHorario::getId)
+                .collect(Collectors.toSet());
+
+        reclamar(nuevas.stream().filter(r -> !actuales.contains(r.getId())).toList(), citaId);
+
+        List<String> sobrantes = actuales.stream()
+                .filter(id -> !idsNuevos.contains(id))
+                .toList();
+        if (!sobrantes.isEmpty()) {
+            reservaHorarioRepo.deleteByIdInAndCitaId(sobrantes, citaId);
+        }
+    }
+
+    /**
+     * Reclama los bloques de varias citas de un mismo estilista con una sola escritura masiva.
+     * Una cita con algún bloque ya tomado, por otra cita o por una anterior de la misma serie,
+     * queda sin reclamos con este estilista: se liberan los bloques que alcanzó a insertar, sin
+     * tocar los que la cita tenga con otro estilista.
+     * @param estilistaId Identificador del estilista
+     * @param intervalosPorCita Intervalo [inicio, fin) de cada cita, por identificador de cita
+     * @return Identificadores de las citas que no se pudieron reservar
+     */
+    @Override
+    public Set<String> reservarLote(String estilistaId, Map<String, Intervalo> intervalosPorCita) {
+        List<ReservaHorario> reservas = new ArrayList<>();
+        intervalosPorCita.forEach((citaId, intervalo) ->
+                reservas.addAll(construirReservas(estilistaId, intervalo.inicio(), intervalo.fin(), citaId)));
+
+        Set<String> fallidas = new HashSet<>();
+        try {
+            for (ReservaHorario rechazada : reservaHorarioRepo.insertarSinOrden(reservas)) {
+                fallidas.add(rechazada.getCitaId());
+            }
+        } catch (RuntimeException e) {
+            reservaHorarioRepo.deleteByEstilistaIdAndCitaIdIn(estilistaId, intervalosPorCita.keySet());
+            throw e;
+        }
+        if (!fallidas.isEmpty()) {
+            reservaHorarioRepo.deleteByEstilistaIdAndCitaIdIn(estilistaId, fallidas);
+        }
+        return fallidas;
+    }
+
+    /**
+     * Libera todos los bloques reclamados por una cita
+     * @param citaId Identificador de la cita
+     */
+    @Override
+    public void liberar(String citaId) {
+        reservaHorarioRepo.deleteByCitaId(citaId);
+    }
+
+    /**
+     * Libera todos los bloques reclamados por varias citas
+     * @param citaIds Identificadores de las citas
+     */
+    @Override
+    public void liberarLote(Collection<String> citaIds) {
+        if (!citaIds.isEmpty()) {
+            reservaHorarioRepo.deleteByCitaIdIn(citaIds);
+        }
+    }
+
+    /**
+     * Libera los bloques que varias citas tienen con un estilista. Sirve para mover citas a otro
+     * estilista: los bloques nuevos se reclaman primero y los anteriores se liberan al final.
+     * @param estilistaId Estilista cuyos bloques se liberan
+     * @param citaIds Identificadores de las citas
+     */
+    @Override
+    public void liberarLote(String estilistaId, Collection<String> citaIds) {
+        if (!citaIds.isEmpty()) {
+            reservaHorarioRepo.deleteByEstilistaIdAndCitaIdIn(estilistaId, citaIds);
+        }
+    }
+
+    /**
+     * Indica si algún bloque del intervalo [inicio, fin) está reclamado por otra cita o por un
+     * apartado vigente. Se lee por _id, así que cuesta una consulta sobre el índice primario.
+     * @param estilistaId Identificador del estilista
+     * @param inicio Inicio del intervalo
+     * @param fin Fin del intervalo
+     * @param citaExcluida Cita cuyos bloques no se tienen en cuenta, puede ser null
+     * @return true si al menos un bloque pertenece a otra cita o a un apartado que no ha vencido
+     */
+    @Override
+    public boolean estaReclamado(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaExcluida) {
+        List<String> ids = construirReservas(estilistaId, inicio, fin, citaExcluida).stream()
+                .map(ReservaHorario::getId)
+                .toList();
+        Instant ahora = Instant.now();
+        for (ReservaHorario reserva : reservaHorarioRepo.findAllById(ids)) {
+            boolean vigente = reserva.getExpiraEn() == null || reserva.getExpiraEn().isAfter(ahora);
+            if (vigente && !reserva.getCitaId().equals(citaExcluida)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inserta los reclamos en una sola operación. Si algún bloque ya estaba tomado se
+     * deshacen los que alcanzaron a insertarse, sin tocar los de otras citas. Si entre los
+     * bloques tomados hay apartados vencidos que el monitor TTL aún no borró, se borran y se
+     * intenta una vez más.
+     * @param reservas Bloques a reclamar
+     * @param citaId Identificador de la cita que los reclama
+     * @throws HorarioYEstilistaOcupadoException Si algún bloque ya pertenece a otra cita o a un apartado vigente
+     */
+    private void reclamar(List<ReservaHorario> reservas, String citaId) throws HorarioYEstilistaOcupadoException {
+        if (reservas.isEmpty()) {
+            return;
+        }
+        List<String> ids = reservas.stream().map(ReservaHorario::getId).toList();
+        try {
+            reservaHorarioRepo.insert(reservas);
+        } catch (DuplicateKeyException e) {
+            reservaHorarioRepo.deleteByIdInAndCitaId(ids, citaId);
+            if (reservaHorarioRepo.deleteByIdInAndExpiraEnLessThanEqual(ids, Instant.now()) == 0) {
+                throw new HorarioYEstilistaOcupadoException("El estilista ya tiene una cita programada en ese horario");
+            }
+            try {
+                reservaHorarioRepo.insert(reservas);
+            } catch (DuplicateKeyException otra) {
+                reservaHorarioRepo.deleteByIdInAndCitaId(ids, citaId);
+                throw new HorarioYEstilistaOcupadoException("El estilista ya tiene una cita programada en ese horario");
+            }
+        }
+    }
+
+    /**
+     * Construye un reclamo por cada bloque que toca el intervalo [inicio, fin)
+     * @param estilistaId Identificador del estilista
+     * @param inicio Inicio del intervalo
+     * @param fin Fin del intervalo
+     * @param citaId Identificador de la cita
+     * @return Reclamos ordenados por inicio de bloque
+     */
+    private List<ReservaHorario> construirReservas(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaId) {
+        List<ReservaHorario> reservas = new ArrayList<>();
+        for (LocalDateTime bloque = inicioDeBloque(inicio); bloque.isBefore(fin); bloque = bloque.plusMinutes(MINUTOS_POR_BLOQUE)) {
+            reservas.add(ReservaHorario.builder()
+                    .id(estilistaId + "|" + bloque)
+                    .estilistaId(estilistaId)
+                    .inicioBloque(bloque)
+                    .citaId(citaId)
+                    .build());
+        }
+        return reservas;
+    }
+
+    /**
+     * Redondea una fecha hacia abajo al inicio de su bloque
+     * @param fechaHora Fecha y hora a redondear
+     * @return Inicio del bloque que contiene la fecha
+     */
+    private LocalDateTime inicioDeBloque(LocalDateTime fechaHora) {
+        int minuto = fechaHora.getMinute() - fechaHora.getMinute() % MINUTOS_POR_BLOQUE;
+        return fechaHora.withMinute(minuto).withSecond(0).withNano(0);
+    }
+}
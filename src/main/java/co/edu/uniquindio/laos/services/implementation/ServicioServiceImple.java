@@ -1,8 +1,7 @@
 package co.edu.uniquindio.laos.services.implementation;
 
-import co.edu.uniquindio.laos.model.Estilista;
 import co.edu.uniquindio.laos.model.Servicio;
-import co.edu.uniquindio.laos.repositories.ServiciosRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
 import co.edu.uniquindio.laos.services.interfaces.ServicioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -24,20 +23,21 @@ import java.util.List;
 public class ServicioServiceImple implements ServicioService {
 
     /**
-     * Repositorio para el acceso y persistencia de servicios en la base de datos
+     * Catálogo en memoria de estilistas y servicios
      */
-    private final ServiciosRepo serviciosRepo;
+    private final CatalogoService catalogoService;
 
     /**
      * Recupera la lista completa de todos los servicios disponibles en el sistema
      *
      * Este método permite obtener información sobre todos los servicios
-     * que se ofrecen a los clientes en el establecimiento.
+     * que se ofrecen a los clientes en el establecimiento. La lista se sirve
+     * desde el catálogo en memoria, sin consultar la base de datos en cada petición.
      *
      * @return Lista de objetos Servicio con la información de todos los servicios disponibles
      */
     @Override
     public List<Servicio> obtenerTodosLosServicios() {
-        return serviciosRepo.findAll();
+        return catalogoService.obtenerServicios();
     }
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ import co.edu.uniquindio.laos.repositories.UsuarioRepo;
 import co.edu.uniquindio.laos.services.interfaces.CuponService;
 import co.edu.uniquindio.laos.services.interfaces.EmailService;
 import co.edu.uniquindio.laos.services.interfaces.UsuarioService;
+import co.edu.uniquindio.laos.utils.ReintentoUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -118,35 +119,42 @@ public class UsuarioServiceImple implements UsuarioService {
     /**
      * Actualiza la información personal de un usuario existente
      *
+     * El guardado es versionado: si otra operación modificó al usuario entre la lectura
+     * y la escritura, se vuelve a leer y se aplican los cambios de nuevo.
+     *
      * @param editarCuentaDTO Datos actualizados del usuario
      * @throws RecursoNoEncontradoException Si el usuario no existe
+     * @throws ConflictoConcurrenciaException Si el usuario siguió cambiando en todos los intentos
      */
     @Override
-    public void editarUsuario(EditarUsuarioDTO editarCuentaDTO) throws RecursoNoEncontradoException {
+    public void editarUsuario(EditarUsuarioDTO editarCuentaDTO) throws RecursoNoEncontradoException,
+            ConflictoConcurrenciaException {
 
-        Usuario usuario = obtenerUsuario(editarCuentaDTO.idUsuario());
+        ReintentoUtils.conReintentos(() -> {
+            Usuario usuario = obtenerUsuario(editarCuentaDTO.idUsuario());
 
-        usuario.setNombreCompleto(editarCuentaDTO.nombreCompleto());
-        usuario.setDireccion(editarCuentaDTO.direccion());
-        usuario.setTelefono(editarCuentaDTO.telefono());
+            usuario.setNombreCompleto(editarCuentaDTO.nombreCompleto());
+            usuario.setDireccion(editarCuentaDTO.direccion());
+            usuario.setTelefono(editarCuentaDTO.telefono());
 
-        usuarioRepo.save(usuario);
+            return usuarioRepo.save(usuario);
+        });
     }
 
     /**
      * Realiza la eliminación lógica de un usuario cambiando su estado a ELIMINADO
      *
+     * Solo cambia el estado, con una actualización parcial en lugar de reescribir el documento.
+     *
      * @param id Identificador único del usuario a eliminar
      * @throws RecursoNoEncontradoException Si el usuario no existe
      */
     @Override
     public void eliminarUsuario(String id) throws RecursoNoEncontradoException {
 
-        Usuario usuario = obtenerUsuario(id);
-
-        usuario.setEstadoUsuario(EstadoUsuario.ELIMINADO);
-
-        usuarioRepo.save(usuario);
+        if (usuarioRepo.marcarEliminado(normalizarId(id)) == 0) {
+            throw new RecursoNoEncontradoException("Usuario no encontrado");
+        }
     }
 
     /**
@@ -312,6 +320,21 @@ public class UsuarioServiceImple implements UsuarioService {
      */
     @Override
     public Usuario obtenerUsuario(String id) throws RecursoNoEncontradoException {
+        Optional<Usuario> optionalUsuario = usuarioRepo.findByIdAndEstadoUsuarioNot(normalizarId(id), EstadoUsuario.ELIMINADO);
+
+        if(optionalUsuario.isEmpty()){
+            throw new RecursoNoEncontradoException("Usuario no encontrado");
+        }
+        return optionalUsuario.get();
+    }
+
+    /**
+     * Normaliza un identificador a los 24 caracteres de un ObjectId
+     *
+     * @param id Identificador recibido
+     * @return Identificador completado con ceros o recortado a 24 caracteres
+     */
+    private String normalizarId(String id) {
         if (id.length() != 24) {
             if (id.length() < 24) {
                 // Si es más corto, completar con ceros al final
@@ -321,12 +344,7 @@ public class UsuarioServiceImple implements UsuarioService {
                 id = id.substring(0, 24);
             }
         }
-        Optional<Usuario> optionalUsuario = usuarioRepo.findByIdAndEstadoUsuarioNot(id, EstadoUsuario.ELIMINADO);
-
-        if(optionalUsuario.isEmpty()){
-            throw new RecursoNoEncontradoException("Usuario no encontrado");
-        }
-        return optionalUsuario.get();
+        return id;
     }
 
     /**
@@ -351,21 +369,18 @@ public class UsuarioServiceImple implements UsuarioService {
      * Incrementa el contador de intentos fallidos de inicio de sesión de un usuario
      *
      * Si se alcanza el número máximo de intentos permitidos, se bloquea la cuenta
-     * temporalmente según la duración configurada.
+     * temporalmente según la duración configurada. El contador se incrementa en la base de
+     * datos, así dos intentos fallidos simultáneos no se pisan y ambos cuentan.
      *
      * @param correo Dirección de correo del usuario
      * @throws RecursoNoEncontradoException Si el usuario no existe
      */
     @Override
     public void incrementarIntentosFallidos(String correo) throws RecursoNoEncontradoException {
-        Usuario usuario = obtenerUsuarioPorEmail(correo);
-        usuario.setFallosInicioSesion(usuario.getFallosInicioSesion() + 1);
-
-        if (usuario.getFallosInicioSesion() >= MAX_FAILED_ATTEMPTS) {
-            usuario.setTiempoBloqueo(LocalDateTime.now().plus(LOCK_DURATION));
+        if (usuarioRepo.incrementarFallosInicioSesion(correo) == 0) {
+            throw new RecursoNoEncontradoException("Email no encontrado");
         }
-
-        usuarioRepo.save(usuario);
+        usuarioRepo.bloquearSiAlcanzaFallos(correo, MAX_FAILED_ATTEMPTS, LocalDateTime.now().plus(LOCK_DURATION));
     }
 
     /**
@@ -513,14 +528,13 @@ public class UsuarioServiceImple implements UsuarioService {
     /**
      * Desbloquea una cuenta de usuario y reinicia el contador de intentos fallidos
      *
+     * Es una actualización parcial que no escribe nada si la cuenta no tiene fallos ni bloqueo,
+     * el caso de casi todos los inicios de sesión exitosos.
+     *
      * @param username Dirección de correo del usuario a desbloquear
-     * @throws RecursoNoEncontradoException Si el usuario no existe
      */
-    private void desbloquearUsuario(String username) throws RecursoNoEncontradoException {
-        Usuario usuario = obtenerUsuarioPorEmail(username);
-        usuario.setFallosInicioSesion(0);
-        usuario.setTiempoBloqueo(null);
-        usuarioRepo.save(usuario);
+    private void desbloquearUsuario(String username) {
+        usuarioRepo.reiniciarFallosInicioSesion(username);
     }
 
     /**
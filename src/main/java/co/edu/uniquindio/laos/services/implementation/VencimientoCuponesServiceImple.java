@@ -0,0 +1,110 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.VencimientoCuponesService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Implementación de la tarea que vence los cupones.
+ *
+ * Periódicamente pasa a VENCIDO los cupones activos cuya fecha de vencimiento ya pasó, en lotes
+ * de tamaño fijo (una búsqueda de ids por el índice (estadoCupon, fechaVencimiento) y un
+ * updateMulti por lote) hasta vaciar la cola mientras conserve el arriendo; si lo pierde, lo que
+ * quede lo termina el nodo que lo tomó o la siguiente ejecución. Solo un nodo trabaja a la vez gracias al arriendo de BloqueoTareaService, y como la
+ * actualización vuelve a exigir el estado ACTIVO, repetir un lote en otro nodo no tiene efecto.
+ */
+@Service
+public class VencimientoCuponesServiceImple implements VencimientoCuponesService {
+
+    /**
+     * Nombre de la tarea en bloqueos_tareas
+     */
+    static final String TAREA = "vencer-cupones";
+
+    private final CuponRepo cuponRepo;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final int tamanioLote;
+    private final Duration duracionBloqueo;
+    private final Clock reloj;
+
+    private final Counter vencidos;
+    private final Timer duracion;
+
+    @Autowired
+    public VencimientoCuponesServiceImple(CuponRepo cuponRepo,
+                                          BloqueoTareaService bloqueoTareaService,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${laos.cupones.vencimiento.tamanio-lote:500}") int tamanioLote,
+                                          @Value("${laos.cupones.vencimiento.bloqueo-segundos:300}") long bloqueoSegundos) {
+        this(cuponRepo, bloqueoTareaService, meterRegistry, tamanioLote, bloqueoSegundos, Clock.systemDefaultZone());
+    }
+
+    VencimientoCuponesServiceImple(CuponRepo cuponRepo,
+                                   BloqueoTareaService bloqueoTareaService,
+                                   MeterRegistry meterRegistry,
+                                   int tamanioLote,
+                                   long bloqueoSegundos,
+                                   Clock reloj) {
+        this.cuponRepo = cuponRepo;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.tamanioLote = tamanioLote;
+        this.duracionBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.reloj = reloj;
+        this.vencidos = Counter.builder("laos.cupones.vencidos")
+                .description("Cupones pasados a VENCIDO por la tarea programada")
+                .register(meterRegistry);
+        this.duracion = Timer.builder("laos.cupones.vencimiento.duracion")
+                .description("Duración de cada ejecución de la tarea que vence cupones")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pasa a VENCIDO los cupones activos cuya fecha de vencimiento es anterior a hoy
+     * @return Número de cupones vencidos en esta ejecución; 0 si otro nodo tiene la tarea
+     */
+    @Override
+    @Scheduled(cron = "${laos.cupones.vencimiento.cron:0 5 0 * * *}")
+    public int vencerCupones() {
+        if (!bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+            return 0;
+        }
+
+        long inicio = System.nanoTime();
+        int total = 0;
+        try {
+            LocalDate hoy = LocalDate.now(reloj);
+            while (true) {
+                List<String> ids = cuponRepo.buscarIdsVencidos(hoy, tamanioLote);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long modificados = cuponRepo.marcarVencidos(ids, hoy, reloj.instant());
+                total += (int) modificados;
+                vencidos.increment(modificados);
+
+                // Un lote incompleto significa que no quedan más; un lote sin cambios, que otro nodo ya los
+                // venció y volver a buscar devolvería los mismos; si se perdió el arriendo, otro nodo sigue
+                if (ids.size() < tamanioLote || modificados == 0
+                        || !bloqueoTareaService.adquirir(TAREA, duracionBloqueo)) {
+                    break;
+                }
+            }
+        } finally {
+            duracion.record(Duration.ofNanos(System.nanoTime() - inicio));
+            bloqueoTareaService.liberar(TAREA);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,499 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.ConsultaSinIndiceException;
+import co.edu.uniquindio.laos.repositories.ApartadoHorarioRepo;
+import co.edu.uniquindio.laos.repositories.CampaniaCuponesRepo;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.CitaRepoArchivo;
+import co.edu.uniquindio.laos.repositories.CitaRepoCalendario;
+import co.edu.uniquindio.laos.repositories.CitaRepoMantenimiento;
+import co.edu.uniquindio.laos.repositories.CitaRepoPaginado;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.repositories.CuponRepoLote;
+import co.edu.uniquindio.laos.repositories.CuponRepoMantenimiento;
+import co.edu.uniquindio.laos.repositories.CuponRepoRedencion;
+import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+import co.edu.uniquindio.laos.repositories.EventoCitaRepo;
+import co.edu.uniquindio.laos.repositories.EventoCitaRepoLote;
+import co.edu.uniquindio.laos.repositories.ListaEsperaRepo;
+import co.edu.uniquindio.laos.repositories.ListaEsperaRepoOferta;
+import co.edu.uniquindio.laos.repositories.ProyeccionCitaRepo;
+import co.edu.uniquindio.laos.repositories.ProyeccionCitaRepoLote;
+import co.edu.uniquindio.laos.repositories.QuejaRepo;
+import co.edu.uniquindio.laos.repositories.QuejaSugerenciaRepo;
+import co.edu.uniquindio.laos.repositories.QuejaSugerenciaRepoMigracion;
+import co.edu.uniquindio.laos.repositories.ReservaHorarioRepo;
+import co.edu.uniquindio.laos.repositories.ReservaHorarioRepoLote;
+import co.edu.uniquindio.laos.repositories.ServiciosRepo;
+import co.edu.uniquindio.laos.repositories.SugerenciaRepository;
+import co.edu.uniquindio.laos.repositories.UsuarioRepo;
+import co.edu.uniquindio.laos.repositories.UsuarioRepoSegmento;
+import co.edu.uniquindio.laos.repositories.UtilizacionEstilistaRepo;
+import co.edu.uniquindio.laos.services.interfaces.VerificacionIndicesService;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de la verificación de índices.
+ *
+ * Las consultas de los métodos anotados con @Query o @Aggregation se leen de la misma anotación
+ * que usa Spring Data, reemplazando cada parámetro por un valor de ejemplo de su tipo, así que no
+ * pueden desviarse de lo que el repositorio envía. Los métodos derivados del nombre y los de los
+ * fragmentos con MongoTemplate tienen aquí su forma (colección, filtro, orden y límite) escrita a
+ * mano. La verificación ejecuta explain sobre todas y reporta las que planean un COLLSCAN, además
+ * de los métodos de repositorio sin consulta, para que un método nuevo no pase sin revisar.
+ * Se puede ejecutar al arrancar (laos.mongo.verificar-planes=true) y la ejecuta
+ * VerificacionIndicesTests contra la base de pruebas con los índices creados.
+ */
+@Service
+@RequiredArgsConstructor
+public class VerificacionIndicesServiceImple implements VerificacionIndicesService {
+
+    /**
+     * Forma de la consulta que envía un método de repositorio
+     * @param metodo Repositorio y método, por ejemplo CitaRepo.findByEstado
+     * @param coleccion Colección consultada
+     * @param filtro Filtro con valores de ejemplo
+     * @param orden Orden aplicado, vacío si no hay
+     * @param limite Límite aplicado, 0 si no hay
+     */
+    record ConsultaPlaneada(String metodo, String coleccion, Document filtro, Document orden, int limite) {
+
+        ConsultaPlaneada(String metodo, String coleccion, Document filtro) {
+            this(metodo, coleccion, filtro, new Document(), 0);
+        }
+    }
+
+    /**
+     * Repositorios (y fragmentos) cuyos métodos deben tener una consulta declarada
+     */
+    static final List<Class<?>> REPOSITORIOS = List.of(
+            ApartadoHorarioRepo.class, CampaniaCuponesRepo.class, CitaRepo.class, CitaRepoPaginado.class, CitaRepoCalendario.class,
+            CitaRepoMantenimiento.class, CitaRepoArchivo.class, CuponRepo.class, CuponRepoLote.class, CuponRepoMantenimiento.class,
+            CuponRepoRedencion.class, EstilistaRepo.class, EventoCitaRepo.class, EventoCitaRepoLote.class, ListaEsperaRepo.class,
+            ListaEsperaRepoOferta.class, ProyeccionCitaRepo.class, ProyeccionCitaRepoLote.class, QuejaRepo.class, QuejaSugerenciaRepo.class,
+            QuejaSugerenciaRepoMigracion.class,
+            ReservaHorarioRepo.class, ReservaHorarioRepoLote.class, ServiciosRepo.class, SugerenciaRepository.class,
+            UsuarioRepo.class, UsuarioRepoSegmento.class, UtilizacionEstilistaRepo.class);
+
+    /**
+     * Métodos que recorren la colección completa a propósito (listados y agregaciones globales)
+     */
+    static final Set<String> RECORRIDOS_COMPLETOS = Set.of(
+            "CuponRepoMantenimiento.renombrarCodigosRepetidos",
+            "ProyeccionCitaRepoLote.vaciarProyecciones",
+            "QuejaRepo.findAll",
+            "QuejaSugerenciaRepo.contarQuejasPorTipoRaw",
+            "QuejaSugerenciaRepo.contarQuejasPorUsuarioRaw");
+
+    /**
+     * Métodos que solo insertan y no envían ningún filtro que planear
+     */
+    static final Set<String> SOLO_INSERCIONES = Set.of(
+            "CuponRepoLote.insertarEnOrden",
+            "CuponRepoLote.insertarSinOrden",
+            "EventoCitaRepoLote.insertarSinDuplicados",
+            "ReservaHorarioRepoLote.insertarSinOrden");
+
+    private static final ObjectId OBJECT_ID = new ObjectId();
+    private static final Date FECHA = new Date();
+
+    /**
+     * Consultas de los métodos derivados del nombre y de los fragmentos, con valores de ejemplo
+     */
+    static final List<ConsultaPlaneada> CONSULTAS = List.of(
+            // citas
+            new ConsultaPlaneada("CitaRepo.findByUsuarioId", "citas", new Document("usuarioId", "x")),
+            new ConsultaPlaneada("CitaRepo.findByEstadoIn", "citas",
+                    new Document("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA")))),
+            new ConsultaPlaneada("CitaRepo.findById", "citas", new Document("_id", OBJECT_ID)),
+            new ConsultaPlaneada("CitaRepo.findTopByOrderByFechaModificacionDesc", "citas",
+                    new Document(), new Document("fechaModificacion", -1), 1),
+            // Sin filtros es el peor caso: solo el orden puede usar un índice
+            new ConsultaPlaneada("CitaRepoPaginado.buscarPagina", "citas",
+                    new Document(), new Document("fechaHora", 1).append("_id", 1), 51),
+            new ConsultaPlaneada("CitaRepoCalendario.buscarCalendario", "citas",
+                    new Document("fechaHora", new Document("$gte", FECHA).append("$lt", FECHA))
+                            .append("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA"))),
+                    new Document("fechaHora", 1).append("_id", 1), 0),
+            new ConsultaPlaneada("CitaRepoCalendario.buscarAgendaDiaria", "citas",
+                    new Document("fechaHora", new Document("$gte", FECHA).append("$lt", FECHA))
+                            .append("estilistaId", "x")
+                            .append("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA", "COMPLETADA"))),
+                    new Document("fechaHora", 1).append("_id", 1), 0),
+            new ConsultaPlaneada("CitaRepoCalendario.buscarAgendaDiaria", "citas",
+                    new Document("fechaHora", new Document("$gte", FECHA).append("$lt", FECHA))
+                            .append("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA", "COMPLETADA"))),
+                    new Document("fechaHora", 1).append("_id", 1), 0),
+            new ConsultaPlaneada("CitaRepoCalendario.buscarAgendaModificada", "citas",
+                    new Document("fechaModificacion", new Document("$gt", FECHA))),
+            new ConsultaPlaneada("CitaRepoCalendario.recorrerFeedIcs", "citas",
+                    new Document("estilistaId", "x")
+                            .append("fechaHora", new Document("$gte", FECHA).append("$lt", FECHA))
+                            .append("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA", "COMPLETADA"))),
+                    new Document("fechaHora", 1).append("_id", 1), 0),
+            new ConsultaPlaneada("CitaRepoCalendario.recorrerFeedIcs", "citas",
+                    new Document("usuarioId", "x")
+                            .append("fechaHora", new Document("$gte", FECHA).append("$lt", FECHA))
+                            .append("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA", "COMPLETADA"))),
+                    new Document("fechaHora", 1).append("_id", 1), 0),
+            new ConsultaPlaneada("CitaRepoCalendario.contarFeedIcs", "citas",
+                    new Document("estilistaId", "x").append("fechaHora", new Document("$gte", FECHA).append("$lt", FECHA))),
+            new ConsultaPlaneada("CitaRepoCalendario.contarFeedIcs", "citas",
+                    new Document("usuarioId", "x").append("fechaHora", new Document("$gte", FECHA).append("$lt", FECHA))),
+            new ConsultaPlaneada("CitaRepoCalendario.buscarUltimaModificacion", "citas",
+                    new Document("estilistaId", "x"), new Document("fechaModificacion", -1), 1),
+            new ConsultaPlaneada("CitaRepoCalendario.buscarUltimaModificacion", "citas",
+                    new Document("usuarioId", "x"), new Document("fechaModificacion", -1), 1),
+            new ConsultaPlaneada("CitaRepoMantenimiento.buscarIdsVencidas", "citas",
+                    new Document("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA")))
+                            .append("fechaHora", new Document("$lt", FECHA))
+                            .append("$or", List.of(
+                                    new Document("fechaHoraFin", new Document("$lte", FECHA)),
+                                    new Document("$and", List.of(
+                                            new Document("fechaHoraFin", null),
+                                            new Document("fechaHora", new Document("$lte", FECHA)))))),
+                    new Document("fechaHora", 1), 500),
+            new ConsultaPlaneada("CitaRepoMantenimiento.cancelar", "citas", new Document("_id", OBJECT_ID)),
+            new ConsultaPlaneada("CitaRepoMantenimiento.marcarCompletadas", "citas",
+                    new Document("_id", new Document("$in", List.of(OBJECT_ID)))
+                            .append("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA")))),
+            new ConsultaPlaneada("CitaRepoMantenimiento.aplicarCambiosDeEstilista", "citas",
+                    new Document("_id", OBJECT_ID).append("version", 0L).append("fechaHora", FECHA).append("estilistaId", "x")
+                            .append("estado", new Document("$in", List.of("CONFIRMADA", "REPROGRAMADA")))),
+            new ConsultaPlaneada("CitaRepoMantenimiento.aplicarCambiosDeEstilista", "citas",
+                    new Document("_id", new Document("$in", List.of(OBJECT_ID)))),
+            new ConsultaPlaneada("CitaRepoMantenimiento.actualizarNombreEstilista", "citas",
+                    new Document("estilistaId", "x").append("estilistaNombre", new Document("$ne", "x"))),
+            new ConsultaPlaneada("CitaRepoMantenimiento.actualizarNombreServicio", "citas",
+                    new Document("servicioId", "x").append("servicioNombre", new Document("$ne", "x"))),
+            new ConsultaPlaneada("CitaRepoMantenimiento.buscarConEventosPendientes", "citas",
+                    new Document("eventosPendientes.eventoId", new Document("$exists", true)), new Document(), 500),
+            new ConsultaPlaneada("CitaRepoMantenimiento.descartarEventosPendientes", "citas", new Document("_id", OBJECT_ID)),
+            new ConsultaPlaneada("CitaRepoArchivo.buscarParaArchivar", "citas",
+                    new Document("estado", new Document("$in", List.of("CANCELADA", "COMPLETADA")))
+                            .append("fechaHora", new Document("$lt", FECHA))
+                            .append("eventosPendientes.eventoId", new Document("$exists", false)),
+                    new Document("fechaHora", 1), 500),
+            new ConsultaPlaneada("CitaRepoArchivo.archivar", "citas",
+                    new Document("_id", new Document("$in", List.of(OBJECT_ID)))
+                            .append("estado", new Document("$in", List.of("CANCELADA", "COMPLETADA")))
+                            .append("eventosPendientes.eventoId", new Document("$exists", false))),
+            // archivo de citas
+            new ConsultaPlaneada("CitaRepoArchivo.buscarArchivadasPorUsuario", "citas_archivo",
+                    new Document("usuarioId", "x").append("estado", new Document("$in", List.of("CANCELADA", "COMPLETADA")))),
+            new ConsultaPlaneada("CitaRepoArchivo.buscarArchivadasPorEstilista", "citas_archivo",
+                    new Document("estilistaId", "x")),
+            new ConsultaPlaneada("CitaRepoArchivo.buscarArchivadasPorEstado", "citas_archivo",
+                    new Document("estado", "CANCELADA")),
+            new ConsultaPlaneada("CitaRepoArchivo.buscarArchivadaPorId", "citas_archivo",
+                    new Document("_id", OBJECT_ID)),
+            new ConsultaPlaneada("CitaRepoArchivo.buscarPaginaArchivo", "citas_archivo",
+                    new Document(), new Document("fechaHora", 1).append("_id", 1), 51),
+            // $match de resumirPorCliente en cada colección de la agregación
+            new ConsultaPlaneada("CitaRepoArchivo.resumirPorCliente", "citas",
+                    new Document("usuarioId", new Document("$in", List.of("x")))),
+            new ConsultaPlaneada("CitaRepoArchivo.resumirPorCliente", "citas_archivo",
+                    new Document("usuarioId", new Document("$in", List.of("x")))),
+            // cupones
+            new ConsultaPlaneada("CuponRepoMantenimiento.buscarIdsVencidos", "cupones",
+                    new Document("estadoCupon", "ACTIVO").append("fechaVencimiento", new Document("$lt", FECHA)),
+                    new Document("fechaVencimiento", 1), 500),
+            new ConsultaPlaneada("CuponRepoMantenimiento.marcarVencidos", "cupones",
+                    new Document("_id", new Document("$in", List.of(OBJECT_ID))).append("estadoCupon", "ACTIVO")
+                            .append("fechaVencimiento", new Document("$lt", FECHA))),
+            new ConsultaPlaneada("CuponRepoMantenimiento.migrarEnlacesUsuario", "cupones",
+                    new Document("usuario.$id", new Document("$exists", true)), new Document(), 500),
+            new ConsultaPlaneada("CuponRepoMantenimiento.contarEnlacesUsuarioPendientes", "cupones",
+                    new Document("usuario.$id", new Document("$exists", true))),
+            new ConsultaPlaneada("CuponRepoRedencion.redimir", "cupones",
+                    new Document("codigo", "x").append("estadoCupon", "ACTIVO")
+                            .append("$and", List.of(
+                                    new Document("$or", List.of(new Document("fechaVencimiento", null),
+                                            new Document("fechaVencimiento", new Document("$gte", FECHA)))),
+                                    new Document("$or", List.of(
+                                            new Document("$and", List.of(new Document("usuarioId", null),
+                                                    new Document("usuario", null))),
+                                            new Document("usuarioId", OBJECT_ID),
+                                            new Document("usuario.$id", OBJECT_ID)))))),
+            new ConsultaPlaneada("CuponRepoLote.buscarUsuariosConCupon", "cupones",
+                    new Document("campania", "x")
+                            .append("usuarioId", new Document("$in", List.of(OBJECT_ID)).append("$exists", true))),
+            // registro de eventos de citas y proyecciones
+            new ConsultaPlaneada("EventoCitaRepo.findByCitaIdOrderBySecuenciaAsc", "eventos_citas",
+                    new Document("citaId", "x"), new Document("secuencia", 1), 0),
+            new ConsultaPlaneada("EventoCitaRepo.findTopByOrderBySecuenciaDesc", "eventos_citas",
+                    new Document(), new Document("secuencia", -1), 1),
+            new ConsultaPlaneada("EventoCitaRepoLote.reservarSecuencias", "contadores", new Document("_id", "x")),
+            new ConsultaPlaneada("ProyeccionCitaRepo.findByIdIn", "proyeccion_citas",
+                    new Document("_id", new Document("$in", List.of("x")))),
+            new ConsultaPlaneada("ProyeccionCitaRepoLote.guardarCambios", "proyeccion_citas", new Document("_id", "x")),
+            new ConsultaPlaneada("ProyeccionCitaRepoLote.guardarCambios", "utilizacion_estilistas", new Document("_id", "x")),
+            new ConsultaPlaneada("ProyeccionCitaRepoLote.guardarCambios", "historial_clientes", new Document("_id", "x")),
+            // estilistas y servicios
+            new ConsultaPlaneada("EstilistaRepo.findById", "estilistas", new Document("_id", OBJECT_ID)),
+            new ConsultaPlaneada("ServiciosRepo.findById", "servicios", new Document("_id", OBJECT_ID)),
+            // quejas y sugerencias
+            new ConsultaPlaneada("QuejaSugerenciaRepoMigracion.migrarEnlacesUsuario", "quejas_sugerencias",
+                    new Document("usuario.$id", new Document("$exists", true)), new Document(), 500),
+            new ConsultaPlaneada("QuejaSugerenciaRepoMigracion.contarEnlacesUsuarioPendientes", "quejas_sugerencias",
+                    new Document("usuario.$id", new Document("$exists", true))),
+            // reservas de horario
+            new ConsultaPlaneada("ReservaHorarioRepo.findByCitaId", "reservas_horario", new Document("citaId", "x")),
+            new ConsultaPlaneada("ReservaHorarioRepo.deleteByCitaId", "reservas_horario", new Document("citaId", "x")),
+            new ConsultaPlaneada("ReservaHorarioRepo.deleteByIdInAndCitaId", "reservas_horario",
+                    new Document("_id", new Document("$in", List.of("x"))).append("citaId", "x")),
+            new ConsultaPlaneada("ReservaHorarioRepo.deleteByCitaIdIn", "reservas_horario",
+                    new Document("citaId", new Document("$in", List.of("x")))),
+            new ConsultaPlaneada("ReservaHorarioRepo.deleteByEstilistaIdAndCitaIdIn", "reservas_horario",
+                    new Document("estilistaId", "x").append("citaId", new Document("$in", List.of("x")))),
+            new ConsultaPlaneada("ReservaHorarioRepo.deleteByCitaIdAndExpiraEnIsNotNull", "reservas_horario",
+                    new Document("citaId", "x").append("expiraEn", new Document("$ne", null))),
+            new ConsultaPlaneada("ReservaHorarioRepo.deleteByIdInAndExpiraEnLessThanEqual", "reservas_horario",
+                    new Document("_id", new Document("$in", List.of("x"))).append("expiraEn", new Document("$lte", FECHA))),
+            // lista de espera
+            new ConsultaPlaneada("ListaEsperaRepoOferta.tomarSiguiente", "lista_espera",
+                    new Document("estilistaId", "x").append("servicioId", "x").append("estado", "ACTIVA")
+                            .append("desde", new Document("$lte", FECHA))
+                            .append("hasta", new Document("$gte", FECHA)),
+                    new Document("fechaRegistro", 1), 1),
+            new ConsultaPlaneada("ListaEsperaRepoOferta.registrarApartado", "lista_espera",
+                    new Document("_id", OBJECT_ID).append("estado", "OFRECIDA")),
+            new ConsultaPlaneada("ListaEsperaRepoOferta.devolver", "lista_espera",
+                    new Document("_id", OBJECT_ID).append("estado", "OFRECIDA")),
+            new ConsultaPlaneada("ListaEsperaRepoOferta.marcarAtendida", "lista_espera",
+                    new Document("apartadoId", "x").append("estado", "OFRECIDA")),
+            new ConsultaPlaneada("ListaEsperaRepoOferta.buscarOfertasVencidas", "lista_espera",
+                    new Document("estado", "OFRECIDA").append("ofertaExpiraEn", new Document("$lte", FECHA)),
+                    new Document("ofertaExpiraEn", 1), 100),
+            new ConsultaPlaneada("ListaEsperaRepoOferta.vencerOferta", "lista_espera",
+                    new Document("_id", OBJECT_ID).append("estado", "OFRECIDA")),
+            new ConsultaPlaneada("ListaEsperaRepoOferta.cancelar", "lista_espera",
+                    new Document("_id", OBJECT_ID).append("usuarioId", "x")
+                            .append("estado", new Document("$in", List.of("ACTIVA", "OFRECIDA")))),
+            // sugerencias
+            new ConsultaPlaneada("SugerenciaRepository.findByFecha", "sugerencias", new Document("fecha", "x")),
+            // usuarios
+            new ConsultaPlaneada("UsuarioRepo.findByEmail", "usuarios", new Document("email", "x")),
+            new ConsultaPlaneada("UsuarioRepoSegmento.recorrerClientes", "usuarios",
+                    new Document("rol", "CLIENTE").append("estadoUsuario", "ACTIVO")
+                            .append("_id", new Document("$gt", OBJECT_ID))
+                            .append("fechaRegistro", new Document("$gte", FECHA).append("$lt", FECHA)),
+                    new Document("_id", 1), 0)
+    );
+
+    /**
+     * Parámetro de una consulta anotada, con o sin ObjectId(...) alrededor
+     */
+    private static final Pattern PARAMETRO = Pattern.compile("ObjectId\\(\\?(\\d+)\\)|\\?(\\d+)");
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Todas las consultas a verificar: las leídas de las anotaciones y las declaradas a mano
+     * @return Consultas con valores de ejemplo
+     */
+    static List<ConsultaPlaneada> consultas() {
+        List<ConsultaPlaneada> consultas = new ArrayList<>(consultasAnotadas());
+        consultas.addAll(CONSULTAS);
+        return consultas;
+    }
+
+    /**
+     * Construye la consulta de cada método con @Query, y de cada @Aggregation que empieza con $match,
+     * a partir del texto de la anotación
+     * @return Consultas con valores de ejemplo
+     */
+    static List<ConsultaPlaneada> consultasAnotadas() {
+        List<ConsultaPlaneada> consultas = new ArrayList<>();
+        for (Class<?> repositorio : REPOSITORIOS) {
+            for (Method metodo : repositorio.getDeclaredMethods()) {
+                String nombre = repositorio.getSimpleName() + "." + metodo.getName();
+                Query query = metodo.getAnnotation(Query.class);
+                Aggregation agregacion = metodo.getAnnotation(Aggregation.class);
+                if (query != null && !query.value().isEmpty()) {
+                    Document orden = query.sort().isEmpty() ? new Document() : Document.parse(query.sort());
+                    consultas.add(new ConsultaPlaneada(nombre, coleccion(repositorio),
+                            Document.parse(conValoresDeEjemplo(query.value(), metodo)), orden, 0));
+                } else if (agregacion != null && agregacion.pipeline().length > 0) {
+                    Document primeraEtapa = Document.parse(conValoresDeEjemplo(agregacion.pipeline()[0], metodo));
+                    if (primeraEtapa.containsKey("$match")) {
+                        consultas.add(new ConsultaPlaneada(nombre, coleccion(repositorio),
+                                primeraEtapa.get("$match", Document.class)));
+                    }
+                }
+            }
+        }
+        return consultas;
+    }
+
+    /**
+     * Ejecuta explain sobre cada consulta declarada
+     * @return Descripción de cada consulta que planea un COLLSCAN o de cada método sin consulta declarada
+     */
+    @Override
+    public List<String> buscarConsultasSinIndice() {
+        List<String> problemas = new ArrayList<>();
+        for (String metodo : buscarMetodosSinConsulta()) {
+            problemas.add(metodo + ": no tiene consulta declarada para verificar");
+        }
+        for (ConsultaPlaneada consulta : consultas()) {
+            Document plan = explicar(consulta);
+            if (contieneRecorridoCompleto(plan.get("queryPlanner"))) {
+                problemas.add(consulta.metodo() + ": COLLSCAN en " + consulta.coleccion()
+                        + " con filtro " + consulta.filtro().toJson());
+            }
+        }
+        return problemas;
+    }
+
+    /**
+     * Falla si alguna consulta planea un COLLSCAN
+     * @throws ConsultaSinIndiceException Con la lista de consultas sin índice
+     */
+    @Override
+    public void verificar() throws ConsultaSinIndiceException {
+        List<String> problemas = buscarConsultasSinIndice();
+        if (!problemas.isEmpty()) {
+            throw new ConsultaSinIndiceException("Consultas sin índice:\n" + String.join("\n", problemas));
+        }
+    }
+
+    /**
+     * Busca los métodos de repositorio que no tienen consulta declarada
+     * @return Métodos en formato Repositorio.metodo
+     */
+    List<String> buscarMetodosSinConsulta() {
+        Set<String> declaradas = consultas().stream()
+                .map(ConsultaPlaneada::metodo)
+                .collect(Collectors.toSet());
+        List<String> faltantes = new ArrayList<>();
+        for (Class<?> repositorio : REPOSITORIOS) {
+            for (Method metodo : repositorio.getDeclaredMethods()) {
+                if (metodo.isDefault() || metodo.isSynthetic() || Modifier.isStatic(metodo.getModifiers())) {
+                    continue;
+                }
+                String nombre = repositorio.getSimpleName() + "." + metodo.getName();
+                if (!declaradas.contains(nombre) && !RECORRIDOS_COMPLETOS.contains(nombre)
+                        && !SOLO_INSERCIONES.contains(nombre)) {
+                    faltantes.add(nombre);
+                }
+            }
+        }
+        return faltantes;
+    }
+
+    /**
+     * Reemplaza cada ?n del texto de una anotación por un valor de ejemplo del tipo del parámetro n
+     * @param texto Texto JSON de la anotación
+     * @param metodo Método anotado
+     * @return Texto JSON sin parámetros
+     */
+    private static String conValoresDeEjemplo(String texto, Method metodo) {
+        Matcher parametro = PARAMETRO.matcher(texto);
+        StringBuilder resultado = new StringBuilder();
+        while (parametro.find()) {
+            String valor = parametro.group(1) != null
+                    ? "{ '$oid': '" + OBJECT_ID.toHexString() + "' }"
+                    : valorDeEjemplo(metodo.getGenericParameterTypes()[Integer.parseInt(parametro.group(2))]);
+            parametro.appendReplacement(resultado, Matcher.quoteReplacement(valor));
+        }
+        parametro.appendTail(resultado);
+        return resultado.toString();
+    }
+
+    /**
+     * Valor de ejemplo, en JSON, para un parámetro del tipo dado
+     */
+    private static String valorDeEjemplo(Type tipo) {
+        if (tipo instanceof ParameterizedType parametrizado
+                && Collection.class.isAssignableFrom((Class<?>) parametrizado.getRawType())) {
+            return "[" + valorDeEjemplo(parametrizado.getActualTypeArguments()[0]) + "]";
+        }
+        Class<?> clase = tipo instanceof Class<?> c ? c : Object.class;
+        if (clase.isEnum()) {
+            return "'" + ((Enum<?>) clase.getEnumConstants()[0]).name() + "'";
+        }
+        if (Temporal.class.isAssignableFrom(clase) || Date.class.isAssignableFrom(clase)) {
+            return "{ '$date': " + FECHA.getTime() + " }";
+        }
+        if (Number.class.isAssignableFrom(clase) || clase == int.class || clase == long.class) {
+            return "0";
+        }
+        return "'x'";
+    }
+
+    /**
+     * Colección de la entidad que maneja un repositorio, según su @Document
+     */
+    private static String coleccion(Class<?> repositorio) {
+        for (Type interfaz : repositorio.getGenericInterfaces()) {
+            if (interfaz instanceof ParameterizedType parametrizado
+                    && Repository.class.isAssignableFrom((Class<?>) parametrizado.getRawType())) {
+                Class<?> entidad = (Class<?>) parametrizado.getActualTypeArguments()[0];
+                return AnnotatedElementUtils.findMergedAnnotation(entidad,
+                        org.springframework.data.mongodb.core.mapping.Document.class).collection();
+            }
+        }
+        throw new IllegalStateException(repositorio.getSimpleName() + " no declara su entidad");
+    }
+
+    /**
+     * Ejecuta explain en modo queryPlanner, que planea la consulta sin ejecutarla
+     * @param consulta Consulta a explicar
+     * @return Resultado del comando explain
+     */
+    private Document explicar(ConsultaPlaneada consulta) {
+        Document find = new Document("find", consulta.coleccion())
+                .append("filter", consulta.filtro());
+        if (!consulta.orden().isEmpty()) {
+            find.append("sort", consulta.orden());
+        }
+        if (consulta.limite() > 0) {
+            find.append("limit", consulta.limite());
+        }
+        return mongoTemplate.executeCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+    }
+
+    /**
+     * Recorre el plan ganador buscando una etapa COLLSCAN. El recorrido es genérico porque la
+     * forma del plan cambia entre motores (clásico o SBE) y entre despliegues con o sin shards.
+     * @param nodo Nodo del resultado de explain
+     * @return true si alguna etapa del plan ganador es COLLSCAN
+     */
+    static boolean contieneRecorridoCompleto(Object nodo) {
+        if (nodo instanceof Document documento) {
+            if ("COLLSCAN".equals(documento.get("stage"))) {
+                return true;
+            }
+            return documento.entrySet().stream()
+                    .filter(entrada -> !"rejectedPlans".equals(entrada.getKey()))
+                    .anyMatch(entrada -> contieneRecorridoCompleto(entrada.getValue()));
+        }
+        if (nodo instanceof List<?> lista) {
+            return lista.stream().anyMatch(VerificacionIndicesServiceImple::contieneRecorridoCompleto);
+        }
+        return false;
+    }
+}
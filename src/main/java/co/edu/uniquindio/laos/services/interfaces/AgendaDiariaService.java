@@ -0,0 +1,17 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.dto.cita.AgendaDiariaDTO;
+import co.edu.uniquindio.laos.model.Cita;
+
+public interface AgendaDiariaService {
+
+    AgendaDiariaDTO obtenerAgendaHoy(String estilistaId);
+
+    void actualizarCita(Cita cita);
+
+    void quitarCita(String estilistaId, String citaId);
+
+    int reconstruir();
+
+    int sincronizar();
+}
@@ -0,0 +1,25 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ApartadoHorarioService {
+
+    ApartadoHorario apartar(String usuarioId, String estilistaId, String servicioId,
+                            LocalDateTime inicio, LocalDateTime fin) throws Exception;
+
+    ApartadoHorario apartar(String usuarioId, String estilistaId, String servicioId,
+                            LocalDateTime inicio, LocalDateTime fin, Duration duracion) throws Exception;
+
+    ApartadoHorario confirmar(String apartadoId) throws Exception;
+
+    void liberar(String apartadoId);
+
+    Map<String, List<Intervalo>> obtenerApartados(Collection<String> idsEstilistas, LocalDateTime desde, LocalDateTime hasta);
+}
@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import java.time.Duration;
+
+public interface BloqueoTareaService {
+
+    boolean adquirir(String tarea, Duration duracion);
+
+    void liberar(String tarea);
+}
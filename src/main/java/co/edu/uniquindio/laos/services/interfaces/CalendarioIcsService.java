@@ -0,0 +1,29 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CalendarioIcsService {
+
+    String obtenerEtagEstilista(String estilistaId);
+
+    String obtenerEtagCliente(String clienteId);
+
+    void escribirFeedEstilista(String estilistaId, OutputStream salida) throws IOException;
+
+    void escribirFeedCliente(String clienteId, OutputStream salida) throws IOException;
+
+    String obtenerTokenEstilista(String estilistaId) throws RecursoNoEncontradoException;
+
+    String obtenerTokenCliente(String clienteId) throws RecursoNoEncontradoException;
+
+    String renovarTokenEstilista(String estilistaId) throws RecursoNoEncontradoException;
+
+    String renovarTokenCliente(String clienteId) throws RecursoNoEncontradoException;
+
+    String buscarEstilistaPorToken(String token) throws RecursoNoEncontradoException;
+
+    String buscarClientePorToken(String token) throws RecursoNoEncontradoException;
+}
@@ -0,0 +1,16 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.dto.cupon.CampaniaCuponesDTO;
+import co.edu.uniquindio.laos.dto.cupon.CrearCampaniaCuponesDTO;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.exceptions.RecursoEncontradoException;
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+
+public interface CampaniaCuponesService {
+
+    String crearCampania(CrearCampaniaCuponesDTO crearCampaniaCuponesDTO) throws RecursoEncontradoException, RangoFechasInvalidoException;
+
+    CampaniaCuponesDTO obtenerCampania(String id) throws RecursoNoEncontradoException;
+
+    int procesarCampanias();
+}
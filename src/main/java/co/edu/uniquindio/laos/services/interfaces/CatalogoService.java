@@ -0,0 +1,23 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Servicio;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface CatalogoService {
+
+    List<Estilista> obtenerEstilistas();
+
+    List<Servicio> obtenerServicios();
+
+    Map<String, Estilista> obtenerEstilistasPorId(Collection<String> ids);
+
+    Map<String, Servicio> obtenerServiciosPorId(Collection<String> ids);
+
+    void invalidarEstilistas();
+
+    void invalidarServicios();
+}
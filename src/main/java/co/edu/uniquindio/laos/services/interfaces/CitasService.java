@@ -1,9 +1,17 @@
 package co.edu.uniquindio.laos.services.interfaces;
 
-import co.edu.uniquindio.laos.dto.cita.CalendarioCitasDTO;
+import co.edu.uniquindio.laos.dto.cita.ApartadoHorarioDTO;
+import co.edu.uniquindio.laos.dto.cita.CalendarioFeedDTO;
 import co.edu.uniquindio.laos.dto.cita.CrearCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.CrearCitasLoteDTO;
+import co.edu.uniquindio.laos.dto.cita.FiltroCitasDTO;
+import co.edu.uniquindio.laos.dto.cita.HorarioDisponibleDTO;
 import co.edu.uniquindio.laos.dto.cita.InformacionCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.PaginaCitasDTO;
+import co.edu.uniquindio.laos.dto.cita.ReasignarCitasDTO;
 import co.edu.uniquindio.laos.dto.cita.ReprogramarCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.ResultadoCitasLoteDTO;
+import co.edu.uniquindio.laos.dto.cita.ResultadoReasignacionDTO;
 
 import java.util.List;
 
@@ -11,12 +19,22 @@ public interface CitasService {
 
     String crearCita(CrearCitaDTO crearCitaDTO) throws Exception;
 
+    ApartadoHorarioDTO apartarHorario(CrearCitaDTO crearCitaDTO) throws Exception;
+
+    String confirmarApartado(String apartadoId) throws Exception;
+
+    void liberarApartado(String apartadoId);
+
+    ResultadoCitasLoteDTO crearCitasLote(CrearCitasLoteDTO crearCitasLoteDTO) throws Exception;
+
     String cancelarCita(String idCita) throws Exception;
 
     List<InformacionCitaDTO> obtenerCitasCanceladasYCompletadasPorClienteId(String clienteId);
 
     String reprogramarCita(ReprogramarCitaDTO reprogramarCitaDTO) throws Exception;
 
+    ResultadoReasignacionDTO reasignarCitasEstilista(ReasignarCitasDTO reasignarCitasDTO) throws Exception;
+
     List<InformacionCitaDTO> obtenerCitasPorClienteId(String clienteId);
 
     List<InformacionCitaDTO> obtenerCitasPorEstilistaId(String estilistaId);
@@ -25,5 +43,11 @@ public interface CitasService {
 
     List<InformacionCitaDTO> obtenerCitasPorEstado(String estado);
 
-    List<CalendarioCitasDTO> obtenerCitasConfirmadasYReprogramadas();
+    PaginaCitasDTO listarCitas(FiltroCitasDTO filtro) throws Exception;
+
+    CalendarioFeedDTO obtenerCalendario(String fechaDesde, String fechaHasta, String estilistaId, Long cambiosDesde) throws Exception;
+
+    long obtenerVersionCalendario();
+
+    List<HorarioDisponibleDTO> obtenerHorariosDisponibles(String estilistaId, String servicioId, String fechaDesde, String fechaHasta) throws Exception;
 }
@@ -3,6 +3,10 @@ package co.edu.uniquindio.laos.services.interfaces;
 import co.edu.uniquindio.laos.dto.cupon.CrearCuponDTO;
 import co.edu.uniquindio.laos.dto.cupon.CuponDTO;
 import co.edu.uniquindio.laos.dto.cupon.EditarCuponDTO;
+import co.edu.uniquindio.laos.dto.cupon.InformacionCuponDTO;
+import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+import co.edu.uniquindio.laos.exceptions.CuponNoDisponibleException;
+import co.edu.uniquindio.laos.exceptions.RecursoEncontradoException;
 import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
 import co.edu.uniquindio.laos.model.Cupon;
 
@@ -12,7 +16,8 @@ public interface CuponService {
 
     String crearCupon(CrearCuponDTO crearCuponDTO) throws Exception;
 
-    String editarCupon(EditarCuponDTO editarCuponDTO)throws RecursoNoEncontradoException;
+    String editarCupon(EditarCuponDTO editarCuponDTO)throws RecursoNoEncontradoException, RecursoEncontradoException,
+            ConflictoConcurrenciaException;
 
     String eliminarCupon(String idCupon)throws RecursoNoEncontradoException;
 
@@ -26,6 +31,8 @@ public interface CuponService {
 
     Cupon obtenerCuponPorId(String codigo) throws RecursoNoEncontradoException;
 
+    InformacionCuponDTO redimirCupon(String codigo, String idUsuario) throws RecursoNoEncontradoException, CuponNoDisponibleException;
+
     List<CuponDTO> listarCupones();
 
     String generarCodigoCupon();
@@ -0,0 +1,22 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.model.EventoCita;
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import co.edu.uniquindio.laos.model.UtilizacionEstilista;
+
+import java.util.List;
+
+public interface EventosCitasService {
+
+    int procesarEventos();
+
+    long reconstruirProyecciones() throws ConflictoConcurrenciaException;
+
+    List<EventoCita> obtenerHistorialCita(String citaId);
+
+    List<UtilizacionEstilista> obtenerUtilizacion(String estilistaId, String desde, String hasta) throws RangoFechasInvalidoException;
+
+    HistorialCliente obtenerHistorialCliente(String clienteId);
+}
@@ -0,0 +1,9 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.dto.cupon.GenerarCuponesDTO;
+import co.edu.uniquindio.laos.dto.cupon.ResultadoGeneracionCuponesDTO;
+
+public interface GeneracionCuponesService {
+
+    ResultadoGeneracionCuponesDTO generarCupones(GenerarCuponesDTO generarCuponesDTO);
+}
@@ -0,0 +1,22 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.dto.cita.EsperaCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.RegistrarEsperaDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ListaEsperaService {
+
+    String registrar(RegistrarEsperaDTO registrarEsperaDTO) throws Exception;
+
+    void cancelar(String esperaId, String clienteId) throws Exception;
+
+    List<EsperaCitaDTO> obtenerEsperas(String clienteId);
+
+    boolean ofrecerHorario(String estilistaId, String servicioId, LocalDateTime inicio, LocalDateTime fin);
+
+    void marcarAtendida(String apartadoId);
+
+    int procesarOfertasVencidas();
+}
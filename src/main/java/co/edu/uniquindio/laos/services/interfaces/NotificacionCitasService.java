@@ -0,0 +1,13 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.model.Cita;
+
+import java.util.List;
+
+public interface NotificacionCitasService {
+
+    void notificarCambiosDeEstilista(List<Cita> reasignadas, List<Cita> canceladas);
+
+    void notificarOfertaListaEspera(ApartadoHorario apartado);
+}
@@ -0,0 +1,27 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface OcupacionAgendaService {
+
+    boolean existeSolapamiento(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaExcluida);
+
+    Set<Integer> buscarSolapamientos(String estilistaId, List<Intervalo> intervalos);
+
+    Map<String, List<Intervalo>> obtenerOcupados(Collection<String> idsEstilistas, LocalDate desde, LocalDate hasta);
+
+    void registrar(String estilistaId, String citaId, LocalDateTime inicio, LocalDateTime fin);
+
+    void eliminar(String estilistaId, String citaId, LocalDateTime inicio, LocalDateTime fin);
+
+    void descartarDiasPasados();
+
+    int verificarConsistencia();
+}
@@ -0,0 +1,10 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+public interface ReconciliacionCitasService {
+
+    void reconciliarEstilista(String estilistaId, String nombre);
+
+    void reconciliarServicio(String servicioId, String nombre);
+
+    long reconciliarTodo();
+}
@@ -0,0 +1,32 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+public interface ReservaHorarioService {
+
+    void reservar(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaId) throws Exception;
+
+    void apartar(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String apartadoId, Instant expiraEn) throws Exception;
+
+    boolean confirmarApartado(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String apartadoId, Instant ahora);
+
+    void liberarApartado(String apartadoId);
+
+    void reprogramar(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaId) throws Exception;
+
+    Set<String> reservarLote(String estilistaId, Map<String, Intervalo> intervalosPorCita);
+
+    void liberar(String citaId);
+
+    void liberarLote(Collection<String> citaIds);
+
+    void liberarLote(String estilistaId, Collection<String> citaIds);
+
+    boolean estaReclamado(String estilistaId, LocalDateTime inicio, LocalDateTime fin, String citaExcluida);
+}
@@ -0,0 +1,6 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+public interface VencimientoCuponesService {
+
+    int vencerCupones();
+}
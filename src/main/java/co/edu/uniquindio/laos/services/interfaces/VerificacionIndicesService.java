@@ -0,0 +1,12 @@
+package co.edu.uniquindio.laos.services.interfaces;
+
+import co.edu.uniquindio.laos.exceptions.ConsultaSinIndiceException;
+
+import java.util.List;
+
+public interface VerificacionIndicesService {
+
+    List<String> buscarConsultasSinIndice();
+
+    void verificar() throws ConsultaSinIndiceException;
+}
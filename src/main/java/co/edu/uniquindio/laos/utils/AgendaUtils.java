@@ -0,0 +1,95 @@
+package co.edu.uniquindio.laos.utils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Clase de utilidad para operaciones sobre la agenda de los estilistas.
+ *
+ * Trabaja con intervalos semiabiertos [inicio, fin) y calcula los huecos libres
+ * de una agenda con un único barrido sobre intervalos ordenados.
+ */
+public class AgendaUtils {
+
+    /**
+     * Intervalo de tiempo semiabierto [inicio, fin)
+     * @param inicio Instante de inicio, incluido
+     * @param fin Instante de fin, excluido
+     */
+    public record Intervalo(LocalDateTime inicio, LocalDateTime fin) {
+    }
+
+    /**
+     * Calcula los huecos libres dentro de las ventanas de atención descontando los
+     * intervalos ocupados.
+     *
+     * Los ocupados se ordenan por inicio y se recorren una sola vez junto con las
+     * ventanas (también ordenadas), por lo que el costo es O(n log n) en el número de
+     * citas. Los huecos se ajustan a la rejilla de bloques de la agenda: el inicio se
+     * redondea hacia arriba y el fin hacia abajo, y solo se devuelven los que admiten
+     * al menos la duración mínima.
+     *
+     * @param ventanas Ventanas de atención ordenadas y sin solaparse
+     * @param ocupados Intervalos ocupados, en cualquier orden y posiblemente solapados
+     * @param minutosMinimos Duración mínima que debe admitir un hueco
+     * @param minutosBloque Tamaño del bloque de agenda al que se alinean los huecos
+     * @return Huecos libres ordenados por inicio
+     */
+    public static List<Intervalo> calcularHuecosLibres(List<Intervalo> ventanas,
+                                                       List<Intervalo> ocupados,
+                                                       long minutosMinimos,
+                                                       int minutosBloque) {
+        List<Intervalo> ordenados = new ArrayList<>(ocupados);
+        ordenados.sort(Comparator.comparing(Intervalo::inicio));
+
+        List<Intervalo> huecos = new ArrayList<>();
+        int siguiente = 0;
+        for (Intervalo ventana : ventanas) {
+            // Los ocupados que terminan antes de esta ventana ya no afectan a ninguna otra
+            while (siguiente < ordenados.size() && !ordenados.get(siguiente).fin().isAfter(ventana.inicio())) {
+                siguiente++;
+            }
+
+            LocalDateTime cursor = ventana.inicio();
+            for (int i = siguiente; i < ordenados.size() && ordenados.get(i).inicio().isBefore(ventana.fin()); i++) {
+                Intervalo ocupado = ordenados.get(i);
+                agregarHueco(huecos, cursor, ocupado.inicio(), minutosMinimos, minutosBloque);
+                if (ocupado.fin().isAfter(cursor)) {
+                    cursor = ocupado.fin();
+                }
+            }
+            agregarHueco(huecos, cursor, ventana.fin(), minutosMinimos, minutosBloque);
+        }
+        return huecos;
+    }
+
+    /**
+     * Agrega el hueco [inicio, fin) alineado a la rejilla si admite la duración mínima
+     */
+    private static void agregarHueco(List<Intervalo> huecos, LocalDateTime inicio, LocalDateTime fin,
+                                     long minutosMinimos, int minutosBloque) {
+        LocalDateTime inicioAlineado = redondearArriba(inicio, minutosBloque);
+        LocalDateTime finAlineado = redondearAbajo(fin, minutosBloque);
+        if (!inicioAlineado.plusMinutes(minutosMinimos).isAfter(finAlineado)) {
+            huecos.add(new Intervalo(inicioAlineado, finAlineado));
+        }
+    }
+
+    /**
+     * Redondea una fecha hacia abajo al inicio de su bloque
+     */
+    private static LocalDateTime redondearAbajo(LocalDateTime fechaHora, int minutosBloque) {
+        int minuto = fechaHora.getMinute() - fechaHora.getMinute() % minutosBloque;
+        return fechaHora.withMinute(minuto).withSecond(0).withNano(0);
+    }
+
+    /**
+     * Redondea una fecha hacia arriba al inicio del siguiente bloque, salvo que ya esté alineada
+     */
+    private static LocalDateTime redondearArriba(LocalDateTime fechaHora, int minutosBloque) {
+        LocalDateTime abajo = redondearAbajo(fechaHora, minutosBloque);
+        return abajo.equals(fechaHora) ? abajo : abajo.plusMinutes(minutosBloque);
+    }
+}
@@ -0,0 +1,56 @@
+package co.edu.uniquindio.laos.utils;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EventoPendienteCita;
+import co.edu.uniquindio.laos.model.TipoEventoCita;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase de utilidad para registrar los eventos de una cita.
+ *
+ * Cada cambio de una cita agrega su evento a eventosPendientes antes de escribirla, así el
+ * cambio y el evento viajan en la misma escritura de un solo documento. La tarea de eventos
+ * los copia después a eventos_citas y los quita de la cita.
+ */
+public class EventosCitaUtils {
+
+    /**
+     * Crea un evento con el estado actual de la cita
+     * @param tipo Tipo del evento
+     * @param cita Cita ya modificada; null para eventos que solo cambian el estado
+     * @param fecha Momento del cambio
+     * @return Evento pendiente con un identificador nuevo
+     */
+    public static EventoPendienteCita nuevoEvento(TipoEventoCita tipo, Cita cita, Instant fecha) {
+        EventoPendienteCita.EventoPendienteCitaBuilder evento = EventoPendienteCita.builder()
+                .eventoId(new ObjectId().toHexString())
+                .tipo(tipo)
+                .fecha(fecha);
+        if (cita != null) {
+            evento.usuarioId(cita.getUsuarioId())
+                    .estilistaId(cita.getEstilistaId())
+                    .servicioId(cita.getServicioId())
+                    .fechaHora(cita.getFechaHora())
+                    .fechaHoraFin(cita.getFechaHoraFin());
+        }
+        return evento.build();
+    }
+
+    /**
+     * Agrega a la cita el evento de su último cambio, conservando los que aún no se copian
+     * @param cita Cita ya modificada que se va a guardar
+     * @param tipo Tipo del evento
+     * @param fecha Momento del cambio
+     */
+    public static void registrarEvento(Cita cita, TipoEventoCita tipo, Instant fecha) {
+        List<EventoPendienteCita> pendientes = cita.getEventosPendientes() == null
+                ? new ArrayList<>()
+                : new ArrayList<>(cita.getEventosPendientes());
+        pendientes.add(nuevoEvento(tipo, cita, fecha));
+        cita.setEventosPendientes(pendientes);
+    }
+}
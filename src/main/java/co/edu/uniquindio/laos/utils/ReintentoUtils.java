@@ -0,0 +1,67 @@
+package co.edu.uniquindio.laos.utils;
+
+import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Clase de utilidad para repetir operaciones de lectura-modificación-escritura que chocan
+ * con una escritura concurrente.
+ *
+ * Los documentos con @Version se guardan solo si la versión no cambió desde que se leyeron;
+ * si cambió, Spring Data lanza OptimisticLockingFailureException. La operación se vuelve a
+ * ejecutar completa, incluida la lectura, un número acotado de veces.
+ */
+public class ReintentoUtils {
+
+    /**
+     * Intentos por defecto antes de dar la operación por perdida
+     */
+    public static final int MAX_INTENTOS = 3;
+
+    /**
+     * Operación que lee, modifica y guarda un documento versionado
+     * @param <T> Tipo del resultado
+     * @param <E> Excepción propia de la operación
+     */
+    @FunctionalInterface
+    public interface Operacion<T, E extends Exception> {
+        T ejecutar() throws E;
+    }
+
+    /**
+     * Ejecuta la operación con el número de intentos por defecto
+     * @param operacion Operación a ejecutar; debe volver a leer el documento en cada intento
+     * @return Resultado del primer intento que no tuvo conflicto
+     * @throws E Si la operación falla por un motivo distinto a un conflicto de versión
+     * @throws ConflictoConcurrenciaException Si todos los intentos chocaron con otra escritura
+     */
+    public static <T, E extends Exception> T conReintentos(Operacion<T, E> operacion)
+            throws E, ConflictoConcurrenciaException {
+        return conReintentos(MAX_INTENTOS, operacion);
+    }
+
+    /**
+     * Ejecuta la operación y la repite mientras choque con otra escritura, hasta agotar los intentos
+     * @param intentos Número máximo de ejecuciones, al menos una
+     * @param operacion Operación a ejecutar; debe volver a leer el documento en cada intento
+     * @return Resultado del primer intento que no tuvo conflicto
+     * @throws E Si la operación falla por un motivo distinto a un conflicto de versión
+     * @throws ConflictoConcurrenciaException Si todos los intentos chocaron con otra escritura
+     */
+    public static <T, E extends Exception> T conReintentos(int intentos, Operacion<T, E> operacion)
+            throws E, ConflictoConcurrenciaException {
+        for (int intento = 1; intento < intentos; intento++) {
+            try {
+                return operacion.ejecutar();
+            } catch (OptimisticLockingFailureException e) {
+                // Otro proceso guardó el documento entre la lectura y la escritura; se vuelve a leer
+            }
+        }
+        try {
+            return operacion.ejecutar();
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictoConcurrenciaException(
+                    "El registro fue modificado por otra operación, intente de nuevo");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package co.edu.uniquindio.laos;
+
+import co.edu.uniquindio.laos.dto.quejasugerencia.QuejasPorClienteDTO;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.repositories.QuejaSugerenciaRepo;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migra contra la base de pruebas un cupón de campaña anterior cuyo cliente ya tiene el cupón de
+ * esa campaña con usuarioId, para que sea el índice único real quien rechace la migración, y
+ * comprueba que los reportes por cliente cuentan los documentos que aún no se migran.
+ */
+@SpringBootTest
+class MigracionEnlacesUsuarioTests {
+
+    @Autowired
+    CuponRepo cuponRepo;
+    @Autowired
+    QuejaSugerenciaRepo quejaSugerenciaRepo;
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    private final ObjectId clienteId = new ObjectId();
+    private final ObjectId migradoId = new ObjectId();
+    private final ObjectId repetidoId = new ObjectId();
+    private final ObjectId quejaMigradaId = new ObjectId();
+    private final ObjectId quejaAnteriorId = new ObjectId();
+
+    @AfterEach
+    void limpiar() {
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(migradoId, repetidoId)), "cupones");
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(quejaMigradaId, quejaAnteriorId)), "quejas_sugerencias");
+    }
+
+    @Test
+    void cuponDeCampaniaRepetido_seEliminaYSaleDeLosPendientes() {
+        String campania = "MIGRACION-" + new ObjectId().toHexString();
+        mongoTemplate.insert(new Document("_id", migradoId)
+                .append("codigo", campania + "-A")
+                .append("campania", campania)
+                .append("usuarioId", clienteId)
+                .append("estadoCupon", "ACTIVO")
+                .append("version", 0L), "cupones");
+        mongoTemplate.insert(new Document("_id", repetidoId)
+                .append("codigo", campania + "-B")
+                .append("campania", campania)
+                .append("usuario", new DBRef("usuarios", clienteId))
+                .append("estadoCupon", "ACTIVO")
+                .append("version", 0L), "cupones");
+
+        // Act: lotes hasta que no quede ningún enlace anterior, como la tarea programada
+        for (int lote = 0; lote < 20 && cuponRepo.contarEnlacesUsuarioPendientes() > 0; lote++) {
+            cuponRepo.migrarEnlacesUsuario(500);
+        }
+
+        // Assert: el repetido no se vuelve a leer en cada lote
+        assertEquals(0, cuponRepo.contarEnlacesUsuarioPendientes());
+        Cupon repetido = cuponRepo.findById(repetidoId.toHexString()).orElseThrow();
+        assertEquals(EstadoCupon.ELIMINADO, repetido.getEstadoCupon());
+        assertNull(repetido.getUsuarioId());
+        assertEquals(clienteId.toHexString(), repetido.getUsuarioIdConflicto());
+        assertEquals(1L, repetido.getVersion());
+
+        List<Cupon> delCliente = cuponRepo.buscarVigentesPorUsuario(clienteId.toHexString(), LocalDate.now());
+        assertEquals(List.of(migradoId.toHexString()), delCliente.stream().map(Cupon::getId).toList());
+    }
+
+    @Test
+    void quejasPorUsuario_duranteLaMigracion_cuentaLasQueAunTienenElEnlaceAnterior() {
+        mongoTemplate.insert(new Document("_id", quejaMigradaId)
+                .append("tipoPQRS", "QUEJA")
+                .append("usuarioId", clienteId), "quejas_sugerencias");
+        mongoTemplate.insert(new Document("_id", quejaAnteriorId)
+                .append("tipoPQRS", "QUEJA")
+                .append("usuario", new DBRef("usuarios", clienteId)), "quejas_sugerencias");
+
+        // Act
+        List<QuejasPorClienteDTO> porCliente = quejaSugerenciaRepo.contarQuejasPorUsuario();
+
+        // Assert: las dos se cuentan para el cliente y ninguna como ANONIMO
+        assertTrue(porCliente.contains(new QuejasPorClienteDTO(clienteId.toHexString(), 2L)));
+    }
+}
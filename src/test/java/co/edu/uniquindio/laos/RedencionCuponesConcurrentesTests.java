@@ -0,0 +1,97 @@
+package co.edu.uniquindio.laos;
+
+import co.edu.uniquindio.laos.exceptions.CuponNoDisponibleException;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.services.interfaces.CuponService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dispara redenciones simultáneas del mismo cupón contra la base de pruebas, para que sea
+ * MongoDB y no un doble de prueba quien decida qué redenciones caben en los límites.
+ */
+@SpringBootTest
+class RedencionCuponesConcurrentesTests {
+
+    @Autowired
+    CuponService cuponService;
+    @Autowired
+    CuponRepo cuponRepo;
+
+    private Cupon cupon;
+
+    @AfterEach
+    void limpiar() {
+        if (cupon != null) {
+            cuponRepo.deleteById(cupon.getId());
+        }
+    }
+
+    @Test
+    void cientosDeRedencionesConcurrentes_soloGananLosUsosDisponibles() throws Exception {
+        // 25 usos en total y a lo sumo 2 por cliente, disputados por 400 compras de 40 clientes
+        String codigo = "CONCURRENCIA-" + new ObjectId().toHexString();
+        cupon = cuponRepo.save(Cupon.builder()
+                .codigo(codigo)
+                .nombre("Concurrencia")
+                .porcentajeDescuento(15.0)
+                .estadoCupon(EstadoCupon.ACTIVO)
+                .fechaVencimiento(LocalDate.now().plusDays(10))
+                .usosMaximos(25)
+                .maximoUsosPorCliente(2)
+                .build());
+
+        int peticiones = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger exitosas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        for (int i = 0; i < peticiones; i++) {
+            String clienteId = String.format("64b0000000000000000%05d", i % 40);
+            tareas.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    cuponService.redimirCupon(codigo, clienteId);
+                    exitosas.incrementAndGet();
+                } catch (CuponNoDisponibleException e) {
+                    rechazadas.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Exactamente los usos disponibles, ninguno gastado dos veces ni por encima del límite por cliente
+        Cupon guardado = cuponRepo.findById(cupon.getId()).orElseThrow();
+        assertEquals(25, exitosas.get());
+        assertEquals(peticiones - 25, rechazadas.get());
+        assertEquals(25, guardado.getUsos());
+        assertEquals(25, guardado.getUsosPorCliente().values().stream().mapToInt(Integer::intValue).sum());
+        assertTrue(guardado.getUsosPorCliente().values().stream().allMatch(usos -> usos <= 2));
+    }
+}
@@ -0,0 +1,91 @@
+package co.edu.uniquindio.laos;
+
+import co.edu.uniquindio.laos.exceptions.HorarioYEstilistaOcupadoException;
+import co.edu.uniquindio.laos.model.ReservaHorario;
+import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Dispara reservas simultáneas del mismo horario de un estilista contra la base de pruebas, para
+ * que sea el índice único de _id en reservas_horario, y no un doble de prueba, quien decida la
+ * cita ganadora y para que las perdedoras deshagan de verdad los bloques que alcanzaron a reclamar.
+ */
+@SpringBootTest
+class ReservasHorarioConcurrentesTests {
+
+    @Autowired
+    ReservaHorarioService reservaHorarioService;
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    private final String estilistaId = new ObjectId().toHexString();
+
+    @AfterEach
+    void limpiar() {
+        mongoTemplate.remove(new Query(Criteria.where("estilistaId").is(estilistaId)), ReservaHorario.class);
+    }
+
+    @Test
+    void cientosDeReservasConcurrentesMismoHorario_soloUnaGanaYNoQuedanBloquesHuerfanos() throws Exception {
+        // La mitad pide 10:00-11:00 y la otra mitad 10:30-11:30: todas se cruzan
+        LocalDateTime diezAm = LocalDateTime.of(LocalDate.now().plusDays(30), LocalTime.of(10, 0));
+        int peticiones = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger rechazadas = new AtomicInteger();
+        Set<String> ganadoras = ConcurrentHashMap.newKeySet();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        for (int i = 0; i < peticiones; i++) {
+            String citaId = new ObjectId().toHexString();
+            LocalDateTime inicio = i % 2 == 0 ? diezAm : diezAm.plusMinutes(30);
+            tareas.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    reservaHorarioService.reservar(estilistaId, inicio, inicio.plusHours(1), citaId);
+                    ganadoras.add(citaId);
+                } catch (HorarioYEstilistaOcupadoException e) {
+                    rechazadas.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Una sola cita se queda con todos sus bloques; las demás no dejan ningún reclamo
+        assertEquals(1, ganadoras.size());
+        assertEquals(peticiones - 1, rechazadas.get());
+        List<ReservaHorario> guardadas = mongoTemplate.find(
+                new Query(Criteria.where("estilistaId").is(estilistaId)), ReservaHorario.class);
+        assertEquals(4, guardadas.size());
+        assertEquals(ganadoras, Set.copyOf(guardadas.stream().map(ReservaHorario::getCitaId).toList()));
+    }
+}
@@ -0,0 +1,28 @@
+package co.edu.uniquindio.laos;
+
+import co.edu.uniquindio.laos.services.interfaces.VerificacionIndicesService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ejecuta explain contra la base de pruebas, con los índices que crea IndicesMongoInicializador
+ * al arrancar, sobre la consulta de cada método de repositorio.
+ */
+@SpringBootTest
+class VerificacionIndicesTests {
+
+    @Autowired
+    VerificacionIndicesService verificacionIndicesService;
+
+    @Test
+    void ningunaConsultaDeRepositorioRecorreLaColeccion() {
+        List<String> problemas = verificacionIndicesService.buscarConsultasSinIndice();
+
+        assertTrue(problemas.isEmpty(), String.join("\n", problemas));
+    }
+}
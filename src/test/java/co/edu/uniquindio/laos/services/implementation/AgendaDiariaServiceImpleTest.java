@@ -0,0 +1,282 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cita.AgendaDiariaDTO;
+import co.edu.uniquindio.laos.dto.cita.CitaAgendaDTO;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgendaDiariaServiceImpleTest {
+
+    private static final LocalDate HOY = LocalDate.of(2023, 10, 15);
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private CatalogoService catalogoService;
+
+    private MeterRegistry meterRegistry;
+
+    private RelojAjustable reloj;
+
+    private AgendaDiariaServiceImple agendaDiariaService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reloj = new RelojAjustable(HOY.atTime(6, 0));
+        agendaDiariaService = new AgendaDiariaServiceImple(citaRepo, catalogoService, meterRegistry, 300, reloj);
+    }
+
+    @Test
+    void reconstruir_unaConsultaParaTodosYLuegoLecturasDesdeMemoria() {
+        // Arrange
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(
+                Estilista.builder().id("e1").build(), Estilista.builder().id("e2").build()));
+        when(citaRepo.buscarAgendaDiaria(HOY.atStartOfDay(), HOY.plusDays(2).atStartOfDay(), null))
+                .thenReturn(List.of(
+                        cita("c2", "e1", HOY.atTime(11, 0), EstadoCita.CONFIRMADA),
+                        cita("c1", "e1", HOY.atTime(9, 0), EstadoCita.REPROGRAMADA),
+                        cita("c3", "e1", HOY.plusDays(1).atTime(10, 0), EstadoCita.CONFIRMADA)));
+
+        // Act
+        int agendas = agendaDiariaService.reconstruir();
+        AgendaDiariaDTO agenda = agendaDiariaService.obtenerAgendaHoy("e1");
+        AgendaDiariaDTO vacia = agendaDiariaService.obtenerAgendaHoy("e2");
+
+        // Assert
+        assertEquals(2, agendas);
+        assertEquals(HOY, agenda.dia());
+        assertEquals(List.of("c1", "c2"), agenda.citasHoy().stream().map(CitaAgendaDTO::citaId).toList());
+        assertEquals("09:00", agenda.citasHoy().get(0).horaInicio());
+        assertEquals("09:45", agenda.citasHoy().get(0).horaFin());
+        assertEquals(List.of("c3"), agenda.citasManiana().stream().map(CitaAgendaDTO::citaId).toList());
+        assertTrue(vacia.citasHoy().isEmpty());
+        verify(citaRepo, times(1)).buscarAgendaDiaria(any(), any(), any());
+        assertEquals(2.0, meterRegistry.counter("laos.agenda.diaria", "resultado", "memoria").count());
+    }
+
+    @Test
+    void obtenerAgendaHoy_sinAgendaGuardada_consultaEnVivoYLaGuarda() {
+        // Arrange
+        when(citaRepo.buscarAgendaDiaria(HOY.atStartOfDay(), HOY.plusDays(2).atStartOfDay(), "e1"))
+                .thenReturn(List.of(cita("c1", "e1", HOY.atTime(9, 0), EstadoCita.CONFIRMADA)));
+
+        // Act
+        agendaDiariaService.obtenerAgendaHoy("e1");
+        AgendaDiariaDTO agenda = agendaDiariaService.obtenerAgendaHoy("e1");
+
+        // Assert
+        assertEquals(1, agenda.citasHoy().size());
+        verify(citaRepo, times(1)).buscarAgendaDiaria(any(), any(), eq("e1"));
+        assertEquals(1.0, meterRegistry.counter("laos.agenda.diaria", "resultado", "en_vivo").count());
+        assertEquals(1.0, meterRegistry.counter("laos.agenda.diaria", "resultado", "memoria").count());
+    }
+
+    @Test
+    void obtenerAgendaHoy_agendaMasViejaQueElMaximo_consultaEnVivo() {
+        // Arrange
+        when(citaRepo.buscarAgendaDiaria(any(), any(), eq("e1"))).thenReturn(List.of());
+        agendaDiariaService.obtenerAgendaHoy("e1");
+        reloj.ajustar(HOY.atTime(6, 6));
+
+        // Act
+        agendaDiariaService.obtenerAgendaHoy("e1");
+
+        // Assert
+        verify(citaRepo, times(2)).buscarAgendaDiaria(any(), any(), eq("e1"));
+    }
+
+    @Test
+    void obtenerAgendaHoy_agendaDeAyer_consultaElDiaNuevo() {
+        // Arrange
+        when(citaRepo.buscarAgendaDiaria(any(), any(), eq("e1"))).thenReturn(List.of());
+        agendaDiariaService.obtenerAgendaHoy("e1");
+        reloj.ajustar(HOY.plusDays(1).atTime(0, 1));
+
+        // Act
+        AgendaDiariaDTO agenda = agendaDiariaService.obtenerAgendaHoy("e1");
+
+        // Assert
+        assertEquals(HOY.plusDays(1), agenda.dia());
+        verify(citaRepo).buscarAgendaDiaria(HOY.plusDays(1).atStartOfDay(), HOY.plusDays(3).atStartOfDay(), "e1");
+    }
+
+    @Test
+    void actualizarCitaYQuitarCita_modificanLaAgendaEnMemoriaSinConsultar() {
+        // Arrange
+        when(citaRepo.buscarAgendaDiaria(any(), any(), eq("e1")))
+                .thenReturn(List.of(cita("c1", "e1", HOY.atTime(9, 0), EstadoCita.CONFIRMADA)));
+        agendaDiariaService.obtenerAgendaHoy("e1");
+
+        // Act
+        agendaDiariaService.actualizarCita(cita("c2", "e1", HOY.atTime(8, 0), EstadoCita.CONFIRMADA));
+        agendaDiariaService.actualizarCita(cita("c3", "e1", HOY.plusDays(5).atTime(8, 0), EstadoCita.CONFIRMADA));
+        agendaDiariaService.quitarCita("e1", "c1");
+        AgendaDiariaDTO agenda = agendaDiariaService.obtenerAgendaHoy("e1");
+
+        // Assert: la cita de dentro de cinco días no es parte de la agenda
+        assertEquals(List.of("c2"), agenda.citasHoy().stream().map(CitaAgendaDTO::citaId).toList());
+        assertTrue(agenda.citasManiana().isEmpty());
+        verify(citaRepo, times(1)).buscarAgendaDiaria(any(), any(), any());
+    }
+
+    @Test
+    void sincronizar_aplicaCambiosDeOtrosNodosIncluidasReasignacionesYCancelaciones() {
+        // Arrange
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(
+                Estilista.builder().id("e1").build(), Estilista.builder().id("e2").build()));
+        when(citaRepo.buscarAgendaDiaria(HOY.atStartOfDay(), HOY.plusDays(2).atStartOfDay(), null))
+                .thenReturn(List.of(
+                        cita("c1", "e1", HOY.atTime(9, 0), EstadoCita.CONFIRMADA),
+                        cita("c2", "e1", HOY.atTime(10, 0), EstadoCita.CONFIRMADA)));
+        agendaDiariaService.reconstruir();
+        reloj.ajustar(HOY.atTime(6, 1));
+        Instant desde = HOY.atTime(6, 0).toInstant(ZoneOffset.UTC).minusSeconds(5);
+        when(citaRepo.buscarAgendaModificada(desde))
+                .thenReturn(List.of(
+                        cita("c1", "e2", HOY.atTime(9, 0), EstadoCita.CONFIRMADA),
+                        cita("c2", "e1", HOY.atTime(10, 0), EstadoCita.CANCELADA)));
+
+        // Act
+        int aplicadas = agendaDiariaService.sincronizar();
+
+        // Assert
+        assertEquals(2, aplicadas);
+        assertTrue(agendaDiariaService.obtenerAgendaHoy("e1").citasHoy().isEmpty());
+        assertEquals(List.of("c1"), agendaDiariaService.obtenerAgendaHoy("e2").citasHoy().stream()
+                .map(CitaAgendaDTO::citaId).toList());
+    }
+
+    @Test
+    void sincronizar_primeraPasada_reconstruyeTodo() {
+        // Arrange
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(Estilista.builder().id("e1").build()));
+        when(citaRepo.buscarAgendaDiaria(any(), any(), isNull())).thenReturn(List.of());
+
+        // Act
+        int resultado = agendaDiariaService.sincronizar();
+
+        // Assert
+        assertEquals(1, resultado);
+        verify(citaRepo, never()).buscarAgendaModificada(any());
+    }
+
+    @Test
+    void sincronizar_citaMovidaFueraDeLosDosDias_seQuitaDeLaAgenda() {
+        // Arrange
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(Estilista.builder().id("e1").build()));
+        when(citaRepo.buscarAgendaDiaria(HOY.atStartOfDay(), HOY.plusDays(2).atStartOfDay(), null))
+                .thenReturn(List.of(cita("c1", "e1", HOY.atTime(9, 0), EstadoCita.CONFIRMADA)));
+        agendaDiariaService.reconstruir();
+        reloj.ajustar(HOY.atTime(6, 1));
+        when(citaRepo.buscarAgendaModificada(any()))
+                .thenReturn(List.of(cita("c1", "e1", HOY.plusDays(7).atTime(9, 0), EstadoCita.REPROGRAMADA)));
+
+        // Act
+        agendaDiariaService.sincronizar();
+
+        // Assert
+        assertTrue(agendaDiariaService.obtenerAgendaHoy("e1").citasHoy().isEmpty());
+    }
+
+    @Test
+    void obtenerAgendaHoy_soloConCambiosSinLecturaCompleta_consultaEnVivoAlVencer() {
+        // Arrange: los cambios se aplicaron a las 6:01, pero la última lectura completa fue a las 6:00
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(Estilista.builder().id("e1").build()));
+        when(citaRepo.buscarAgendaDiaria(any(), any(), isNull())).thenReturn(List.of());
+        when(citaRepo.buscarAgendaModificada(any())).thenReturn(List.of());
+        agendaDiariaService.reconstruir();
+        reloj.ajustar(HOY.atTime(6, 1));
+        agendaDiariaService.sincronizar();
+        reloj.ajustar(HOY.atTime(6, 6));
+        when(citaRepo.buscarAgendaDiaria(any(), any(), eq("e1"))).thenReturn(List.of());
+
+        // Act
+        agendaDiariaService.obtenerAgendaHoy("e1");
+
+        // Assert
+        verify(citaRepo).buscarAgendaDiaria(any(), any(), eq("e1"));
+        assertEquals(1.0, meterRegistry.counter("laos.agenda.diaria", "resultado", "en_vivo").count());
+    }
+
+    @Test
+    void sincronizar_lecturaCompletaPasaLaMitadDeLaAntiguedad_reconstruyeTodo() {
+        // Arrange
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(Estilista.builder().id("e1").build()));
+        when(citaRepo.buscarAgendaDiaria(any(), any(), isNull())).thenReturn(List.of());
+        agendaDiariaService.reconstruir();
+        reloj.ajustar(HOY.atTime(6, 3));
+
+        // Act
+        int resultado = agendaDiariaService.sincronizar();
+
+        // Assert
+        assertEquals(1, resultado);
+        verify(citaRepo, times(2)).buscarAgendaDiaria(any(), any(), isNull());
+        verify(citaRepo, never()).buscarAgendaModificada(any());
+    }
+
+    private static Cita cita(String id, String estilistaId, LocalDateTime inicio, EstadoCita estado) {
+        return Cita.builder()
+                .id(id)
+                .usuarioId("u1")
+                .estilistaId(estilistaId)
+                .servicioNombre("Corte")
+                .fechaHora(inicio)
+                .fechaHoraFin(inicio.plusMinutes(45))
+                .estado(estado)
+                .build();
+    }
+
+    private static final class RelojAjustable extends Clock {
+
+        private Instant ahora;
+
+        RelojAjustable(LocalDateTime ahora) {
+            ajustar(ahora);
+        }
+
+        void ajustar(LocalDateTime nuevaHora) {
+            this.ahora = nuevaHora.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
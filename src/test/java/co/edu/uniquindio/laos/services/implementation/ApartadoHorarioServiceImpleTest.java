@@ -0,0 +1,134 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.ApartadoVencidoException;
+import co.edu.uniquindio.laos.exceptions.HorarioYEstilistaOcupadoException;
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.repositories.ApartadoHorarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApartadoHorarioServiceImpleTest {
+
+    private static final Instant AHORA = Instant.parse("2030-01-10T12:00:00Z");
+    private static final LocalDateTime INICIO = LocalDateTime.of(2030, 1, 11, 10, 0);
+
+    @Mock
+    private ApartadoHorarioRepo apartadoHorarioRepo;
+
+    @Mock
+    private ReservaHorarioService reservaHorarioService;
+
+    private ApartadoHorarioServiceImple apartadoHorarioService;
+
+    @BeforeEach
+    void setUp() {
+        apartadoHorarioService = new ApartadoHorarioServiceImple(
+                apartadoHorarioRepo, reservaHorarioService, 10, Clock.fixed(AHORA, ZoneOffset.UTC));
+    }
+
+    @Test
+    void apartar_reclamaLosBloquesConVencimientoYGuardaElApartado() throws Exception {
+        // Arrange
+        when(apartadoHorarioRepo.save(any(ApartadoHorario.class))).thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        ApartadoHorario apartado = apartadoHorarioService.apartar("cliente1", "e1", "s1", INICIO, INICIO.plusHours(1));
+
+        // Assert
+        assertEquals(AHORA.plusSeconds(600), apartado.getExpiraEn());
+        verify(reservaHorarioService).apartar("e1", INICIO, INICIO.plusHours(1), apartado.getId(), AHORA.plusSeconds(600));
+    }
+
+    @Test
+    void apartar_horarioOcupado_noGuardaElApartado() throws Exception {
+        // Arrange
+        doThrow(new HorarioYEstilistaOcupadoException("ocupado"))
+                .when(reservaHorarioService).apartar(anyString(), any(), any(), anyString(), any());
+
+        // Act & Assert
+        assertThrows(HorarioYEstilistaOcupadoException.class,
+                () -> apartadoHorarioService.apartar("cliente1", "e1", "s1", INICIO, INICIO.plusHours(1)));
+        verify(apartadoHorarioRepo, never()).save(any());
+    }
+
+    @Test
+    void confirmar_vigente_confirmaLosBloquesYBorraElApartado() throws Exception {
+        // Arrange
+        when(apartadoHorarioRepo.findById("a1")).thenReturn(Optional.of(apartado("a1", "e1", AHORA.plusSeconds(60))));
+        when(reservaHorarioService.confirmarApartado("e1", INICIO, INICIO.plusHours(1), "a1", AHORA)).thenReturn(true);
+
+        // Act
+        ApartadoHorario resultado = apartadoHorarioService.confirmar("a1");
+
+        // Assert
+        assertEquals("a1", resultado.getId());
+        verify(apartadoHorarioRepo).deleteById("a1");
+    }
+
+    @Test
+    void confirmar_apartadoVencidoQueAunNoSeBorra_lanzaExcepcion() {
+        // Arrange
+        when(apartadoHorarioRepo.findById("a1")).thenReturn(Optional.of(apartado("a1", "e1", AHORA.minusSeconds(1))));
+
+        // Act & Assert
+        assertThrows(ApartadoVencidoException.class, () -> apartadoHorarioService.confirmar("a1"));
+        verifyNoInteractions(reservaHorarioService);
+    }
+
+    @Test
+    void confirmar_bloquesYaNoApartados_borraElApartadoYLanzaExcepcion() {
+        // Arrange: otra petición confirmó el mismo apartado un instante antes
+        when(apartadoHorarioRepo.findById("a1")).thenReturn(Optional.of(apartado("a1", "e1", AHORA.plusSeconds(60))));
+        when(reservaHorarioService.confirmarApartado("e1", INICIO, INICIO.plusHours(1), "a1", AHORA)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ApartadoVencidoException.class, () -> apartadoHorarioService.confirmar("a1"));
+        verify(apartadoHorarioRepo).deleteById("a1");
+    }
+
+    @Test
+    void obtenerApartados_agrupaLosVigentesPorEstilista() {
+        // Arrange
+        when(apartadoHorarioRepo.buscarVigentes(List.of("e1", "e2"), INICIO, INICIO.plusDays(1), AHORA))
+                .thenReturn(List.of(apartado("a1", "e1", AHORA.plusSeconds(60)), apartado("a2", "e1", AHORA.plusSeconds(60))));
+
+        // Act
+        Map<String, List<Intervalo>> resultado = apartadoHorarioService.obtenerApartados(
+                List.of("e1", "e2"), INICIO, INICIO.plusDays(1));
+
+        // Assert
+        assertEquals(1, resultado.size());
+        assertEquals(2, resultado.get("e1").size());
+        assertEquals(new Intervalo(INICIO, INICIO.plusHours(1)), resultado.get("e1").get(0));
+    }
+
+    private ApartadoHorario apartado(String id, String estilistaId, Instant expiraEn) {
+        return ApartadoHorario.builder()
+                .id(id)
+                .usuarioId("cliente1")
+                .estilistaId(estilistaId)
+                .servicioId("s1")
+                .fechaHora(INICIO)
+                .fechaHoraFin(INICIO.plusHours(1))
+                .expiraEn(expiraEn)
+                .build();
+    }
+}
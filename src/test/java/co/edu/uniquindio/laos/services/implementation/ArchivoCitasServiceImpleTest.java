@@ -0,0 +1,119 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.ReservaHorarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchivoCitasServiceImpleTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2023, 10, 15, 3, 30);
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private ReservaHorarioRepo reservaHorarioRepo;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private ArchivoCitasServiceImple archivoCitasService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock reloj = Clock.fixed(AHORA.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        // Citas de más de 90 días, lotes de 2, máximo 5 lotes
+        archivoCitasService = new ArchivoCitasServiceImple(citaRepo, reservaHorarioRepo, bloqueoTareaService,
+                meterRegistry, 90, 2, 5, 600, reloj);
+    }
+
+    @Test
+    void archivarCitasFinalizadas_mueveLotesYLiberaSusBloques() {
+        // Arrange
+        LocalDateTime antesDe = AHORA.minusDays(90);
+        Cita cita1 = cita("c1");
+        Cita cita2 = cita("c2");
+        Cita cita3 = cita("c3");
+        when(bloqueoTareaService.adquirir(eq(ArchivoCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(citaRepo.buscarParaArchivar(antesDe, 2))
+                .thenReturn(List.of(cita1, cita2))
+                .thenReturn(List.of(cita3));
+        when(citaRepo.archivar(List.of(cita1, cita2))).thenReturn(List.of("c1", "c2"));
+        when(citaRepo.archivar(List.of(cita3))).thenReturn(List.of("c3"));
+
+        // Act
+        int resultado = archivoCitasService.archivarCitasFinalizadas();
+
+        // Assert
+        assertEquals(3, resultado);
+        verify(reservaHorarioRepo).deleteByCitaIdIn(List.of("c1", "c2"));
+        verify(reservaHorarioRepo).deleteByCitaIdIn(List.of("c3"));
+        verify(bloqueoTareaService).liberar(ArchivoCitasServiceImple.TAREA);
+        assertEquals(3.0, meterRegistry.get("laos.citas.archivadas").counter().count());
+        assertEquals(1, meterRegistry.get("laos.citas.archivar.duracion").timer().count());
+    }
+
+    @Test
+    void archivarCitasFinalizadas_citaQueCambioDeEstado_noCuentaNiLiberaBloques() {
+        // Arrange: c2 se reprogramó mientras se copiaba y se quedó en citas
+        Cita cita1 = cita("c1");
+        Cita cita2 = cita("c2");
+        when(bloqueoTareaService.adquirir(eq(ArchivoCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(citaRepo.buscarParaArchivar(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(cita1, cita2))
+                .thenReturn(List.of());
+        when(citaRepo.archivar(List.of(cita1, cita2))).thenReturn(List.of("c1"));
+
+        // Act
+        int resultado = archivoCitasService.archivarCitasFinalizadas();
+
+        // Assert
+        assertEquals(1, resultado);
+        verify(reservaHorarioRepo).deleteByCitaIdIn(List.of("c1"));
+    }
+
+    @Test
+    void archivarCitasFinalizadas_otroNodoTieneLaTarea_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(ArchivoCitasServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        int resultado = archivoCitasService.archivarCitasFinalizadas();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(citaRepo, reservaHorarioRepo);
+    }
+
+    private Cita cita(String id) {
+        return Cita.builder()
+                .id(id)
+                .estilistaId("e1")
+                .fechaHora(AHORA.minusDays(120))
+                .estado(EstadoCita.COMPLETADA)
+                .build();
+    }
+}
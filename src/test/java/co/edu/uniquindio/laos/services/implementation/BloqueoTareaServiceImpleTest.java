@@ -0,0 +1,84 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.BloqueoTarea;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BloqueoTareaServiceImpleTest {
+
+    private static final Instant AHORA = Instant.parse("2023-10-15T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private BloqueoTareaServiceImple bloqueoTareaService;
+
+    @BeforeEach
+    void setUp() {
+        bloqueoTareaService = new BloqueoTareaServiceImple(mongoTemplate, Clock.fixed(AHORA, ZoneOffset.UTC), "nodo1");
+    }
+
+    @Test
+    void adquirir_arriendoLibre_loTomaHastaElVencimiento() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BloqueoTarea.class)))
+                .thenReturn(new BloqueoTarea("tarea", "nodo1", AHORA.plusSeconds(60)));
+
+        // Act
+        boolean resultado = bloqueoTareaService.adquirir("tarea", Duration.ofSeconds(60));
+
+        // Assert
+        assertTrue(resultado);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> opciones = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), opciones.capture(), eq(BloqueoTarea.class));
+        assertEquals("tarea", query.getValue().getQueryObject().get("_id"));
+        Document cambios = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals("nodo1", cambios.get("propietario"));
+        assertEquals(AHORA.plusSeconds(60), cambios.get("vigenteHasta"));
+        assertTrue(opciones.getValue().isUpsert());
+    }
+
+    @Test
+    void adquirir_arriendoVigenteDeOtroNodo_noLoToma() {
+        // Arrange: el filtro no encuentra el documento y el upsert choca con el _id existente
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BloqueoTarea.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key: tarea"));
+
+        // Act & Assert
+        assertFalse(bloqueoTareaService.adquirir("tarea", Duration.ofSeconds(60)));
+    }
+
+    @Test
+    void liberar_soloAfectaElArriendoPropio() {
+        // Act
+        bloqueoTareaService.liberar("tarea");
+
+        // Assert
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(BloqueoTarea.class));
+        assertEquals("tarea", query.getValue().getQueryObject().get("_id"));
+        assertEquals("nodo1", query.getValue().getQueryObject().get("propietario"));
+    }
+}
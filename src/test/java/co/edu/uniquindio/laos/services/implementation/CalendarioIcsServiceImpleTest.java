@@ -0,0 +1,205 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.EstadoUsuario;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+import co.edu.uniquindio.laos.repositories.UsuarioRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarioIcsServiceImpleTest {
+
+    private static final Instant AHORA = Instant.parse("2030-01-10T12:00:00Z");
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private UsuarioRepo usuarioRepo;
+
+    @Mock
+    private EstilistaRepo estilistaRepo;
+
+    private CalendarioIcsServiceImple calendarioIcsService;
+
+    @BeforeEach
+    void setUp() {
+        calendarioIcsService = new CalendarioIcsServiceImple(
+                citaRepo, usuarioRepo, estilistaRepo, 30, 180, ZoneId.of("America/Bogota"), Clock.fixed(AHORA, ZoneOffset.UTC));
+    }
+
+    @Test
+    void escribirFeedEstilista_escribeCadaCitaEnUtcYCierraElCursor() throws Exception {
+        // Arrange
+        AtomicBoolean cerrado = new AtomicBoolean(false);
+        Cita cita = Cita.builder()
+                .id("cita1")
+                .servicioNombre("Corte, lavado; secado")
+                .fechaHora(LocalDateTime.of(2030, 1, 11, 10, 0))
+                .servicioDuracionMinutos(45)
+                .estado(EstadoCita.CONFIRMADA)
+                .fechaModificacion(Instant.parse("2030-01-09T08:00:00Z"))
+                .version(2L)
+                .build();
+        when(citaRepo.recorrerFeedIcs(eq("e1"), isNull(),
+                eq(LocalDateTime.of(2029, 12, 11, 0, 0)), eq(LocalDateTime.of(2030, 7, 10, 0, 0))))
+                .thenReturn(Stream.of(cita).onClose(() -> cerrado.set(true)));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        calendarioIcsService.escribirFeedEstilista("e1", salida);
+
+        // Assert: 10:00 en Bogotá son las 15:00 UTC y el fin sale de la duración copiada
+        String ics = salida.toString(StandardCharsets.UTF_8);
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\n"));
+        assertTrue(ics.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(ics.contains("UID:cita1@laos\r\n"));
+        assertTrue(ics.contains("DTSTART:20300111T150000Z\r\n"));
+        assertTrue(ics.contains("DTEND:20300111T154500Z\r\n"));
+        assertTrue(ics.contains("SEQUENCE:2\r\n"));
+        assertTrue(ics.contains("SUMMARY:Corte\\, lavado\\; secado\r\n"));
+        assertTrue(cerrado.get());
+    }
+
+    @Test
+    void escribirFeedCliente_muestraElEstilistaEnElResumen() throws Exception {
+        // Arrange
+        Cita cita = Cita.builder()
+                .id("cita1")
+                .servicioNombre("Corte")
+                .estilistaNombre("Ana")
+                .fechaHora(LocalDateTime.of(2030, 1, 11, 10, 0))
+                .fechaHoraFin(LocalDateTime.of(2030, 1, 11, 11, 0))
+                .estado(EstadoCita.COMPLETADA)
+                .build();
+        when(citaRepo.recorrerFeedIcs(isNull(), eq("cliente1"), any(), any())).thenReturn(Stream.of(cita));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        calendarioIcsService.escribirFeedCliente("cliente1", salida);
+
+        // Assert
+        String ics = salida.toString(StandardCharsets.UTF_8);
+        assertTrue(ics.contains("SUMMARY:Corte con Ana\r\n"));
+        assertTrue(ics.contains("DTEND:20300111T160000Z\r\n"));
+        assertTrue(ics.contains("TRANSP:TRANSPARENT\r\n"));
+    }
+
+    @Test
+    void obtenerEtagEstilista_cambiaConLaUltimaModificacionYConElConteo() {
+        // Arrange
+        when(citaRepo.buscarUltimaModificacion("e1", null))
+                .thenReturn(Optional.of(Instant.ofEpochMilli(1000)), Optional.of(Instant.ofEpochMilli(2000)),
+                        Optional.of(Instant.ofEpochMilli(2000)));
+        when(citaRepo.contarFeedIcs(eq("e1"), isNull(), any(), any())).thenReturn(5L, 5L, 4L);
+
+        // Act
+        String primero = calendarioIcsService.obtenerEtagEstilista("e1");
+        String modificada = calendarioIcsService.obtenerEtagEstilista("e1");
+        String reasignada = calendarioIcsService.obtenerEtagEstilista("e1");
+
+        // Assert
+        assertTrue(primero.startsWith("\"1000-5-"));
+        assertNotEquals(primero, modificada);
+        assertNotEquals(modificada, reasignada);
+        verify(citaRepo, never()).recorrerFeedIcs(any(), any(), any(), any());
+    }
+
+    @Test
+    void obtenerEtag_mismoIdDeEstilistaYDeCliente_noComparten() {
+        // Arrange
+        when(citaRepo.buscarUltimaModificacion(any(), any())).thenReturn(Optional.empty());
+        when(citaRepo.contarFeedIcs(any(), any(), any(), any())).thenReturn(0L);
+
+        // Act & Assert
+        assertNotEquals(calendarioIcsService.obtenerEtagEstilista("x"), calendarioIcsService.obtenerEtagCliente("x"));
+    }
+
+    @Test
+    void escribirLinea_lineaLarga_seParteSinPasarDe75Octetos() throws Exception {
+        // Arrange
+        StringWriter writer = new StringWriter();
+        String linea = "SUMMARY:" + "ñ".repeat(100);
+
+        // Act
+        CalendarioIcsServiceImple.escribirLinea(writer, linea);
+
+        // Assert
+        String[] partes = writer.toString().split("\r\n");
+        assertTrue(partes.length > 1);
+        for (String parte : partes) {
+            assertTrue(parte.getBytes(StandardCharsets.UTF_8).length <= 75);
+        }
+        StringBuilder unida = new StringBuilder(partes[0]);
+        for (int i = 1; i < partes.length; i++) {
+            assertEquals(' ', partes[i].charAt(0));
+            unida.append(partes[i].substring(1));
+        }
+        assertEquals(linea, unida.toString());
+    }
+
+    @Test
+    void obtenerTokenCliente_sinToken_asignaUnoSoloSiSigueFaltandoYDevuelveElGuardado() throws Exception {
+        // Arrange: otra petición asignó su token entre la lectura y la escritura
+        String clienteId = "65a1b2c3d4e5f60718293a4b";
+        when(usuarioRepo.findByIdAndEstadoUsuarioNot(clienteId, EstadoUsuario.ELIMINADO))
+                .thenReturn(Optional.of(Usuario.builder().id(clienteId).build()))
+                .thenReturn(Optional.of(Usuario.builder().id(clienteId).tokenCalendario("guardado").build()));
+        when(usuarioRepo.asignarTokenCalendarioSiFalta(eq(clienteId), anyString())).thenReturn(0L);
+
+        // Act
+        String token = calendarioIcsService.obtenerTokenCliente(clienteId);
+
+        // Assert
+        assertEquals("guardado", token);
+        verify(usuarioRepo).asignarTokenCalendarioSiFalta(eq(clienteId), argThat(nuevo -> nuevo.length() >= 43));
+    }
+
+    @Test
+    void renovarTokenEstilista_generaUnSecretoDistintoCadaVez() throws Exception {
+        // Arrange
+        String estilistaId = "65a1b2c3d4e5f60718293a4c";
+        when(estilistaRepo.renovarTokenCalendario(eq(estilistaId), anyString())).thenReturn(1L);
+
+        // Act
+        String primero = calendarioIcsService.renovarTokenEstilista(estilistaId);
+        String segundo = calendarioIcsService.renovarTokenEstilista(estilistaId);
+
+        // Assert
+        assertNotEquals(primero, segundo);
+        assertTrue(primero.matches("[A-Za-z0-9_-]{43}"));
+    }
+
+    @Test
+    void buscarClientePorToken_tokenDesconocido_lanzaExcepcion() {
+        // Arrange
+        when(usuarioRepo.buscarPorTokenCalendario("revocado")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RecursoNoEncontradoException.class, () -> calendarioIcsService.buscarClientePorToken("revocado"));
+    }
+}
@@ -0,0 +1,247 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cupon.CrearCampaniaCuponesDTO;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.model.CampaniaCupones;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCampania;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.CampaniaCuponesRepo;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.repositories.UsuarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CampaniaCuponesServiceImpleTest {
+
+    private static final ZoneId ZONA = ZoneId.of("America/Bogota");
+    private static final Instant AHORA = Instant.parse("2030-01-10T13:00:00Z");
+
+    @Mock
+    private CampaniaCuponesRepo campaniaCuponesRepo;
+
+    @Mock
+    private UsuarioRepo usuarioRepo;
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private CuponRepo cuponRepo;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private CampaniaCupones campania;
+
+    /**
+     * Colección cupones simulada: códigos guardados y clientes con cupón de la campaña, como los dos índices únicos
+     */
+    private Set<String> codigosGuardados;
+    private Set<String> clientesConCupon;
+
+    /**
+     * Cupones recibidos por cada llamada a insertarSinOrden
+     */
+    private List<List<Cupon>> envios;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        codigosGuardados = new HashSet<>();
+        clientesConCupon = new HashSet<>();
+        envios = new ArrayList<>();
+        campania = CampaniaCupones.builder()
+                .id("c1")
+                .campania("REGRESO2030")
+                .nombre("Regreso")
+                .porcentajeDescuento(20.0)
+                .fechaVencimiento(LocalDate.of(2030, 3, 1))
+                .usosMaximos(1)
+                .estado(EstadoCampania.EN_CURSO)
+                .fechaInicio(AHORA)
+                .build();
+    }
+
+    private CampaniaCuponesServiceImple servicio(int tamanioLote, int maxLotes) {
+        return new CampaniaCuponesServiceImple(campaniaCuponesRepo, usuarioRepo, citaRepo, cuponRepo,
+                bloqueoTareaService, meterRegistry, tamanioLote, maxLotes, 300, Clock.fixed(AHORA, ZONA));
+    }
+
+    private void simularTarea(String despuesDeId, String... clientes) {
+        when(bloqueoTareaService.adquirir(eq(CampaniaCuponesServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(campaniaCuponesRepo.buscarPorEstado(EstadoCampania.EN_CURSO)).thenReturn(List.of(campania));
+        when(usuarioRepo.recorrerClientes(isNull(), isNull(), eq(despuesDeId), anyInt()))
+                .thenReturn(Stream.of(clientes).map(id -> Usuario.builder().id(id).build()));
+    }
+
+    /**
+     * insert sin orden: rechaza cada cupón cuyo código o cliente ya estén guardados y sigue con los demás
+     */
+    private void simularColeccion() {
+        when(cuponRepo.insertarSinOrden(anyList())).thenAnswer(invocacion -> {
+            List<Cupon> cupones = invocacion.getArgument(0);
+            envios.add(List.copyOf(cupones));
+            List<Cupon> rechazados = new ArrayList<>();
+            for (Cupon cupon : cupones) {
+                if (codigosGuardados.contains(cupon.getCodigo()) || clientesConCupon.contains(cupon.getUsuarioId())) {
+                    rechazados.add(cupon);
+                } else {
+                    codigosGuardados.add(cupon.getCodigo());
+                    clientesConCupon.add(cupon.getUsuarioId());
+                }
+            }
+            return rechazados;
+        });
+    }
+
+    @Test
+    void procesarCampanias_recorreElSegmentoPorLotesYGuardaElPuntoDeControl() {
+        // Arrange: 5 clientes en lotes de 2; solo u1 y u3 tienen al menos una cita completada
+        campania.setMinCitasCompletadas(1L);
+        simularTarea(null, "u1", "u2", "u3", "u4", "u5");
+        simularColeccion();
+        when(citaRepo.resumirPorCliente(anyList())).thenAnswer(invocacion -> {
+            Collection<String> ids = invocacion.getArgument(0);
+            return ids.stream()
+                    .filter(id -> id.equals("u1") || id.equals("u3"))
+                    .map(id -> HistorialCliente.builder().id(id).completadas(2).build())
+                    .collect(Collectors.toList());
+        });
+
+        // Act
+        int resultado = servicio(2, 10).procesarCampanias();
+
+        // Assert: un punto de control por lote más el cierre
+        assertEquals(2, resultado);
+        assertEquals(Set.of("u1", "u3"), clientesConCupon);
+        assertEquals(EstadoCampania.COMPLETADA, campania.getEstado());
+        assertEquals("u5", campania.getUltimoUsuarioId());
+        assertEquals(5, campania.getEvaluados());
+        assertEquals(2, campania.getAsignados());
+        assertEquals(AHORA, campania.getFechaFin());
+        verify(campaniaCuponesRepo, times(4)).save(campania);
+        verify(bloqueoTareaService).liberar(CampaniaCuponesServiceImple.TAREA);
+        assertEquals(2.0, meterRegistry.counter("laos.cupones.campanias.asignados").count());
+
+        Cupon cupon = envios.get(0).get(0);
+        assertEquals("REGRESO2030", cupon.getCampania());
+        assertEquals(EstadoCupon.ACTIVO, cupon.getEstadoCupon());
+        assertEquals(0L, cupon.getVersion());
+    }
+
+    @Test
+    void procesarCampanias_alcanzaElMaximoDeLotes_quedaEnCursoConElPuntoDeControl() {
+        // Arrange: sin criterios de citas todos los clientes entran
+        simularTarea(null, "u1", "u2", "u3", "u4", "u5");
+        simularColeccion();
+
+        // Act
+        int resultado = servicio(2, 1).procesarCampanias();
+
+        // Assert
+        assertEquals(2, resultado);
+        assertEquals(EstadoCampania.EN_CURSO, campania.getEstado());
+        assertEquals("u2", campania.getUltimoUsuarioId());
+        assertNull(campania.getFechaFin());
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void procesarCampanias_retomaDesdeElPuntoDeControlSinDuplicarCupones() {
+        // Arrange: la ejecución anterior cayó después de insertar los cupones del lote de u3 y u4 sin registrarlo
+        campania.setUltimoUsuarioId("u2");
+        clientesConCupon.addAll(List.of("u1", "u2", "u3", "u4"));
+        simularTarea("u2", "u3", "u4", "u5");
+        simularColeccion();
+        when(cuponRepo.buscarUsuariosConCupon(eq("REGRESO2030"), anyCollection())).thenAnswer(invocacion -> {
+            Collection<String> ids = invocacion.getArgument(1);
+            return ids.stream().filter(clientesConCupon::contains).collect(Collectors.toSet());
+        });
+
+        // Act
+        int resultado = servicio(2, 10).procesarCampanias();
+
+        // Assert: los rechazados por tener ya su cupón no se reintentan
+        assertEquals(1, resultado);
+        assertEquals(2, envios.size());
+        assertEquals(EstadoCampania.COMPLETADA, campania.getEstado());
+        assertEquals(3, campania.getEvaluados());
+    }
+
+    @Test
+    void procesarCampanias_codigoRepetido_reintentaConUnCodigoNuevo() {
+        // Arrange: el código del primer cupón enviado ya existe en la base
+        simularTarea(null, "u1", "u2");
+        when(cuponRepo.insertarSinOrden(anyList())).thenAnswer(invocacion -> {
+            List<Cupon> cupones = invocacion.getArgument(0);
+            envios.add(List.copyOf(cupones));
+            return envios.size() == 1 ? List.of(cupones.get(0)) : List.of();
+        });
+        when(cuponRepo.buscarUsuariosConCupon(eq("REGRESO2030"), anyCollection())).thenReturn(Set.of());
+
+        // Act
+        int resultado = servicio(10, 10).procesarCampanias();
+
+        // Assert
+        assertEquals(2, resultado);
+        assertEquals(2, envios.size());
+        Cupon reintento = envios.get(1).get(0);
+        assertEquals("u1", reintento.getUsuarioId());
+        assertNotEquals(envios.get(0).get(0).getCodigo(), reintento.getCodigo());
+    }
+
+    @Test
+    void procesarCampanias_bloqueoTomadoPorOtroNodo_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(CampaniaCuponesServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        int resultado = servicio(2, 10).procesarCampanias();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(campaniaCuponesRepo, usuarioRepo, cuponRepo);
+        verify(bloqueoTareaService, never()).liberar(any());
+    }
+
+    @Test
+    void crearCampania_rangoDeRegistroInvertido_lanzaExcepcion() {
+        // Arrange
+        CrearCampaniaCuponesDTO dto = new CrearCampaniaCuponesDTO("REGRESO2030", LocalDate.of(2029, 6, 1),
+                LocalDate.of(2029, 1, 1), null, null, 90, "Regreso", 20.0, LocalDate.of(2030, 3, 1), null);
+
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class, () -> servicio(2, 10).crearCampania(dto));
+        verifyNoInteractions(campaniaCuponesRepo);
+    }
+}
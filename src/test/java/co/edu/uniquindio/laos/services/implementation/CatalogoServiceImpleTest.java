@@ -0,0 +1,147 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Servicio;
+import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+import co.edu.uniquindio.laos.repositories.ServiciosRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogoServiceImpleTest {
+
+    @Mock
+    private EstilistaRepo estilistaRepo;
+
+    @Mock
+    private ServiciosRepo serviciosRepo;
+
+    private MeterRegistry meterRegistry;
+
+    private CatalogoServiceImple catalogoService;
+
+    private Estilista estilista1;
+    private Estilista estilista2;
+    private Servicio servicio1;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogoService = new CatalogoServiceImple(estilistaRepo, serviciosRepo, meterRegistry, 1000, 300);
+
+        estilista1 = Estilista.builder().id("e1").nombre("Juan Perez").build();
+        estilista2 = Estilista.builder().id("e2").nombre("Maria Rodriguez").build();
+        servicio1 = Servicio.builder().id("s1").nombre("Corte de cabello").duracionMinutos(30).build();
+    }
+
+    @Test
+    void obtenerEstilistas_segundaLecturaSeSirveDesdeMemoria() {
+        // Arrange
+        when(estilistaRepo.findAll()).thenReturn(List.of(estilista1, estilista2));
+
+        // Act
+        List<Estilista> primera = catalogoService.obtenerEstilistas();
+        List<Estilista> segunda = catalogoService.obtenerEstilistas();
+
+        // Assert
+        assertEquals(2, primera.size());
+        assertEquals(primera, segunda);
+        verify(estilistaRepo, times(1)).findAll();
+        assertEquals(1.0, contador("estilistas", "fallo"));
+        assertEquals(1.0, contador("estilistas", "acierto"));
+    }
+
+    @Test
+    void obtenerEstilistas_listaDevueltaEsInmutable() {
+        // Arrange
+        when(estilistaRepo.findAll()).thenReturn(List.of(estilista1));
+
+        // Act
+        List<Estilista> resultado = catalogoService.obtenerEstilistas();
+
+        // Assert
+        assertThrows(UnsupportedOperationException.class, () -> resultado.add(estilista2));
+    }
+
+    @Test
+    void invalidarEstilistas_fuerzaRecargaEnLaSiguienteLectura() {
+        // Arrange
+        when(estilistaRepo.findAll())
+                .thenReturn(List.of(estilista1))
+                .thenReturn(List.of(estilista1, estilista2));
+
+        // Act
+        catalogoService.obtenerEstilistas();
+        catalogoService.invalidarEstilistas();
+        List<Estilista> resultado = catalogoService.obtenerEstilistas();
+
+        // Assert
+        assertEquals(2, resultado.size());
+        verify(estilistaRepo, times(2)).findAll();
+    }
+
+    @Test
+    void obtenerServiciosPorId_resuelveDesdeLaInstantanea() {
+        // Arrange
+        when(serviciosRepo.findAll()).thenReturn(List.of(servicio1));
+
+        // Act
+        Map<String, Servicio> primero = catalogoService.obtenerServiciosPorId(Set.of("s1", "inexistente"));
+        Map<String, Servicio> segundo = catalogoService.obtenerServiciosPorId(Set.of("s1"));
+
+        // Assert
+        assertEquals(1, primero.size());
+        assertEquals("Corte de cabello", primero.get("s1").getNombre());
+        assertEquals(primero, segundo);
+        verify(serviciosRepo, times(1)).findAll();
+        verify(serviciosRepo, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void obtenerEstilistasPorId_sinIds_noConsultaBaseDeDatos() {
+        // Act
+        Map<String, Estilista> resultado = catalogoService.obtenerEstilistasPorId(Set.of());
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(estilistaRepo);
+    }
+
+    @Test
+    void obtenerEstilistasPorId_catalogoExcedeLimite_consultaPuntual() {
+        // Arrange: límite de una sola entrada
+        catalogoService = new CatalogoServiceImple(estilistaRepo, serviciosRepo, meterRegistry, 1, 300);
+        when(estilistaRepo.findAll()).thenReturn(List.of(estilista1, estilista2));
+        when(estilistaRepo.findAllById(anyIterable())).thenReturn(List.of(estilista2));
+
+        // Act
+        catalogoService.obtenerEstilistas();
+        Map<String, Estilista> resultado = catalogoService.obtenerEstilistasPorId(Set.of("e2"));
+
+        // Assert: el catálogo no se guardó en memoria y se resolvió con findAllById
+        assertEquals("Maria Rodriguez", resultado.get("e2").getNombre());
+        verify(estilistaRepo, times(1)).findAll();
+        verify(estilistaRepo, times(1)).findAllById(anyIterable());
+    }
+
+    private double contador(String catalogo, String resultado) {
+        return meterRegistry.get("laos.catalogo.cache")
+                .tag("catalogo", catalogo)
+                .tag("resultado", resultado)
+                .counter()
+                .count();
+    }
+}
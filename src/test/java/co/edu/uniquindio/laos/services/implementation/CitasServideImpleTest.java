@@ -1,29 +1,59 @@
 package co.edu.uniquindio.laos.services.implementation;
 
-import co.edu.uniquindio.laos.dto.cita.CalendarioCitasDTO;
+import co.edu.uniquindio.laos.dto.cita.ApartadoHorarioDTO;
+import co.edu.uniquindio.laos.dto.cita.CalendarioFeedDTO;
+import co.edu.uniquindio.laos.dto.cita.CitaReasignadaDTO;
 import co.edu.uniquindio.laos.dto.cita.CrearCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.CrearCitasLoteDTO;
+import co.edu.uniquindio.laos.dto.cita.FiltroCitasDTO;
+import co.edu.uniquindio.laos.dto.cita.HorarioDisponibleDTO;
 import co.edu.uniquindio.laos.dto.cita.InformacionCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.PaginaCitasDTO;
+import co.edu.uniquindio.laos.dto.cita.ReasignarCitasDTO;
 import co.edu.uniquindio.laos.dto.cita.ReprogramarCitaDTO;
+import co.edu.uniquindio.laos.dto.cita.ResultadoCitasLoteDTO;
+import co.edu.uniquindio.laos.dto.cita.ResultadoReasignacionDTO;
+import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+import co.edu.uniquindio.laos.exceptions.CursorInvalidoException;
 import co.edu.uniquindio.laos.exceptions.HorarioYEstilistaOcupadoException;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
 import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+import co.edu.uniquindio.laos.exceptions.SerieCitasInvalidaException;
+import co.edu.uniquindio.laos.model.ApartadoHorario;
 import co.edu.uniquindio.laos.model.Cita;
 import co.edu.uniquindio.laos.model.EstadoCita;
 import co.edu.uniquindio.laos.model.Estilista;
 import co.edu.uniquindio.laos.model.Servicio;
 import co.edu.uniquindio.laos.repositories.CitaRepo;
-import co.edu.uniquindio.laos.repositories.EstilistaRepo;
-import co.edu.uniquindio.laos.repositories.ServiciosRepo;
+import co.edu.uniquindio.laos.services.interfaces.AgendaDiariaService;
+import co.edu.uniquindio.laos.services.interfaces.ApartadoHorarioService;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import co.edu.uniquindio.laos.services.interfaces.ListaEsperaService;
+import co.edu.uniquindio.laos.services.interfaces.NotificacionCitasService;
+import co.edu.uniquindio.laos.services.interfaces.OcupacionAgendaService;
+import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -36,10 +66,25 @@ class CitasServiceImpleTest {
     private CitaRepo citaRepo;
 
     @Mock
-    private EstilistaRepo estilistaRepository;
+    private CatalogoService catalogoService;
 
     @Mock
-    private ServiciosRepo servicioRepository;
+    private ReservaHorarioService reservaHorarioService;
+
+    @Mock
+    private OcupacionAgendaService ocupacionAgendaService;
+
+    @Mock
+    private NotificacionCitasService notificacionCitasService;
+
+    @Mock
+    private ApartadoHorarioService apartadoHorarioService;
+
+    @Mock
+    private AgendaDiariaService agendaDiariaService;
+
+    @Mock
+    private ListaEsperaService listaEsperaService;
 
     @InjectMocks
     private CitasServiceImple citasService;
@@ -51,6 +96,12 @@ class CitasServiceImpleTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(citasService, "horaApertura", 8);
+        ReflectionTestUtils.setField(citasService, "horaCierre", 18);
+        ReflectionTestUtils.setField(citasService, "maxDiasConsulta", 31);
+        ReflectionTestUtils.setField(citasService, "maxDiasCalendario", 120);
+        ReflectionTestUtils.setField(citasService, "maxCitasLote", 60);
+
         fechaHoraEjemplo = LocalDateTime.of(2023, 10, 15, 14, 30);
 
         estilistaEjemplo = new Estilista();
@@ -81,7 +132,6 @@ class CitasServiceImpleTest {
                 "2023-10-15 14:30"
         );
 
-        when(citaRepo.existsByEstilistaIdAndFechaHora(anyString(), any(LocalDateTime.class))).thenReturn(false);
         when(citaRepo.save(any(Cita.class))).thenAnswer(i -> {
             Cita cita = i.getArgument(0);
             cita.setId("nuevaCitaId");
@@ -95,6 +145,73 @@ class CitasServiceImpleTest {
         assertNotNull(resultado);
         assertEquals("nuevaCitaId", resultado);
         verify(citaRepo).save(any(Cita.class));
+        verify(agendaDiariaService).actualizarCita(argThat(cita -> "nuevaCitaId".equals(cita.getId())));
+    }
+
+    @Test
+    void crearCita_reclamaBloquesConElMismoIdQueGuarda() throws Exception {
+        // Arrange
+        CrearCitaDTO crearCitaDTO = new CrearCitaDTO(
+                estilistaEjemplo.getId(),
+                servicioEjemplo.getId(),
+                "cliente1",
+                "2023-10-15 10:00"
+        );
+
+
+        // Act
+        String resultado = citasService.crearCita(crearCitaDTO);
+
+        // Assert
+        verify(reservaHorarioService).reservar(
+                estilistaEjemplo.getId(),
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                resultado);
+        ArgumentCaptor<Cita> captor = ArgumentCaptor.forClass(Cita.class);
+        verify(citaRepo).save(captor.capture());
+        assertEquals(resultado, captor.getValue().getId());
+        verify(ocupacionAgendaService).registrar(
+                estilistaEjemplo.getId(),
+                resultado,
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0));
+    }
+
+    @Test
+    void crearCita_bloquesReclamadosPorOtraPeticion_noGuardaCita() throws Exception {
+        // Arrange: la consulta no ve conflicto, pero otra petición ganó el reclamo
+        CrearCitaDTO crearCitaDTO = new CrearCitaDTO(
+                estilistaEjemplo.getId(),
+                servicioEjemplo.getId(),
+                "cliente1",
+                "2023-10-15 10:00"
+        );
+
+        doThrow(new HorarioYEstilistaOcupadoException("ocupado"))
+                .when(reservaHorarioService).reservar(anyString(), any(LocalDateTime.class), any(LocalDateTime.class), anyString());
+
+        // Act & Assert
+        assertThrows(HorarioYEstilistaOcupadoException.class,
+                () -> citasService.crearCita(crearCitaDTO));
+        verify(citaRepo, never()).save(any(Cita.class));
+    }
+
+    @Test
+    void crearCita_falloAlGuardar_liberaBloques() throws Exception {
+        // Arrange
+        CrearCitaDTO crearCitaDTO = new CrearCitaDTO(
+                estilistaEjemplo.getId(),
+                servicioEjemplo.getId(),
+                "cliente1",
+                "2023-10-15 10:00"
+        );
+
+        when(citaRepo.save(any(Cita.class))).thenThrow(new IllegalStateException("sin conexión"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> citasService.crearCita(crearCitaDTO));
+        verify(reservaHorarioService).liberar(anyString());
     }
 
     @Test
@@ -107,7 +224,8 @@ class CitasServiceImpleTest {
                 "2023-10-15 14:30"
         );
 
-        when(citaRepo.existsByEstilistaIdAndFechaHora(anyString(), any(LocalDateTime.class))).thenReturn(true);
+        when(ocupacionAgendaService.existeSolapamiento(anyString(), any(LocalDateTime.class), any(LocalDateTime.class), any()))
+                .thenReturn(true);
 
         // Act & Assert
         assertThrows(HorarioYEstilistaOcupadoException.class,
@@ -116,28 +234,321 @@ class CitasServiceImpleTest {
     }
 
     @Test
-    void cancelarCita_exitoso() throws Exception {
+    void crearCita_guardaFinSegunDuracionDelServicio() throws Exception {
         // Arrange
-        when(citaRepo.findById("cita1")).thenReturn(Optional.of(citaEjemplo));
+        servicioEjemplo.setDuracionMinutos(90);
+        CrearCitaDTO crearCitaDTO = new CrearCitaDTO(
+                estilistaEjemplo.getId(),
+                servicioEjemplo.getId(),
+                "cliente1",
+                "2023-10-15 10:00"
+        );
+
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
+
+        // Act
+        citasService.crearCita(crearCitaDTO);
+
+        // Assert
+        ArgumentCaptor<Cita> captor = ArgumentCaptor.forClass(Cita.class);
+        verify(citaRepo).save(captor.capture());
+        assertEquals(LocalDateTime.of(2023, 10, 15, 11, 30), captor.getValue().getFechaHoraFin());
+    }
+
+    @Test
+    void crearCita_guardaCopiasDeEstilistaYServicio() throws Exception {
+        // Arrange
+        servicioEjemplo.setDuracionMinutos(45);
+        servicioEjemplo.setPrecio(30000);
+        CrearCitaDTO crearCitaDTO = new CrearCitaDTO(
+                estilistaEjemplo.getId(),
+                servicioEjemplo.getId(),
+                "cliente1",
+                "2023-10-15 10:00"
+        );
+
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
+        when(catalogoService.obtenerEstilistasPorId(anyCollection()))
+                .thenReturn(Map.of(estilistaEjemplo.getId(), estilistaEjemplo));
+
+        // Act
+        citasService.crearCita(crearCitaDTO);
+
+        // Assert
+        ArgumentCaptor<Cita> captor = ArgumentCaptor.forClass(Cita.class);
+        verify(citaRepo).save(captor.capture());
+        Cita guardada = captor.getValue();
+        assertEquals("Juan Pérez", guardada.getEstilistaNombre());
+        assertEquals("Corte de cabello", guardada.getServicioNombre());
+        assertEquals(45, guardada.getServicioDuracionMinutos());
+        assertEquals(30000.0, guardada.getServicioPrecio());
+    }
+
+    @Test
+    void obtenerCitasPorEstilistaId_citasConCopias_noConsultaCatalogo() throws Exception {
+        // Arrange
+        citaEjemplo.setEstilistaNombre("Juan Pérez");
+        citaEjemplo.setServicioNombre("Corte de cabello");
+        when(citaRepo.findByEstilistaId("estilista1")).thenReturn(List.of(citaEjemplo));
+
+        // Act
+        List<InformacionCitaDTO> resultado = citasService.obtenerCitasPorEstilistaId("estilista1");
+
+        // Assert
+        assertEquals(1, resultado.size());
+        assertEquals("Juan Pérez", resultado.get(0).estilistaNombre());
+        assertEquals("Corte de cabello", resultado.get(0).servicioNombre());
+        verifyNoInteractions(catalogoService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void crearCitasLote_serieRecurrente_unaRevisionUnaReservaYUnInsert() throws Exception {
+        // Arrange: cada 14 días, 4 citas; la segunda choca con una cita existente
+        servicioEjemplo.setDuracionMinutos(60);
+        CrearCitasLoteDTO loteDTO = new CrearCitasLoteDTO(estilistaEjemplo.getId(), servicioEjemplo.getId(), "cliente1",
+                null, "2023-10-02 10:00", 14, 4);
+
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
+        when(ocupacionAgendaService.buscarSolapamientos(eq("estilista1"), anyList())).thenReturn(Set.of(1));
+        when(reservaHorarioService.reservarLote(eq("estilista1"), anyMap())).thenReturn(Set.of());
+
+        // Act
+        ResultadoCitasLoteDTO resultado = citasService.crearCitasLote(loteDTO);
+
+        // Assert
+        assertEquals(3, resultado.citasCreadas().size());
+        assertEquals(1, resultado.fallidas().size());
+        assertEquals("2023-10-16 10:00", resultado.fallidas().get(0).fechaHora());
+
+        ArgumentCaptor<List<Intervalo>> intervalos = ArgumentCaptor.forClass(List.class);
+        verify(ocupacionAgendaService, times(1)).buscarSolapamientos(eq("estilista1"), intervalos.capture());
+        assertEquals(4, intervalos.getValue().size());
+        assertEquals(LocalDateTime.of(2023, 10, 30, 11, 0), intervalos.getValue().get(2).fin());
+
+        ArgumentCaptor<Map<String, Intervalo>> reservas = ArgumentCaptor.forClass(Map.class);
+        verify(reservaHorarioService, times(1)).reservarLote(eq("estilista1"), reservas.capture());
+        assertEquals(3, reservas.getValue().size());
+
+        ArgumentCaptor<List<Cita>> guardadas = ArgumentCaptor.forClass(List.class);
+        verify(citaRepo, times(1)).insert(guardadas.capture());
+        assertEquals(resultado.citasCreadas(), guardadas.getValue().stream().map(Cita::getId).toList());
+        assertEquals("Corte de cabello", guardadas.getValue().get(0).getServicioNombre());
+        verify(citaRepo, never()).save(any(Cita.class));
+        verify(ocupacionAgendaService, times(3)).registrar(eq("estilista1"), anyString(), any(), any());
+    }
+
+    @Test
+    void crearCitasLote_fechaInvalidaYReservaConcurrente_seReportanSinDetenerLasDemas() throws Exception {
+        // Arrange
+        CrearCitasLoteDTO loteDTO = new CrearCitasLoteDTO(estilistaEjemplo.getId(), servicioEjemplo.getId(), "cliente1",
+                List.of("2023-10-02 10:00", "mañana", "2023-10-09 10:00"), null, null, null);
+
+        when(ocupacionAgendaService.buscarSolapamientos(eq("estilista1"), anyList())).thenReturn(Set.of());
+        when(reservaHorarioService.reservarLote(eq("estilista1"), anyMap())).thenAnswer(i -> {
+            // Otra petición tomó el horario de la segunda cita válida entre la revisión y el reclamo
+            Map<String, Intervalo> intervalos = i.getArgument(1);
+            return Set.of(new ArrayList<>(intervalos.keySet()).get(1));
+        });
+
+        // Act
+        ResultadoCitasLoteDTO resultado = citasService.crearCitasLote(loteDTO);
+
+        // Assert
+        assertEquals(1, resultado.citasCreadas().size());
+        assertEquals(List.of("mañana", "2023-10-09 10:00"),
+                resultado.fallidas().stream().map(f -> f.fechaHora()).toList());
+        verify(citaRepo, times(1)).insert(ArgumentMatchers.<Cita>anyList());
+    }
+
+    @Test
+    void crearCitasLote_superaElMaximo_lanzaExcepcionSinTocarLaAgenda() {
+        // Arrange
+        CrearCitasLoteDTO loteDTO = new CrearCitasLoteDTO(estilistaEjemplo.getId(), servicioEjemplo.getId(), "cliente1",
+                null, "2023-10-02 10:00", 7, 61);
+
+        // Act & Assert
+        assertThrows(SerieCitasInvalidaException.class, () -> citasService.crearCitasLote(loteDTO));
+        verifyNoInteractions(citaRepo, reservaHorarioService, ocupacionAgendaService);
+    }
+
+    @Test
+    void crearCitasLote_sinFechas_lanzaExcepcion() {
+        // Arrange
+        CrearCitasLoteDTO loteDTO = new CrearCitasLoteDTO(estilistaEjemplo.getId(), servicioEjemplo.getId(), "cliente1",
+                List.of(), null, null, null);
+
+        // Act & Assert
+        assertThrows(SerieCitasInvalidaException.class, () -> citasService.crearCitasLote(loteDTO));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reasignarCitasEstilista_reparteEntreEstilistasLibresConUnaConsultaYUnBulkWrite() throws Exception {
+        // Arrange: e1 no estará; e2 está ocupado a las 10:00, e3 está libre y e4 no hace el servicio
+        Estilista ausente = Estilista.builder().id("e1").nombre("Ausente").build();
+        Estilista ocupado = Estilista.builder().id("e2").nombre("Ocupado").serviciosIds(List.of("servicio1")).build();
+        Estilista libre = Estilista.builder().id("e3").nombre("Libre").serviciosIds(List.of("servicio1")).build();
+        Estilista otroServicio = Estilista.builder().id("e4").nombre("Otro").serviciosIds(List.of("servicio2")).build();
+        Cita temprano = citaDe("c1", "e1", LocalDateTime.of(2023, 10, 15, 10, 0));
+        Cita tarde = citaDe("c2", "e1", LocalDateTime.of(2023, 10, 15, 14, 0));
+        Cita deOcupado = citaDe("c3", "e2", LocalDateTime.of(2023, 10, 15, 10, 0));
+
+        when(catalogoService.obtenerEstilistasPorId(Set.of("e1"))).thenReturn(Map.of("e1", ausente));
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(ausente, ocupado, libre, otroServicio));
+        when(catalogoService.obtenerServicios()).thenReturn(List.of(servicioEjemplo));
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(deOcupado, tarde, temprano));
+        when(reservaHorarioService.reservarLote(anyString(), anyMap())).thenReturn(Set.of());
+        when(citaRepo.aplicarCambiosDeEstilista(eq("e1"), anyList(), any(Instant.class))).thenReturn(Set.of("c1", "c2"));
+
+        // Act
+        ResultadoReasignacionDTO resultado = citasService.reasignarCitasEstilista(
+                new ReasignarCitasDTO("e1", "2023-10-15 00:00", "2023-10-16 00:00", false));
+
+        // Assert
+        assertEquals(2, resultado.reasignadas().size());
+        assertEquals("c1", resultado.reasignadas().get(0).citaId());
+        assertEquals("e3", resultado.reasignadas().get(0).estilistaId());
+        assertTrue(resultado.canceladas().isEmpty());
+        assertEquals(0, resultado.sinAplicar());
+        verify(citaRepo, times(1)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                eq(Set.of("e1", "e2", "e3", "e4")), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(citaRepo, times(1)).aplicarCambiosDeEstilista(eq("e1"), anyList(), any(Instant.class));
+        verify(reservaHorarioService).liberarLote(eq("e1"), anyCollection());
+        verify(ocupacionAgendaService, times(2)).eliminar(eq("e1"), anyString(), any(), any());
+        verify(notificacionCitasService).notificarCambiosDeEstilista(anyList(), eq(List.of()));
+        verify(citaRepo, never()).save(any(Cita.class));
+    }
+
+    @Test
+    void reasignarCitasEstilista_soloCancelar_cancelaTodasSinBuscarReemplazos() throws Exception {
+        // Arrange
+        Estilista ausente = Estilista.builder().id("e1").nombre("Ausente").build();
+        Cita cita = citaDe("c1", "e1", LocalDateTime.of(2023, 10, 15, 10, 0));
+        when(catalogoService.obtenerEstilistasPorId(Set.of("e1"))).thenReturn(Map.of("e1", ausente));
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(eq(Set.of("e1")), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita));
+        when(citaRepo.aplicarCambiosDeEstilista(eq("e1"), anyList(), any(Instant.class))).thenReturn(Set.of("c1"));
+
+        // Act
+        ResultadoReasignacionDTO resultado = citasService.reasignarCitasEstilista(
+                new ReasignarCitasDTO("e1", "2023-10-15 00:00", "2023-10-16 00:00", true));
+
+        // Assert
+        assertEquals(List.of("c1"), resultado.canceladas());
+        assertEquals(EstadoCita.CANCELADA, cita.getEstado());
+        verify(catalogoService, never()).obtenerEstilistas();
+        verify(reservaHorarioService, never()).reservarLote(anyString(), anyMap());
+        verify(notificacionCitasService).notificarCambiosDeEstilista(List.of(), List.of(cita));
+    }
+
+    @Test
+    void reasignarCitasEstilista_reservaTomadaPorOtraPeticion_cancelaLaCita() throws Exception {
+        // Arrange
+        Estilista ausente = Estilista.builder().id("e1").nombre("Ausente").build();
+        Estilista libre = Estilista.builder().id("e3").nombre("Libre").build();
+        Cita cita = citaDe("c1", "e1", LocalDateTime.of(2023, 10, 15, 10, 0));
+        when(catalogoService.obtenerEstilistasPorId(Set.of("e1"))).thenReturn(Map.of("e1", ausente));
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(ausente, libre));
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita));
+        when(reservaHorarioService.reservarLote(eq("e3"), anyMap())).thenReturn(Set.of("c1"));
+        when(citaRepo.aplicarCambiosDeEstilista(eq("e1"), anyList(), any(Instant.class))).thenReturn(Set.of("c1"));
+
+        // Act
+        ResultadoReasignacionDTO resultado = citasService.reasignarCitasEstilista(
+                new ReasignarCitasDTO("e1", "2023-10-15 00:00", "2023-10-16 00:00", false));
+
+        // Assert
+        assertTrue(resultado.reasignadas().isEmpty());
+        assertEquals(List.of("c1"), resultado.canceladas());
+        assertEquals("e1", cita.getEstilistaId());
+        verify(ocupacionAgendaService, never()).registrar(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void reasignarCitasEstilista_citaModificadaDuranteLaReasignacion_noSeTocaYDevuelveElNuevoHorario() throws Exception {
+        // Arrange: c2 se reprogramó entre la lectura y el bulk write, así que su filtro no coincide
+        Estilista ausente = Estilista.builder().id("e1").nombre("Ausente").build();
+        Estilista libre = Estilista.builder().id("e3").nombre("Libre").build();
+        Cita temprano = citaDe("c1", "e1", LocalDateTime.of(2023, 10, 15, 10, 0));
+        Cita tarde = citaDe("c2", "e1", LocalDateTime.of(2023, 10, 15, 14, 0));
+        when(catalogoService.obtenerEstilistasPorId(Set.of("e1"))).thenReturn(Map.of("e1", ausente));
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(ausente, libre));
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(temprano, tarde));
+        when(reservaHorarioService.reservarLote(eq("e3"), anyMap())).thenReturn(Set.of());
+        when(citaRepo.aplicarCambiosDeEstilista(eq("e1"), anyList(), any(Instant.class))).thenReturn(Set.of("c1"));
+
+        // Act
+        ResultadoReasignacionDTO resultado = citasService.reasignarCitasEstilista(
+                new ReasignarCitasDTO("e1", "2023-10-15 00:00", "2023-10-16 00:00", false));
+
+        // Assert: solo c1 cambia; c2 conserva sus bloques con e1 y devuelve los que tomó con e3
+        assertEquals(List.of("c1"), resultado.reasignadas().stream().map(CitaReasignadaDTO::citaId).toList());
+        assertEquals(1, resultado.sinAplicar());
+        verify(reservaHorarioService).liberarLote("e3", List.of("c2"));
+        verify(reservaHorarioService).liberarLote("e1", Set.of("c1"));
+        verify(ocupacionAgendaService).eliminar(eq("e1"), eq("c1"), any(), any());
+        verify(ocupacionAgendaService, never()).eliminar(anyString(), eq("c2"), any(), any());
+        verify(ocupacionAgendaService).registrar(eq("e3"), eq("c1"), any(), any());
+        verify(agendaDiariaService, never()).quitarCita("e1", "c2");
+        verify(notificacionCitasService).notificarCambiosDeEstilista(List.of(temprano), List.of());
+    }
+
+    @Test
+    void reasignarCitasEstilista_rangoInvertido_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class, () -> citasService.reasignarCitasEstilista(
+                new ReasignarCitasDTO("e1", "2023-10-16 00:00", "2023-10-15 00:00", false)));
+        verifyNoInteractions(citaRepo, notificacionCitasService);
+    }
+
+    @Test
+    void cancelarCita_exitoso() throws Exception {
+        // Arrange: la actualización parcial devuelve la cita como estaba antes de cancelarla
+        when(citaRepo.cancelar(eq("cita1"), any(Instant.class))).thenReturn(Optional.of(citaEjemplo));
 
         // Act
         String resultado = citasService.cancelarCita("cita1");
 
         // Assert
         assertEquals("cita1", resultado);
-        assertEquals(EstadoCita.CANCELADA, citaEjemplo.getEstado());
-        verify(citaRepo).save(citaEjemplo);
+        verify(citaRepo, never()).save(any(Cita.class));
+        verify(reservaHorarioService).liberar("cita1");
+        verify(ocupacionAgendaService).eliminar("estilista1", "cita1",
+                LocalDateTime.of(2023, 10, 15, 14, 30), LocalDateTime.of(2023, 10, 15, 15, 30));
+        verify(agendaDiariaService).quitarCita("estilista1", "cita1");
+        verify(listaEsperaService).ofrecerHorario("estilista1", "servicio1",
+                LocalDateTime.of(2023, 10, 15, 14, 30), LocalDateTime.of(2023, 10, 15, 15, 30));
+    }
+
+    @Test
+    void cancelarCita_yaCompletada_noOfreceElHorarioALaListaDeEspera() throws Exception {
+        // Arrange
+        citaEjemplo.setEstado(EstadoCita.COMPLETADA);
+        when(citaRepo.cancelar(eq("cita1"), any(Instant.class))).thenReturn(Optional.of(citaEjemplo));
+
+        // Act
+        citasService.cancelarCita("cita1");
+
+        // Assert
+        verifyNoInteractions(listaEsperaService);
     }
 
     @Test
     void cancelarCita_citaNoExiste_lanzaExcepcion() {
         // Arrange
-        when(citaRepo.findById("citaInexistente")).thenReturn(Optional.empty());
+        when(citaRepo.cancelar(eq("citaInexistente"), any(Instant.class))).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RecursoNoEncontradoException.class,
                 () -> citasService.cancelarCita("citaInexistente"));
-        verify(citaRepo, never()).save(any(Cita.class));
+        verify(reservaHorarioService, never()).liberar(any());
     }
 
     @Test
@@ -149,7 +560,6 @@ class CitasServiceImpleTest {
         );
 
         when(citaRepo.findById("cita1")).thenReturn(Optional.of(citaEjemplo));
-        when(citaRepo.existsByEstilistaIdAndFechaHora(anyString(), any(LocalDateTime.class))).thenReturn(false);
 
         // Act
         String resultado = citasService.reprogramarCita(reprogramarDTO);
@@ -158,6 +568,35 @@ class CitasServiceImpleTest {
         assertEquals("cita1", resultado);
         assertEquals(EstadoCita.REPROGRAMADA, citaEjemplo.getEstado());
         verify(citaRepo).save(citaEjemplo);
+        verify(reservaHorarioService).reprogramar(
+                "estilista1",
+                LocalDateTime.of(2023, 10, 20, 15, 0),
+                LocalDateTime.of(2023, 10, 20, 16, 0),
+                "cita1");
+    }
+
+    @Test
+    void reprogramarCita_excluyeLaPropiaCitaYActualizaOcupacion() throws Exception {
+        // Arrange: se corre la cita media hora, así que se cruza con su propio horario anterior
+        ReprogramarCitaDTO reprogramarDTO = new ReprogramarCitaDTO(
+                "cita1",
+                "2023-10-15 15:00"
+        );
+
+        when(citaRepo.findById("cita1")).thenReturn(Optional.of(citaEjemplo));
+
+        // Act
+        String resultado = citasService.reprogramarCita(reprogramarDTO);
+
+        // Assert
+        assertEquals("cita1", resultado);
+        assertEquals(LocalDateTime.of(2023, 10, 15, 16, 0), citaEjemplo.getFechaHoraFin());
+        verify(ocupacionAgendaService).existeSolapamiento("estilista1",
+                LocalDateTime.of(2023, 10, 15, 15, 0), LocalDateTime.of(2023, 10, 15, 16, 0), "cita1");
+        verify(ocupacionAgendaService).eliminar("estilista1", "cita1",
+                LocalDateTime.of(2023, 10, 15, 14, 30), LocalDateTime.of(2023, 10, 15, 15, 30));
+        verify(ocupacionAgendaService).registrar("estilista1", "cita1",
+                LocalDateTime.of(2023, 10, 15, 15, 0), LocalDateTime.of(2023, 10, 15, 16, 0));
     }
 
     @Test
@@ -185,7 +624,8 @@ class CitasServiceImpleTest {
         );
 
         when(citaRepo.findById("cita1")).thenReturn(Optional.of(citaEjemplo));
-        when(citaRepo.existsByEstilistaIdAndFechaHora(anyString(), any(LocalDateTime.class))).thenReturn(true);
+        when(ocupacionAgendaService.existeSolapamiento(anyString(), any(LocalDateTime.class), any(LocalDateTime.class), any()))
+                .thenReturn(true);
 
         // Act & Assert
         assertThrows(HorarioYEstilistaOcupadoException.class,
@@ -193,16 +633,63 @@ class CitasServiceImpleTest {
         verify(citaRepo, never()).save(any(Cita.class));
     }
 
+    @Test
+    void reprogramarCita_conflictoDeVersion_reintentaConLaCitaReleida() throws Exception {
+        // Arrange: el primer guardado choca con otra escritura; cada lectura trae la cita fresca
+        when(citaRepo.findById("cita1")).thenAnswer(i -> Optional.of(citaDe("cita1", "estilista1", fechaHoraEjemplo)));
+        when(citaRepo.save(any(Cita.class)))
+                .thenThrow(new OptimisticLockingFailureException("versión desactualizada"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        String resultado = citasService.reprogramarCita(new ReprogramarCitaDTO("cita1", "2023-10-20 15:00"));
+
+        // Assert
+        assertEquals("cita1", resultado);
+        verify(citaRepo, times(2)).findById("cita1");
+        verify(citaRepo, times(2)).save(any(Cita.class));
+        verify(ocupacionAgendaService).registrar("estilista1", "cita1",
+                LocalDateTime.of(2023, 10, 20, 15, 0), LocalDateTime.of(2023, 10, 20, 16, 0));
+    }
+
+    @Test
+    void reprogramarCita_conflictosAgotados_realineaReservasYLanzaExcepcion() throws Exception {
+        // Arrange
+        when(citaRepo.findById("cita1")).thenAnswer(i -> Optional.of(citaDe("cita1", "estilista1", fechaHoraEjemplo)));
+        when(citaRepo.save(any(Cita.class))).thenThrow(new OptimisticLockingFailureException("versión desactualizada"));
+
+        // Act & Assert
+        assertThrows(ConflictoConcurrenciaException.class,
+                () -> citasService.reprogramarCita(new ReprogramarCitaDTO("cita1", "2023-10-20 15:00")));
+        verify(citaRepo, times(3)).save(any(Cita.class));
+        // Los bloques vuelven al horario que quedó guardado
+        verify(reservaHorarioService).reprogramar("estilista1", fechaHoraEjemplo, fechaHoraEjemplo.plusHours(1), "cita1");
+        verify(ocupacionAgendaService, never()).registrar(any(), any(), any(), any());
+    }
+
+    @Test
+    void reprogramarCita_citaCancelada_lanzaExcepcionYLiberaReservas() {
+        // Arrange
+        citaEjemplo.setEstado(EstadoCita.CANCELADA);
+        when(citaRepo.findById("cita1")).thenReturn(Optional.of(citaEjemplo));
+
+        // Act & Assert
+        assertThrows(ConflictoConcurrenciaException.class,
+                () -> citasService.reprogramarCita(new ReprogramarCitaDTO("cita1", "2023-10-20 15:00")));
+        verify(citaRepo, never()).save(any(Cita.class));
+        verify(reservaHorarioService).liberar("cita1");
+    }
+
     @Test
     void obtenerCitasPorClienteId_retornaCitas() {
         // Arrange
         List<String> estadosPermitidos = Arrays.asList("CONFIRMADA", "REPROGRAMADA");
         when(citaRepo.findByUsuarioIdAndEstadoIn("cliente1", estadosPermitidos))
                 .thenReturn(List.of(citaEjemplo));
-        when(estilistaRepository.findById(estilistaEjemplo.getId()))
-                .thenReturn(Optional.of(estilistaEjemplo));
-        when(servicioRepository.findById(servicioEjemplo.getId()))
-                .thenReturn(Optional.of(servicioEjemplo));
+        when(catalogoService.obtenerEstilistasPorId(anyCollection()))
+                .thenReturn(Map.of(estilistaEjemplo.getId(), estilistaEjemplo));
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
 
         // Act
         List<InformacionCitaDTO> resultado = citasService.obtenerCitasPorClienteId("cliente1");
@@ -229,10 +716,10 @@ class CitasServiceImpleTest {
         List<String> estados = Arrays.asList("CANCELADA", "COMPLETADA");
         when(citaRepo.findByUsuarioIdAndEstadoIn("cliente1", estados))
                 .thenReturn(List.of(citaCancelada));
-        when(estilistaRepository.findById(estilistaEjemplo.getId()))
-                .thenReturn(Optional.of(estilistaEjemplo));
-        when(servicioRepository.findById(servicioEjemplo.getId()))
-                .thenReturn(Optional.of(servicioEjemplo));
+        when(catalogoService.obtenerEstilistasPorId(anyCollection()))
+                .thenReturn(Map.of(estilistaEjemplo.getId(), estilistaEjemplo));
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
 
         // Act
         List<InformacionCitaDTO> resultado = citasService.obtenerCitasCanceladasYCompletadasPorClienteId("cliente1");
@@ -249,10 +736,10 @@ class CitasServiceImpleTest {
         // Arrange
         when(citaRepo.findByEstilistaId("estilista1"))
                 .thenReturn(List.of(citaEjemplo));
-        when(estilistaRepository.findById(estilistaEjemplo.getId()))
-                .thenReturn(Optional.of(estilistaEjemplo));
-        when(servicioRepository.findById(servicioEjemplo.getId()))
-                .thenReturn(Optional.of(servicioEjemplo));
+        when(catalogoService.obtenerEstilistasPorId(anyCollection()))
+                .thenReturn(Map.of(estilistaEjemplo.getId(), estilistaEjemplo));
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
 
         // Act
         List<InformacionCitaDTO> resultado = citasService.obtenerCitasPorEstilistaId("estilista1");
@@ -263,14 +750,66 @@ class CitasServiceImpleTest {
         assertEquals("estilista1", resultado.get(0).estilistaId());
     }
 
+    @Test
+    void obtenerCitasPorEstilistaId_muchasCitas_resuelveNombresConConsultasConstantes() {
+        // Arrange: 200 citas repartidas entre 50 estilistas y 10 servicios distintos
+        List<Cita> citas = new ArrayList<>();
+        Map<String, Estilista> estilistas = new HashMap<>();
+        Map<String, Servicio> servicios = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            estilistas.put("estilista" + i, Estilista.builder().id("estilista" + i).nombre("Estilista " + i).build());
+        }
+        for (int i = 0; i < 10; i++) {
+            servicios.put("servicio" + i, Servicio.builder().id("servicio" + i).nombre("Servicio " + i).build());
+        }
+        for (int i = 0; i < 200; i++) {
+            citas.add(Cita.builder()
+                    .id("cita" + i)
+                    .usuarioId("cliente1")
+                    .estilistaId("estilista" + (i % 50))
+                    .servicioId("servicio" + (i % 10))
+                    .fechaHora(fechaHoraEjemplo.plusHours(i))
+                    .estado(EstadoCita.CONFIRMADA)
+                    .build());
+        }
+
+        when(citaRepo.findByEstilistaId("estilista1")).thenReturn(citas);
+        when(catalogoService.obtenerEstilistasPorId(anyCollection())).thenReturn(estilistas);
+        when(catalogoService.obtenerServiciosPorId(anyCollection())).thenReturn(servicios);
+
+        // Act
+        List<InformacionCitaDTO> resultado = citasService.obtenerCitasPorEstilistaId("estilista1");
+
+        // Assert: una sola resolución por catálogo sin importar el número de citas
+        assertEquals(200, resultado.size());
+        assertEquals("Estilista 7", resultado.get(57).estilistaNombre());
+        assertEquals("Servicio 7", resultado.get(57).servicioNombre());
+        verify(citaRepo, times(1)).findByEstilistaId("estilista1");
+        verify(catalogoService, times(1)).obtenerEstilistasPorId(anyCollection());
+        verify(catalogoService, times(1)).obtenerServiciosPorId(anyCollection());
+    }
+
+    @Test
+    void obtenerCitasPorEstado_sinCitas_noConsultaCatalogo() {
+        // Arrange
+        when(citaRepo.findByEstado(EstadoCita.CANCELADA)).thenReturn(List.of());
+
+        // Act
+        List<InformacionCitaDTO> resultado = citasService.obtenerCitasPorEstado("CANCELADA");
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(catalogoService);
+    }
+
     @Test
     void obtenerCitaPorId_existente_retornaCita() throws Exception {
         // Arrange
         when(citaRepo.findById("cita1")).thenReturn(Optional.of(citaEjemplo));
-        when(estilistaRepository.findById(estilistaEjemplo.getId()))
-                .thenReturn(Optional.of(estilistaEjemplo));
-        when(servicioRepository.findById(servicioEjemplo.getId()))
-                .thenReturn(Optional.of(servicioEjemplo));
+        when(catalogoService.obtenerEstilistasPorId(anyCollection()))
+                .thenReturn(Map.of(estilistaEjemplo.getId(), estilistaEjemplo));
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
 
         // Act
         InformacionCitaDTO resultado = citasService.obtenerCitaPorId("cita1");
@@ -296,10 +835,10 @@ class CitasServiceImpleTest {
         // Arrange
         when(citaRepo.findByEstado(EstadoCita.CONFIRMADA))
                 .thenReturn(List.of(citaEjemplo));
-        when(estilistaRepository.findById(estilistaEjemplo.getId()))
-                .thenReturn(Optional.of(estilistaEjemplo));
-        when(servicioRepository.findById(servicioEjemplo.getId()))
-                .thenReturn(Optional.of(servicioEjemplo));
+        when(catalogoService.obtenerEstilistasPorId(anyCollection()))
+                .thenReturn(Map.of(estilistaEjemplo.getId(), estilistaEjemplo));
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of(servicioEjemplo.getId(), servicioEjemplo));
 
         // Act
         List<InformacionCitaDTO> resultado = citasService.obtenerCitasPorEstado("CONFIRMADA");
@@ -320,7 +859,7 @@ class CitasServiceImpleTest {
     }
 
     @Test
-    void obtenerCitasConfirmadasYReprogramadas_retornaCitas() {
+    void obtenerCalendario_ventanaCompleta_soloConfirmadasYReprogramadasDeLaVentana() throws Exception {
         // Arrange
         Cita citaReprogramada = Cita.builder()
                 .id("cita2")
@@ -331,13 +870,444 @@ class CitasServiceImpleTest {
                 .estado(EstadoCita.REPROGRAMADA)
                 .build();
 
-        when(citaRepo.findByEstadoIn(List.of("CONFIRMADA", "REPROGRAMADA")))
+        when(citaRepo.findTopByOrderByFechaModificacionDesc()).thenReturn(Optional.of(
+                Cita.builder().id("cita2").fechaModificacion(Instant.ofEpochMilli(1000L)).build()));
+        when(citaRepo.buscarCalendario(
+                LocalDateTime.of(2023, 10, 15, 0, 0),
+                LocalDateTime.of(2023, 10, 17, 0, 0),
+                "estilista1",
+                null))
                 .thenReturn(List.of(citaEjemplo, citaReprogramada));
 
         // Act
-        List<CalendarioCitasDTO> resultado = citasService.obtenerCitasConfirmadasYReprogramadas();
+        CalendarioFeedDTO resultado = citasService.obtenerCalendario("2023-10-15", "2023-10-16", "estilista1", null);
+
+        // Assert
+        assertEquals(2, resultado.citas().size());
+        assertEquals(1000L, resultado.version());
+        assertFalse(resultado.incremental());
+        assertEquals("cita1", resultado.citas().get(0).citaId());
+        assertEquals(EstadoCita.REPROGRAMADA, resultado.citas().get(1).estado());
+    }
+
+    @Test
+    void obtenerCalendario_finSegunDuracionDelServicio() throws Exception {
+        // Arrange
+        Cita citaConFin = Cita.builder()
+                .id("cita2")
+                .estilistaId("estilista1")
+                .servicioId("servicio1")
+                .fechaHora(fechaHoraEjemplo)
+                .fechaHoraFin(fechaHoraEjemplo.plusMinutes(45))
+                .estado(EstadoCita.CONFIRMADA)
+                .build();
+        servicioEjemplo.setDuracionMinutos(90);
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of("servicio1", servicioEjemplo));
+        when(citaRepo.buscarCalendario(any(), any(), isNull(), isNull()))
+                .thenReturn(List.of(citaEjemplo, citaConFin));
+
+        // Act
+        CalendarioFeedDTO resultado = citasService.obtenerCalendario("2023-10-15", "2023-10-15", null, null);
+
+        // Assert: la cita sin fin guardado usa la duración del servicio y la otra conserva su fin
+        assertEquals("2023-10-15T16:00:00", resultado.citas().get(0).fechaHoraFin());
+        assertEquals("2023-10-15T15:15:00", resultado.citas().get(1).fechaHoraFin());
+        assertEquals(0L, resultado.version());
+    }
+
+    @Test
+    void obtenerCalendario_cambiosDesde_pideSoloModificadasConMargen() throws Exception {
+        // Arrange
+        Cita citaCancelada = Cita.builder()
+                .id("cita1")
+                .estilistaId("estilista1")
+                .servicioId("servicio1")
+                .fechaHora(fechaHoraEjemplo)
+                .estado(EstadoCita.CANCELADA)
+                .build();
+        when(citaRepo.buscarCalendario(any(), any(), isNull(), eq(Instant.ofEpochMilli(15_000L))))
+                .thenReturn(List.of(citaCancelada));
+
+        // Act
+        CalendarioFeedDTO resultado = citasService.obtenerCalendario("2023-10-15", "2023-10-15", "", 20_000L);
+
+        // Assert: el delta incluye la cancelación para que el cliente quite la cita
+        assertTrue(resultado.incremental());
+        assertEquals(1, resultado.citas().size());
+        assertEquals(EstadoCita.CANCELADA, resultado.citas().get(0).estado());
+    }
+
+    @Test
+    void obtenerCalendario_rangoDemasiadoLargo_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class,
+                () -> citasService.obtenerCalendario("2023-01-01", "2023-12-31", null, null));
+        verify(citaRepo, never()).buscarCalendario(any(), any(), any(), any());
+    }
+
+    @Test
+    void apartarHorario_horarioLibre_apartaSinCrearCita() throws Exception {
+        // Arrange
+        LocalDateTime inicio = LocalDateTime.of(2030, 1, 10, 10, 0);
+        servicioEjemplo.setDuracionMinutos(45);
+        when(catalogoService.obtenerServiciosPorId(Set.of("servicio1")))
+                .thenReturn(Map.of("servicio1", servicioEjemplo));
+        when(apartadoHorarioService.apartar("cliente1", "estilista1", "servicio1", inicio, inicio.plusMinutes(45)))
+                .thenReturn(apartado(inicio));
+
+        // Act
+        ApartadoHorarioDTO resultado = citasService.apartarHorario(
+                new CrearCitaDTO("cliente1", "estilista1", "servicio1", "2030-01-10 10:00"));
+
+        // Assert
+        assertEquals("apartado1", resultado.apartadoId());
+        assertEquals("2030-01-10T10:45:00", resultado.fechaHoraFin());
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void apartarHorario_estilistaOcupado_lanzaExcepcionSinApartar() {
+        // Arrange
+        when(ocupacionAgendaService.existeSolapamiento(anyString(), any(LocalDateTime.class), any(LocalDateTime.class), any()))
+                .thenReturn(true);
+
+        // Act & Assert
+        assertThrows(HorarioYEstilistaOcupadoException.class, () -> citasService.apartarHorario(
+                new CrearCitaDTO("cliente1", "estilista1", "servicio1", "2030-01-10 10:00")));
+        verifyNoInteractions(apartadoHorarioService);
+    }
+
+    @Test
+    void confirmarApartado_creaLaCitaConElIdDelApartadoYRegistraLaOcupacion() throws Exception {
+        // Arrange
+        LocalDateTime inicio = LocalDateTime.of(2030, 1, 10, 10, 0);
+        when(apartadoHorarioService.confirmar("apartado1")).thenReturn(apartado(inicio));
+        when(catalogoService.obtenerServiciosPorId(Set.of("servicio1")))
+                .thenReturn(Map.of("servicio1", servicioEjemplo));
+        when(catalogoService.obtenerEstilistasPorId(Set.of("estilista1")))
+                .thenReturn(Map.of("estilista1", estilistaEjemplo));
+
+        // Act
+        String resultado = citasService.confirmarApartado("apartado1");
+
+        // Assert
+        assertEquals("apartado1", resultado);
+        ArgumentCaptor<Cita> guardada = ArgumentCaptor.forClass(Cita.class);
+        verify(citaRepo).save(guardada.capture());
+        assertEquals(EstadoCita.CONFIRMADA, guardada.getValue().getEstado());
+        assertEquals(45, guardada.getValue().getServicioDuracionMinutos());
+        assertEquals("Juan Pérez", guardada.getValue().getEstilistaNombre());
+        verify(ocupacionAgendaService).registrar("estilista1", "apartado1", inicio, inicio.plusMinutes(45));
+        verify(reservaHorarioService, never()).reservar(any(), any(), any(), any());
+        verify(listaEsperaService).marcarAtendida("apartado1");
+    }
+
+    @Test
+    void obtenerHorariosDisponibles_horarioApartado_noSeOfreceComoLibre() throws Exception {
+        // Arrange: cita de 10:00 a 11:00 y apartado vigente de 14:00 a 15:00
+        when(catalogoService.obtenerEstilistasPorId(Set.of("estilista1")))
+                .thenReturn(Map.of("estilista1", estilistaEjemplo));
+        when(ocupacionAgendaService.obtenerOcupados(List.of("estilista1"),
+                LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 10)))
+                .thenReturn(Map.of("estilista1", List.of(
+                        new Intervalo(LocalDateTime.of(2030, 1, 10, 10, 0), LocalDateTime.of(2030, 1, 10, 11, 0)))));
+        when(apartadoHorarioService.obtenerApartados(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Map.of("estilista1", List.of(
+                        new Intervalo(LocalDateTime.of(2030, 1, 10, 14, 0), LocalDateTime.of(2030, 1, 10, 15, 0)))));
+
+        // Act
+        List<HorarioDisponibleDTO> resultado = citasService.obtenerHorariosDisponibles(
+                "estilista1", null, "2030-01-10", "2030-01-10");
 
         // Assert
+        assertEquals(3, resultado.size());
+        assertEquals("2030-01-10T14:00:00", resultado.get(1).fechaHoraFin());
+        assertEquals("2030-01-10T15:00:00", resultado.get(2).fechaHoraInicio());
+    }
+
+    @Test
+    void obtenerHorariosDisponibles_estilistaConCitas_devuelveHuecosEntreCitas() throws Exception {
+        // Arrange: ocupado de 10:00 a 11:00 y de 14:00 a 15:00
+        when(catalogoService.obtenerEstilistasPorId(Set.of("estilista1")))
+                .thenReturn(Map.of("estilista1", estilistaEjemplo));
+        when(ocupacionAgendaService.obtenerOcupados(List.of("estilista1"),
+                LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 10)))
+                .thenReturn(Map.of("estilista1", List.of(
+                        new Intervalo(LocalDateTime.of(2030, 1, 10, 10, 0), LocalDateTime.of(2030, 1, 10, 11, 0)),
+                        new Intervalo(LocalDateTime.of(2030, 1, 10, 14, 0), LocalDateTime.of(2030, 1, 10, 15, 0)))));
+
+        // Act
+        List<HorarioDisponibleDTO> resultado = citasService.obtenerHorariosDisponibles(
+                "estilista1", null, "2030-01-10", "2030-01-10");
+
+        // Assert
+        assertEquals(3, resultado.size());
+        assertEquals("2030-01-10T08:00:00", resultado.get(0).fechaHoraInicio());
+        assertEquals("2030-01-10T10:00:00", resultado.get(0).fechaHoraFin());
+        assertEquals("2030-01-10T11:00:00", resultado.get(1).fechaHoraInicio());
+        assertEquals("2030-01-10T14:00:00", resultado.get(1).fechaHoraFin());
+        assertEquals("2030-01-10T15:00:00", resultado.get(2).fechaHoraInicio());
+        assertEquals("2030-01-10T18:00:00", resultado.get(2).fechaHoraFin());
+        assertEquals("Juan Pérez", resultado.get(0).estilistaNombre());
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void obtenerHorariosDisponibles_porServicio_soloEstilistasQueLoAtiendenYHuecosDondeCabe() throws Exception {
+        // Arrange: el servicio dura 90 minutos y solo lo atiende estilista1
+        servicioEjemplo.setDuracionMinutos(90);
+        Estilista otroEstilista = Estilista.builder()
+                .id("estilista2")
+                .nombre("Maria Rodriguez")
+                .serviciosIds(List.of("otroServicio"))
+                .build();
+
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(estilistaEjemplo, otroEstilista));
+        when(catalogoService.obtenerServiciosPorId(anyCollection()))
+                .thenReturn(Map.of("servicio1", servicioEjemplo));
+        when(ocupacionAgendaService.obtenerOcupados(List.of("estilista1"),
+                LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 10)))
+                .thenReturn(Map.of("estilista1", List.of(
+                        new Intervalo(LocalDateTime.of(2030, 1, 10, 9, 0), LocalDateTime.of(2030, 1, 10, 10, 0)),
+                        new Intervalo(LocalDateTime.of(2030, 1, 10, 11, 0), LocalDateTime.of(2030, 1, 10, 12, 0)))));
+
+        // Act
+        List<HorarioDisponibleDTO> resultado = citasService.obtenerHorariosDisponibles(
+                null, "servicio1", "2030-01-10", "2030-01-10");
+
+        // Assert: los huecos de 60 minutos no sirven para un servicio de 90
+        assertEquals(1, resultado.size());
+        assertEquals("estilista1", resultado.get(0).estilistaId());
+        assertEquals("2030-01-10T12:00:00", resultado.get(0).fechaHoraInicio());
+    }
+
+    @Test
+    void obtenerHorariosDisponibles_variosDias_pideLaOcupacionDeTodoElRangoUnaSolaVez() throws Exception {
+        // Arrange: dos semanas, el último día completamente ocupado
+        when(catalogoService.obtenerEstilistasPorId(Set.of("estilista1")))
+                .thenReturn(Map.of("estilista1", estilistaEjemplo));
+        when(ocupacionAgendaService.obtenerOcupados(List.of("estilista1"),
+                LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 14)))
+                .thenReturn(Map.of("estilista1", List.of(
+                        new Intervalo(LocalDateTime.of(2030, 1, 14, 8, 0), LocalDateTime.of(2030, 1, 14, 18, 0)))));
+
+        // Act
+        List<HorarioDisponibleDTO> resultado = citasService.obtenerHorariosDisponibles(
+                "estilista1", null, "2030-01-01", "2030-01-14");
+
+        // Assert: 13 días completamente libres y el último ocupado
+        assertEquals(13, resultado.size());
+        assertTrue(resultado.stream().noneMatch(h -> h.fechaHoraInicio().startsWith("2030-01-14")));
+        verify(ocupacionAgendaService, times(1)).obtenerOcupados(anyCollection(), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    void obtenerHorariosDisponibles_rangoInvertido_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class, () -> citasService.obtenerHorariosDisponibles(
+                "estilista1", null, "2030-01-10", "2030-01-09"));
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void obtenerHorariosDisponibles_rangoDemasiadoLargo_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class, () -> citasService.obtenerHorariosDisponibles(
+                "estilista1", null, "2030-01-01", "2030-03-01"));
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void obtenerHorariosDisponibles_estilistaNoExiste_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(RecursoNoEncontradoException.class, () -> citasService.obtenerHorariosDisponibles(
+                "inexistente", null, "2030-01-10", "2030-01-10"));
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void listarCitas_hayMasCitas_devuelveCursorYLaSiguientePaginaContinuaDesdeAhi() throws Exception {
+        // Arrange
+        Cita cita2 = Cita.builder().id("cita2").estilistaId("estilista1")
+                .fechaHora(LocalDateTime.of(2023, 10, 16, 9, 0)).estado(EstadoCita.CONFIRMADA).build();
+        Cita cita3 = Cita.builder().id("cita3").estilistaId("estilista1")
+                .fechaHora(LocalDateTime.of(2023, 10, 17, 9, 0)).estado(EstadoCita.CONFIRMADA).build();
+
+        when(citaRepo.buscarPagina(null, "estilista1", null, null, null, null, null, 3))
+                .thenReturn(List.of(citaEjemplo, cita2, cita3));
+        when(citaRepo.buscarPagina(null, "estilista1", null, null, null,
+                LocalDateTime.of(2023, 10, 16, 9, 0), "cita2", 3))
+                .thenReturn(List.of(cita3));
+
+        // Act
+        PaginaCitasDTO primera = citasService.listarCitas(
+                new FiltroCitasDTO(null, "estilista1", null, null, null, null, 2));
+        PaginaCitasDTO segunda = citasService.listarCitas(
+                new FiltroCitasDTO(null, "estilista1", null, null, null, primera.siguienteCursor(), 2));
+
+        // Assert
+        assertEquals(2, primera.citas().size());
+        assertEquals("cita2", primera.citas().get(1).citaId());
+        assertNotNull(primera.siguienteCursor());
+        assertEquals(1, segunda.citas().size());
+        assertEquals("cita3", segunda.citas().get(0).citaId());
+        assertNull(segunda.siguienteCursor());
+    }
+
+    @Test
+    void listarCitas_todasConRangoDeDias_convierteFiltros() throws Exception {
+        // Arrange
+        when(citaRepo.buscarPagina(null, null, "cliente1",
+                LocalDateTime.of(2023, 10, 1, 0, 0), LocalDateTime.of(2023, 11, 1, 0, 0), null, null, 51))
+                .thenReturn(List.of(citaEjemplo));
+
+        // Act
+        PaginaCitasDTO pagina = citasService.listarCitas(
+                new FiltroCitasDTO("TODAS", "", "cliente1", "2023-10-01", "2023-10-31", null, null));
+
+        // Assert
+        assertEquals(1, pagina.citas().size());
+        assertNull(pagina.siguienteCursor());
+    }
+
+    @Test
+    void listarCitas_tamanioExcesivo_seLimita() throws Exception {
+        // Arrange
+        when(citaRepo.buscarPagina(EstadoCita.CONFIRMADA, null, null, null, null, null, null, 201))
+                .thenReturn(List.of());
+
+        // Act
+        PaginaCitasDTO pagina = citasService.listarCitas(
+                new FiltroCitasDTO("confirmada", null, null, null, null, null, 10_000));
+
+        // Assert
+        assertTrue(pagina.citas().isEmpty());
+        verifyNoInteractions(catalogoService);
+    }
+
+    @Test
+    void listarCitas_estadoInvalido_retornaPaginaVacia() throws Exception {
+        // Act
+        PaginaCitasDTO pagina = citasService.listarCitas(
+                new FiltroCitasDTO("INEXISTENTE", null, null, null, null, null, null));
+
+        // Assert
+        assertTrue(pagina.citas().isEmpty());
+        assertNull(pagina.siguienteCursor());
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void listarCitas_cursorInvalido_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(CursorInvalidoException.class, () -> citasService.listarCitas(
+                new FiltroCitasDTO(null, null, null, null, null, "esto-no-es-un-cursor", null)));
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void listarCitas_rangoInvertido_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class, () -> citasService.listarCitas(
+                new FiltroCitasDTO(null, null, null, "2023-10-31", "2023-10-01", null, null)));
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void obtenerCitasCanceladasYCompletadasPorClienteId_unePrincipalYArchivoSinRepetir() {
+        // Arrange: cita1 quedó en ambas colecciones por un archivado a medio terminar
+        Cita citaArchivada = Cita.builder().id("cita0").usuarioId("cliente1")
+                .fechaHora(fechaHoraEjemplo.minusMonths(6)).estado(EstadoCita.COMPLETADA).build();
+        Cita copiaVieja = Cita.builder().id("cita1").usuarioId("cliente1")
+                .fechaHora(fechaHoraEjemplo).estado(EstadoCita.COMPLETADA).build();
+        citaEjemplo.setEstado(EstadoCita.CANCELADA);
+
+        when(citaRepo.findByUsuarioIdAndEstadoIn("cliente1", Arrays.asList("CANCELADA", "COMPLETADA")))
+                .thenReturn(List.of(citaEjemplo));
+        when(citaRepo.buscarArchivadasPorUsuario("cliente1", List.of(EstadoCita.CANCELADA, EstadoCita.COMPLETADA)))
+                .thenReturn(List.of(citaArchivada, copiaVieja));
+
+        // Act
+        List<InformacionCitaDTO> resultado = citasService.obtenerCitasCanceladasYCompletadasPorClienteId("cliente1");
+
+        // Assert: ordenadas por fecha y la copia activa prevalece
         assertEquals(2, resultado.size());
+        assertEquals("cita0", resultado.get(0).citaId());
+        assertEquals("cita1", resultado.get(1).citaId());
+        assertEquals(EstadoCita.CANCELADA, resultado.get(1).estado());
+    }
+
+    @Test
+    void obtenerCitaPorId_archivada_seBuscaEnElArchivo() throws Exception {
+        // Arrange
+        when(citaRepo.findById("cita1")).thenReturn(Optional.empty());
+        when(citaRepo.buscarArchivadaPorId("cita1")).thenReturn(Optional.of(citaEjemplo));
+
+        // Act
+        InformacionCitaDTO resultado = citasService.obtenerCitaPorId("cita1");
+
+        // Assert
+        assertEquals("cita1", resultado.citaId());
+    }
+
+    @Test
+    void obtenerCitasPorEstado_confirmada_noConsultaElArchivo() {
+        // Arrange
+        when(citaRepo.findByEstado(EstadoCita.CONFIRMADA)).thenReturn(List.of(citaEjemplo));
+
+        // Act
+        List<InformacionCitaDTO> resultado = citasService.obtenerCitasPorEstado("CONFIRMADA");
+
+        // Assert
+        assertEquals(1, resultado.size());
+        verify(citaRepo, never()).buscarArchivadasPorEstado(any());
+    }
+
+    @Test
+    void listarCitas_canceladas_mezclaPaginasDePrincipalYArchivo() throws Exception {
+        // Arrange
+        Cita archivada1 = Cita.builder().id("a1").fechaHora(LocalDateTime.of(2023, 1, 1, 9, 0))
+                .estado(EstadoCita.CANCELADA).build();
+        Cita archivada2 = Cita.builder().id("a2").fechaHora(LocalDateTime.of(2023, 2, 1, 9, 0))
+                .estado(EstadoCita.CANCELADA).build();
+        Cita activa = Cita.builder().id("b1").fechaHora(LocalDateTime.of(2023, 1, 15, 9, 0))
+                .estado(EstadoCita.CANCELADA).build();
+        when(citaRepo.buscarPagina(EstadoCita.CANCELADA, null, null, null, null, null, null, 3))
+                .thenReturn(List.of(activa));
+        when(citaRepo.buscarPaginaArchivo(EstadoCita.CANCELADA, null, null, null, null, null, null, 3))
+                .thenReturn(List.of(archivada1, archivada2));
+
+        // Act
+        PaginaCitasDTO pagina = citasService.listarCitas(
+                new FiltroCitasDTO("CANCELADA", null, null, null, null, null, 2));
+
+        // Assert: a1 (enero 1), b1 (enero 15) y el cursor continúa después de b1
+        assertEquals(List.of("a1", "b1"), pagina.citas().stream().map(InformacionCitaDTO::citaId).toList());
+        assertNotNull(pagina.siguienteCursor());
+    }
+
+    private Cita citaDe(String id, String estilistaId, LocalDateTime fechaHora) {
+        return Cita.builder()
+                .id(id)
+                .usuarioId("cliente1")
+                .estilistaId(estilistaId)
+                .servicioId("servicio1")
+                .fechaHora(fechaHora)
+                .fechaHoraFin(fechaHora.plusHours(1))
+                .estado(EstadoCita.CONFIRMADA)
+                .build();
+    }
+
+    private ApartadoHorario apartado(LocalDateTime inicio) {
+        return ApartadoHorario.builder()
+                .id("apartado1")
+                .usuarioId("cliente1")
+                .estilistaId("estilista1")
+                .servicioId("servicio1")
+                .fechaHora(inicio)
+                .fechaHoraFin(inicio.plusMinutes(45))
+                .expiraEn(Instant.parse("2030-01-09T12:10:00Z"))
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CompletarCitasServiceImpleTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2023, 10, 15, 12, 0);
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private CompletarCitasServiceImple completarCitasService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock reloj = Clock.fixed(AHORA.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        // Lotes de 2 citas, máximo 3 lotes por ejecución
+        completarCitasService = new CompletarCitasServiceImple(citaRepo, bloqueoTareaService, meterRegistry, 2, 3, 300, reloj);
+    }
+
+    @Test
+    void completarCitasVencidas_procesaPorLotesHastaUnLoteIncompleto() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(CompletarCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(citaRepo.buscarIdsVencidas(AHORA, 2))
+                .thenReturn(List.of("c1", "c2"))
+                .thenReturn(List.of("c3"));
+        when(citaRepo.marcarCompletadas(anyCollection(), any(Instant.class)))
+                .thenReturn(2L)
+                .thenReturn(1L);
+
+        // Act
+        int resultado = completarCitasService.completarCitasVencidas();
+
+        // Assert
+        assertEquals(3, resultado);
+        verify(citaRepo, times(2)).buscarIdsVencidas(AHORA, 2);
+        verify(citaRepo).marcarCompletadas(List.of("c1", "c2"), AHORA.toInstant(ZoneOffset.UTC));
+        verify(bloqueoTareaService).liberar(CompletarCitasServiceImple.TAREA);
+        assertEquals(3.0, meterRegistry.get("laos.citas.completadas").counter().count());
+        assertEquals(1, meterRegistry.get("laos.citas.completar.duracion").timer().count());
+    }
+
+    @Test
+    void completarCitasVencidas_respetaElMaximoDeLotesPorEjecucion() {
+        // Arrange: siempre hay lotes completos
+        when(bloqueoTareaService.adquirir(eq(CompletarCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(citaRepo.buscarIdsVencidas(AHORA, 2)).thenReturn(List.of("c1", "c2"));
+        when(citaRepo.marcarCompletadas(anyCollection(), any(Instant.class))).thenReturn(2L);
+
+        // Act
+        int resultado = completarCitasService.completarCitasVencidas();
+
+        // Assert
+        assertEquals(6, resultado);
+        verify(citaRepo, times(3)).marcarCompletadas(anyCollection(), any(Instant.class));
+    }
+
+    @Test
+    void completarCitasVencidas_otroNodoTieneLaTarea_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(CompletarCitasServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        int resultado = completarCitasService.completarCitasVencidas();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(citaRepo);
+        verify(bloqueoTareaService, never()).liberar(anyString());
+    }
+
+    @Test
+    void completarCitasVencidas_pierdeElArriendo_detieneElProceso() {
+        // Arrange: el arriendo se toma pero no se puede renovar después del primer lote
+        when(bloqueoTareaService.adquirir(eq(CompletarCitasServiceImple.TAREA), any(Duration.class)))
+                .thenReturn(true)
+                .thenReturn(false);
+        when(citaRepo.buscarIdsVencidas(AHORA, 2)).thenReturn(List.of("c1", "c2"));
+        when(citaRepo.marcarCompletadas(anyCollection(), any(Instant.class))).thenReturn(2L);
+
+        // Act
+        int resultado = completarCitasService.completarCitasVencidas();
+
+        // Assert
+        assertEquals(2, resultado);
+        verify(citaRepo, times(1)).buscarIdsVencidas(AHORA, 2);
+    }
+
+    @Test
+    void completarCitasVencidas_falloEnLaBaseDeDatos_liberaElArriendo() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(CompletarCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(citaRepo.buscarIdsVencidas(AHORA, 2)).thenThrow(new RuntimeException("sin conexión"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> completarCitasService.completarCitasVencidas());
+        verify(bloqueoTareaService).liberar(CompletarCitasServiceImple.TAREA);
+    }
+}
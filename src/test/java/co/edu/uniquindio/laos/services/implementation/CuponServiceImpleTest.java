@@ -0,0 +1,208 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cupon.EditarCuponDTO;
+import co.edu.uniquindio.laos.dto.cupon.InformacionCuponDTO;
+import co.edu.uniquindio.laos.exceptions.CuponNoDisponibleException;
+import co.edu.uniquindio.laos.exceptions.RecursoEncontradoException;
+import co.edu.uniquindio.laos.exceptions.RecursoNoEncontradoException;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CuponServiceImpleTest {
+
+    private static final String CLIENTE_1 = "64b000000000000000000001";
+    private static final String CLIENTE_2 = "64b000000000000000000002";
+
+    @Mock
+    private CuponRepo cuponRepo;
+
+    @InjectMocks
+    private CuponServiceImple cuponService;
+
+    /**
+     * Cupón de la colección simulada. redimir reproduce el filtro y la actualización del
+     * findAndModify; la atomicidad frente a redenciones simultáneas se prueba contra MongoDB
+     * en RedencionCuponesConcurrentesTests.
+     */
+    private Cupon cupon;
+
+    @BeforeEach
+    void setUp() {
+        cupon = Cupon.builder()
+                .id("cupon1")
+                .codigo("VERANO")
+                .porcentajeDescuento(15.0)
+                .estadoCupon(EstadoCupon.ACTIVO)
+                .fechaVencimiento(LocalDate.now().plusDays(10))
+                .build();
+    }
+
+    private void simularColeccion() {
+        when(cuponRepo.redimir(eq("VERANO"), anyString(), any(LocalDate.class), any(Instant.class)))
+                .thenAnswer(invocacion -> redimirSimulado(invocacion.getArgument(1), invocacion.getArgument(2)));
+    }
+
+    private Optional<Cupon> redimirSimulado(String usuarioId, LocalDate hoy) {
+        Map<String, Integer> porCliente = cupon.getUsosPorCliente() == null ? Map.of() : cupon.getUsosPorCliente();
+        int usos = cupon.getUsos() == null ? 0 : cupon.getUsos();
+        int usosCliente = porCliente.getOrDefault(usuarioId, 0);
+        boolean disponible = cupon.getEstadoCupon() == EstadoCupon.ACTIVO
+                && (cupon.getFechaVencimiento() == null || !cupon.getFechaVencimiento().isBefore(hoy))
+                && (cupon.getUsuarioId() == null || cupon.getUsuarioId().equals(usuarioId))
+                && usos < (cupon.getUsosMaximos() == null ? Integer.MAX_VALUE : cupon.getUsosMaximos())
+                && usosCliente < (cupon.getMaximoUsosPorCliente() == null ? Integer.MAX_VALUE : cupon.getMaximoUsosPorCliente());
+        if (!disponible) {
+            return Optional.empty();
+        }
+        Map<String, Integer> nuevosPorCliente = new HashMap<>(porCliente);
+        nuevosPorCliente.put(usuarioId, usosCliente + 1);
+        cupon.setUsos(usos + 1);
+        cupon.setUsosPorCliente(nuevosPorCliente);
+        return Optional.of(cupon);
+    }
+
+    @Test
+    void redimirCupon_disponible_devuelveElDescuentoEnUnaSolaOperacion() throws Exception {
+        // Arrange
+        simularColeccion();
+
+        // Act
+        InformacionCuponDTO resultado = cuponService.redimirCupon("VERANO", CLIENTE_1);
+
+        // Assert: no hay lectura previa, la validación va en la misma operación que el uso
+        assertEquals("VERANO", resultado.codigo());
+        assertEquals(15.0, resultado.porcentajeDescuento());
+        assertEquals(1, cupon.getUsos());
+        verify(cuponRepo, never()).findByCodigoAndEstadoNot(any(), any());
+        verify(cuponRepo, never()).save(any(Cupon.class));
+    }
+
+    @Test
+    void redimirCupon_limitePorCliente_rechazaElSegundoUsoDelMismoCliente() throws Exception {
+        // Arrange
+        cupon.setMaximoUsosPorCliente(1);
+        simularColeccion();
+        when(cuponRepo.findByCodigoAndEstadoNot("VERANO", EstadoCupon.ELIMINADO)).thenReturn(Optional.of(cupon));
+
+        // Act
+        cuponService.redimirCupon("VERANO", CLIENTE_1);
+        CuponNoDisponibleException excepcion = assertThrows(CuponNoDisponibleException.class,
+                () -> cuponService.redimirCupon("VERANO", CLIENTE_1));
+        cuponService.redimirCupon("VERANO", CLIENTE_2);
+
+        // Assert
+        assertEquals("Ya usó este cupón el máximo de veces permitido", excepcion.getMessage());
+        assertEquals(2, cupon.getUsos());
+    }
+
+    @Test
+    void redimirCupon_deOtroCliente_explicaElMotivo() {
+        // Arrange
+        cupon.setUsuarioId(CLIENTE_2);
+        simularColeccion();
+        when(cuponRepo.findByCodigoAndEstadoNot("VERANO", EstadoCupon.ELIMINADO)).thenReturn(Optional.of(cupon));
+
+        // Act & Assert
+        CuponNoDisponibleException excepcion = assertThrows(CuponNoDisponibleException.class,
+                () -> cuponService.redimirCupon("VERANO", CLIENTE_1));
+        assertEquals("El cupón pertenece a otro cliente", excepcion.getMessage());
+    }
+
+    @Test
+    void redimirCupon_deOtroClienteSinMigrar_explicaElMotivoConElEnlaceAnterior() {
+        // Arrange: cupón que todavía guarda al dueño con @DBRef
+        cupon.setUsuario(Usuario.builder().id(CLIENTE_2).build());
+        simularColeccion();
+        when(cuponRepo.findByCodigoAndEstadoNot("VERANO", EstadoCupon.ELIMINADO)).thenReturn(Optional.of(cupon));
+
+        // Act & Assert
+        CuponNoDisponibleException excepcion = assertThrows(CuponNoDisponibleException.class,
+                () -> cuponService.redimirCupon("VERANO", CLIENTE_1));
+        assertEquals("El cupón pertenece a otro cliente", excepcion.getMessage());
+    }
+
+    @Test
+    void obtenerListaCuponPorIdUsuario_idQueNoEsObjectId_noConsultaLaBase() {
+        // Act
+        List<Cupon> resultado = cuponService.obtenerListaCuponPorIdUsuario("abc");
+
+        // Assert: antes se completaba con ceros y se consultaba un id que no existe
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(cuponRepo);
+    }
+
+    @Test
+    void redimirCupon_vencido_explicaElMotivo() {
+        // Arrange
+        cupon.setFechaVencimiento(LocalDate.now().minusDays(1));
+        simularColeccion();
+        when(cuponRepo.findByCodigoAndEstadoNot("VERANO", EstadoCupon.ELIMINADO)).thenReturn(Optional.of(cupon));
+
+        // Act & Assert
+        CuponNoDisponibleException excepcion = assertThrows(CuponNoDisponibleException.class,
+                () -> cuponService.redimirCupon("VERANO", CLIENTE_1));
+        assertEquals("El cupón está vencido", excepcion.getMessage());
+    }
+
+    @Test
+    void redimirCupon_marcadoVencidoPorLaTarea_explicaElMotivo() {
+        // Arrange
+        cupon.setEstadoCupon(EstadoCupon.VENCIDO);
+        cupon.setFechaVencimiento(LocalDate.now().minusDays(3));
+        simularColeccion();
+        when(cuponRepo.findByCodigoAndEstadoNot("VERANO", EstadoCupon.ELIMINADO)).thenReturn(Optional.of(cupon));
+
+        // Act & Assert
+        CuponNoDisponibleException excepcion = assertThrows(CuponNoDisponibleException.class,
+                () -> cuponService.redimirCupon("VERANO", CLIENTE_1));
+        assertEquals("El cupón está vencido", excepcion.getMessage());
+        assertNull(cupon.getUsos());
+    }
+
+    @Test
+    void redimirCupon_codigoInexistente_lanzaExcepcion() {
+        // Arrange
+        when(cuponRepo.redimir(eq("NOEXISTE"), anyString(), any(LocalDate.class), any(Instant.class)))
+                .thenReturn(Optional.empty());
+        when(cuponRepo.findByCodigoAndEstadoNot("NOEXISTE", EstadoCupon.ELIMINADO)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RecursoNoEncontradoException.class, () -> cuponService.redimirCupon("NOEXISTE", CLIENTE_1));
+    }
+
+    @Test
+    void editarCupon_codigoDeOtroCupon_lanzaRecursoEncontrado() throws Exception {
+        // Arrange: el índice único codigo_unico rechaza el guardado
+        when(cuponRepo.findByIdAndEstadoNot(anyString(), eq(EstadoCupon.ELIMINADO))).thenReturn(Optional.of(cupon));
+        when(cuponRepo.save(any(Cupon.class))).thenThrow(new DuplicateKeyException("E11000 codigo_unico"));
+        EditarCuponDTO dto = new EditarCuponDTO("cupon1", "INVIERNO", "Invierno", 10.0, EstadoCupon.ACTIVO,
+                LocalDate.now().plusDays(30), null, null);
+
+        // Act & Assert
+        RecursoEncontradoException excepcion = assertThrows(RecursoEncontradoException.class,
+                () -> cuponService.editarCupon(dto));
+        assertEquals("Ya existe un cupón con el código ingresado", excepcion.getMessage());
+        verify(cuponRepo, times(1)).save(any(Cupon.class));
+    }
+}
@@ -1,7 +1,7 @@
 package co.edu.uniquindio.laos.services.implementation;
 
 import co.edu.uniquindio.laos.model.Estilista;
-import co.edu.uniquindio.laos.repositories.EstilistaRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +20,7 @@ import static org.mockito.Mockito.*;
 class EstilistaServiceImpleTest {
 
     @Mock
-    private EstilistaRepo estilistaRepo;
+    private CatalogoService catalogoService;
 
     @InjectMocks
     private EstilistaServiceImple estilistaService;
@@ -46,7 +46,7 @@ class EstilistaServiceImpleTest {
     @Test
     void obtenerTodosLosEstilistas_RetornaListaConEstilistas() {
         // Arrange
-        when(estilistaRepo.findAll()).thenReturn(estilistaList);
+        when(catalogoService.obtenerEstilistas()).thenReturn(estilistaList);
 
         // Act
         List<Estilista> resultado = estilistaService.obtenerTodosLosEstilistas();
@@ -56,13 +56,13 @@ class EstilistaServiceImpleTest {
         assertEquals(2, resultado.size());
         assertEquals(estilista1.getId(), resultado.get(0).getId());
         assertEquals(estilista2.getNombre(), resultado.get(1).getNombre());
-        verify(estilistaRepo, times(1)).findAll();
+        verify(catalogoService, times(1)).obtenerEstilistas();
     }
 
     @Test
     void obtenerTodosLosEstilistas_RetornaListaVaciaCuandoNoHayEstilistas() {
         // Arrange
-        when(estilistaRepo.findAll()).thenReturn(Collections.emptyList());
+        when(catalogoService.obtenerEstilistas()).thenReturn(Collections.emptyList());
 
         // Act
         List<Estilista> resultado = estilistaService.obtenerTodosLosEstilistas();
@@ -70,16 +70,16 @@ class EstilistaServiceImpleTest {
         // Assert
         assertNotNull(resultado);
         assertTrue(resultado.isEmpty());
-        verify(estilistaRepo, times(1)).findAll();
+        verify(catalogoService, times(1)).obtenerEstilistas();
     }
 
     @Test
-    void obtenerTodosLosEstilistas_VerificarLlamadaRepositorio() {
+    void obtenerTodosLosEstilistas_VerificarLlamadaCatalogo() {
         // Act
         estilistaService.obtenerTodosLosEstilistas();
 
         // Assert
-        verify(estilistaRepo).findAll();
-        verifyNoMoreInteractions(estilistaRepo);
+        verify(catalogoService).obtenerEstilistas();
+        verifyNoMoreInteractions(catalogoService);
     }
 }
\ No newline at end of file
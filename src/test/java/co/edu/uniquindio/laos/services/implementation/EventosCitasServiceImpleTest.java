@@ -0,0 +1,308 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.ConflictoConcurrenciaException;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.Contador;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.EventoCita;
+import co.edu.uniquindio.laos.model.EventoPendienteCita;
+import co.edu.uniquindio.laos.model.HistorialCliente;
+import co.edu.uniquindio.laos.model.ProyeccionCita;
+import co.edu.uniquindio.laos.model.TipoEventoCita;
+import co.edu.uniquindio.laos.model.UtilizacionEstilista;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.repositories.ContadorRepo;
+import co.edu.uniquindio.laos.repositories.EventoCitaRepo;
+import co.edu.uniquindio.laos.repositories.HistorialClienteRepo;
+import co.edu.uniquindio.laos.repositories.ProyeccionCitaRepo;
+import co.edu.uniquindio.laos.repositories.UtilizacionEstilistaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventosCitasServiceImpleTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2026, 3, 10, 9, 0);
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private EventoCitaRepo eventoCitaRepo;
+
+    @Mock
+    private ContadorRepo contadorRepo;
+
+    @Mock
+    private ProyeccionCitaRepo proyeccionCitaRepo;
+
+    @Mock
+    private UtilizacionEstilistaRepo utilizacionEstilistaRepo;
+
+    @Mock
+    private HistorialClienteRepo historialClienteRepo;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private EventosCitasServiceImple eventosCitasService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        eventosCitasService = new EventosCitasServiceImple(citaRepo, eventoCitaRepo, contadorRepo, proyeccionCitaRepo,
+                utilizacionEstilistaRepo, historialClienteRepo, bloqueoTareaService, meterRegistry,
+                10, 5, 2, 120, 3600);
+    }
+
+    @Test
+    void procesarEventos_copiaLosPendientesConSecuenciaYLosDescarta() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(EventosCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        Cita cita = Cita.builder().id("c1").eventosPendientes(List.of(
+                pendiente("e2", TipoEventoCita.REPROGRAMADA, Instant.parse("2026-03-01T10:00:00Z")),
+                pendiente("e1", TipoEventoCita.CREADA, Instant.parse("2026-03-01T09:00:00Z")))).build();
+        when(citaRepo.buscarConEventosPendientes(10)).thenReturn(List.of(cita));
+        when(eventoCitaRepo.reservarSecuencias(2)).thenReturn(42L);
+        when(contadorRepo.findById(EventosCitasServiceImple.PUNTO_CONTROL)).thenReturn(Optional.empty());
+        when(eventoCitaRepo.buscarDespuesDe(eq(0L), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        int resultado = eventosCitasService.procesarEventos();
+
+        // Assert: los eventos quedan en el orden del arreglo y no en el de sus fechas, con las dos últimas posiciones reservadas
+        assertEquals(0, resultado);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EventoCita>> captor = ArgumentCaptor.forClass(List.class);
+        verify(eventoCitaRepo).insertarSinDuplicados(captor.capture());
+        List<EventoCita> eventos = captor.getValue();
+        assertEquals(List.of("c1:e1", "c1:e2"), eventos.stream().map(EventoCita::getId).toList());
+        assertEquals(List.of(41L, 42L), eventos.stream().map(EventoCita::getSecuencia).toList());
+        assertEquals(eventos.get(0).getParticion(), eventos.get(1).getParticion());
+        verify(citaRepo).descartarEventosPendientes(List.of(cita));
+        assertEquals(2.0, meterRegistry.counter("laos.citas.eventos.relevados").count());
+        verify(bloqueoTareaService).liberar(EventosCitasServiceImple.TAREA);
+    }
+
+    @Test
+    void procesarEventos_bloqueoTomadoPorOtroNodo_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(EventosCitasServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        int resultado = eventosCitasService.procesarEventos();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(citaRepo, eventoCitaRepo, proyeccionCitaRepo);
+        verify(bloqueoTareaService, never()).liberar(any());
+    }
+
+    @Test
+    void procesarEventos_aplicaLasProyeccionesYGuardaElPuntoDeControl() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(EventosCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(citaRepo.buscarConEventosPendientes(10)).thenReturn(List.of());
+        when(contadorRepo.findById(EventosCitasServiceImple.PUNTO_CONTROL))
+                .thenReturn(Optional.of(Contador.builder().id(EventosCitasServiceImple.PUNTO_CONTROL).valor(6).build()));
+        when(eventoCitaRepo.buscarDespuesDe(eq(6L), any(Pageable.class))).thenReturn(List.of(
+                evento(7, TipoEventoCita.CREADA, FECHA),
+                evento(8, TipoEventoCita.REPROGRAMADA, FECHA.plusDays(1))));
+        when(proyeccionCitaRepo.findByIdIn(any())).thenReturn(List.of());
+
+        // Act
+        int resultado = eventosCitasService.procesarEventos();
+
+        // Assert: la cita reprogramada ya no ocupa su día original
+        assertEquals(2, resultado);
+        ArgumentCaptor<Collection<ProyeccionCita>> estados = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<UtilizacionEstilista>> utilizacion = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<HistorialCliente>> historial = ArgumentCaptor.forClass(Collection.class);
+        verify(proyeccionCitaRepo).guardarCambios(estados.capture(), utilizacion.capture(), historial.capture());
+
+        ProyeccionCita estado = estados.getValue().iterator().next();
+        assertEquals(EstadoCita.REPROGRAMADA, estado.getEstado());
+        assertEquals(FECHA.plusDays(1), estado.getFechaHora());
+        assertEquals(8, estado.getSecuencia());
+
+        UtilizacionEstilista diaOriginal = buscarDia(utilizacion.getValue(), FECHA.toLocalDate());
+        UtilizacionEstilista diaNuevo = buscarDia(utilizacion.getValue(), FECHA.toLocalDate().plusDays(1));
+        assertEquals(0, diaOriginal.getCitas());
+        assertEquals(0, diaOriginal.getMinutos());
+        assertEquals(1, diaNuevo.getCitas());
+        assertEquals(45, diaNuevo.getMinutos());
+
+        HistorialCliente cliente = historial.getValue().iterator().next();
+        assertEquals("u1", cliente.getId());
+        assertEquals(1, cliente.getCreadas());
+        assertEquals(1, cliente.getReprogramadas());
+
+        verify(contadorRepo).save(argThat(contador -> contador.getValor() == 8));
+        assertEquals(2.0, meterRegistry.counter("laos.citas.eventos.proyectados").count());
+    }
+
+    @Test
+    void aplicarLote_ignoraEventosYaAplicadosAlEstado() {
+        // Arrange: el estado ya refleja el evento 7, como tras una caída antes de guardar el punto de control
+        when(proyeccionCitaRepo.findByIdIn(any())).thenReturn(List.of(ProyeccionCita.builder()
+                .id("c1").usuarioId("u1").estilistaId("e1").fechaHora(FECHA).fechaHoraFin(FECHA.plusMinutes(45))
+                .estado(EstadoCita.CONFIRMADA).secuencia(7).build()));
+        EventoCita cancelada = EventoCita.builder().id("c1:x").citaId("c1").secuencia(9L)
+                .tipo(TipoEventoCita.CANCELADA).fecha(Instant.parse("2026-03-02T00:00:00Z")).build();
+
+        // Act
+        eventosCitasService.aplicarLote(List.of(evento(7, TipoEventoCita.CREADA, FECHA), cancelada));
+
+        // Assert: solo la cancelación descuenta la cita
+        ArgumentCaptor<Collection<UtilizacionEstilista>> utilizacion = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<HistorialCliente>> historial = ArgumentCaptor.forClass(Collection.class);
+        verify(proyeccionCitaRepo).guardarCambios(any(), utilizacion.capture(), historial.capture());
+        UtilizacionEstilista dia = buscarDia(utilizacion.getValue(), FECHA.toLocalDate());
+        assertEquals(-1, dia.getCitas());
+        assertEquals(-45, dia.getMinutos());
+        HistorialCliente cliente = historial.getValue().iterator().next();
+        assertEquals(0, cliente.getCreadas());
+        assertEquals(1, cliente.getCanceladas());
+    }
+
+    @Test
+    void aplicarLote_reasignada_mueveLaUtilizacionSinCambiarEstadoNiHistorial() {
+        // Arrange
+        when(proyeccionCitaRepo.findByIdIn(any())).thenReturn(List.of(ProyeccionCita.builder()
+                .id("c1").usuarioId("u1").estilistaId("e1").fechaHora(FECHA).fechaHoraFin(FECHA.plusMinutes(45))
+                .estado(EstadoCita.REPROGRAMADA).secuencia(7).build()));
+        EventoCita reasignada = evento(8, TipoEventoCita.REASIGNADA, FECHA);
+        reasignada.setEstilistaId("e2");
+
+        // Act
+        eventosCitasService.aplicarLote(List.of(reasignada));
+
+        // Assert
+        ArgumentCaptor<Collection<ProyeccionCita>> estados = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<UtilizacionEstilista>> utilizacion = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<HistorialCliente>> historial = ArgumentCaptor.forClass(Collection.class);
+        verify(proyeccionCitaRepo).guardarCambios(estados.capture(), utilizacion.capture(), historial.capture());
+
+        ProyeccionCita estado = estados.getValue().iterator().next();
+        assertEquals(EstadoCita.REPROGRAMADA, estado.getEstado());
+        assertEquals("e2", estado.getEstilistaId());
+        assertEquals(8, estado.getSecuencia());
+
+        UtilizacionEstilista anterior = utilizacion.getValue().stream()
+                .filter(u -> u.getEstilistaId().equals("e1")).findFirst().orElseThrow();
+        UtilizacionEstilista nuevo = utilizacion.getValue().stream()
+                .filter(u -> u.getEstilistaId().equals("e2")).findFirst().orElseThrow();
+        assertEquals(-1, anterior.getCitas());
+        assertEquals(1, nuevo.getCitas());
+        assertEquals(45, nuevo.getMinutos());
+        assertTrue(historial.getValue().isEmpty());
+    }
+
+    @Test
+    void reconstruirProyecciones_vaciaYRepiteCadaParticion() throws Exception {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(EventosCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(citaRepo.buscarConEventosPendientes(10)).thenReturn(List.of());
+        when(eventoCitaRepo.findTopByOrderBySecuenciaDesc())
+                .thenReturn(Optional.of(EventoCita.builder().secuencia(7L).build()));
+        EventoCita creada = evento(7, TipoEventoCita.CREADA, FECHA);
+        when(eventoCitaRepo.buscarEnParticion(anyInt(), anyLong(), eq(7L), any(Pageable.class))).thenAnswer(invocacion -> {
+            int particion = invocacion.getArgument(0);
+            long desde = invocacion.getArgument(1);
+            return particion == creada.getParticion() && desde == 0 ? List.of(creada) : List.of();
+        });
+        when(proyeccionCitaRepo.findByIdIn(any())).thenReturn(List.of());
+
+        // Act
+        long resultado = eventosCitasService.reconstruirProyecciones();
+
+        // Assert
+        assertEquals(1, resultado);
+        verify(proyeccionCitaRepo).vaciarProyecciones();
+        verify(eventoCitaRepo, times(EventosCitasServiceImple.PARTICIONES + 1))
+                .buscarEnParticion(anyInt(), anyLong(), eq(7L), any(Pageable.class));
+        ArgumentCaptor<Contador> puntos = ArgumentCaptor.forClass(Contador.class);
+        verify(contadorRepo, times(2)).save(puntos.capture());
+        assertEquals(List.of(0L, 7L), puntos.getAllValues().stream().map(Contador::getValor).toList());
+        verify(bloqueoTareaService).liberar(EventosCitasServiceImple.TAREA);
+    }
+
+    @Test
+    void reconstruirProyecciones_bloqueoTomado_lanzaExcepcion() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(EventosCitasServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ConflictoConcurrenciaException.class, () -> eventosCitasService.reconstruirProyecciones());
+        verify(proyeccionCitaRepo, never()).vaciarProyecciones();
+    }
+
+    @Test
+    void obtenerUtilizacion_rangoInvertido_lanzaExcepcion() {
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class,
+                () -> eventosCitasService.obtenerUtilizacion("e1", "2026-03-10", "2026-03-01"));
+        verifyNoInteractions(utilizacionEstilistaRepo);
+    }
+
+    @Test
+    void obtenerHistorialCliente_sinEventos_devuelveCeros() {
+        // Arrange
+        when(historialClienteRepo.findById("u1")).thenReturn(Optional.empty());
+
+        // Act
+        HistorialCliente historial = eventosCitasService.obtenerHistorialCliente("u1");
+
+        // Assert
+        assertEquals("u1", historial.getId());
+        assertEquals(0, historial.getCreadas());
+    }
+
+    private static EventoPendienteCita pendiente(String id, TipoEventoCita tipo, Instant fecha) {
+        return EventoPendienteCita.builder().eventoId(id).tipo(tipo).fecha(fecha)
+                .usuarioId("u1").estilistaId("e1").fechaHora(FECHA).build();
+    }
+
+    private static EventoCita evento(long secuencia, TipoEventoCita tipo, LocalDateTime fechaHora) {
+        return EventoCita.builder()
+                .id("c1:" + secuencia)
+                .secuencia(secuencia)
+                .particion(Math.floorMod("c1".hashCode(), EventosCitasServiceImple.PARTICIONES))
+                .citaId("c1")
+                .tipo(tipo)
+                .fecha(Instant.parse("2026-03-01T00:00:00Z").plusSeconds(secuencia))
+                .usuarioId("u1")
+                .estilistaId("e1")
+                .servicioId("s1")
+                .fechaHora(fechaHora)
+                .fechaHoraFin(fechaHora.plusMinutes(45))
+                .build();
+    }
+
+    private static UtilizacionEstilista buscarDia(Collection<UtilizacionEstilista> utilizacion, LocalDate dia) {
+        return utilizacion.stream().filter(u -> dia.equals(u.getDia())).findFirst().orElseThrow();
+    }
+}
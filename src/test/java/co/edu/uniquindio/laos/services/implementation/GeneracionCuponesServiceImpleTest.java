@@ -0,0 +1,146 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cupon.GenerarCuponesDTO;
+import co.edu.uniquindio.laos.dto.cupon.ResultadoGeneracionCuponesDTO;
+import co.edu.uniquindio.laos.model.Cupon;
+import co.edu.uniquindio.laos.model.EstadoCupon;
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeneracionCuponesServiceImpleTest {
+
+    @Mock
+    private CuponRepo cuponRepo;
+
+    private MeterRegistry meterRegistry;
+
+    private GeneracionCuponesServiceImple generacionCuponesService;
+
+    /**
+     * Colección cupones simulada: códigos guardados. Un add que falla reproduce el índice único de codigo.
+     */
+    private Set<String> codigosGuardados;
+
+    /**
+     * Cupones recibidos por cada llamada a insertarEnOrden, copiados en el momento de la llamada
+     */
+    private List<List<String>> envios;
+
+    /**
+     * Posición del primer envío cuyo código se da por guardado de antes en la base; -1 si ninguno
+     */
+    private int posicionExistente;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        generacionCuponesService = new GeneracionCuponesServiceImple(cuponRepo, meterRegistry, 100);
+        codigosGuardados = new HashSet<>();
+        envios = new ArrayList<>();
+        posicionExistente = -1;
+    }
+
+    /**
+     * insert ordenado: se detiene en el primer código repetido y devuelve su posición
+     */
+    private void simularColeccion() {
+        when(cuponRepo.insertarEnOrden(anyList())).thenAnswer(invocacion -> {
+            List<Cupon> cupones = invocacion.getArgument(0);
+            envios.add(cupones.stream().map(Cupon::getCodigo).toList());
+            if (envios.size() == 1 && posicionExistente >= 0) {
+                codigosGuardados.add(cupones.get(posicionExistente).getCodigo());
+            }
+            for (int i = 0; i < cupones.size(); i++) {
+                if (!codigosGuardados.add(cupones.get(i).getCodigo())) {
+                    return i;
+                }
+            }
+            return cupones.size();
+        });
+    }
+
+    @Test
+    void generarCupones_insertaEnLotesTodosDistintos() {
+        // Arrange
+        simularColeccion();
+
+        // Act
+        ResultadoGeneracionCuponesDTO resultado = generacionCuponesService.generarCupones(dto(250, null));
+
+        // Assert: 3 lotes de hasta 100 cupones, sin choques
+        assertEquals(250, resultado.generados());
+        assertEquals(0, resultado.colisiones());
+        assertEquals(250, codigosGuardados.size());
+        assertEquals(List.of(100, 100, 50), envios.stream().map(List::size).toList());
+        assertTrue(codigosGuardados.stream().allMatch(codigo -> codigo.length() == 8
+                && codigo.chars().allMatch(c -> GeneracionCuponesServiceImple.ALFABETO.indexOf(c) >= 0)));
+        assertEquals(250.0, meterRegistry.counter("laos.cupones.generados").count());
+    }
+
+    @Test
+    void generarCupones_codigoYaExistente_soloRegeneraElQueChoca() {
+        // Arrange: el cuarto código del primer lote ya existe en la base
+        posicionExistente = 3;
+        simularColeccion();
+
+        // Act
+        ResultadoGeneracionCuponesDTO resultado = generacionCuponesService.generarCupones(dto(10, 6));
+
+        // Assert: el reenvío parte del cupón que chocó, con un código nuevo, y conserva los siguientes
+        assertEquals(10, resultado.generados());
+        assertEquals(1, resultado.colisiones());
+        assertEquals(2, envios.size());
+        List<String> primero = envios.get(0);
+        List<String> reenvio = envios.get(1);
+        assertEquals(7, reenvio.size());
+        assertNotEquals(primero.get(3), reenvio.get(0));
+        assertEquals(primero.subList(4, 10), reenvio.subList(1, 7));
+        assertEquals(11, codigosGuardados.size());
+        assertEquals(1.0, meterRegistry.counter("laos.cupones.colisiones").count());
+    }
+
+    @Test
+    void generarCupones_cuponesDeCampaniaActivosConUnUsoYVersionInicial() {
+        // Arrange
+        List<Cupon> recibidos = new ArrayList<>();
+        when(cuponRepo.insertarEnOrden(anyList())).thenAnswer(invocacion -> {
+            List<Cupon> cupones = invocacion.getArgument(0);
+            recibidos.addAll(cupones);
+            return cupones.size();
+        });
+
+        // Act
+        generacionCuponesService.generarCupones(dto(3, null));
+
+        // Assert
+        assertEquals(3, recibidos.size());
+        Cupon cupon = recibidos.get(0);
+        assertEquals(EstadoCupon.ACTIVO, cupon.getEstadoCupon());
+        assertEquals("VERANO2030", cupon.getCampania());
+        assertEquals(1, cupon.getUsosMaximos());
+        assertEquals(0L, cupon.getVersion());
+        verify(cuponRepo, never()).findByCodigoAndEstadoNot(any(), any());
+    }
+
+    private GenerarCuponesDTO dto(int cantidad, Integer longitud) {
+        return new GenerarCuponesDTO("VERANO2030", "Verano", cantidad, longitud, 10.0,
+                LocalDate.now().plusMonths(1), null);
+    }
+}
@@ -0,0 +1,226 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.cita.RegistrarEsperaDTO;
+import co.edu.uniquindio.laos.exceptions.HorarioYEstilistaOcupadoException;
+import co.edu.uniquindio.laos.exceptions.RangoFechasInvalidoException;
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.model.EsperaCita;
+import co.edu.uniquindio.laos.model.EstadoEspera;
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Servicio;
+import co.edu.uniquindio.laos.repositories.ListaEsperaRepo;
+import co.edu.uniquindio.laos.services.interfaces.ApartadoHorarioService;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import co.edu.uniquindio.laos.services.interfaces.NotificacionCitasService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListaEsperaServiceImpleTest {
+
+    private static final ZoneId ZONA = ZoneId.of("America/Bogota");
+    private static final LocalDateTime AHORA = LocalDateTime.of(2030, 1, 10, 8, 0);
+    private static final LocalDateTime INICIO = LocalDateTime.of(2030, 1, 10, 10, 0);
+    private static final LocalDateTime FIN = INICIO.plusMinutes(45);
+
+    @Mock
+    private ListaEsperaRepo listaEsperaRepo;
+
+    @Mock
+    private ApartadoHorarioService apartadoHorarioService;
+
+    @Mock
+    private NotificacionCitasService notificacionCitasService;
+
+    @Mock
+    private CatalogoService catalogoService;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private ListaEsperaServiceImple listaEsperaService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock reloj = Clock.fixed(AHORA.atZone(ZONA).toInstant(), ZONA);
+        listaEsperaService = new ListaEsperaServiceImple(listaEsperaRepo, apartadoHorarioService, notificacionCitasService,
+                catalogoService, bloqueoTareaService, meterRegistry, 15, 31, 2, 5, 120, reloj);
+    }
+
+    @Test
+    void ofrecerHorario_conClienteEsperando_leApartaElHorarioYLoNotifica() throws Exception {
+        // Arrange
+        Instant vencimiento = AHORA.atZone(ZONA).toInstant().plus(Duration.ofMinutes(15));
+        when(listaEsperaRepo.tomarSiguiente("e1", "s1", INICIO, FIN, vencimiento))
+                .thenReturn(Optional.of(espera("w1", "u1")));
+        ApartadoHorario apartado = ApartadoHorario.builder().id("a1").usuarioId("u1").build();
+        when(apartadoHorarioService.apartar("u1", "e1", "s1", INICIO, FIN, Duration.ofMinutes(15))).thenReturn(apartado);
+
+        // Act
+        boolean resultado = listaEsperaService.ofrecerHorario("e1", "s1", INICIO, FIN);
+
+        // Assert
+        assertTrue(resultado);
+        verify(listaEsperaRepo).registrarApartado("w1", "a1");
+        verify(notificacionCitasService).notificarOfertaListaEspera(apartado);
+        assertEquals(1.0, meterRegistry.counter("laos.lista-espera.ofertas", "resultado", "ofrecida").count());
+    }
+
+    @Test
+    void ofrecerHorario_horarioYaTomado_devuelveLaEsperaASuLugar() throws Exception {
+        // Arrange
+        when(listaEsperaRepo.tomarSiguiente(eq("e1"), eq("s1"), eq(INICIO), eq(FIN), any(Instant.class)))
+                .thenReturn(Optional.of(espera("w1", "u1")));
+        when(apartadoHorarioService.apartar(any(), any(), any(), any(), any(), any(Duration.class)))
+                .thenThrow(new HorarioYEstilistaOcupadoException("Horario ocupado"));
+
+        // Act
+        boolean resultado = listaEsperaService.ofrecerHorario("e1", "s1", INICIO, FIN);
+
+        // Assert
+        assertFalse(resultado);
+        verify(listaEsperaRepo).devolver("w1");
+        verify(listaEsperaRepo, never()).registrarApartado(any(), any());
+        verifyNoInteractions(notificacionCitasService);
+    }
+
+    @Test
+    void ofrecerHorario_horarioPasado_noConsultaLaLista() {
+        // Act
+        boolean resultado = listaEsperaService.ofrecerHorario("e1", "s1", AHORA.minusHours(1), AHORA);
+
+        // Assert
+        assertFalse(resultado);
+        verifyNoInteractions(listaEsperaRepo, apartadoHorarioService);
+    }
+
+    @Test
+    void procesarOfertasVencidas_sueltaElApartadoYOfreceElHorarioAlSiguiente() throws Exception {
+        // Arrange: la oferta de w1 venció y w2 espera el mismo horario
+        EsperaCita vencida = espera("w1", "u1");
+        vencida.setEstado(EstadoEspera.OFRECIDA);
+        vencida.setApartadoId("a1");
+        vencida.setOfertaFechaHora(INICIO);
+        vencida.setOfertaFechaHoraFin(FIN);
+        when(bloqueoTareaService.adquirir(eq(ListaEsperaServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(listaEsperaRepo.buscarOfertasVencidas(any(Instant.class), eq(2))).thenReturn(List.of(vencida));
+        when(listaEsperaRepo.vencerOferta("w1")).thenReturn(true);
+        when(listaEsperaRepo.tomarSiguiente(eq("e1"), eq("s1"), eq(INICIO), eq(FIN), any(Instant.class)))
+                .thenReturn(Optional.of(espera("w2", "u2")));
+        when(apartadoHorarioService.apartar(eq("u2"), eq("e1"), eq("s1"), eq(INICIO), eq(FIN), any(Duration.class)))
+                .thenReturn(ApartadoHorario.builder().id("a2").usuarioId("u2").build());
+
+        // Act
+        int resultado = listaEsperaService.procesarOfertasVencidas();
+
+        // Assert
+        assertEquals(1, resultado);
+        verify(apartadoHorarioService).liberar("a1");
+        verify(listaEsperaRepo).registrarApartado("w2", "a2");
+        assertEquals(1.0, meterRegistry.counter("laos.lista-espera.vencidas").count());
+        verify(bloqueoTareaService).liberar(ListaEsperaServiceImple.TAREA);
+    }
+
+    @Test
+    void procesarOfertasVencidas_bloqueoTomadoPorOtroNodo_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(ListaEsperaServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        int resultado = listaEsperaService.procesarOfertasVencidas();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(listaEsperaRepo, apartadoHorarioService);
+        verify(bloqueoTareaService, never()).liberar(any());
+    }
+
+    @Test
+    void cancelar_esperaConOferta_sueltaElApartado() throws Exception {
+        // Arrange
+        EsperaCita ofrecida = espera("w1", "u1");
+        ofrecida.setEstado(EstadoEspera.OFRECIDA);
+        ofrecida.setApartadoId("a1");
+        ofrecida.setOfertaFechaHora(INICIO);
+        ofrecida.setOfertaFechaHoraFin(FIN);
+        when(listaEsperaRepo.cancelar("w1", "u1")).thenReturn(Optional.of(ofrecida));
+        when(listaEsperaRepo.tomarSiguiente(eq("e1"), eq("s1"), eq(INICIO), eq(FIN), any(Instant.class)))
+                .thenReturn(Optional.empty());
+
+        // Act
+        listaEsperaService.cancelar("w1", "u1");
+
+        // Assert
+        verify(apartadoHorarioService).liberar("a1");
+    }
+
+    @Test
+    void registrar_ventanaInvertida_lanzaExcepcion() {
+        // Arrange
+        RegistrarEsperaDTO dto = new RegistrarEsperaDTO("u1", "e1", "s1", "2030-01-12 10:00", "2030-01-11 10:00");
+
+        // Act & Assert
+        assertThrows(RangoFechasInvalidoException.class, () -> listaEsperaService.registrar(dto));
+        verifyNoInteractions(listaEsperaRepo);
+    }
+
+    @Test
+    void registrar_ventanaValida_guardaLaEsperaActiva() throws Exception {
+        // Arrange
+        RegistrarEsperaDTO dto = new RegistrarEsperaDTO("u1", "e1", "s1", "2030-01-11 08:00", "2030-01-15 18:00");
+        when(catalogoService.obtenerEstilistasPorId(Set.of("e1"))).thenReturn(Map.of("e1", new Estilista()));
+        when(catalogoService.obtenerServiciosPorId(Set.of("s1"))).thenReturn(Map.of("s1", new Servicio()));
+        when(listaEsperaRepo.save(any(EsperaCita.class))).thenAnswer(invocacion -> {
+            EsperaCita guardada = invocacion.getArgument(0);
+            guardada.setId("w1");
+            return guardada;
+        });
+
+        // Act
+        String resultado = listaEsperaService.registrar(dto);
+
+        // Assert
+        assertEquals("w1", resultado);
+        ArgumentCaptor<EsperaCita> guardada = ArgumentCaptor.forClass(EsperaCita.class);
+        verify(listaEsperaRepo).save(guardada.capture());
+        assertEquals(EstadoEspera.ACTIVA, guardada.getValue().getEstado());
+        assertEquals(LocalDateTime.of(2030, 1, 15, 18, 0), guardada.getValue().getHasta());
+        assertNotNull(guardada.getValue().getFechaRegistro());
+    }
+
+    private EsperaCita espera(String id, String usuarioId) {
+        return EsperaCita.builder()
+                .id(id)
+                .usuarioId(usuarioId)
+                .estilistaId("e1")
+                .servicioId("s1")
+                .desde(AHORA)
+                .hasta(AHORA.plusDays(3))
+                .estado(EstadoEspera.ACTIVA)
+                .build();
+    }
+}
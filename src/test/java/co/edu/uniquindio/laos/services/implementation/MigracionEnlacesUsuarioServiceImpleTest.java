@@ -0,0 +1,148 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.repositories.QuejaSugerenciaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MigracionEnlacesUsuarioServiceImpleTest {
+
+    @Mock
+    private CuponRepo cuponRepo;
+
+    @Mock
+    private QuejaSugerenciaRepo quejaSugerenciaRepo;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private MigracionEnlacesUsuarioServiceImple migracionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Lotes de 2 documentos, máximo 3 lotes por ejecución entre las dos colecciones
+        migracionService = new MigracionEnlacesUsuarioServiceImple(cuponRepo, quejaSugerenciaRepo, bloqueoTareaService,
+                meterRegistry, 2, 3, 300);
+    }
+
+    @Test
+    void migrarEnlaces_migraCuponesYLuegoQuejasHastaQueNoQuedenPendientes() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(MigracionEnlacesUsuarioServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.contarEnlacesUsuarioPendientes()).thenReturn(3L).thenReturn(1L).thenReturn(0L);
+        when(cuponRepo.migrarEnlacesUsuario(2)).thenReturn(2L).thenReturn(1L);
+        when(quejaSugerenciaRepo.contarEnlacesUsuarioPendientes()).thenReturn(1L).thenReturn(0L);
+        when(quejaSugerenciaRepo.migrarEnlacesUsuario(2)).thenReturn(1L);
+
+        // Act
+        int resultado = migracionService.migrarEnlaces();
+
+        // Assert
+        assertEquals(4, resultado);
+        verify(cuponRepo, times(2)).migrarEnlacesUsuario(2);
+        verify(quejaSugerenciaRepo).migrarEnlacesUsuario(2);
+        verify(bloqueoTareaService).liberar(MigracionEnlacesUsuarioServiceImple.TAREA);
+        assertEquals(3.0, meterRegistry.counter("laos.migracion.enlaces-usuario.migrados", "coleccion", "cupones").count());
+        assertEquals(1.0, meterRegistry.counter("laos.migracion.enlaces-usuario.migrados", "coleccion", "quejas_sugerencias").count());
+        assertEquals(0.0, meterRegistry.get("laos.migracion.enlaces-usuario.pendientes").tag("coleccion", "cupones").gauge().value());
+    }
+
+    @Test
+    void migrarEnlaces_loteIncompletoConPendientes_sigueHastaQueElConteoLlegueACero() {
+        // Arrange: el primer lote deja un cupón que cambió entre la lectura y la escritura
+        when(bloqueoTareaService.adquirir(eq(MigracionEnlacesUsuarioServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.contarEnlacesUsuarioPendientes()).thenReturn(3L).thenReturn(2L).thenReturn(0L);
+        when(cuponRepo.migrarEnlacesUsuario(2)).thenReturn(1L).thenReturn(2L);
+        when(quejaSugerenciaRepo.contarEnlacesUsuarioPendientes()).thenReturn(0L);
+
+        // Act
+        int resultado = migracionService.migrarEnlaces();
+
+        // Assert
+        assertEquals(3, resultado);
+        verify(cuponRepo, times(2)).migrarEnlacesUsuario(2);
+        verify(quejaSugerenciaRepo, never()).migrarEnlacesUsuario(anyInt());
+    }
+
+    @Test
+    void migrarEnlaces_loteSinCambios_dejaElRestoParaLaSiguienteEjecucion() {
+        // Arrange: todo lo leído cambió antes de escribirlo
+        when(bloqueoTareaService.adquirir(eq(MigracionEnlacesUsuarioServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.contarEnlacesUsuarioPendientes()).thenReturn(2L);
+        when(cuponRepo.migrarEnlacesUsuario(2)).thenReturn(0L);
+        when(quejaSugerenciaRepo.contarEnlacesUsuarioPendientes()).thenReturn(0L);
+
+        // Act
+        int resultado = migracionService.migrarEnlaces();
+
+        // Assert
+        assertEquals(0, resultado);
+        verify(cuponRepo, times(1)).migrarEnlacesUsuario(2);
+        assertEquals(2.0, meterRegistry.get("laos.migracion.enlaces-usuario.pendientes").tag("coleccion", "cupones").gauge().value());
+    }
+
+    @Test
+    void migrarEnlaces_respetaElMaximoDeLotesEntreLasDosColecciones() {
+        // Arrange: siempre quedan cupones pendientes
+        when(bloqueoTareaService.adquirir(eq(MigracionEnlacesUsuarioServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.contarEnlacesUsuarioPendientes()).thenReturn(10L);
+        when(cuponRepo.migrarEnlacesUsuario(2)).thenReturn(2L);
+
+        // Act
+        int resultado = migracionService.migrarEnlaces();
+
+        // Assert: las quejas quedan para la siguiente ejecución
+        assertEquals(6, resultado);
+        verify(cuponRepo, times(3)).migrarEnlacesUsuario(2);
+        verifyNoInteractions(quejaSugerenciaRepo);
+    }
+
+    @Test
+    void migrarEnlaces_pierdeElArriendo_detieneElProceso() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(MigracionEnlacesUsuarioServiceImple.TAREA), any(Duration.class)))
+                .thenReturn(true)
+                .thenReturn(false);
+        when(cuponRepo.contarEnlacesUsuarioPendientes()).thenReturn(10L);
+        when(cuponRepo.migrarEnlacesUsuario(2)).thenReturn(2L);
+
+        // Act
+        int resultado = migracionService.migrarEnlaces();
+
+        // Assert
+        assertEquals(2, resultado);
+        verify(cuponRepo, times(1)).migrarEnlacesUsuario(2);
+        verifyNoInteractions(quejaSugerenciaRepo);
+        verify(bloqueoTareaService).liberar(MigracionEnlacesUsuarioServiceImple.TAREA);
+    }
+
+    @Test
+    void migrarEnlaces_otroNodoTieneLaTarea_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(MigracionEnlacesUsuarioServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        int resultado = migracionService.migrarEnlaces();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(cuponRepo, quejaSugerenciaRepo);
+        verify(bloqueoTareaService, never()).liberar(anyString());
+    }
+}
@@ -0,0 +1,143 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.dto.EmailDTO;
+import co.edu.uniquindio.laos.model.ApartadoHorario;
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.model.Usuario;
+import co.edu.uniquindio.laos.repositories.UsuarioRepo;
+import co.edu.uniquindio.laos.services.interfaces.EmailService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificacionCitasServiceImpleTest {
+
+    @Mock
+    private UsuarioRepo usuarioRepo;
+
+    @Mock
+    private EmailService emailService;
+
+    private MeterRegistry meterRegistry;
+
+    private NotificacionCitasServiceImple notificacionCitasService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        notificacionCitasService = new NotificacionCitasServiceImple(usuarioRepo, emailService, meterRegistry);
+    }
+
+    @Test
+    void notificarCambiosDeEstilista_unaConsultaDeClientesYUnCorreoPorCita() throws Exception {
+        // Arrange
+        Cita reasignada = cita("c1", "u1", "Laura", EstadoCita.CONFIRMADA);
+        Cita cancelada = cita("c2", "u2", null, EstadoCita.CANCELADA);
+        when(usuarioRepo.findAllById(Set.of("u1", "u2"))).thenReturn(List.of(
+                Usuario.builder().id("u1").email("u1@correo.com").build(),
+                Usuario.builder().id("u2").email("u2@correo.com").build()));
+
+        // Act
+        notificacionCitasService.notificarCambiosDeEstilista(List.of(reasignada), List.of(cancelada));
+
+        // Assert
+        ArgumentCaptor<EmailDTO> correos = ArgumentCaptor.forClass(EmailDTO.class);
+        verify(emailService, times(2)).enviarCorreo(correos.capture());
+        assertEquals("u1@correo.com", correos.getAllValues().get(0).destinatario());
+        assertTrue(correos.getAllValues().get(0).cuerpo().contains("Laura"));
+        assertEquals("Cita cancelada", correos.getAllValues().get(1).asunto());
+        verify(usuarioRepo, times(1)).findAllById(anyIterable());
+        assertEquals(2.0, contador("enviada"));
+    }
+
+    @Test
+    void notificarCambiosDeEstilista_correoQueFalla_noDetieneLosDemas() throws Exception {
+        // Arrange: u1 no existe y el envío a u2 falla; u3 sí recibe su correo
+        when(usuarioRepo.findAllById(anyIterable())).thenReturn(List.of(
+                Usuario.builder().id("u2").email("u2@correo.com").build(),
+                Usuario.builder().id("u3").email("u3@correo.com").build()));
+        doAnswer(i -> {
+            EmailDTO correo = i.getArgument(0);
+            if (correo.destinatario().equals("u2@correo.com")) {
+                throw new RuntimeException("SMTP caído");
+            }
+            return null;
+        }).when(emailService).enviarCorreo(any(EmailDTO.class));
+
+        // Act
+        notificacionCitasService.notificarCambiosDeEstilista(List.of(), List.of(
+                cita("c1", "u1", null, EstadoCita.CANCELADA),
+                cita("c2", "u2", null, EstadoCita.CANCELADA),
+                cita("c3", "u3", null, EstadoCita.CANCELADA)));
+
+        // Assert
+        verify(emailService, times(2)).enviarCorreo(any(EmailDTO.class));
+        assertEquals(1.0, contador("enviada"));
+        assertEquals(2.0, contador("fallida"));
+    }
+
+    @Test
+    void notificarCambiosDeEstilista_sinCitas_noConsultaNada() {
+        // Act
+        notificacionCitasService.notificarCambiosDeEstilista(List.of(), List.of());
+
+        // Assert
+        verifyNoInteractions(usuarioRepo, emailService);
+    }
+
+    @Test
+    void notificarOfertaListaEspera_enviaElApartadoAlCliente() throws Exception {
+        // Arrange
+        when(usuarioRepo.findById("u1")).thenReturn(Optional.of(Usuario.builder().id("u1").email("u1@correo.com").build()));
+        ApartadoHorario apartado = ApartadoHorario.builder()
+                .id("a1")
+                .usuarioId("u1")
+                .fechaHora(LocalDateTime.of(2030, 1, 10, 10, 0))
+                .expiraEn(Instant.parse("2030-01-10T13:15:00Z"))
+                .build();
+
+        // Act
+        notificacionCitasService.notificarOfertaListaEspera(apartado);
+
+        // Assert
+        ArgumentCaptor<EmailDTO> correo = ArgumentCaptor.forClass(EmailDTO.class);
+        verify(emailService).enviarCorreo(correo.capture());
+        assertEquals("u1@correo.com", correo.getValue().destinatario());
+        assertTrue(correo.getValue().cuerpo().contains("a1"));
+        assertEquals(1.0, contador("enviada"));
+    }
+
+    private Cita cita(String id, String usuarioId, String estilistaNombre, EstadoCita estado) {
+        return Cita.builder()
+                .id(id)
+                .usuarioId(usuarioId)
+                .estilistaNombre(estilistaNombre)
+                .fechaHora(LocalDateTime.of(2023, 10, 15, 10, 0))
+                .estado(estado)
+                .build();
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("laos.citas.notificaciones")
+                .tag("resultado", resultado)
+                .counter()
+                .count();
+    }
+}
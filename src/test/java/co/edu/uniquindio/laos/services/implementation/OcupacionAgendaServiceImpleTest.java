@@ -0,0 +1,362 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Cita;
+import co.edu.uniquindio.laos.model.EstadoCita;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import co.edu.uniquindio.laos.services.interfaces.ReservaHorarioService;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OcupacionAgendaServiceImpleTest {
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private CatalogoService catalogoService;
+
+    @Mock
+    private ReservaHorarioService reservaHorarioService;
+
+    private MeterRegistry meterRegistry;
+
+    private RelojAjustable reloj;
+
+    private OcupacionAgendaServiceImple ocupacionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reloj = new RelojAjustable(LocalDateTime.of(2023, 10, 14, 9, 0));
+        ocupacionService = new OcupacionAgendaServiceImple(citaRepo, catalogoService, reservaHorarioService, meterRegistry, 5000, reloj);
+    }
+
+    @Test
+    void existeSolapamiento_citaMasLargaEnCurso_hayConflicto() {
+        // Arrange: cita existente de 10:00 a 11:30, la nueva empieza a las 10:30
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 30)));
+
+        // Act & Assert
+        assertTrue(ocupacionService.existeSolapamiento("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 30), LocalDateTime.of(2023, 10, 15, 11, 30), null));
+    }
+
+    @Test
+    void existeSolapamiento_citaContigua_noHayConflicto() {
+        // Arrange: cita existente de 10:00 a 10:30, la nueva empieza justo a las 10:30
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 10, 30)));
+
+        // Act & Assert
+        assertFalse(ocupacionService.existeSolapamiento("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 30), LocalDateTime.of(2023, 10, 15, 11, 30), null));
+    }
+
+    @Test
+    void existeSolapamiento_mismaFranjaSinCruceExacto_noHayConflicto() {
+        // Arrange: 10:00 a 10:40 y 10:40 a 11:00 comparten la franja de 10:30 pero no se cruzan
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 10, 40)));
+
+        // Act & Assert
+        assertFalse(ocupacionService.existeSolapamiento("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 40), LocalDateTime.of(2023, 10, 15, 11, 0), null));
+    }
+
+    @Test
+    void existeSolapamiento_soloSeCruzaConLaCitaExcluida_noHayConflicto() {
+        // Arrange
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 14, 30, 15, 30)));
+
+        // Act & Assert
+        assertFalse(ocupacionService.existeSolapamiento("e1",
+                LocalDateTime.of(2023, 10, 15, 15, 0), LocalDateTime.of(2023, 10, 15, 16, 0), "c1"));
+    }
+
+    @Test
+    void existeSolapamiento_segundaConsultaDelMismoDia_seResuelveEnMemoria() {
+        // Arrange
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 0)));
+        when(reservaHorarioService.estaReclamado(eq("e1"), any(LocalDateTime.class), any(LocalDateTime.class), isNull()))
+                .thenReturn(true);
+
+        // Act
+        boolean primera = ocupacionService.existeSolapamiento("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0), LocalDateTime.of(2023, 10, 15, 11, 0), null);
+        boolean segunda = ocupacionService.existeSolapamiento("e1",
+                LocalDateTime.of(2023, 10, 15, 16, 0), LocalDateTime.of(2023, 10, 15, 17, 0), null);
+
+        // Assert
+        assertTrue(primera);
+        assertFalse(segunda);
+        verify(citaRepo, times(1)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                Set.of("e1"), LocalDateTime.of(2023, 10, 14, 23, 0), LocalDateTime.of(2023, 10, 16, 0, 0));
+        assertEquals(1.0, contador("acierto"));
+        assertEquals(1.0, contador("fallo"));
+    }
+
+    @Test
+    void buscarSolapamientos_serieEnVariosDias_unaSolaConsultaYSoloLosDiasTocados() {
+        // Arrange: el 15 hay una cita de 10:00 a 11:00; la serie pide el 15, el 29 y otra vez el 15
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 0)));
+        List<Intervalo> serie = List.of(
+                new Intervalo(LocalDateTime.of(2023, 10, 15, 10, 30), LocalDateTime.of(2023, 10, 15, 11, 30)),
+                new Intervalo(LocalDateTime.of(2023, 10, 29, 10, 30), LocalDateTime.of(2023, 10, 29, 11, 30)),
+                new Intervalo(LocalDateTime.of(2023, 10, 15, 11, 0), LocalDateTime.of(2023, 10, 15, 12, 0)));
+        when(reservaHorarioService.estaReclamado("e1", serie.get(0).inicio(), serie.get(0).fin(), null)).thenReturn(true);
+
+        // Act
+        Set<Integer> cruzados = ocupacionService.buscarSolapamientos("e1", serie);
+
+        // Assert: solo se leen los dos días de la serie, con una consulta
+        assertEquals(Set.of(0), cruzados);
+        verify(citaRepo, times(1)).findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+        assertEquals(2.0, contador("fallo"));
+    }
+
+    @Test
+    void existeSolapamiento_aciertoQueLosReclamosNoConfirman_recargaElDiaDesdeLaBaseDeDatos() {
+        // Arrange: el día se cargó con c1 y luego otro nodo la canceló sin que este se enterara
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 0)))
+                .thenReturn(List.of());
+        LocalDateTime inicio = LocalDateTime.of(2023, 10, 15, 10, 0);
+        LocalDateTime fin = LocalDateTime.of(2023, 10, 15, 11, 0);
+        assertFalse(ocupacionService.existeSolapamiento("e1",
+                LocalDateTime.of(2023, 10, 15, 16, 0), LocalDateTime.of(2023, 10, 15, 17, 0), null));
+
+        // Act
+        boolean hayConflicto = ocupacionService.existeSolapamiento("e1", inicio, fin, null);
+
+        // Assert: el horario libre no se rechaza y el día queda corregido en memoria
+        assertFalse(hayConflicto);
+        verify(reservaHorarioService).estaReclamado("e1", inicio, fin, null);
+        verify(citaRepo, times(2)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+        assertEquals(1.0, meterRegistry.get("laos.agenda.ocupacion.inconsistencias").counter().count());
+    }
+
+    @Test
+    void buscarSolapamientos_soloUnCruceConfirmado_recargaYRevisaLosDemas() {
+        // Arrange: en memoria hay dos citas, pero la de la tarde ya fue cancelada en otro nodo
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 0), cita("c2", "e1", 15, 0, 16, 0)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 0)));
+        List<Intervalo> serie = List.of(
+                new Intervalo(LocalDateTime.of(2023, 10, 15, 10, 0), LocalDateTime.of(2023, 10, 15, 11, 0)),
+                new Intervalo(LocalDateTime.of(2023, 10, 15, 15, 0), LocalDateTime.of(2023, 10, 15, 16, 0)));
+        when(reservaHorarioService.estaReclamado("e1", serie.get(0).inicio(), serie.get(0).fin(), null)).thenReturn(true);
+
+        // Act
+        Set<Integer> cruzados = ocupacionService.buscarSolapamientos("e1", serie);
+
+        // Assert
+        assertEquals(Set.of(0), cruzados);
+        verify(citaRepo, times(2)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void registrarYEliminar_actualizanElDiaSinConsultarLaBaseDeDatos() {
+        // Arrange: el día se carga vacío
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        LocalDateTime inicio = LocalDateTime.of(2023, 10, 15, 10, 0);
+        LocalDateTime fin = LocalDateTime.of(2023, 10, 15, 11, 0);
+        assertFalse(ocupacionService.existeSolapamiento("e1", inicio, fin, null));
+        when(reservaHorarioService.estaReclamado("e1", inicio, fin, null)).thenReturn(true);
+
+        // Act & Assert
+        ocupacionService.registrar("e1", "c1", inicio, fin);
+        assertTrue(ocupacionService.existeSolapamiento("e1", inicio, fin, null));
+
+        ocupacionService.eliminar("e1", "c1", inicio, fin);
+        assertFalse(ocupacionService.existeSolapamiento("e1", inicio, fin, null));
+
+        verify(citaRepo, times(1)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void registrar_diaNoCargado_noGuardaNadaEnMemoria() {
+        // Act
+        ocupacionService.registrar("e1", "c1",
+                LocalDateTime.of(2023, 10, 15, 10, 0), LocalDateTime.of(2023, 10, 15, 11, 0));
+
+        // Assert: la próxima lectura del día se carga completa desde la base de datos
+        assertEquals(0.0, meterRegistry.get("laos.agenda.ocupacion.dias").gauge().value());
+        verifyNoInteractions(citaRepo);
+    }
+
+    @Test
+    void obtenerOcupados_variosEstilistasYDias_unaSolaConsultaYFranjasAlineadas() {
+        // Arrange: 10:10 a 10:50 ocupa las franjas de 10:00 a 11:00
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 10, 10, 50), cita("c2", "e2", 15, 0, 16, 0)));
+
+        // Act
+        Map<String, List<Intervalo>> ocupados = ocupacionService.obtenerOcupados(
+                List.of("e1", "e2", "e3"), LocalDate.of(2023, 10, 15), LocalDate.of(2023, 10, 17));
+
+        // Assert
+        assertEquals(List.of(new Intervalo(LocalDateTime.of(2023, 10, 15, 10, 0), LocalDateTime.of(2023, 10, 15, 11, 0))),
+                ocupados.get("e1"));
+        assertEquals(List.of(new Intervalo(LocalDateTime.of(2023, 10, 15, 15, 0), LocalDateTime.of(2023, 10, 15, 16, 0))),
+                ocupados.get("e2"));
+        assertTrue(ocupados.get("e3").isEmpty());
+        verify(citaRepo, times(1)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+        assertEquals(9.0, meterRegistry.get("laos.agenda.ocupacion.dias").gauge().value());
+    }
+
+    @Test
+    void obtenerOcupados_diasPasados_noSeGuardanEnMemoria() {
+        // Arrange
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        // Act
+        ocupacionService.obtenerOcupados(List.of("e1"), LocalDate.of(2023, 10, 10), LocalDate.of(2023, 10, 10));
+        ocupacionService.obtenerOcupados(List.of("e1"), LocalDate.of(2023, 10, 10), LocalDate.of(2023, 10, 10));
+
+        // Assert
+        verify(citaRepo, times(2)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void obtenerOcupados_limiteDeDias_noGuardaMasDeLoPermitido() {
+        // Arrange
+        ocupacionService = new OcupacionAgendaServiceImple(citaRepo, catalogoService, reservaHorarioService, meterRegistry, 2, reloj);
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        // Act
+        ocupacionService.obtenerOcupados(List.of("e1"), LocalDate.of(2023, 10, 15), LocalDate.of(2023, 10, 20));
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get("laos.agenda.ocupacion.dias").gauge().value());
+    }
+
+    @Test
+    void descartarDiasPasados_eliminaSoloLosAnterioresAHoy() {
+        // Arrange
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        ocupacionService.obtenerOcupados(List.of("e1"), LocalDate.of(2023, 10, 14), LocalDate.of(2023, 10, 16));
+
+        // Act: pasan dos días
+        reloj.ajustar(LocalDateTime.of(2023, 10, 16, 0, 5));
+        ocupacionService.descartarDiasPasados();
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("laos.agenda.ocupacion.dias").gauge().value());
+    }
+
+    @Test
+    void verificarConsistencia_diaDesactualizado_seCorrige() {
+        // Arrange: el día se cargó vacío y luego apareció una cita que no pasó por registrar
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 0)));
+        LocalDateTime inicio = LocalDateTime.of(2023, 10, 15, 10, 0);
+        LocalDateTime fin = LocalDateTime.of(2023, 10, 15, 11, 0);
+        assertFalse(ocupacionService.existeSolapamiento("e1", inicio, fin, null));
+        when(reservaHorarioService.estaReclamado("e1", inicio, fin, null)).thenReturn(true);
+
+        // Act
+        int diferencias = ocupacionService.verificarConsistencia();
+
+        // Assert
+        assertEquals(1, diferencias);
+        assertTrue(ocupacionService.existeSolapamiento("e1", inicio, fin, null));
+        assertEquals(1.0, meterRegistry.get("laos.agenda.ocupacion.inconsistencias").counter().count());
+        verify(citaRepo, times(2)).findActivasByEstilistaIdInAndFechaHoraEntre(
+                anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void verificarConsistencia_sinDiferencias_noCambiaNada() {
+        // Arrange
+        when(citaRepo.findActivasByEstilistaIdInAndFechaHoraEntre(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(cita("c1", "e1", 10, 0, 11, 0)));
+        ocupacionService.obtenerOcupados(List.of("e1"), LocalDate.of(2023, 10, 15), LocalDate.of(2023, 10, 15));
+
+        // Act & Assert
+        assertEquals(0, ocupacionService.verificarConsistencia());
+    }
+
+    private Cita cita(String id, String estilistaId, int horaInicio, int minutoInicio, int horaFin, int minutoFin) {
+        return Cita.builder()
+                .id(id)
+                .estilistaId(estilistaId)
+                .fechaHora(LocalDateTime.of(2023, 10, 15, horaInicio, minutoInicio))
+                .fechaHoraFin(LocalDateTime.of(2023, 10, 15, horaFin, minutoFin))
+                .estado(EstadoCita.CONFIRMADA)
+                .build();
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("laos.agenda.ocupacion")
+                .tag("resultado", resultado)
+                .counter()
+                .count();
+    }
+
+    /**
+     * Reloj de prueba cuya hora se puede mover
+     */
+    private static final class RelojAjustable extends Clock {
+
+        private Instant ahora;
+
+        RelojAjustable(LocalDateTime ahora) {
+            ajustar(ahora);
+        }
+
+        void ajustar(LocalDateTime nuevaHora) {
+            this.ahora = nuevaHora.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.model.Estilista;
+import co.edu.uniquindio.laos.model.Servicio;
+import co.edu.uniquindio.laos.repositories.CitaRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliacionCitasServiceImpleTest {
+
+    @Mock
+    private CitaRepo citaRepo;
+
+    @Mock
+    private CatalogoService catalogoService;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private ReconciliacionCitasServiceImple reconciliacionCitasService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reconciliacionCitasService = new ReconciliacionCitasServiceImple(
+                citaRepo, catalogoService, bloqueoTareaService, meterRegistry, 1800);
+    }
+
+    @Test
+    void reconciliarEstilista_actualizaSusCitasYCuenta() {
+        // Arrange
+        when(citaRepo.actualizarNombreEstilista("e1", "Ana")).thenReturn(4L);
+
+        // Act
+        reconciliacionCitasService.reconciliarEstilista("e1", "Ana");
+
+        // Assert
+        assertEquals(4.0, meterRegistry.counter("laos.citas.reconciliadas").count());
+    }
+
+    @Test
+    void reconciliarServicio_actualizaSusCitasYCuenta() {
+        // Arrange
+        when(citaRepo.actualizarNombreServicio("s1", "Corte")).thenReturn(2L);
+
+        // Act
+        reconciliacionCitasService.reconciliarServicio("s1", "Corte");
+
+        // Assert
+        assertEquals(2.0, meterRegistry.counter("laos.citas.reconciliadas").count());
+    }
+
+    @Test
+    void reconciliarTodo_recorreElCatalogoYLiberaElBloqueo() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(ReconciliacionCitasServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(catalogoService.obtenerEstilistas()).thenReturn(List.of(
+                Estilista.builder().id("e1").nombre("Ana").build(),
+                Estilista.builder().id("e2").build()));
+        when(catalogoService.obtenerServicios()).thenReturn(List.of(
+                Servicio.builder().id("s1").nombre("Corte").build()));
+        when(citaRepo.actualizarNombreEstilista("e1", "Ana")).thenReturn(3L);
+        when(citaRepo.actualizarNombreServicio("s1", "Corte")).thenReturn(1L);
+
+        // Act
+        long resultado = reconciliacionCitasService.reconciliarTodo();
+
+        // Assert: el estilista sin nombre no borra las copias existentes
+        assertEquals(4, resultado);
+        verify(citaRepo, never()).actualizarNombreEstilista(eq("e2"), any());
+        assertEquals(4.0, meterRegistry.counter("laos.citas.reconciliadas").count());
+        verify(bloqueoTareaService).liberar(ReconciliacionCitasServiceImple.TAREA);
+    }
+
+    @Test
+    void reconciliarTodo_bloqueoTomadoPorOtroNodo_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(ReconciliacionCitasServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        long resultado = reconciliacionCitasService.reconciliarTodo();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(catalogoService, citaRepo);
+        verify(bloqueoTareaService, never()).liberar(any());
+    }
+}
@@ -0,0 +1,461 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.HorarioYEstilistaOcupadoException;
+import co.edu.uniquindio.laos.model.ReservaHorario;
+import co.edu.uniquindio.laos.repositories.ReservaHorarioRepo;
+import co.edu.uniquindio.laos.utils.AgendaUtils.Intervalo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReservaHorarioServiceImpleTest {
+
+    @Mock
+    private ReservaHorarioRepo reservaHorarioRepo;
+
+    @InjectMocks
+    private ReservaHorarioServiceImple reservaHorarioService;
+
+    /**
+     * Colección reservas_horario simulada: _id -> reclamo. putIfAbsent reproduce
+     * el índice único de _id de MongoDB.
+     */
+    private Map<String, ReservaHorario> coleccion;
+
+    @BeforeEach
+    void setUp() {
+        coleccion = new ConcurrentHashMap<>();
+
+        // insert ordenado: se detiene en el primer _id duplicado
+        when(reservaHorarioRepo.insert(ArgumentMatchers.<ReservaHorario>anyList())).thenAnswer(i -> {
+            List<ReservaHorario> reservas = i.getArgument(0);
+            for (ReservaHorario reserva : reservas) {
+                if (coleccion.putIfAbsent(reserva.getId(), reserva) != null) {
+                    throw new DuplicateKeyException("E11000 duplicate key: " + reserva.getId());
+                }
+            }
+            return reservas;
+        });
+        when(reservaHorarioRepo.findByCitaId(anyString())).thenAnswer(i -> coleccion.values().stream()
+                .filter(r -> r.getCitaId().equals(i.getArgument(0)))
+                .toList());
+        doAnswer(i -> {
+            String citaId = i.getArgument(0);
+            coleccion.values().removeIf(r -> r.getCitaId().equals(citaId));
+            return null;
+        }).when(reservaHorarioRepo).deleteByCitaId(anyString());
+        doAnswer(i -> {
+            Collection<String> ids = i.getArgument(0);
+            String citaId = i.getArgument(1);
+            ids.forEach(id -> coleccion.computeIfPresent(id, (k, r) -> r.getCitaId().equals(citaId) ? null : r));
+            return null;
+        }).when(reservaHorarioRepo).deleteByIdInAndCitaId(anyCollection(), anyString());
+        // insert sin orden: intenta todos los bloques y devuelve los rechazados
+        when(reservaHorarioRepo.insertarSinOrden(ArgumentMatchers.<ReservaHorario>anyList())).thenAnswer(i -> {
+            List<ReservaHorario> reservas = i.getArgument(0);
+            List<ReservaHorario> rechazadas = new ArrayList<>();
+            for (ReservaHorario reserva : reservas) {
+                if (coleccion.putIfAbsent(reserva.getId(), reserva) != null) {
+                    rechazadas.add(reserva);
+                }
+            }
+            return rechazadas;
+        });
+        doAnswer(i -> {
+            Collection<String> citaIds = i.getArgument(0);
+            coleccion.values().removeIf(r -> citaIds.contains(r.getCitaId()));
+            return null;
+        }).when(reservaHorarioRepo).deleteByCitaIdIn(anyCollection());
+        doAnswer(i -> {
+            String estilistaId = i.getArgument(0);
+            Collection<String> citaIds = i.getArgument(1);
+            coleccion.values().removeIf(r -> r.getEstilistaId().equals(estilistaId) && citaIds.contains(r.getCitaId()));
+            return null;
+        }).when(reservaHorarioRepo).deleteByEstilistaIdAndCitaIdIn(anyString(), anyCollection());
+        // apartados: el monitor TTL no corre en la simulación, los bloques vencidos siguen ahí
+        when(reservaHorarioRepo.confirmarApartado(anyString(), any(Instant.class))).thenAnswer(i -> {
+            String citaId = i.getArgument(0);
+            Instant ahora = i.getArgument(1);
+            long confirmados = 0;
+            for (ReservaHorario reserva : coleccion.values()) {
+                if (reserva.getCitaId().equals(citaId) && reserva.getExpiraEn() != null && reserva.getExpiraEn().isAfter(ahora)) {
+                    reserva.setExpiraEn(null);
+                    confirmados++;
+                }
+            }
+            return confirmados;
+        });
+        doAnswer(i -> {
+            String citaId = i.getArgument(0);
+            coleccion.values().removeIf(r -> r.getCitaId().equals(citaId) && r.getExpiraEn() != null);
+            return null;
+        }).when(reservaHorarioRepo).deleteByCitaIdAndExpiraEnIsNotNull(anyString());
+        when(reservaHorarioRepo.findAllById(ArgumentMatchers.<String>anyIterable())).thenAnswer(i -> {
+            List<ReservaHorario> encontradas = new ArrayList<>();
+            for (String id : i.<Iterable<String>>getArgument(0)) {
+                if (coleccion.containsKey(id)) {
+                    encontradas.add(coleccion.get(id));
+                }
+            }
+            return encontradas;
+        });
+        when(reservaHorarioRepo.deleteByIdInAndExpiraEnLessThanEqual(anyCollection(), any(Instant.class))).thenAnswer(i -> {
+            Collection<String> ids = i.getArgument(0);
+            Instant ahora = i.getArgument(1);
+            long borrados = 0;
+            for (String id : ids) {
+                ReservaHorario reserva = coleccion.get(id);
+                if (reserva != null && reserva.getExpiraEn() != null && !reserva.getExpiraEn().isAfter(ahora)
+                        && coleccion.remove(id, reserva)) {
+                    borrados++;
+                }
+            }
+            return borrados;
+        });
+    }
+
+    @Test
+    void reservarLote_reservaTodasLasCitasLibresEnUnaSolaEscritura() {
+        // Arrange
+        Map<String, Intervalo> intervalos = new LinkedHashMap<>();
+        intervalos.put("cita1", new Intervalo(LocalDateTime.of(2023, 10, 2, 10, 0), LocalDateTime.of(2023, 10, 2, 11, 0)));
+        intervalos.put("cita2", new Intervalo(LocalDateTime.of(2023, 10, 16, 10, 0), LocalDateTime.of(2023, 10, 16, 11, 0)));
+
+        // Act
+        Set<String> fallidas = reservaHorarioService.reservarLote("e1", intervalos);
+
+        // Assert
+        assertTrue(fallidas.isEmpty());
+        assertEquals(8, coleccion.size());
+        verify(reservaHorarioRepo, times(1)).insertarSinOrden(anyList());
+        verify(reservaHorarioRepo, never()).deleteByEstilistaIdAndCitaIdIn(anyString(), anyCollection());
+    }
+
+    @Test
+    void reservarLote_citaConBloqueTomado_seLiberaSinAfectarALasDemas() throws Exception {
+        // Arrange: otra cita ya tiene 10:30 a 11:30 del 16
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 16, 10, 30),
+                LocalDateTime.of(2023, 10, 16, 11, 30),
+                "otra");
+        Map<String, Intervalo> intervalos = new LinkedHashMap<>();
+        intervalos.put("cita1", new Intervalo(LocalDateTime.of(2023, 10, 2, 10, 0), LocalDateTime.of(2023, 10, 2, 11, 0)));
+        intervalos.put("cita2", new Intervalo(LocalDateTime.of(2023, 10, 16, 10, 0), LocalDateTime.of(2023, 10, 16, 11, 0)));
+
+        // Act
+        Set<String> fallidas = reservaHorarioService.reservarLote("e1", intervalos);
+
+        // Assert: cita2 alcanzó a insertar 10:00 y 10:15, que se liberan
+        assertEquals(Set.of("cita2"), fallidas);
+        assertEquals(8, coleccion.size());
+        assertTrue(coleccion.values().stream().noneMatch(r -> r.getCitaId().equals("cita2")));
+    }
+
+    @Test
+    void reservarLote_fechasRepetidasEnLaSerie_soloLaPrimeraReserva() {
+        // Arrange
+        Map<String, Intervalo> intervalos = new LinkedHashMap<>();
+        intervalos.put("cita1", new Intervalo(LocalDateTime.of(2023, 10, 2, 10, 0), LocalDateTime.of(2023, 10, 2, 11, 0)));
+        intervalos.put("cita2", new Intervalo(LocalDateTime.of(2023, 10, 2, 10, 30), LocalDateTime.of(2023, 10, 2, 11, 30)));
+
+        // Act
+        Set<String> fallidas = reservaHorarioService.reservarLote("e1", intervalos);
+
+        // Assert
+        assertEquals(Set.of("cita2"), fallidas);
+        assertTrue(coleccion.values().stream().allMatch(r -> r.getCitaId().equals("cita1")));
+        assertEquals(4, coleccion.size());
+    }
+
+    @Test
+    void reservar_reclamaUnBloquePorCadaCuartoDeHora() throws Exception {
+        // Act: 10:10 a 11:00 toca los bloques 10:00, 10:15, 10:30 y 10:45
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 10),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+
+        // Assert
+        assertEquals(4, coleccion.size());
+        assertTrue(coleccion.containsKey("e1|2023-10-15T10:00"));
+        assertTrue(coleccion.containsKey("e1|2023-10-15T10:45"));
+    }
+
+    @Test
+    void reservar_citasContiguas_noChocan() throws Exception {
+        // Act
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                LocalDateTime.of(2023, 10, 15, 12, 0),
+                "cita2");
+
+        // Assert
+        assertEquals(8, coleccion.size());
+    }
+
+    @Test
+    void reservar_bloqueOcupado_deshaceReclamosParcialesSinTocarLosAjenos() throws Exception {
+        // Arrange: cita1 tiene de 10:30 a 11:30
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 30),
+                LocalDateTime.of(2023, 10, 15, 11, 30),
+                "cita1");
+
+        // Act & Assert: cita2 alcanza a reclamar 10:00 y 10:15 antes de chocar
+        assertThrows(HorarioYEstilistaOcupadoException.class, () -> reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita2"));
+        assertEquals(4, coleccion.size());
+        assertTrue(coleccion.values().stream().allMatch(r -> r.getCitaId().equals("cita1")));
+    }
+
+    @Test
+    void reservar_otroEstilistaMismoHorario_noCompite() throws Exception {
+        // Act
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+        reservaHorarioService.reservar("e2",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita2");
+
+        // Assert
+        assertEquals(8, coleccion.size());
+    }
+
+    @Test
+    void reprogramar_solapadoConsigoMismo_conservaBloquesComunes() throws Exception {
+        // Arrange
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+
+        // Act: se corre media hora
+        reservaHorarioService.reprogramar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 30),
+                LocalDateTime.of(2023, 10, 15, 11, 30),
+                "cita1");
+
+        // Assert
+        assertEquals(4, coleccion.size());
+        assertFalse(coleccion.containsKey("e1|2023-10-15T10:00"));
+        assertTrue(coleccion.containsKey("e1|2023-10-15T11:15"));
+    }
+
+    @Test
+    void reprogramar_nuevoHorarioOcupado_mantieneElAnterior() throws Exception {
+        // Arrange
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 14, 0),
+                LocalDateTime.of(2023, 10, 15, 15, 0),
+                "cita2");
+
+        // Act & Assert
+        assertThrows(HorarioYEstilistaOcupadoException.class, () -> reservaHorarioService.reprogramar("e1",
+                LocalDateTime.of(2023, 10, 15, 13, 30),
+                LocalDateTime.of(2023, 10, 15, 14, 30),
+                "cita1"));
+        assertEquals(4, reservaHorarioRepo.findByCitaId("cita1").size());
+        assertTrue(coleccion.containsKey("e1|2023-10-15T10:00"));
+        assertFalse(coleccion.containsKey("e1|2023-10-15T13:30"));
+    }
+
+    @Test
+    void liberar_eliminaSoloLosBloquesDeLaCita() throws Exception {
+        // Arrange
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                LocalDateTime.of(2023, 10, 15, 12, 0),
+                "cita2");
+
+        // Act
+        reservaHorarioService.liberar("cita1");
+
+        // Assert
+        assertEquals(4, coleccion.size());
+        assertTrue(coleccion.values().stream().allMatch(r -> r.getCitaId().equals("cita2")));
+    }
+
+    @Test
+    void reservar_peticionesConcurrentesDistintosEstilistas_todasGanan() throws Exception {
+        // Arrange
+        int estilistas = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger exitosas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        for (int i = 0; i < estilistas; i++) {
+            String estilistaId = "e" + i;
+            tareas.add(executor.submit(() -> {
+                largada.await();
+                reservaHorarioService.reservar(estilistaId,
+                        LocalDateTime.of(2023, 10, 15, 10, 0),
+                        LocalDateTime.of(2023, 10, 15, 11, 0),
+                        "cita-" + estilistaId);
+                exitosas.incrementAndGet();
+                return null;
+            }));
+        }
+
+        // Act
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(estilistas, exitosas.get());
+        assertEquals(estilistas * 4, coleccion.size());
+    }
+
+    @Test
+    void apartar_bloqueaElHorarioParaOtrasReservas() throws Exception {
+        // Arrange
+        reservaHorarioService.apartar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "apartado1", Instant.now().plusSeconds(600));
+
+        // Act & Assert
+        assertThrows(HorarioYEstilistaOcupadoException.class, () -> reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 30),
+                LocalDateTime.of(2023, 10, 15, 11, 30),
+                "cita1"));
+        assertEquals(4, coleccion.size());
+        assertTrue(coleccion.values().stream().allMatch(r -> r.getCitaId().equals("apartado1")));
+    }
+
+    @Test
+    void reservar_apartadoVencidoQueAunNoSeBorra_seRecuperaElHorario() throws Exception {
+        // Arrange: el apartado venció pero el monitor TTL todavía no pasó
+        reservaHorarioService.apartar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "apartado1", Instant.now().minusSeconds(5));
+
+        // Act
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 30),
+                LocalDateTime.of(2023, 10, 15, 11, 30),
+                "cita1");
+
+        // Assert: la cita tiene sus cuatro bloques; del apartado quedan los que no se cruzaban
+        assertEquals(4, coleccion.values().stream().filter(r -> r.getCitaId().equals("cita1")).count());
+        assertEquals(2, coleccion.values().stream().filter(r -> r.getCitaId().equals("apartado1")).count());
+    }
+
+    @Test
+    void confirmarApartado_vigente_losBloquesDejanDeVencer() throws Exception {
+        // Arrange
+        LocalDateTime inicio = LocalDateTime.of(2023, 10, 15, 10, 0);
+        reservaHorarioService.apartar("e1", inicio, inicio.plusHours(1), "apartado1", Instant.now().plusSeconds(600));
+
+        // Act
+        boolean confirmado = reservaHorarioService.confirmarApartado("e1", inicio, inicio.plusHours(1), "apartado1", Instant.now());
+
+        // Assert
+        assertTrue(confirmado);
+        assertEquals(4, coleccion.size());
+        assertTrue(coleccion.values().stream().allMatch(r -> r.getExpiraEn() == null));
+    }
+
+    @Test
+    void confirmarApartado_yaConfirmadoPorOtraPeticion_noBorraLosBloquesDeLaCita() throws Exception {
+        // Arrange
+        LocalDateTime inicio = LocalDateTime.of(2023, 10, 15, 10, 0);
+        reservaHorarioService.apartar("e1", inicio, inicio.plusHours(1), "apartado1", Instant.now().plusSeconds(600));
+        reservaHorarioService.confirmarApartado("e1", inicio, inicio.plusHours(1), "apartado1", Instant.now());
+
+        // Act
+        boolean confirmado = reservaHorarioService.confirmarApartado("e1", inicio, inicio.plusHours(1), "apartado1", Instant.now());
+
+        // Assert
+        assertFalse(confirmado);
+        assertEquals(4, coleccion.size());
+    }
+
+    @Test
+    void liberarApartado_noTocaLosBloquesDeUnaCita() throws Exception {
+        // Arrange
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+
+        // Act
+        reservaHorarioService.liberarApartado("cita1");
+
+        // Assert
+        assertEquals(4, coleccion.size());
+    }
+
+    @Test
+    void estaReclamado_soloCuentanOtrasCitasYApartadosVigentes() throws Exception {
+        // Arrange: cita1 de 10:00 a 11:00 y un apartado vencido de 14:00 a 15:00
+        reservaHorarioService.reservar("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 0),
+                LocalDateTime.of(2023, 10, 15, 11, 0),
+                "cita1");
+        reservaHorarioService.apartar("e1",
+                LocalDateTime.of(2023, 10, 15, 14, 0),
+                LocalDateTime.of(2023, 10, 15, 15, 0),
+                "apartado1", Instant.now().minusSeconds(5));
+
+        // Act & Assert
+        assertTrue(reservaHorarioService.estaReclamado("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 40), LocalDateTime.of(2023, 10, 15, 11, 30), null));
+        assertFalse(reservaHorarioService.estaReclamado("e1",
+                LocalDateTime.of(2023, 10, 15, 10, 40), LocalDateTime.of(2023, 10, 15, 11, 30), "cita1"));
+        assertFalse(reservaHorarioService.estaReclamado("e1",
+                LocalDateTime.of(2023, 10, 15, 14, 0), LocalDateTime.of(2023, 10, 15, 15, 0), null));
+        assertFalse(reservaHorarioService.estaReclamado("e2",
+                LocalDateTime.of(2023, 10, 15, 10, 0), LocalDateTime.of(2023, 10, 15, 11, 0), null));
+    }
+}
@@ -1,7 +1,7 @@
 package co.edu.uniquindio.laos.services.implementation;
 
 import co.edu.uniquindio.laos.model.Servicio;
-import co.edu.uniquindio.laos.repositories.ServiciosRepo;
+import co.edu.uniquindio.laos.services.interfaces.CatalogoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +20,7 @@ import static org.mockito.Mockito.*;
 class ServicioServiceImpleTest {
 
     @Mock
-    private ServiciosRepo serviciosRepo;
+    private CatalogoService catalogoService;
 
     @InjectMocks
     private ServicioServiceImple servicioService;
@@ -52,7 +52,7 @@ class ServicioServiceImpleTest {
     @Test
     void obtenerTodosLosServicios_RetornaListaConServicios() {
         // Arrange
-        when(serviciosRepo.findAll()).thenReturn(servicioList);
+        when(catalogoService.obtenerServicios()).thenReturn(servicioList);
 
         // Act
         List<Servicio> resultado = servicioService.obtenerTodosLosServicios();
@@ -62,13 +62,13 @@ class ServicioServiceImpleTest {
         assertEquals(2, resultado.size());
         assertEquals(servicio1.getNombre(), resultado.get(0).getNombre());
         assertEquals(servicio2.getPrecio(), resultado.get(1).getPrecio());
-        verify(serviciosRepo, times(1)).findAll();
+        verify(catalogoService, times(1)).obtenerServicios();
     }
 
     @Test
     void obtenerTodosLosServicios_RetornaListaVaciaCuandoNoHayServicios() {
         // Arrange
-        when(serviciosRepo.findAll()).thenReturn(Collections.emptyList());
+        when(catalogoService.obtenerServicios()).thenReturn(Collections.emptyList());
 
         // Act
         List<Servicio> resultado = servicioService.obtenerTodosLosServicios();
@@ -76,6 +76,6 @@ class ServicioServiceImpleTest {
         // Assert
         assertNotNull(resultado);
         assertTrue(resultado.isEmpty());
-        verify(serviciosRepo, times(1)).findAll();
+        verify(catalogoService, times(1)).obtenerServicios();
     }
 }
\ No newline at end of file
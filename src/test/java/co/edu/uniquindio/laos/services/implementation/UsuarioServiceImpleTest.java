@@ -16,6 +16,7 @@ package co.edu.uniquindio.laos.services.implementation;
                                 import org.mockito.InjectMocks;
                                 import org.mockito.Mock;
                                 import org.mockito.junit.jupiter.MockitoExtension;
+                                import org.springframework.dao.OptimisticLockingFailureException;
                                 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
                                 import java.time.LocalDateTime;
@@ -174,7 +175,7 @@ package co.edu.uniquindio.laos.services.implementation;
                                     }
 
                                     @Test
-                                    void editarUsuario_ActualizaInformacion() throws RecursoNoEncontradoException {
+                                    void editarUsuario_ActualizaInformacion() throws Exception {
                                         // Arrange
                                         EditarUsuarioDTO editarUsuarioDTO = new EditarUsuarioDTO(
                                                 "1",
@@ -195,17 +196,48 @@ package co.edu.uniquindio.laos.services.implementation;
                                         verify(usuarioRepo).save(usuario);
                                     }
 
+                                    @Test
+                                    void editarUsuario_ConflictoDeVersion_ReintentaConUsuarioReleido() throws Exception {
+                                        // Arrange: el primer guardado choca con otra escritura
+                                        EditarUsuarioDTO editarUsuarioDTO = new EditarUsuarioDTO(
+                                                "1",
+                                                "Juan Antonio Pérez",
+                                                "Carrera 45 #23-12",
+                                                "3109876543"
+                                        );
+
+                                        when(usuarioRepo.findByIdAndEstadoUsuarioNot(anyString(), any())).thenReturn(Optional.of(usuario));
+                                        when(usuarioRepo.save(usuario))
+                                                .thenThrow(new OptimisticLockingFailureException("versión desactualizada"))
+                                                .thenReturn(usuario);
+
+                                        // Act
+                                        usuarioService.editarUsuario(editarUsuarioDTO);
+
+                                        // Assert
+                                        verify(usuarioRepo, times(2)).findByIdAndEstadoUsuarioNot(anyString(), any());
+                                        verify(usuarioRepo, times(2)).save(usuario);
+                                    }
+
                                     @Test
                                     void eliminarUsuario_CambiaEstadoAEliminado() throws RecursoNoEncontradoException {
                                         // Arrange
-                                        when(usuarioRepo.findByIdAndEstadoUsuarioNot(anyString(), any())).thenReturn(Optional.of(usuario));
+                                        when(usuarioRepo.marcarEliminado("100000000000000000000000")).thenReturn(1L);
 
                                         // Act
                                         usuarioService.eliminarUsuario("1");
 
-                                        // Assert
-                                        assertEquals(EstadoUsuario.ELIMINADO, usuario.getEstadoUsuario());
-                                        verify(usuarioRepo).save(usuario);
+                                        // Assert: solo se cambia el estado, sin leer ni reescribir el documento
+                                        verify(usuarioRepo, never()).save(any(Usuario.class));
+                                    }
+
+                                    @Test
+                                    void eliminarUsuario_LanzaExcepcionSiNoExiste() {
+                                        // Arrange
+                                        when(usuarioRepo.marcarEliminado(anyString())).thenReturn(0L);
+
+                                        // Act & Assert
+                                        assertThrows(RecursoNoEncontradoException.class, () -> usuarioService.eliminarUsuario("1"));
                                     }
 
                                     @Test
@@ -322,6 +354,7 @@ package co.edu.uniquindio.laos.services.implementation;
                                         // Assert
                                         assertEquals(tokenJWT, resultado.token());
                                         verify(jwtUtils).generarToken(eq("juan@example.com"), anyMap());
+                                        verify(usuarioRepo).reiniciarFallosInicioSesion("juan@example.com");
                                     }
 
                                     @Test
@@ -344,16 +377,27 @@ package co.edu.uniquindio.laos.services.implementation;
                                     @Test
                                     void incrementarIntentosFallidos_BloquearCuentaDespues5Intentos() throws RecursoNoEncontradoException {
                                         // Arrange
-                                        usuario.setFallosInicioSesion(4);
-                                        when(usuarioRepo.findByEmailAndEstadoUsuarioNot(anyString(), any())).thenReturn(Optional.of(usuario));
+                                        when(usuarioRepo.incrementarFallosInicioSesion("juan@example.com")).thenReturn(1L);
 
                                         // Act
                                         usuarioService.incrementarIntentosFallidos("juan@example.com");
 
-                                        // Assert
-                                        assertEquals(5, usuario.getFallosInicioSesion());
-                                        assertNotNull(usuario.getTiempoBloqueo());
-                                        verify(usuarioRepo).save(usuario);
+                                        // Assert: el contador sube en la base de datos y el bloqueo se aplica desde 5 fallos
+                                        ArgumentCaptor<LocalDateTime> bloqueo = ArgumentCaptor.forClass(LocalDateTime.class);
+                                        verify(usuarioRepo).bloquearSiAlcanzaFallos(eq("juan@example.com"), eq(5), bloqueo.capture());
+                                        assertTrue(bloqueo.getValue().isAfter(LocalDateTime.now()));
+                                        verify(usuarioRepo, never()).save(any(Usuario.class));
+                                    }
+
+                                    @Test
+                                    void incrementarIntentosFallidos_LanzaExcepcionSiNoExiste() {
+                                        // Arrange
+                                        when(usuarioRepo.incrementarFallosInicioSesion(anyString())).thenReturn(0L);
+
+                                        // Act & Assert
+                                        assertThrows(RecursoNoEncontradoException.class,
+                                                () -> usuarioService.incrementarIntentosFallidos("nadie@example.com"));
+                                        verify(usuarioRepo, never()).bloquearSiAlcanzaFallos(anyString(), anyInt(), any());
                                     }
 
                                     @Test
@@ -0,0 +1,155 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.repositories.CuponRepo;
+import co.edu.uniquindio.laos.services.interfaces.BloqueoTareaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VencimientoCuponesServiceImpleTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2030, 1, 10, 0, 5);
+    private static final LocalDate HOY = AHORA.toLocalDate();
+
+    @Mock
+    private CuponRepo cuponRepo;
+
+    @Mock
+    private BloqueoTareaService bloqueoTareaService;
+
+    private MeterRegistry meterRegistry;
+
+    private VencimientoCuponesServiceImple vencimientoCuponesService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock reloj = Clock.fixed(AHORA.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        // Lotes de 2 cupones
+        vencimientoCuponesService = new VencimientoCuponesServiceImple(cuponRepo, bloqueoTareaService, meterRegistry, 2, 300, reloj);
+    }
+
+    @Test
+    void vencerCupones_procesaPorLotesHastaUnLoteIncompleto() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(VencimientoCuponesServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.buscarIdsVencidos(HOY, 2))
+                .thenReturn(List.of("k1", "k2"))
+                .thenReturn(List.of("k3"));
+        when(cuponRepo.marcarVencidos(anyCollection(), eq(HOY), any(Instant.class)))
+                .thenReturn(2L)
+                .thenReturn(1L);
+
+        // Act
+        int resultado = vencimientoCuponesService.vencerCupones();
+
+        // Assert
+        assertEquals(3, resultado);
+        verify(cuponRepo, times(2)).buscarIdsVencidos(HOY, 2);
+        verify(cuponRepo).marcarVencidos(List.of("k1", "k2"), HOY, AHORA.toInstant(ZoneOffset.UTC));
+        verify(bloqueoTareaService).liberar(VencimientoCuponesServiceImple.TAREA);
+        assertEquals(3.0, meterRegistry.get("laos.cupones.vencidos").counter().count());
+        assertEquals(1, meterRegistry.get("laos.cupones.vencimiento.duracion").timer().count());
+    }
+
+    @Test
+    void vencerCupones_loteYaVencidoPorOtroNodo_noCuentaLosQueNoCambiaron() {
+        // Arrange: otro nodo alcanzó a vencer uno de los cupones entre la búsqueda y la actualización
+        when(bloqueoTareaService.adquirir(eq(VencimientoCuponesServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.buscarIdsVencidos(HOY, 2)).thenReturn(List.of("k1"));
+        when(cuponRepo.marcarVencidos(anyCollection(), eq(HOY), any(Instant.class))).thenReturn(0L);
+
+        // Act
+        int resultado = vencimientoCuponesService.vencerCupones();
+
+        // Assert
+        assertEquals(0, resultado);
+        assertEquals(0.0, meterRegistry.get("laos.cupones.vencidos").counter().count());
+    }
+
+    @Test
+    void vencerCupones_sigueMientrasConserveElArriendoHastaVaciarLaCola() {
+        // Arrange: cuatro lotes completos y luego la cola vacía
+        when(bloqueoTareaService.adquirir(eq(VencimientoCuponesServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.buscarIdsVencidos(HOY, 2))
+                .thenReturn(List.of("k1", "k2"))
+                .thenReturn(List.of("k3", "k4"))
+                .thenReturn(List.of("k5", "k6"))
+                .thenReturn(List.of("k7", "k8"))
+                .thenReturn(List.of());
+        when(cuponRepo.marcarVencidos(anyCollection(), eq(HOY), any(Instant.class))).thenReturn(2L);
+
+        // Act
+        int resultado = vencimientoCuponesService.vencerCupones();
+
+        // Assert
+        assertEquals(8, resultado);
+        verify(cuponRepo, times(5)).buscarIdsVencidos(HOY, 2);
+        verify(cuponRepo, times(4)).marcarVencidos(anyCollection(), eq(HOY), any(Instant.class));
+        verify(bloqueoTareaService).liberar(VencimientoCuponesServiceImple.TAREA);
+    }
+
+    @Test
+    void vencerCupones_loteCompletoSinCambios_noVuelveABuscarLosMismos() {
+        // Arrange: otro nodo venció el lote entero entre la búsqueda y la actualización
+        when(bloqueoTareaService.adquirir(eq(VencimientoCuponesServiceImple.TAREA), any(Duration.class))).thenReturn(true);
+        when(cuponRepo.buscarIdsVencidos(HOY, 2)).thenReturn(List.of("k1", "k2"));
+        when(cuponRepo.marcarVencidos(anyCollection(), eq(HOY), any(Instant.class))).thenReturn(0L);
+
+        // Act
+        int resultado = vencimientoCuponesService.vencerCupones();
+
+        // Assert
+        assertEquals(0, resultado);
+        verify(cuponRepo, times(1)).buscarIdsVencidos(HOY, 2);
+    }
+
+    @Test
+    void vencerCupones_otroNodoTieneLaTarea_noHaceNada() {
+        // Arrange
+        when(bloqueoTareaService.adquirir(eq(VencimientoCuponesServiceImple.TAREA), any(Duration.class))).thenReturn(false);
+
+        // Act
+        int resultado = vencimientoCuponesService.vencerCupones();
+
+        // Assert
+        assertEquals(0, resultado);
+        verifyNoInteractions(cuponRepo);
+        verify(bloqueoTareaService, never()).liberar(anyString());
+    }
+
+    @Test
+    void vencerCupones_pierdeElArriendo_detieneElProceso() {
+        // Arrange: el arriendo se toma pero no se puede renovar después del primer lote
+        when(bloqueoTareaService.adquirir(eq(VencimientoCuponesServiceImple.TAREA), any(Duration.class)))
+                .thenReturn(true)
+                .thenReturn(false);
+        when(cuponRepo.buscarIdsVencidos(HOY, 2)).thenReturn(List.of("k1", "k2"));
+        when(cuponRepo.marcarVencidos(anyCollection(), eq(HOY), any(Instant.class))).thenReturn(2L);
+
+        // Act
+        int resultado = vencimientoCuponesService.vencerCupones();
+
+        // Assert
+        assertEquals(2, resultado);
+        verify(cuponRepo, times(1)).buscarIdsVencidos(HOY, 2);
+        verify(bloqueoTareaService).liberar(VencimientoCuponesServiceImple.TAREA);
+    }
+}
@@ -0,0 +1,134 @@
+package co.edu.uniquindio.laos.services.implementation;
+
+import co.edu.uniquindio.laos.exceptions.ConsultaSinIndiceException;
+import co.edu.uniquindio.laos.services.implementation.VerificacionIndicesServiceImple.ConsultaPlaneada;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VerificacionIndicesServiceImpleTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private VerificacionIndicesServiceImple verificacionIndicesService;
+
+    @Test
+    void buscarMetodosSinConsulta_todosLosMetodosDeRepositorioEstanDeclarados() {
+        // Act
+        List<String> faltantes = verificacionIndicesService.buscarMetodosSinConsulta();
+
+        // Assert
+        assertTrue(faltantes.isEmpty(), "Métodos sin consulta declarada: " + faltantes);
+    }
+
+    @Test
+    void buscarConsultasSinIndice_planesConIndice_noReportaNada() throws Exception {
+        // Arrange
+        when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(explain(etapa("IXSCAN")));
+
+        // Act
+        List<String> problemas = verificacionIndicesService.buscarConsultasSinIndice();
+
+        // Assert
+        assertTrue(problemas.isEmpty());
+        verify(mongoTemplate, times(VerificacionIndicesServiceImple.consultas().size()))
+                .executeCommand(any(Document.class));
+        verificacionIndicesService.verificar();
+    }
+
+    @Test
+    void buscarConsultasSinIndice_reportaLaConsultaQuePlaneaCollscan() {
+        // Arrange: solo la consulta de sugerencias recorre la colección
+        when(mongoTemplate.executeCommand(any(Document.class))).thenAnswer(i -> {
+            Document comando = i.getArgument(0);
+            Document find = comando.get("explain", Document.class);
+            return "sugerencias".equals(find.getString("find"))
+                    ? explain(etapa("COLLSCAN"))
+                    : explain(etapa("IXSCAN"));
+        });
+
+        // Act
+        List<String> problemas = verificacionIndicesService.buscarConsultasSinIndice();
+
+        // Assert
+        assertEquals(1, problemas.size());
+        assertTrue(problemas.get(0).startsWith("SugerenciaRepository.findByFecha"));
+        assertThrows(ConsultaSinIndiceException.class, () -> verificacionIndicesService.verificar());
+    }
+
+    @Test
+    void consultasAnotadas_tomanFiltroYOrdenDeLaAnotacionConValoresDeEjemplo() {
+        // Act
+        List<ConsultaPlaneada> consultas = VerificacionIndicesServiceImple.consultasAnotadas();
+
+        // Assert: los parámetros toman un valor del tipo declarado y ObjectId(?n) un ObjectId
+        ConsultaPlaneada porEstado = buscar(consultas, "CampaniaCuponesRepo.buscarPorEstado");
+        assertEquals("campanias_cupones", porEstado.coleccion());
+        assertEquals(new Document("estado", "EN_CURSO"), porEstado.filtro());
+        assertEquals(new Document("fechaInicio", 1), porEstado.orden());
+
+        ConsultaPlaneada porId = buscar(consultas, "CuponRepo.findByIdAndEstadoNot");
+        assertEquals("cupones", porId.coleccion());
+        assertInstanceOf(ObjectId.class, porId.filtro().get("_id"));
+
+        ConsultaPlaneada vigentes = buscar(consultas, "ApartadoHorarioRepo.buscarVigentes");
+        assertEquals(List.of("x"), vigentes.filtro().get("estilistaId", Document.class).get("$in"));
+        assertInstanceOf(Date.class, vigentes.filtro().get("expiraEn", Document.class).get("$gt"));
+
+        // Las agregaciones sin $match se declaran como recorridos completos
+        assertTrue(consultas.stream().noneMatch(c -> c.metodo().equals("QuejaSugerenciaRepo.contarQuejasPorTipoRaw")));
+        assertTrue(consultas.stream().anyMatch(c -> c.metodo().equals("QuejaSugerenciaRepo.contarQuejasPorUsuarioYTipoRaw")));
+    }
+
+    @Test
+    void contieneRecorridoCompleto_ignoraPlanesRechazados() {
+        // Arrange
+        Document queryPlanner = new Document("winningPlan", etapa("IXSCAN"))
+                .append("rejectedPlans", List.of(new Document("stage", "COLLSCAN")));
+
+        // Act & Assert
+        assertFalse(VerificacionIndicesServiceImple.contieneRecorridoCompleto(queryPlanner));
+    }
+
+    @Test
+    void contieneRecorridoCompleto_encuentraCollscanEnPlanConShards() {
+        // Arrange
+        Document queryPlanner = new Document("winningPlan", new Document("stage", "SHARD_MERGE")
+                .append("shards", List.of(
+                        new Document("winningPlan", etapa("IXSCAN")),
+                        new Document("winningPlan", etapa("COLLSCAN")))));
+
+        // Act & Assert
+        assertTrue(VerificacionIndicesServiceImple.contieneRecorridoCompleto(queryPlanner));
+    }
+
+    private static ConsultaPlaneada buscar(List<ConsultaPlaneada> consultas, String metodo) {
+        return consultas.stream()
+                .filter(c -> c.metodo().equals(metodo))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Document etapa(String tipo) {
+        return new Document("stage", "FETCH").append("inputStage", new Document("stage", tipo));
+    }
+
+    private static Document explain(Document plan) {
+        return new Document("queryPlanner", new Document("winningPlan", plan).append("rejectedPlans", List.of()));
+    }
+}